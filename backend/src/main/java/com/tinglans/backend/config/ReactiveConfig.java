@@ -0,0 +1,43 @@
+package com.tinglans.backend.config;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 响应式栈配置（reactive profile 下生效）
+ * 阻塞调用（Redis、DashScope、讯飞、AmapClient.block()）统一调度到有界弹性线程池，避免占用 Netty 事件循环
+ */
+@Data
+@Slf4j
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConfigurationProperties(prefix = "reactive.blocking-scheduler")
+public class ReactiveConfig {
+
+    /**
+     * 阻塞调用线程数上限
+     */
+    private Integer threadCap = 200;
+
+    /**
+     * 线程占满后的排队任务上限
+     */
+    private Integer queueCapacity = 10000;
+
+    /**
+     * 空闲线程存活时间（秒）
+     */
+    private Integer ttlSeconds = 60;
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler blockingScheduler() {
+        log.info("配置阻塞调用调度器: threadCap={}, queueCapacity={}", threadCap, queueCapacity);
+        return Schedulers.newBoundedElastic(threadCap, queueCapacity, "blocking-io", ttlSeconds);
+    }
+}
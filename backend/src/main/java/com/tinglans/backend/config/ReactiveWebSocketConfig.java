@@ -0,0 +1,24 @@
+package com.tinglans.backend.config;
+
+import com.tinglans.backend.controller.reactive.ReactiveSpeechStreamHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+
+import java.util.Map;
+
+/**
+ * WebSocket 配置（响应式栈）
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWebSocketConfig {
+
+    @Bean
+    public HandlerMapping webSocketHandlerMapping(ReactiveSpeechStreamHandler speechStreamHandler) {
+        // 优先于注解控制器的映射
+        return new SimpleUrlHandlerMapping(Map.of(ReactiveSpeechStreamHandler.PATH, speechStreamHandler), -1);
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -22,6 +23,9 @@ public class RedisConfig {
     @Value("${cache.default-ttl}")
     private long defaultTtl;
 
+    @Value("${cache.tombstone-ttl}")
+    private long tombstoneTtl;
+
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
         log.info("配置 RedisTemplate，默认TTL: {} 秒", defaultTtl);
@@ -53,8 +57,29 @@ public class RedisConfig {
         return template;
     }
 
+    /**
+     * Redis 发布订阅监听容器（用于跨节点通知，如语音转写任务结束）
+     * 不随应用自动启动，由使用方在首次需要时启动：Redis 不可用时应用仍可正常启动
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public boolean isAutoStartup() {
+                return false;
+            }
+        };
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
     @Bean
     public long cacheDefaultTtl() {
         return defaultTtl;
     }
+
+    @Bean
+    public long cacheTombstoneTtl() {
+        return tombstoneTtl;
+    }
 }
@@ -2,19 +2,33 @@ package com.tinglans.backend.config;
 
 import com.tinglans.backend.interceptor.JwtInterceptor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
  * Web MVC配置
- * 配置拦截器和跨域等
+ * 配置拦截器、异步请求超时等
  */
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
 
     private final JwtInterceptor jwtInterceptor;
+    private final XfyunConfig xfyunConfig;
+
+    /**
+     * 异步请求超时
+     * 语音转文字等接口返回 CompletableFuture，默认 30 秒超时会在转写完成前返回 503；
+     * 超时取等待转写结果的上限加一次查询请求的超时
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(xfyunConfig.getPollTimeout() + xfyunConfig.getTimeout());
+    }
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
@@ -31,7 +45,9 @@ public class WebConfig implements WebMvcConfigurer {
                 // 不需要鉴权的路径
                 .excludePathPatterns(
                         "/api/users/register",       // 注册
-                        "/api/users/login"           // 登录
+                        "/api/users/login",          // 登录
+                        "/api/speech/callback",      // 讯飞转写任务回调
+                        "/api/speech/stream"         // 实时转写 WebSocket 握手（token 通过查询参数校验）
                 );
     }
 }
@@ -0,0 +1,53 @@
+package com.tinglans.backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinglans.backend.controller.SpeechStreamEndpoint;
+import com.tinglans.backend.service.StreamingSpeechService;
+import com.tinglans.backend.util.JwtUtil;
+import jakarta.websocket.DeploymentException;
+import jakarta.websocket.server.ServerContainer;
+import jakarta.websocket.server.ServerEndpointConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerInitializedEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+/**
+ * WebSocket 配置（Servlet 栈）
+ * 使用内嵌 Tomcat 的 Jakarta WebSocket 容器注册端点；在 Web 服务器启动后、首次握手前注册，
+ * 不依赖 ServerContainer 与 Spring 初始化器的执行顺序
+ */
+@Slf4j
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+public class WebSocketConfig {
+
+    private final StreamingSpeechService streamingSpeechService;
+    private final JwtUtil jwtUtil;
+    private final ObjectMapper objectMapper;
+
+    @EventListener
+    public void registerEndpoints(ServletWebServerInitializedEvent event) throws DeploymentException {
+        ServerContainer serverContainer = (ServerContainer) event.getApplicationContext().getServletContext()
+                .getAttribute(ServerContainer.class.getName());
+        if (serverContainer == null) {
+            log.warn("未找到 WebSocket 容器，实时语音转写端点未注册");
+            return;
+        }
+
+        serverContainer.addEndpoint(ServerEndpointConfig.Builder
+                .create(SpeechStreamEndpoint.class, SpeechStreamEndpoint.PATH)
+                .configurator(new ServerEndpointConfig.Configurator() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <T> T getEndpointInstance(Class<T> endpointClass) {
+                        return (T) new SpeechStreamEndpoint(streamingSpeechService, jwtUtil, objectMapper);
+                    }
+                })
+                .build());
+        log.info("注册 WebSocket 端点: {}", SpeechStreamEndpoint.PATH);
+    }
+}
@@ -27,18 +27,108 @@ public class XfyunConfig {
      */
     private String apiSecret;
 
+    /**
+     * 文件上传服务地址
+     */
+    private String uploadBaseUrl = "https://upload-ost-api.xfyun.cn";
+
+    /**
+     * 转写任务服务地址
+     */
+    private String taskBaseUrl = "https://ost-api.xfyun.cn";
+
+    /**
+     * 小文件上传阈值（字节），超过则使用分块上传
+     */
+    private Long smallFileThreshold = 30L * 1024 * 1024;
+
+    /**
+     * 分块大小（字节）
+     */
+    private Integer chunkSize = 10 * 1024 * 1024;
+
+    /**
+     * 分块并发上传数
+     */
+    private Integer uploadParallelism = 4;
+
+    /**
+     * 单个分块上传失败后的重试次数
+     */
+    private Integer uploadMaxRetries = 2;
+
+    /**
+     * 上传前是否将 WAV 归一化为 16kHz 16bit 单声道 PCM
+     */
+    private Boolean normalizeAudio = true;
+
+    /**
+     * 上传前是否裁剪静音（只对归一化后的 16kHz 单声道 PCM 生效）
+     */
+    private Boolean vadEnabled = true;
+
+    /**
+     * 语音能量阈值（dBFS）
+     */
+    private Double vadEnergyThreshold = -40.0;
+
+    /**
+     * 清辅音过零率阈值（能量略低于阈值但过零率高于此值的帧视为语音）
+     */
+    private Double vadZcrThreshold = 0.3;
+
+    /**
+     * 首尾保留的静音时长（毫秒）
+     */
+    private Integer vadPadding = 200;
+
+    /**
+     * 句间停顿最大保留时长（毫秒），更长的停顿被压缩
+     */
+    private Integer vadMaxPause = 600;
+
     /**
      * 请求超时时间（毫秒）
      */
     private Integer timeout = 30000;
 
     /**
-     * 轮询查询任务状态的间隔时间（毫秒）
+     * 创建任务后首次查询任务状态的延迟（毫秒），之后的间隔逐次翻倍
+     */
+    private Integer pollInitialDelay = 500;
+
+    /**
+     * 轮询查询任务状态的最大间隔时间（毫秒），实际上限按音频时长计算，不超过该值
      */
     private Integer pollInterval = 5000;
 
     /**
-     * 轮询最大次数
+     * 等待转写结果的超时时间（毫秒）
+     */
+    private Long pollTimeout = 300000L;
+
+    /**
+     * 执行任务状态查询的线程数（两次查询之间不占用线程）
+     */
+    private Integer pollThreads = 2;
+
+    /**
+     * 任务完成回调地址（为空时不使用回调，只轮询）
+     */
+    private String callbackUrl;
+
+    /**
+     * 使用回调时，兜底轮询的首次查询延迟（毫秒）
+     */
+    private Integer callbackFallbackDelay = 30000;
+
+    /**
+     * 实时语音转写服务地址
+     */
+    private String rtasrUrl = "wss://rtasr.xfyun.cn/v1/ws";
+
+    /**
+     * 实时语音转写API密钥（与文件转写的密钥不同）
      */
-    private Integer maxPollCount = 60;
+    private String rtasrApiKey;
 }
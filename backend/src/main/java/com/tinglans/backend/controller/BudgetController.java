@@ -1,19 +1,24 @@
 package com.tinglans.backend.controller;
 
 import com.tinglans.backend.common.ApiResponse;
-import com.tinglans.backend.domain.Trip;
 import com.tinglans.backend.service.BudgetService;
 import com.tinglans.backend.service.TripService;
+import com.tinglans.backend.util.AuthUtil;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 预算控制器
  */
 @Slf4j
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 @RequestMapping("/api/trips")
 public class BudgetController {
@@ -22,26 +27,36 @@ public class BudgetController {
     private final TripService tripService;
 
     /**
-     * 获取行程的预算信息
+     * 获取行程的预算信息（行程创建者与参与者均可查看）
      * 返回总预算和各分类预算
      */
     @GetMapping("/{tripId}/budget/info")
-    public ResponseEntity<ApiResponse<BudgetService.BudgetInfo>> getBudgetInfo(@PathVariable String tripId) 
-            throws Exception {
-        Trip trip = tripService.validateAndGetTrip(tripId);
-        BudgetService.BudgetInfo budgetInfo = budgetService.getBudgetInfo(trip);
-        return ResponseEntity.ok(ApiResponse.success(budgetInfo));
+    public CompletableFuture<ResponseEntity<ApiResponse<BudgetService.BudgetInfo>>> getBudgetInfo(
+            @PathVariable String tripId,
+            HttpServletRequest httpRequest) {
+        String userId = AuthUtil.getCurrentUserId(httpRequest);
+        return tripService.validateAndGetTripAsync(tripId)
+                .thenApply(trip -> {
+                    tripService.validateTripAccess(trip, userId);
+                    return budgetService.getBudgetInfo(trip);
+                })
+                .thenApply(budgetInfo -> ResponseEntity.ok(ApiResponse.success(budgetInfo)));
     }
 
     /**
-     * 获取行程的预算分析信息
+     * 获取行程的预算分析信息（行程创建者与参与者均可查看）
      * 返回预算与实际开销
      */
     @GetMapping("/{tripId}/budget")
-    public ResponseEntity<ApiResponse<BudgetService.BudgetSummary>> getBudgetSummary(@PathVariable String tripId) 
-            throws Exception {
-        Trip trip = tripService.validateAndGetTrip(tripId);
-        BudgetService.BudgetSummary budgetSummary = budgetService.getBudgetSummary(trip);
-        return ResponseEntity.ok(ApiResponse.success(budgetSummary));
+    public CompletableFuture<ResponseEntity<ApiResponse<BudgetService.BudgetSummary>>> getBudgetSummary(
+            @PathVariable String tripId,
+            HttpServletRequest httpRequest) {
+        String userId = AuthUtil.getCurrentUserId(httpRequest);
+        return tripService.validateAndGetTripAsync(tripId)
+                .thenCompose(trip -> {
+                    tripService.validateTripAccess(trip, userId);
+                    return budgetService.getBudgetSummaryAsync(trip);
+                })
+                .thenApply(budgetSummary -> ResponseEntity.ok(ApiResponse.success(budgetSummary)));
     }
 }
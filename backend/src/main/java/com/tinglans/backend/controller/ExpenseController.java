@@ -2,49 +2,108 @@ package com.tinglans.backend.controller;
 
 import com.tinglans.backend.common.ApiResponse;
 import com.tinglans.backend.domain.Expense;
+import com.tinglans.backend.domain.Trip;
 import com.tinglans.backend.service.ExpenseService;
+import com.tinglans.backend.service.TripService;
+import com.tinglans.backend.service.VoicePipelineService;
+import com.tinglans.backend.util.AuthUtil;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 开销控制器
  */
 @Slf4j
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 @RequestMapping("/api/trips")
 public class ExpenseController {
 
     private final ExpenseService expenseService;
+    private final TripService tripService;
+    private final VoicePipelineService voicePipelineService;
 
     /**
-     * 从文本创建开销记录
+     * 从文本创建开销记录（行程创建者与参与者均可记账）
      */
     @PostMapping("/{tripId}/expenses")
     public ResponseEntity<ApiResponse<Expense>> createExpenseFromText(
             @PathVariable String tripId,
-            @RequestBody CreateExpenseRequest request) throws Exception {
+            @RequestBody CreateExpenseRequest request,
+            HttpServletRequest httpRequest) throws Exception {
+        String userId = AuthUtil.getCurrentUserId(httpRequest);
+        Trip trip = tripService.validateAndGetTrip(tripId);
+        tripService.validateTripAccess(trip, userId);
         Expense expense = expenseService.createExpenseFromText(tripId, request.getTextInput());
         return ResponseEntity.ok(ApiResponse.success("记账成功", expense));
     }
 
+    /**
+     * 从语音创建开销记录（SSE，行程创建者与参与者均可记账）
+     * 权限校验通过后才上传讯飞、转写；依次推送 transcript（识别文本）、generating、done（开销）或 error 事件
+     */
+    @PostMapping(value = "/{tripId}/expenses/voice", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter createExpenseFromVoice(
+            @PathVariable String tripId,
+            @RequestPart("audio") MultipartFile audioFile,
+            HttpServletRequest httpRequest) throws Exception {
+        String userId = AuthUtil.getCurrentUserId(httpRequest);
+        return VoicePipelineSseEmitter.run(voicePipelineService.getTimeoutMillis(),
+                listener -> voicePipelineService.createExpenseFromVoice(tripId, audioFile, userId, listener));
+    }
+
     /**
      * 获取行程的所有开销记录
      */
     @GetMapping("/{tripId}/expenses")
-    public ResponseEntity<ApiResponse<List<Expense>>> getExpenses(@PathVariable String tripId) throws Exception {
-        List<Expense> expenses = expenseService.getExpensesByTripId(tripId);
-        return ResponseEntity.ok(ApiResponse.success(expenses));
+    public CompletableFuture<ResponseEntity<ApiResponse<List<Expense>>>> getExpenses(
+            @PathVariable String tripId,
+            HttpServletRequest httpRequest) {
+        String userId = AuthUtil.getCurrentUserId(httpRequest);
+        return tripService.validateAndGetTripAsync(tripId)
+                .thenCompose(trip -> {
+                    tripService.validateTripAccess(trip, userId);
+                    return expenseService.getExpensesByTripIdAsync(tripId);
+                })
+                .thenApply(expenses -> ResponseEntity.ok(ApiResponse.success(expenses)));
+    }
+
+    /**
+     * 设置开销聚合分片数（仅行程创建者）
+     */
+    @PutMapping("/{tripId}/expenses/shards")
+    public ResponseEntity<ApiResponse<Void>> updateExpenseShardCount(
+            @PathVariable String tripId,
+            @RequestBody UpdateShardCountRequest request,
+            HttpServletRequest httpRequest) throws Exception {
+        String userId = AuthUtil.getCurrentUserId(httpRequest);
+        Trip trip = tripService.validateAndGetTrip(tripId);
+        tripService.validateTripPermission(trip, userId);
+        expenseService.updateExpenseShardCount(tripId, request.getShardCount());
+        return ResponseEntity.ok(ApiResponse.success("分片数设置成功", null));
     }
 
     @Data
     public static class CreateExpenseRequest {
         private String textInput;
     }
+
+    @Data
+    public static class UpdateShardCountRequest {
+        private Integer shardCount;
+    }
 }
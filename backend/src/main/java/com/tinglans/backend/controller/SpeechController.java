@@ -1,34 +1,113 @@
 package com.tinglans.backend.controller;
 
 import com.tinglans.backend.common.ApiResponse;
+import com.tinglans.backend.dto.TranscriptionJob;
 import com.tinglans.backend.service.SpeechService;
+import com.tinglans.backend.service.TranscriptionJobService;
+import com.tinglans.backend.util.AuthUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 语音控制器
  */
 @Slf4j
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 @RequestMapping("/api/speech")
 public class SpeechController {
 
     private final SpeechService speechService;
+    private final TranscriptionJobService transcriptionJobService;
 
     /**
      * 语音转文字
+     * 上传完成后释放请求线程，识别结果就绪时异步写回响应
      */
     @PostMapping(value = "/transcribe", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<ApiResponse<String>> transcribeAudio(
+    public CompletableFuture<ResponseEntity<ApiResponse<String>>> transcribeAudio(
             @RequestPart("audio") MultipartFile audioFile,
             HttpServletRequest httpRequest) throws Exception {
-        String transcript = speechService.transcribeVoice(audioFile);
-        return ResponseEntity.ok(ApiResponse.success("语音识别成功", transcript));
+        return speechService.transcribeVoiceAsync(audioFile)
+                .thenApply(transcript -> ResponseEntity.ok(ApiResponse.success("语音识别成功", transcript)));
+    }
+
+    /**
+     * 提交语音转写任务
+     * 上传音频并创建讯飞任务后立即返回任务ID，结果通过查询或 SSE 订阅获取
+     */
+    @PostMapping(value = "/jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<TranscriptionJob>> submitJob(
+            @RequestPart("audio") MultipartFile audioFile,
+            HttpServletRequest httpRequest) throws Exception {
+        String userId = AuthUtil.getCurrentUserId(httpRequest);
+        TranscriptionJob job = transcriptionJobService.submit(audioFile, userId);
+        return ResponseEntity.ok(ApiResponse.success("转写任务已提交", job));
+    }
+
+    /**
+     * 查询语音转写任务
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ApiResponse<TranscriptionJob>> getJob(
+            @PathVariable String jobId,
+            HttpServletRequest httpRequest) {
+        String userId = AuthUtil.getCurrentUserId(httpRequest);
+        TranscriptionJob job = transcriptionJobService.getJob(jobId, userId);
+        return ResponseEntity.ok(ApiResponse.success(job));
+    }
+
+    /**
+     * 订阅语音转写任务（SSE）
+     * 先推送当前状态，任务结束后推送最终状态并关闭连接
+     */
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeJob(
+            @PathVariable String jobId,
+            HttpServletRequest httpRequest) throws IOException {
+        String userId = AuthUtil.getCurrentUserId(httpRequest);
+        TranscriptionJob job = transcriptionJobService.getJob(jobId, userId);
+
+        SseEmitter emitter = new SseEmitter(transcriptionJobService.getAwaitTimeoutMillis());
+        emitter.send(SseEmitter.event().name("status").data(job));
+        if (job.getStatus().isFinished()) {
+            emitter.complete();
+            return emitter;
+        }
+
+        transcriptionJobService.awaitJob(jobId, userId).whenComplete((finished, error) -> {
+            try {
+                if (error != null) {
+                    emitter.send(SseEmitter.event().name("error").data("等待转写结果超时"));
+                } else {
+                    emitter.send(SseEmitter.event().name("status").data(finished));
+                }
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * 讯飞转写任务完成回调（无需鉴权，结果以回调后的查询为准）
+     */
+    @RequestMapping(value = "/callback", method = {RequestMethod.GET, RequestMethod.POST})
+    public ResponseEntity<ApiResponse<Void>> taskCallback(@RequestParam("task_id") String taskId) {
+        log.info("收到讯飞转写任务回调: taskId={}", taskId);
+        transcriptionJobService.handleCallback(taskId);
+        return ResponseEntity.ok(ApiResponse.success());
     }
 }
@@ -0,0 +1,104 @@
+package com.tinglans.backend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinglans.backend.common.BusinessException;
+import com.tinglans.backend.dto.StreamingTranscriptEvent;
+import com.tinglans.backend.interceptor.JwtInterceptor;
+import com.tinglans.backend.service.StreamingSpeechService;
+import com.tinglans.backend.util.JwtUtil;
+import jakarta.websocket.*;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * 实时语音转写 WebSocket 端点（/api/speech/stream）
+ * 前端发送二进制 PCM 帧（16kHz 16bit 单声道），发送文本 "end" 表示录音结束；
+ * 服务端推送 JSON 事件（partial/final/error），final 或 error 之后关闭连接。
+ * 浏览器 WebSocket 无法设置请求头，token 通过查询参数传递，每个连接一个实例
+ */
+@Slf4j
+public class SpeechStreamEndpoint extends Endpoint {
+
+    public static final String PATH = "/api/speech/stream";
+
+    /**
+     * 单条二进制消息上限：1 秒音频
+     */
+    private static final int MAX_BINARY_MESSAGE_SIZE = 32000;
+
+    private final StreamingSpeechService streamingSpeechService;
+    private final JwtUtil jwtUtil;
+    private final ObjectMapper objectMapper;
+
+    private StreamingSpeechService.Transcription transcription;
+
+    public SpeechStreamEndpoint(StreamingSpeechService streamingSpeechService, JwtUtil jwtUtil, ObjectMapper objectMapper) {
+        this.streamingSpeechService = streamingSpeechService;
+        this.jwtUtil = jwtUtil;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void onOpen(Session session, EndpointConfig config) {
+        String userId;
+        try {
+            List<String> tokens = session.getRequestParameterMap().get("token");
+            userId = jwtUtil.authenticate(JwtInterceptor.BEARER_PREFIX + (tokens == null ? "" : tokens.get(0)));
+        } catch (BusinessException e) {
+            close(session, new CloseReason(CloseReason.CloseCodes.VIOLATED_POLICY, e.getDisplayMessage()));
+            return;
+        }
+
+        session.setMaxBinaryMessageBufferSize(MAX_BINARY_MESSAGE_SIZE);
+        transcription = streamingSpeechService.start(userId, event -> send(session, event));
+
+        session.addMessageHandler(ByteBuffer.class, buffer -> {
+            byte[] pcm = new byte[buffer.remaining()];
+            buffer.get(pcm);
+            transcription.accept(pcm);
+        });
+        session.addMessageHandler(String.class, text -> {
+            if ("end".equals(text.trim())) {
+                transcription.finish();
+            }
+        });
+    }
+
+    @Override
+    public void onClose(Session session, CloseReason closeReason) {
+        if (transcription != null) {
+            transcription.cancel();
+        }
+    }
+
+    @Override
+    public void onError(Session session, Throwable error) {
+        log.warn("实时语音转写连接异常: {}", error.getMessage());
+    }
+
+    private void send(Session session, StreamingTranscriptEvent event) {
+        try {
+            synchronized (session) {
+                if (session.isOpen()) {
+                    session.getBasicRemote().sendText(objectMapper.writeValueAsString(event));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("实时语音转写结果推送失败: {}", e.getMessage());
+        }
+        if (event.isTerminal()) {
+            close(session, new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, event.getType()));
+        }
+    }
+
+    private void close(Session session, CloseReason reason) {
+        try {
+            session.close(reason);
+        } catch (IOException e) {
+            log.debug("关闭实时语音转写连接失败: {}", e.getMessage());
+        }
+    }
+}
@@ -1,29 +1,41 @@
 package com.tinglans.backend.controller;
 
 import com.tinglans.backend.common.ApiResponse;
+import com.tinglans.backend.domain.Day;
 import com.tinglans.backend.domain.Trip;
+import com.tinglans.backend.dto.CascadeDeleteStatus;
+import com.tinglans.backend.dto.PageResult;
+import com.tinglans.backend.dto.TripHeader;
 import com.tinglans.backend.dto.TripSummary;
 import com.tinglans.backend.service.TripService;
+import com.tinglans.backend.service.VoicePipelineService;
 import com.tinglans.backend.util.AuthUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 行程控制器
  */
 @Slf4j
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 @RequestMapping("/api/trips")
 public class TripController {
 
     private final TripService tripService;
+    private final VoicePipelineService voicePipelineService;
 
     /**
      * 从文本创建行程预览
@@ -37,13 +49,47 @@ public class TripController {
         return ResponseEntity.ok(ApiResponse.success("行程生成成功", trip));
     }
 
+    /**
+     * 从语音创建行程预览（SSE）
+     * 上传完成后释放请求线程，依次推送 transcript（识别文本）、generating、done（行程）或 error 事件
+     */
+    @PostMapping(value = "/voice", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter createTripFromVoice(
+            @RequestPart("audio") MultipartFile audioFile,
+            HttpServletRequest httpRequest) throws Exception {
+        String userId = AuthUtil.getCurrentUserId(httpRequest);
+        return VoicePipelineSseEmitter.run(voicePipelineService.getTimeoutMillis(),
+                listener -> voicePipelineService.createTripFromVoice(audioFile, userId, listener));
+    }
+
     /**
      * 获取行程详情
      */
     @GetMapping("/{tripId}/itinerary")
-    public ResponseEntity<ApiResponse<Trip>> getTripItinerary(@PathVariable String tripId) throws Exception {
-        Trip trip = tripService.validateAndGetTrip(tripId);
-        return ResponseEntity.ok(ApiResponse.success(trip));
+    public CompletableFuture<ResponseEntity<ApiResponse<Trip>>> getTripItinerary(@PathVariable String tripId) {
+        return tripService.validateAndGetTripAsync(tripId)
+                .thenApply(trip -> ResponseEntity.ok(ApiResponse.success(trip)));
+    }
+
+    /**
+     * 获取行程头部（日程索引，活动按天加载）
+     */
+    @GetMapping("/{tripId}/itinerary/header")
+    public CompletableFuture<ResponseEntity<ApiResponse<TripHeader>>> getTripHeader(@PathVariable String tripId) {
+        return tripService.getTripHeaderAsync(tripId)
+                .thenApply(header -> ResponseEntity.ok(ApiResponse.success(header)));
+    }
+
+    /**
+     * 获取行程某一天的日程
+     */
+    @GetMapping("/{tripId}/itinerary/days/{dayIndex}")
+    public CompletableFuture<ResponseEntity<ApiResponse<Day>>> getTripDay(
+            @PathVariable String tripId,
+            @PathVariable int dayIndex) {
+        return tripService.getTripDayAsync(tripId, dayIndex)
+                .thenApply(day -> ResponseEntity.ok(ApiResponse.success(day)));
     }
 
     /**
@@ -60,15 +106,16 @@ public class TripController {
     }
 
     /**
-     * 获取行程列表
+     * 获取行程列表（游标分页）
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<TripSummary>>> getConfirmedTrips(HttpServletRequest httpRequest) throws Exception {
+    public CompletableFuture<ResponseEntity<ApiResponse<PageResult<TripSummary>>>> getConfirmedTrips(
+            @RequestParam(required = false) Integer pageSize,
+            @RequestParam(required = false) String pageToken,
+            HttpServletRequest httpRequest) {
         String userId = AuthUtil.getCurrentUserId(httpRequest);
-        tripService.validateUserId(userId);
-        List<Trip> trips = tripService.getConfirmedTripsByUserId(userId);
-        List<TripSummary> summaries = tripService.convertToSummaryList(trips);
-        return ResponseEntity.ok(ApiResponse.success(summaries));
+        return tripService.getConfirmedTripSummariesAsync(userId, pageSize, pageToken)
+                .thenApply(page -> ResponseEntity.ok(ApiResponse.success(page)));
     }
 
     /**
@@ -83,8 +130,37 @@ public class TripController {
         return ResponseEntity.ok(ApiResponse.success("行程删除成功", null));
     }
 
+    /**
+     * 查询行程删除后开销的后台删除进度
+     */
+    @GetMapping("/{tripId}/deletion")
+    public ResponseEntity<ApiResponse<CascadeDeleteStatus>> getTripDeletionStatus(
+            @PathVariable String tripId,
+            HttpServletRequest httpRequest) {
+        String userId = AuthUtil.getCurrentUserId(httpRequest);
+        return ResponseEntity.ok(ApiResponse.success(tripService.getTripDeletionStatus(tripId, userId)));
+    }
+
+    /**
+     * 添加共享行程参与者
+     */
+    @PostMapping("/{tripId}/participants")
+    public ResponseEntity<ApiResponse<List<String>>> addParticipant(
+            @PathVariable String tripId,
+            @RequestBody AddParticipantRequest request,
+            HttpServletRequest httpRequest) throws Exception {
+        String userId = AuthUtil.getCurrentUserId(httpRequest);
+        Trip trip = tripService.addParticipant(tripId, userId, request.getUserId());
+        return ResponseEntity.ok(ApiResponse.success("参与者添加成功", trip.getParticipantIds()));
+    }
+
     @Data
     public static class CreateTripRequest {
         private String userInput;
     }
+
+    @Data
+    public static class AddParticipantRequest {
+        private String userId;
+    }
 }
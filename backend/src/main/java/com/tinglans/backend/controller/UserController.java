@@ -8,15 +8,19 @@ import jakarta.servlet.http.HttpServletRequest;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 用户控制器
  * 职责：路由分发、参数绑定
  */
 @Slf4j
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 @RequestMapping("/api/users")
 public class UserController {
@@ -50,20 +54,20 @@ public class UserController {
      * 获取当前用户信息
      */
     @GetMapping("/me")
-    public ResponseEntity<ApiResponse<User>> getCurrentUser(HttpServletRequest httpRequest) throws Exception {
+    public CompletableFuture<ResponseEntity<ApiResponse<User>>> getCurrentUser(HttpServletRequest httpRequest) {
         String userId = AuthUtil.getCurrentUserId(httpRequest);
-        User user = userService.validateAndGetUser(userId);
-        return ResponseEntity.ok(ApiResponse.success(user));
+        return userService.validateAndGetUserAsync(userId)
+                .thenApply(user -> ResponseEntity.ok(ApiResponse.success(user)));
     }
 
     /**
      * 获取当前用户偏好
      */
     @GetMapping("/preferences")
-    public ResponseEntity<ApiResponse<String>> getPreferences(HttpServletRequest httpRequest) throws Exception {
+    public CompletableFuture<ResponseEntity<ApiResponse<String>>> getPreferences(HttpServletRequest httpRequest) {
         String userId = AuthUtil.getCurrentUserId(httpRequest);
-        String preferences = userService.getPreferences(userId);
-        return ResponseEntity.ok(ApiResponse.success(preferences));
+        return userService.getPreferencesAsync(userId)
+                .thenApply(preferences -> ResponseEntity.ok(ApiResponse.success(preferences)));
     }
 
     /**
@@ -0,0 +1,59 @@
+package com.tinglans.backend.controller;
+
+import com.tinglans.backend.dto.VoicePipelineEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * 语音一步生成的 SSE 适配（Servlet 栈）
+ * 阶段事件转为 SSE 推送，终止事件后关闭连接；连接超时、出错或客户端断开时取消流水线，不再调用大模型
+ */
+@Slf4j
+final class VoicePipelineSseEmitter {
+
+    private VoicePipelineSseEmitter() {
+    }
+
+    static SseEmitter run(long timeoutMillis, Pipeline pipeline) throws Exception {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        CompletableFuture<?> result = pipeline.start(sendTo(emitter));
+
+        // 正常结束时 result 已完成，cancel 不产生影响
+        emitter.onTimeout(() -> {
+            log.warn("语音一步生成 SSE 连接超时，取消处理");
+            result.cancel(true);
+        });
+        emitter.onError(error -> {
+            log.warn("语音一步生成 SSE 连接出错，取消处理: {}", error.getMessage());
+            result.cancel(true);
+        });
+        emitter.onCompletion(() -> result.cancel(true));
+        return emitter;
+    }
+
+    private static Consumer<VoicePipelineEvent> sendTo(SseEmitter emitter) {
+        return event -> {
+            try {
+                emitter.send(SseEmitter.event().name(event.getStage()).data(event));
+                if (event.isTerminal()) {
+                    emitter.complete();
+                }
+            } catch (IOException e) {
+                // 客户端已断开，completeWithError 触发 onCompletion 取消流水线
+                emitter.completeWithError(e);
+            }
+        };
+    }
+
+    /**
+     * 启动语音一步生成，返回时音频已上传完成；取消返回的 future 即停止后续阶段
+     */
+    @FunctionalInterface
+    interface Pipeline {
+        CompletableFuture<?> start(Consumer<VoicePipelineEvent> listener) throws Exception;
+    }
+}
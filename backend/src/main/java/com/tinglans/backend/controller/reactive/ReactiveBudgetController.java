@@ -0,0 +1,65 @@
+package com.tinglans.backend.controller.reactive;
+
+import com.tinglans.backend.common.ApiResponse;
+import com.tinglans.backend.service.BudgetService;
+import com.tinglans.backend.service.TripService;
+import com.tinglans.backend.util.AuthUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * 预算控制器（响应式栈）
+ */
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@RequestMapping("/api/trips")
+public class ReactiveBudgetController {
+
+    private final BudgetService budgetService;
+    private final TripService tripService;
+    private final Scheduler blockingScheduler;
+
+    /**
+     * 获取行程的预算信息（行程创建者与参与者均可查看）
+     * 返回总预算和各分类预算
+     */
+    @GetMapping("/{tripId}/budget/info")
+    public Mono<ResponseEntity<ApiResponse<BudgetService.BudgetInfo>>> getBudgetInfo(
+            @PathVariable String tripId,
+            ServerWebExchange exchange) {
+        String userId = AuthUtil.getCurrentUserId(exchange);
+        return Mono.defer(() -> Mono.fromFuture(tripService.validateAndGetTripAsync(tripId)))
+                .subscribeOn(blockingScheduler)
+                .map(trip -> {
+                    tripService.validateTripAccess(trip, userId);
+                    return budgetService.getBudgetInfo(trip);
+                })
+                .map(budgetInfo -> ResponseEntity.ok(ApiResponse.success(budgetInfo)));
+    }
+
+    /**
+     * 获取行程的预算分析信息（行程创建者与参与者均可查看）
+     * 返回预算与实际开销
+     */
+    @GetMapping("/{tripId}/budget")
+    public Mono<ResponseEntity<ApiResponse<BudgetService.BudgetSummary>>> getBudgetSummary(
+            @PathVariable String tripId,
+            ServerWebExchange exchange) {
+        String userId = AuthUtil.getCurrentUserId(exchange);
+        return Mono.defer(() -> Mono.fromFuture(tripService.validateAndGetTripAsync(tripId)))
+                .subscribeOn(blockingScheduler)
+                .flatMap(trip -> {
+                    tripService.validateTripAccess(trip, userId);
+                    return Mono.fromFuture(budgetService.getBudgetSummaryAsync(trip));
+                })
+                .map(budgetSummary -> ResponseEntity.ok(ApiResponse.success(budgetSummary)));
+    }
+}
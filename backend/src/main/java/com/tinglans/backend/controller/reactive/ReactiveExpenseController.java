@@ -0,0 +1,113 @@
+package com.tinglans.backend.controller.reactive;
+
+import com.tinglans.backend.common.ApiResponse;
+import com.tinglans.backend.common.BusinessException;
+import com.tinglans.backend.common.ResponseCode;
+import com.tinglans.backend.controller.ExpenseController.CreateExpenseRequest;
+import com.tinglans.backend.controller.ExpenseController.UpdateShardCountRequest;
+import com.tinglans.backend.domain.Expense;
+import com.tinglans.backend.domain.Trip;
+import com.tinglans.backend.service.ExpenseService;
+import com.tinglans.backend.service.TripService;
+import com.tinglans.backend.service.VoicePipelineService;
+import com.tinglans.backend.util.AuthUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.List;
+
+/**
+ * 开销控制器（响应式栈）
+ */
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@RequestMapping("/api/trips")
+public class ReactiveExpenseController {
+
+    private final ExpenseService expenseService;
+    private final TripService tripService;
+    private final VoicePipelineService voicePipelineService;
+    private final Scheduler blockingScheduler;
+
+    /**
+     * 从文本创建开销记录（行程创建者与参与者均可记账）
+     */
+    @PostMapping("/{tripId}/expenses")
+    public Mono<ResponseEntity<ApiResponse<Expense>>> createExpenseFromText(
+            @PathVariable String tripId,
+            @RequestBody CreateExpenseRequest request,
+            ServerWebExchange exchange) {
+        String userId = AuthUtil.getCurrentUserId(exchange);
+        return Mono.fromCallable(() -> {
+                    Trip trip = tripService.validateAndGetTrip(tripId);
+                    tripService.validateTripAccess(trip, userId);
+                    return expenseService.createExpenseFromText(tripId, request.getTextInput());
+                })
+                .subscribeOn(blockingScheduler)
+                .map(expense -> ResponseEntity.ok(ApiResponse.success("记账成功", expense)));
+    }
+
+    /**
+     * 从语音创建开销记录（SSE，行程创建者与参与者均可记账）
+     * 权限校验通过后才上传讯飞、转写；依次推送 transcript（识别文本）、generating、done（开销）或 error 事件
+     */
+    @PostMapping(value = "/{tripId}/expenses/voice", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> createExpenseFromVoice(
+            @PathVariable String tripId,
+            @RequestPart("audio") Mono<FilePart> audioPart,
+            ServerWebExchange exchange) {
+        String userId = AuthUtil.getCurrentUserId(exchange);
+        return audioPart
+                .switchIfEmpty(Mono.error(new BusinessException(ResponseCode.INVALID_PARAM, "音频文件不能为空")))
+                .flatMapMany(filePart -> VoicePipelineSse.run(filePart, blockingScheduler, (audioFile, listener) ->
+                        voicePipelineService.createExpenseFromVoiceFile(tripId, audioFile, userId, listener)));
+    }
+
+    /**
+     * 获取行程的所有开销记录
+     */
+    @GetMapping("/{tripId}/expenses")
+    public Mono<ResponseEntity<ApiResponse<List<Expense>>>> getExpenses(
+            @PathVariable String tripId,
+            ServerWebExchange exchange) {
+        String userId = AuthUtil.getCurrentUserId(exchange);
+        return Mono.defer(() -> Mono.fromFuture(tripService.validateAndGetTripAsync(tripId)))
+                .subscribeOn(blockingScheduler)
+                .flatMap(trip -> {
+                    tripService.validateTripAccess(trip, userId);
+                    return Mono.fromFuture(expenseService.getExpensesByTripIdAsync(tripId));
+                })
+                .map(expenses -> ResponseEntity.ok(ApiResponse.success(expenses)));
+    }
+
+    /**
+     * 设置开销聚合分片数（仅行程创建者）
+     */
+    @PutMapping("/{tripId}/expenses/shards")
+    public Mono<ResponseEntity<ApiResponse<Void>>> updateExpenseShardCount(
+            @PathVariable String tripId,
+            @RequestBody UpdateShardCountRequest request,
+            ServerWebExchange exchange) {
+        String userId = AuthUtil.getCurrentUserId(exchange);
+        return Mono.fromCallable(() -> {
+                    Trip trip = tripService.validateAndGetTrip(tripId);
+                    tripService.validateTripPermission(trip, userId);
+                    expenseService.updateExpenseShardCount(tripId, request.getShardCount());
+                    return ResponseEntity.ok(ApiResponse.<Void>success("分片数设置成功", null));
+                })
+                .subscribeOn(blockingScheduler);
+    }
+}
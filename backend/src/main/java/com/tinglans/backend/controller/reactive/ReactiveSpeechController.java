@@ -0,0 +1,162 @@
+package com.tinglans.backend.controller.reactive;
+
+import com.tinglans.backend.common.ApiResponse;
+import com.tinglans.backend.common.BusinessException;
+import com.tinglans.backend.common.ResponseCode;
+import com.tinglans.backend.dto.TranscriptionJob;
+import com.tinglans.backend.service.SpeechService;
+import com.tinglans.backend.service.TranscriptionJobService;
+import com.tinglans.backend.util.AuthUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 语音控制器（响应式栈）
+ */
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@RequestMapping("/api/speech")
+public class ReactiveSpeechController {
+
+    private final SpeechService speechService;
+    private final TranscriptionJobService transcriptionJobService;
+    private final Scheduler blockingScheduler;
+
+    /**
+     * 语音转文字
+     * 上传内容以非阻塞方式写入临时文件，上传讯飞在阻塞调度器上执行；
+     * 上传完成后即删除临时文件，识别结果由轮询 future 异步返回
+     */
+    @PostMapping(value = "/transcribe", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Mono<ResponseEntity<ApiResponse<String>>> transcribeAudio(@RequestPart("audio") Mono<FilePart> audioPart) {
+        return audioPart
+                .switchIfEmpty(Mono.error(new BusinessException(ResponseCode.INVALID_PARAM, "音频文件不能为空")))
+                .flatMap(filePart -> Mono.usingWhen(
+                        Mono.fromCallable(() -> Files.createTempFile("audio_", extensionOf(filePart.filename())))
+                                .subscribeOn(blockingScheduler),
+                        tempPath -> filePart.transferTo(tempPath)
+                                .then(Mono.fromCallable(() -> transcribe(tempPath.toFile()))
+                                        .subscribeOn(blockingScheduler)),
+                        tempPath -> Mono.fromRunnable(() -> deleteTempFile(tempPath))
+                                .subscribeOn(blockingScheduler)))
+                .flatMap(Mono::fromFuture)
+                .map(transcript -> ResponseEntity.ok(ApiResponse.success("语音识别成功", transcript)));
+    }
+
+    /**
+     * 提交语音转写任务
+     * 上传内容写入临时文件，上传讯飞并创建任务后立即返回任务ID
+     */
+    @PostMapping(value = "/jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Mono<ResponseEntity<ApiResponse<TranscriptionJob>>> submitJob(
+            @RequestPart("audio") Mono<FilePart> audioPart,
+            ServerWebExchange exchange) {
+        String userId = AuthUtil.getCurrentUserId(exchange);
+        return audioPart
+                .switchIfEmpty(Mono.error(new BusinessException(ResponseCode.INVALID_PARAM, "音频文件不能为空")))
+                .flatMap(filePart -> Mono.usingWhen(
+                        Mono.fromCallable(() -> Files.createTempFile("audio_", extensionOf(filePart.filename())))
+                                .subscribeOn(blockingScheduler),
+                        tempPath -> filePart.transferTo(tempPath)
+                                .then(Mono.fromCallable(() -> transcriptionJobService.submitFromFile(tempPath.toFile(), userId))
+                                        .subscribeOn(blockingScheduler)),
+                        tempPath -> Mono.fromRunnable(() -> deleteTempFile(tempPath))
+                                .subscribeOn(blockingScheduler)))
+                .map(job -> ResponseEntity.ok(ApiResponse.success("转写任务已提交", job)));
+    }
+
+    /**
+     * 查询语音转写任务
+     */
+    @GetMapping("/jobs/{jobId}")
+    public Mono<ResponseEntity<ApiResponse<TranscriptionJob>>> getJob(
+            @PathVariable String jobId,
+            ServerWebExchange exchange) {
+        String userId = AuthUtil.getCurrentUserId(exchange);
+        return Mono.fromCallable(() -> transcriptionJobService.getJob(jobId, userId))
+                .subscribeOn(blockingScheduler)
+                .map(job -> ResponseEntity.ok(ApiResponse.success(job)));
+    }
+
+    /**
+     * 订阅语音转写任务（SSE）
+     * 先推送当前状态，任务结束后推送最终状态并结束
+     */
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> subscribeJob(
+            @PathVariable String jobId,
+            ServerWebExchange exchange) {
+        String userId = AuthUtil.getCurrentUserId(exchange);
+        return Mono.fromCallable(() -> transcriptionJobService.getJob(jobId, userId))
+                .subscribeOn(blockingScheduler)
+                .flatMapMany(job -> {
+                    Flux<ServerSentEvent<Object>> current = Flux.just(statusEvent(job));
+                    if (job.getStatus().isFinished()) {
+                        return current;
+                    }
+                    Mono<ServerSentEvent<Object>> finished = Mono.fromCallable(() -> transcriptionJobService.awaitJob(jobId, userId))
+                            .subscribeOn(blockingScheduler)
+                            .flatMap(Mono::fromFuture)
+                            .map(this::statusEvent)
+                            .onErrorResume(error -> Mono.just(ServerSentEvent.builder()
+                                    .event("error")
+                                    .data((Object) "等待转写结果超时")
+                                    .build()));
+                    return current.concatWith(finished);
+                });
+    }
+
+    /**
+     * 讯飞转写任务完成回调（无需鉴权，结果以回调后的查询为准）
+     */
+    @RequestMapping(value = "/callback", method = {RequestMethod.GET, RequestMethod.POST})
+    public Mono<ResponseEntity<ApiResponse<Void>>> taskCallback(@RequestParam("task_id") String taskId) {
+        log.info("收到讯飞转写任务回调: taskId={}", taskId);
+        return Mono.fromRunnable(() -> transcriptionJobService.handleCallback(taskId))
+                .subscribeOn(blockingScheduler)
+                .then(Mono.fromSupplier(() -> ResponseEntity.ok(ApiResponse.<Void>success())));
+    }
+
+    private ServerSentEvent<Object> statusEvent(TranscriptionJob job) {
+        return ServerSentEvent.builder().event("status").data((Object) job).build();
+    }
+
+    private CompletableFuture<String> transcribe(File audioFile) throws Exception {
+        if (audioFile.length() == 0) {
+            throw new BusinessException(ResponseCode.INVALID_PARAM, "音频文件不能为空");
+        }
+        log.info("收到语音转文字请求，大小: {} bytes", audioFile.length());
+        return speechService.transcribeFromFileAsync(audioFile);
+    }
+
+    private String extensionOf(String filename) {
+        return filename != null && filename.contains(".")
+                ? filename.substring(filename.lastIndexOf("."))
+                : ".tmp";
+    }
+
+    private void deleteTempFile(Path tempPath) {
+        try {
+            Files.deleteIfExists(tempPath);
+        } catch (Exception e) {
+            log.warn("临时文件删除失败: {}", tempPath, e);
+        }
+    }
+}
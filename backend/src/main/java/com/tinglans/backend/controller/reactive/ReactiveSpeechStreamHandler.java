@@ -0,0 +1,90 @@
+package com.tinglans.backend.controller.reactive;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinglans.backend.common.BusinessException;
+import com.tinglans.backend.dto.StreamingTranscriptEvent;
+import com.tinglans.backend.interceptor.JwtInterceptor;
+import com.tinglans.backend.service.StreamingSpeechService;
+import com.tinglans.backend.util.JwtUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+
+/**
+ * 实时语音转写 WebSocket 处理器（响应式栈，/api/speech/stream）
+ * 协议与 Servlet 栈的 SpeechStreamEndpoint 相同：二进制 PCM 帧 + 文本 "end"，推送 partial/final/error 事件
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveSpeechStreamHandler implements WebSocketHandler {
+
+    public static final String PATH = "/api/speech/stream";
+
+    private final StreamingSpeechService streamingSpeechService;
+    private final JwtUtil jwtUtil;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public Mono<Void> handle(WebSocketSession session) {
+        String userId;
+        try {
+            String token = UriComponentsBuilder.fromUri(session.getHandshakeInfo().getUri())
+                    .build().getQueryParams().getFirst("token");
+            userId = jwtUtil.authenticate(JwtInterceptor.BEARER_PREFIX + (token == null ? "" : token));
+        } catch (BusinessException e) {
+            return session.close(CloseStatus.POLICY_VIOLATION.withReason(e.getDisplayMessage()));
+        }
+
+        // 识别结果来自流式识别客户端的线程，经 sink 串行推送
+        Sinks.Many<String> outbound = Sinks.many().unicast().onBackpressureBuffer();
+        StreamingSpeechService.Transcription transcription = streamingSpeechService.start(userId, event -> {
+            outbound.emitNext(toJson(event), Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+            if (event.isTerminal()) {
+                outbound.emitComplete(Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+            }
+        });
+
+        Mono<Void> input = session.receive()
+                .doOnNext(message -> {
+                    if (message.getType() == WebSocketMessage.Type.BINARY) {
+                        byte[] pcm = new byte[message.getPayload().readableByteCount()];
+                        message.getPayload().read(pcm);
+                        transcription.accept(pcm);
+                    } else if (message.getType() == WebSocketMessage.Type.TEXT
+                            && "end".equals(message.getPayloadAsText().trim())) {
+                        transcription.finish();
+                    }
+                })
+                .doFinally(signal -> {
+                    // 前端断开（或推送完最终结果后关闭）时关闭识别会话并结束推送
+                    transcription.cancel();
+                    outbound.tryEmitComplete();
+                })
+                .then();
+        Mono<Void> output = session.send(outbound.asFlux().map(session::textMessage))
+                .then(session.close());
+
+        return Mono.when(input, output);
+    }
+
+    private String toJson(StreamingTranscriptEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("实时转写事件序列化失败", e);
+        }
+    }
+}
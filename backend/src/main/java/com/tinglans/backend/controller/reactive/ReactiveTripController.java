@@ -0,0 +1,175 @@
+package com.tinglans.backend.controller.reactive;
+
+import com.tinglans.backend.common.ApiResponse;
+import com.tinglans.backend.common.BusinessException;
+import com.tinglans.backend.common.ResponseCode;
+import com.tinglans.backend.controller.TripController.AddParticipantRequest;
+import com.tinglans.backend.controller.TripController.CreateTripRequest;
+import com.tinglans.backend.domain.Day;
+import com.tinglans.backend.domain.Trip;
+import com.tinglans.backend.dto.CascadeDeleteStatus;
+import com.tinglans.backend.dto.PageResult;
+import com.tinglans.backend.dto.TripHeader;
+import com.tinglans.backend.dto.TripSummary;
+import com.tinglans.backend.service.TripService;
+import com.tinglans.backend.service.VoicePipelineService;
+import com.tinglans.backend.util.AuthUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.List;
+
+/**
+ * 行程控制器（响应式栈）
+ */
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@RequestMapping("/api/trips")
+public class ReactiveTripController {
+
+    private final TripService tripService;
+    private final VoicePipelineService voicePipelineService;
+    private final Scheduler blockingScheduler;
+
+    /**
+     * 从文本创建行程预览
+     */
+    @PostMapping
+    public Mono<ResponseEntity<ApiResponse<Trip>>> createTripFromText(
+            @RequestBody CreateTripRequest request,
+            ServerWebExchange exchange) {
+        String userId = AuthUtil.getCurrentUserId(exchange);
+        return Mono.fromCallable(() -> tripService.createTripFromText(request.getUserInput(), userId))
+                .subscribeOn(blockingScheduler)
+                .map(trip -> ResponseEntity.ok(ApiResponse.success("行程生成成功", trip)));
+    }
+
+    /**
+     * 从语音创建行程预览（SSE）
+     * 上传内容写入临时文件，上传讯飞后即删除；依次推送 transcript（识别文本）、generating、done（行程）或 error 事件
+     */
+    @PostMapping(value = "/voice", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> createTripFromVoice(
+            @RequestPart("audio") Mono<FilePart> audioPart,
+            ServerWebExchange exchange) {
+        String userId = AuthUtil.getCurrentUserId(exchange);
+        return audioPart
+                .switchIfEmpty(Mono.error(new BusinessException(ResponseCode.INVALID_PARAM, "音频文件不能为空")))
+                .flatMapMany(filePart -> VoicePipelineSse.run(filePart, blockingScheduler, (audioFile, listener) ->
+                        voicePipelineService.createTripFromVoiceFile(audioFile, userId, listener)));
+    }
+
+    /**
+     * 获取行程详情
+     */
+    @GetMapping("/{tripId}/itinerary")
+    public Mono<ResponseEntity<ApiResponse<Trip>>> getTripItinerary(@PathVariable String tripId) {
+        return Mono.defer(() -> Mono.fromFuture(tripService.validateAndGetTripAsync(tripId)))
+                .subscribeOn(blockingScheduler)
+                .map(trip -> ResponseEntity.ok(ApiResponse.success(trip)));
+    }
+
+    /**
+     * 获取行程头部（日程索引，活动按天加载）
+     */
+    @GetMapping("/{tripId}/itinerary/header")
+    public Mono<ResponseEntity<ApiResponse<TripHeader>>> getTripHeader(@PathVariable String tripId) {
+        return Mono.defer(() -> Mono.fromFuture(tripService.getTripHeaderAsync(tripId)))
+                .subscribeOn(blockingScheduler)
+                .map(header -> ResponseEntity.ok(ApiResponse.success(header)));
+    }
+
+    /**
+     * 获取行程某一天的日程
+     */
+    @GetMapping("/{tripId}/itinerary/days/{dayIndex}")
+    public Mono<ResponseEntity<ApiResponse<Day>>> getTripDay(
+            @PathVariable String tripId,
+            @PathVariable int dayIndex) {
+        return Mono.defer(() -> Mono.fromFuture(tripService.getTripDayAsync(tripId, dayIndex)))
+                .subscribeOn(blockingScheduler)
+                .map(day -> ResponseEntity.ok(ApiResponse.success(day)));
+    }
+
+    /**
+     * 确认行程
+     */
+    @PostMapping("/{tripId}/confirm")
+    public Mono<ResponseEntity<ApiResponse<TripSummary>>> confirmTrip(
+            @PathVariable String tripId,
+            ServerWebExchange exchange) {
+        String userId = AuthUtil.getCurrentUserId(exchange);
+        return Mono.fromCallable(() -> tripService.confirmTrip(tripId, userId))
+                .subscribeOn(blockingScheduler)
+                .map(trip -> ResponseEntity.ok(ApiResponse.success("行程确认成功", tripService.convertToSummary(trip))));
+    }
+
+    /**
+     * 获取行程列表（游标分页）
+     */
+    @GetMapping
+    public Mono<ResponseEntity<ApiResponse<PageResult<TripSummary>>>> getConfirmedTrips(
+            @RequestParam(required = false) Integer pageSize,
+            @RequestParam(required = false) String pageToken,
+            ServerWebExchange exchange) {
+        String userId = AuthUtil.getCurrentUserId(exchange);
+        // 先查 Redis 索引（阻塞），因此整个调用在阻塞调度器上发起
+        return Mono.defer(() -> Mono.fromFuture(tripService.getConfirmedTripSummariesAsync(userId, pageSize, pageToken)))
+                .subscribeOn(blockingScheduler)
+                .map(page -> ResponseEntity.ok(ApiResponse.success(page)));
+    }
+
+    /**
+     * 删除行程
+     */
+    @DeleteMapping("/{tripId}")
+    public Mono<ResponseEntity<ApiResponse<Void>>> deleteTrip(
+            @PathVariable String tripId,
+            ServerWebExchange exchange) {
+        String userId = AuthUtil.getCurrentUserId(exchange);
+        return Mono.fromCallable(() -> {
+                    tripService.deleteTrip(tripId, userId);
+                    return ResponseEntity.ok(ApiResponse.<Void>success("行程删除成功", null));
+                })
+                .subscribeOn(blockingScheduler);
+    }
+
+    /**
+     * 查询行程删除后开销的后台删除进度（读取 Redis，在阻塞调度器上执行）
+     */
+    @GetMapping("/{tripId}/deletion")
+    public Mono<ResponseEntity<ApiResponse<CascadeDeleteStatus>>> getTripDeletionStatus(
+            @PathVariable String tripId,
+            ServerWebExchange exchange) {
+        String userId = AuthUtil.getCurrentUserId(exchange);
+        return Mono.fromCallable(() -> ResponseEntity.ok(ApiResponse.success(tripService.getTripDeletionStatus(tripId, userId))))
+                .subscribeOn(blockingScheduler);
+    }
+
+    /**
+     * 添加共享行程参与者
+     */
+    @PostMapping("/{tripId}/participants")
+    public Mono<ResponseEntity<ApiResponse<List<String>>>> addParticipant(
+            @PathVariable String tripId,
+            @RequestBody AddParticipantRequest request,
+            ServerWebExchange exchange) {
+        String userId = AuthUtil.getCurrentUserId(exchange);
+        return Mono.fromCallable(() -> tripService.addParticipant(tripId, userId, request.getUserId()))
+                .subscribeOn(blockingScheduler)
+                .map(trip -> ResponseEntity.ok(ApiResponse.success("参与者添加成功", trip.getParticipantIds())));
+    }
+}
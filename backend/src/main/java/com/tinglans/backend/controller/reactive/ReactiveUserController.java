@@ -0,0 +1,99 @@
+package com.tinglans.backend.controller.reactive;
+
+import com.tinglans.backend.common.ApiResponse;
+import com.tinglans.backend.controller.UserController.LoginRequest;
+import com.tinglans.backend.controller.UserController.LoginResponse;
+import com.tinglans.backend.controller.UserController.RegisterRequest;
+import com.tinglans.backend.controller.UserController.RegisterResponse;
+import com.tinglans.backend.controller.UserController.UpdatePreferencesRequest;
+import com.tinglans.backend.domain.User;
+import com.tinglans.backend.service.UserService;
+import com.tinglans.backend.util.AuthUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * 用户控制器（响应式栈）
+ */
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@RequestMapping("/api/users")
+public class ReactiveUserController {
+
+    private final UserService userService;
+    private final Scheduler blockingScheduler;
+
+    /**
+     * 用户注册（BCrypt 计算与 Firestore 写入均在阻塞调度器上执行）
+     */
+    @PostMapping("/register")
+    public Mono<ResponseEntity<ApiResponse<RegisterResponse>>> register(@RequestBody RegisterRequest request) {
+        return Mono.fromCallable(() -> userService.register(request.getUsername(), request.getPassword()))
+                .subscribeOn(blockingScheduler)
+                .map(userId -> {
+                    RegisterResponse response = new RegisterResponse();
+                    response.setUserId(userId);
+                    response.setUsername(request.getUsername());
+                    return ResponseEntity.ok(ApiResponse.success("注册成功", response));
+                });
+    }
+
+    /**
+     * 用户登录
+     */
+    @PostMapping("/login")
+    public Mono<ResponseEntity<ApiResponse<LoginResponse>>> login(@RequestBody LoginRequest request) {
+        return Mono.fromCallable(() -> userService.login(request.getUsername(), request.getPassword()))
+                .subscribeOn(blockingScheduler)
+                .map(token -> {
+                    LoginResponse response = new LoginResponse();
+                    response.setToken(token);
+                    return ResponseEntity.ok(ApiResponse.success("登录成功", response));
+                });
+    }
+
+    /**
+     * 获取当前用户信息（读取用户缓存是阻塞的 Redis 调用，在阻塞调度器上发起）
+     */
+    @GetMapping("/me")
+    public Mono<ResponseEntity<ApiResponse<User>>> getCurrentUser(ServerWebExchange exchange) {
+        String userId = AuthUtil.getCurrentUserId(exchange);
+        return Mono.defer(() -> Mono.fromFuture(userService.validateAndGetUserAsync(userId)))
+                .subscribeOn(blockingScheduler)
+                .map(user -> ResponseEntity.ok(ApiResponse.success(user)));
+    }
+
+    /**
+     * 获取当前用户偏好（同上，在阻塞调度器上发起）
+     */
+    @GetMapping("/preferences")
+    public Mono<ResponseEntity<ApiResponse<String>>> getPreferences(ServerWebExchange exchange) {
+        String userId = AuthUtil.getCurrentUserId(exchange);
+        return Mono.defer(() -> Mono.fromFuture(userService.getPreferencesAsync(userId)))
+                .subscribeOn(blockingScheduler)
+                .map(preferences -> ResponseEntity.ok(ApiResponse.success(preferences)));
+    }
+
+    /**
+     * 更新当前用户偏好
+     */
+    @PutMapping("/preferences")
+    public Mono<ResponseEntity<ApiResponse<Void>>> updatePreferences(
+            @RequestBody UpdatePreferencesRequest request,
+            ServerWebExchange exchange) {
+        String userId = AuthUtil.getCurrentUserId(exchange);
+        return Mono.fromCallable(() -> {
+                    userService.updatePreferences(userId, request.getPreferences());
+                    return ResponseEntity.ok(ApiResponse.<Void>success("偏好更新成功", null));
+                })
+                .subscribeOn(blockingScheduler);
+    }
+}
@@ -0,0 +1,83 @@
+package com.tinglans.backend.controller.reactive;
+
+import com.tinglans.backend.common.BusinessException;
+import com.tinglans.backend.common.ResponseCode;
+import com.tinglans.backend.dto.VoicePipelineEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.codec.multipart.FilePart;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * 语音一步生成的 SSE 适配（响应式栈）
+ * 上传内容写入临时文件，在阻塞调度器上启动流水线，上传讯飞后即删除临时文件；阶段事件转为 SSE 推送，客户端断开时取消流水线
+ */
+@Slf4j
+final class VoicePipelineSse {
+
+    private VoicePipelineSse() {
+    }
+
+    static Flux<ServerSentEvent<Object>> run(FilePart filePart, Scheduler blockingScheduler, Pipeline pipeline) {
+        // 事件可能在上传返回前产生（命中识别缓存时），先缓存在 sink 中，上传完成后再订阅
+        Sinks.Many<VoicePipelineEvent> events = Sinks.many().unicast().onBackpressureBuffer();
+        Consumer<VoicePipelineEvent> listener = event -> {
+            events.tryEmitNext(event);
+            if (event.isTerminal()) {
+                events.tryEmitComplete();
+            }
+        };
+
+        Mono<CompletableFuture<?>> upload = Mono.usingWhen(
+                Mono.fromCallable(() -> Files.createTempFile("audio_", extensionOf(filePart.filename())))
+                        .subscribeOn(blockingScheduler),
+                tempPath -> filePart.transferTo(tempPath)
+                        .then(Mono.fromCallable(() -> start(tempPath.toFile(), pipeline, listener))
+                                .subscribeOn(blockingScheduler)),
+                tempPath -> Mono.fromRunnable(() -> deleteTempFile(tempPath))
+                        .subscribeOn(blockingScheduler));
+        // 客户端断开时取消流水线，不再调用大模型
+        return upload.flatMapMany(result -> events.asFlux().doOnCancel(() -> result.cancel(true)))
+                .map(event -> ServerSentEvent.builder().event(event.getStage()).data((Object) event).build());
+    }
+
+    private static CompletableFuture<?> start(File audioFile, Pipeline pipeline,
+                                              Consumer<VoicePipelineEvent> listener) throws Exception {
+        if (audioFile.length() == 0) {
+            throw new BusinessException(ResponseCode.INVALID_PARAM, "音频文件不能为空");
+        }
+        log.info("收到语音一步生成请求，大小: {} bytes", audioFile.length());
+        return pipeline.start(audioFile, listener);
+    }
+
+    private static String extensionOf(String filename) {
+        return filename != null && filename.contains(".")
+                ? filename.substring(filename.lastIndexOf("."))
+                : ".tmp";
+    }
+
+    private static void deleteTempFile(Path tempPath) {
+        try {
+            Files.deleteIfExists(tempPath);
+        } catch (Exception e) {
+            log.warn("临时文件删除失败: {}", tempPath, e);
+        }
+    }
+
+    /**
+     * 以落盘的音频文件启动语音一步生成，返回时文件已上传完成
+     */
+    @FunctionalInterface
+    interface Pipeline {
+        CompletableFuture<?> start(File audioFile, Consumer<VoicePipelineEvent> listener) throws Exception;
+    }
+}
@@ -0,0 +1,79 @@
+package com.tinglans.backend.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 开销聚合实体
+ * 按类别维护的累计金额与笔数，随开销写入增量更新
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseAggregate {
+
+    /**
+     * 所属行程ID
+     */
+    private String tripId;
+
+    /**
+     * 类别 -> 累计金额（分）
+     */
+    @Builder.Default
+    private Map<String, Long> totals = new HashMap<>();
+
+    /**
+     * 类别 -> 累计笔数
+     */
+    @Builder.Default
+    private Map<String, Long> counts = new HashMap<>();
+
+    /**
+     * 增量写入的分片数，多人共享行程可调大以分散写入
+     */
+    @Builder.Default
+    private Integer shardCount = 1;
+
+    /**
+     * 最后更新时间
+     */
+    private Instant updatedAt;
+
+    /**
+     * 由开销明细全量计算聚合
+     */
+    public static ExpenseAggregate fromExpenses(String tripId, List<Expense> expenses) {
+        ExpenseAggregate aggregate = ExpenseAggregate.builder()
+                .tripId(tripId)
+                .updatedAt(Instant.now())
+                .build();
+        for (Expense expense : expenses) {
+            long amount = expense.getAmountCents() != null ? expense.getAmountCents() : 0L;
+            aggregate.getTotals().merge(expense.getCategory(), amount, Long::sum);
+            aggregate.getCounts().merge(expense.getCategory(), 1L, Long::sum);
+        }
+        return aggregate;
+    }
+
+    /**
+     * 仍有开销记录的类别累计金额（删除后笔数归零的类别不返回）
+     */
+    public Map<String, Long> activeTotals() {
+        Map<String, Long> result = new HashMap<>();
+        totals.forEach((category, total) -> {
+            if (counts.getOrDefault(category, 0L) > 0) {
+                result.put(category, total);
+            }
+        });
+        return result;
+    }
+}
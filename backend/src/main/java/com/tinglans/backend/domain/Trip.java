@@ -64,6 +64,11 @@ public class Trip {
      * 行程天数列表
      */
     private List<Day> days;
+
+    /**
+     * 共享行程的参与者用户ID（不含创建者），参与者可共同记账
+     */
+    private List<String> participantIds;
     
     /**
      * 创建时间
@@ -0,0 +1,48 @@
+package com.tinglans.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * 行程删除后开销级联删除的进度DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CascadeDeleteStatus {
+
+    /**
+     * 行程ID
+     */
+    private String tripId;
+
+    /**
+     * 是否已完成（没有未完成的删除记录时视为已完成）
+     */
+    private boolean completed;
+
+    /**
+     * 已删除的开销数
+     */
+    private long deletedExpenses;
+
+    /**
+     * 删除请求时间
+     */
+    private Instant requestedAt;
+
+    /**
+     * 最近一次开始删除的时间
+     */
+    private Instant startedAt;
+
+    /**
+     * 最近一次失败原因，失败的删除会定期重试
+     */
+    private String lastError;
+}
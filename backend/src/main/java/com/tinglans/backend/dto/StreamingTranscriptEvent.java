@@ -0,0 +1,57 @@
+package com.tinglans.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 实时转写推送事件DTO
+ * partial: 识别中的文本（已确认的句子 + 当前句子的中间结果）；final: 最终文本，之后连接关闭；error: 出错，之后连接关闭
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StreamingTranscriptEvent {
+
+    public static final String TYPE_PARTIAL = "partial";
+    public static final String TYPE_FINAL = "final";
+    public static final String TYPE_ERROR = "error";
+
+    /**
+     * 事件类型
+     */
+    private String type;
+
+    /**
+     * 识别文本
+     */
+    private String text;
+
+    /**
+     * 错误信息
+     */
+    private String message;
+
+    public static StreamingTranscriptEvent partial(String text) {
+        return StreamingTranscriptEvent.builder().type(TYPE_PARTIAL).text(text).build();
+    }
+
+    public static StreamingTranscriptEvent complete(String text) {
+        return StreamingTranscriptEvent.builder().type(TYPE_FINAL).text(text).build();
+    }
+
+    public static StreamingTranscriptEvent error(String message) {
+        return StreamingTranscriptEvent.builder().type(TYPE_ERROR).message(message).build();
+    }
+
+    /**
+     * 是否为会话的最后一个事件
+     */
+    @JsonIgnore
+    public boolean isTerminal() {
+        return !TYPE_PARTIAL.equals(type);
+    }
+}
@@ -0,0 +1,84 @@
+package com.tinglans.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * 语音转写任务DTO
+ * 提交后立即返回，状态保存在 Redis 中，可在任意节点查询或订阅
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TranscriptionJob {
+
+    /**
+     * 任务ID
+     */
+    private String id;
+
+    /**
+     * 提交用户ID
+     */
+    private String userId;
+
+    /**
+     * 讯飞转写任务ID
+     */
+    private String taskId;
+
+    /**
+     * 任务状态
+     */
+    private Status status;
+
+    /**
+     * 识别结果文本
+     */
+    private String transcript;
+
+    /**
+     * 失败原因
+     */
+    private String errorMessage;
+
+    /**
+     * 创建时间
+     */
+    private Instant createdAt;
+
+    /**
+     * 更新时间
+     */
+    private Instant updatedAt;
+
+    /**
+     * 任务状态
+     */
+    public enum Status {
+        /**
+         * 转写中
+         */
+        RUNNING,
+        /**
+         * 转写成功
+         */
+        SUCCEEDED,
+        /**
+         * 转写失败
+         */
+        FAILED;
+
+        /**
+         * 是否已结束
+         */
+        public boolean isFinished() {
+            return this != RUNNING;
+        }
+    }
+}
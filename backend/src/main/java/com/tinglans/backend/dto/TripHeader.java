@@ -0,0 +1,105 @@
+package com.tinglans.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 行程头部DTO
+ * 用于详情页首屏，只包含每天的索引信息，活动按天通过 /itinerary/days/{n} 加载
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripHeader {
+
+    /**
+     * 行程ID
+     */
+    private String id;
+
+    /**
+     * 所属用户ID
+     */
+    private String userId;
+
+    /**
+     * 行程标题
+     */
+    private String title;
+
+    /**
+     * 目的地
+     */
+    private String destination;
+
+    /**
+     * 开始日期
+     */
+    private LocalDate startDate;
+
+    /**
+     * 结束日期
+     */
+    private LocalDate endDate;
+
+    /**
+     * 总预算（分）
+     */
+    private Long totalBudget;
+
+    /**
+     * 同行人数
+     */
+    private TripSummary.Headcount headcount;
+
+    /**
+     * 共享行程参与者ID列表
+     */
+    private List<String> participantIds;
+
+    /**
+     * 日程索引
+     */
+    private List<DayEntry> days;
+
+    /**
+     * 创建时间
+     */
+    private Instant createdAt;
+
+    /**
+     * 更新时间
+     */
+    private Instant updatedAt;
+
+    /**
+     * 日程索引项
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DayEntry {
+        /**
+         * 第几天（从1开始）
+         */
+        private Integer dayIndex;
+
+        /**
+         * 日期
+         */
+        private LocalDate date;
+
+        /**
+         * 活动数量
+         */
+        private Integer activityCount;
+    }
+}
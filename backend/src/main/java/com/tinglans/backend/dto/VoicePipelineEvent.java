@@ -0,0 +1,68 @@
+package com.tinglans.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 语音一步生成（语音 → 行程 / 开销）阶段推送事件DTO
+ * transcript: 识别完成，text 为识别文本；generating: 开始调用大模型生成；done: 生成完成，data 为行程或开销，之后连接关闭；
+ * error: 出错，之后连接关闭
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoicePipelineEvent {
+
+    public static final String STAGE_TRANSCRIPT = "transcript";
+    public static final String STAGE_GENERATING = "generating";
+    public static final String STAGE_DONE = "done";
+    public static final String STAGE_ERROR = "error";
+
+    /**
+     * 阶段
+     */
+    private String stage;
+
+    /**
+     * 识别文本
+     */
+    private String text;
+
+    /**
+     * 生成结果（行程或开销）
+     */
+    private Object data;
+
+    /**
+     * 错误信息
+     */
+    private String message;
+
+    public static VoicePipelineEvent transcript(String text) {
+        return VoicePipelineEvent.builder().stage(STAGE_TRANSCRIPT).text(text).build();
+    }
+
+    public static VoicePipelineEvent generating() {
+        return VoicePipelineEvent.builder().stage(STAGE_GENERATING).build();
+    }
+
+    public static VoicePipelineEvent done(Object data) {
+        return VoicePipelineEvent.builder().stage(STAGE_DONE).data(data).build();
+    }
+
+    public static VoicePipelineEvent error(String message) {
+        return VoicePipelineEvent.builder().stage(STAGE_ERROR).message(message).build();
+    }
+
+    /**
+     * 是否为最后一个事件
+     */
+    @JsonIgnore
+    public boolean isTerminal() {
+        return STAGE_DONE.equals(stage) || STAGE_ERROR.equals(stage);
+    }
+}
@@ -0,0 +1,102 @@
+package com.tinglans.backend.interceptor;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinglans.backend.common.ApiResponse;
+import com.tinglans.backend.common.BusinessException;
+import com.tinglans.backend.util.JwtUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * JWT过滤器（响应式栈）
+ * 与 JwtInterceptor 使用相同的鉴权路径，校验通过后将用户ID存入 exchange attributes
+ */
+@Slf4j
+@Component
+@Order(-100)
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class JwtWebFilter implements WebFilter {
+
+    private static final List<PathPattern> INCLUDE_PATTERNS = parse(
+            "/api/users/me",
+            "/api/users/preferences",
+            "/api/trips/**",
+            "/api/expenses/**",
+            "/api/budgets/**",
+            "/api/speech/**"
+    );
+
+    private static final List<PathPattern> EXCLUDE_PATTERNS = parse(
+            "/api/users/register",
+            "/api/users/login",
+            "/api/speech/callback",
+            "/api/speech/stream"
+    );
+
+    private final JwtUtil jwtUtil;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+        if (!matches(INCLUDE_PATTERNS, path) || matches(EXCLUDE_PATTERNS, path)) {
+            return chain.filter(exchange);
+        }
+
+        String userId;
+        try {
+            userId = jwtUtil.authenticate(
+                    exchange.getRequest().getHeaders().getFirst(JwtInterceptor.AUTHORIZATION_HEADER));
+        } catch (BusinessException e) {
+            return writeError(exchange.getResponse(), e);
+        }
+
+        exchange.getAttributes().put(JwtInterceptor.USER_ID_ATTRIBUTE, userId);
+        log.debug("Token验证成功, userId={}", userId);
+        return chain.filter(exchange);
+    }
+
+    /**
+     * 过滤器中的异常不会进入 GlobalExceptionHandler，直接写出统一响应
+     */
+    private Mono<Void> writeError(ServerHttpResponse response, BusinessException e) {
+        ApiResponse<Void> body = ApiResponse.error(e.getResponseCode(), e.getDisplayMessage());
+        byte[] bytes;
+        try {
+            bytes = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException ex) {
+            return Mono.error(ex);
+        }
+
+        response.setStatusCode(e.getResponseCode().getHttpStatus());
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        DataBuffer buffer = response.bufferFactory().wrap(bytes);
+        return response.writeWith(Mono.just(buffer));
+    }
+
+    private static boolean matches(List<PathPattern> patterns, PathContainer path) {
+        return patterns.stream().anyMatch(pattern -> pattern.matches(path));
+    }
+
+    private static List<PathPattern> parse(String... patterns) {
+        return Stream.of(patterns).map(PathPatternParser.defaultInstance::parse).toList();
+    }
+}
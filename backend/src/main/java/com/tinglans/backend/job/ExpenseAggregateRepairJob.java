@@ -0,0 +1,63 @@
+package com.tinglans.backend.job;
+
+import com.tinglans.backend.domain.ExpenseAggregate;
+import com.tinglans.backend.repository.TripRepository;
+import com.tinglans.backend.service.ExpenseService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 开销聚合修复任务
+ * 启动参数 --repair-expense-aggregates 修复所有行程，
+ * --repair-expense-aggregates=tripId1,tripId2 仅修复指定行程
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExpenseAggregateRepairJob implements ApplicationRunner {
+
+    static final String OPTION_NAME = "repair-expense-aggregates";
+
+    private final TripRepository tripRepository;
+    private final ExpenseService expenseService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(OPTION_NAME)) {
+            return;
+        }
+
+        List<String> tripIds = new ArrayList<>();
+        List<String> values = args.getOptionValues(OPTION_NAME);
+        if (values != null) {
+            values.forEach(value -> tripIds.addAll(StringUtils.commaDelimitedListToSet(value)));
+        }
+        if (tripIds.isEmpty()) {
+            tripIds.addAll(tripRepository.findAllTripIds());
+        }
+
+        log.info("开始修复开销聚合: count={}", tripIds.size());
+        int failed = 0;
+        for (String tripId : tripIds) {
+            try {
+                ExpenseAggregate aggregate = expenseService.repairExpenseAggregate(tripId.trim());
+                log.debug("开销聚合已修复: tripId={}, totals={}", tripId, aggregate.getTotals());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("开销聚合修复被中断: tripId={}", tripId);
+                break;
+            } catch (Exception e) {
+                failed++;
+                log.error("修复开销聚合失败: tripId={}", tripId, e);
+            }
+        }
+        log.info("开销聚合修复完成: total={}, failed={}", tripIds.size(), failed);
+    }
+}
@@ -0,0 +1,220 @@
+package com.tinglans.backend.job;
+
+import com.tinglans.backend.common.BusinessException;
+import com.tinglans.backend.common.ResponseCode;
+import com.tinglans.backend.dto.CascadeDeleteStatus;
+import com.tinglans.backend.repository.ExpenseRepository;
+import com.tinglans.backend.repository.TripRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 行程开销级联删除任务
+ * 删除行程后在后台线程分页删除 trips/{tripId}/expenses 与 expenseStats，不占用请求线程。
+ * 待删除的行程记录在 Redis 集合中，进度写入 Redis 哈希；失败或宕机未完成的删除定期重试（启动时立即执行一次）
+ */
+@Slf4j
+@Component
+public class ExpenseCascadeDeleteJob implements ApplicationRunner {
+
+    private static final String PENDING_KEY = "trip:cascade-delete:pending";
+    private static final String PROGRESS_KEY_PREFIX = "trip:cascade-delete:progress:";
+
+    private final ExpenseRepository expenseRepository;
+    private final TripRepository tripRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final int pageSize;
+    private final long retryIntervalMs;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService retryScheduler;
+
+    /**
+     * 本节点正在删除的行程，重试时跳过
+     */
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    public ExpenseCascadeDeleteJob(ExpenseRepository expenseRepository,
+                                   TripRepository tripRepository,
+                                   StringRedisTemplate stringRedisTemplate,
+                                   @Value("${expense.cascade-delete.page-size:500}") int pageSize,
+                                   @Value("${expense.cascade-delete.threads:2}") int threads,
+                                   @Value("${expense.cascade-delete.retry-interval-ms:300000}") long retryIntervalMs) {
+        this.expenseRepository = expenseRepository;
+        this.tripRepository = tripRepository;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.pageSize = pageSize;
+        this.retryIntervalMs = retryIntervalMs;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "expense-cascade-delete-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "expense-cascade-delete-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 启动后立即继续上次未完成的级联删除，之后定期重试失败的删除
+     * 在调度线程上执行，Redis 不可用时只记录告警，不影响应用启动
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        retryScheduler.scheduleWithFixedDelay(this::retryPending, 0, retryIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("开销级联删除重试已启动: retryIntervalMs={}", retryIntervalMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 未完成的行程仍保留在待删除集合中，下次启动时继续
+        retryScheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * 重新提交待删除集合中本节点未在处理的行程
+     */
+    void retryPending() {
+        try {
+            Set<String> pending = stringRedisTemplate.opsForSet().members(PENDING_KEY);
+            if (pending == null || pending.isEmpty()) {
+                return;
+            }
+            log.info("重试未完成的开销级联删除: count={}", pending.size());
+            pending.forEach(this::submit);
+        } catch (RuntimeException e) {
+            log.warn("读取待删除行程失败，等待下次重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 在删除行程文档之前登记，保证删除过程中宕机也能在重启后继续
+     *
+     * @param tripId 行程ID
+     * @param userId 删除行程的用户ID（只有该用户可以查询删除进度）
+     */
+    public void markPending(String tripId, String userId) {
+        stringRedisTemplate.opsForHash().putAll(PROGRESS_KEY_PREFIX + tripId,
+                Map.of("userId", userId, "requestedAt", Instant.now().toString()));
+        stringRedisTemplate.opsForSet().add(PENDING_KEY, tripId);
+    }
+
+    /**
+     * 提交后台级联删除（该行程已在本节点删除中时忽略）
+     */
+    public void submit(String tripId) {
+        if (!running.add(tripId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    cascadeDelete(tripId);
+                } finally {
+                    running.remove(tripId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.remove(tripId);
+            log.warn("应用关闭中，开销级联删除等待下次启动继续: tripId={}", tripId);
+        }
+    }
+
+    /**
+     * 查询级联删除进度
+     *
+     * @return 未登记或已完成时返回空 Map
+     */
+    public Map<Object, Object> getProgress(String tripId) {
+        return stringRedisTemplate.opsForHash().entries(PROGRESS_KEY_PREFIX + tripId);
+    }
+
+    /**
+     * 查询级联删除状态
+     *
+     * @param tripId 行程ID
+     * @param userId 当前用户ID
+     * @return 删除进度；进度不存在时视为已完成
+     */
+    public CascadeDeleteStatus getStatus(String tripId, String userId) {
+        Map<Object, Object> progress = getProgress(tripId);
+        if (progress.isEmpty()) {
+            return CascadeDeleteStatus.builder().tripId(tripId).completed(true).build();
+        }
+        if (!userId.equals(progress.get("userId"))) {
+            throw new BusinessException(ResponseCode.PERMISSION_DENIED, "无权查看该行程的删除进度");
+        }
+        Object deleted = progress.get("deleted");
+        return CascadeDeleteStatus.builder()
+                .tripId(tripId)
+                .completed(false)
+                .deletedExpenses(deleted != null ? Long.parseLong(deleted.toString()) : 0)
+                .requestedAt(parseInstant(progress.get("requestedAt")))
+                .startedAt(parseInstant(progress.get("startedAt")))
+                .lastError((String) progress.get("lastError"))
+                .build();
+    }
+
+    private static Instant parseInstant(Object value) {
+        return value != null ? Instant.parse(value.toString()) : null;
+    }
+
+    void cascadeDelete(String tripId) {
+        String progressKey = PROGRESS_KEY_PREFIX + tripId;
+        try {
+            // 行程删除失败时不能删除其开销
+            if (tripRepository.getFromFirestore(tripId).isPresent()) {
+                log.warn("行程仍存在，取消开销级联删除: tripId={}", tripId);
+                complete(tripId);
+                return;
+            }
+
+            stringRedisTemplate.opsForHash().put(progressKey, "startedAt", Instant.now().toString());
+            long deleted = expenseRepository.deleteByTripId(tripId, pageSize, count -> {
+                stringRedisTemplate.opsForHash().put(progressKey, "deleted", String.valueOf(count));
+                log.debug("开销级联删除进度: tripId={}, deleted={}", tripId, count);
+            });
+
+            complete(tripId);
+            log.info("开销级联删除完成: tripId={}, deleted={}", tripId, deleted);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("开销级联删除被中断，等待下次启动继续: tripId={}", tripId);
+        } catch (Exception e) {
+            log.error("开销级联删除失败，等待下次重试: tripId={}", tripId, e);
+            recordError(progressKey, e);
+        }
+    }
+
+    private void recordError(String progressKey, Exception error) {
+        try {
+            stringRedisTemplate.opsForHash().put(progressKey, "lastError", String.valueOf(error.getMessage()));
+        } catch (RuntimeException e) {
+            log.warn("记录开销级联删除失败原因失败: {}", e.getMessage());
+        }
+    }
+
+    private void complete(String tripId) {
+        stringRedisTemplate.opsForSet().remove(PENDING_KEY, tripId);
+        stringRedisTemplate.delete(PROGRESS_KEY_PREFIX + tripId);
+    }
+}
@@ -0,0 +1,50 @@
+package com.tinglans.backend.job;
+
+import com.tinglans.backend.repository.TripRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 行程 days 存储格式迁移任务
+ * 启动参数 --migrate-trip-days 按当前 trip.storage.days-format 重写所有行程文档
+ * （trip.storage.poi-references 开启时同时将内嵌 POI 移至 pois 集合），
+ * 重写前后读取逻辑同时兼容两种格式；重写以读取时的 updateTime 为前置条件，可在服务运行期间执行
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TripDaysFormatMigrationJob implements ApplicationRunner {
+
+    static final String OPTION_NAME = "migrate-trip-days";
+
+    private final TripRepository tripRepository;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(OPTION_NAME)) {
+            return;
+        }
+
+        List<String> tripIds = tripRepository.findAllTripIds();
+        log.info("开始迁移行程日程存储格式: count={}", tripIds.size());
+        int failed = 0;
+        for (String tripId : tripIds) {
+            try {
+                tripRepository.rewriteInCurrentFormat(tripId);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("行程日程格式迁移被中断: tripId={}", tripId);
+                break;
+            } catch (Exception e) {
+                failed++;
+                log.error("迁移行程日程格式失败: tripId={}", tripId, e);
+            }
+        }
+        log.info("行程日程存储格式迁移完成: total={}, failed={}", tripIds.size(), failed);
+    }
+}
@@ -0,0 +1,77 @@
+package com.tinglans.backend.job;
+
+import com.tinglans.backend.domain.User;
+import com.tinglans.backend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+
+/**
+ * 用户名映射回填任务
+ * 启动参数 --backfill-usernames 为已有用户补建 usernames 映射（文档ID为用户名的 base64url 编码），
+ * 映射上线后登录只按用户名键读取，存量用户需先执行一次本任务；映射文档ID改为编码形式后需重新执行一次
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UsernameIndexBackfillJob implements ApplicationRunner {
+
+    static final String OPTION_NAME = "backfill-usernames";
+
+    private static final int PAGE_SIZE = 500;
+
+    private final UserRepository userRepository;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(OPTION_NAME)) {
+            return;
+        }
+
+        log.info("开始回填用户名映射");
+        int total = 0;
+        int conflicts = 0;
+        int failed = 0;
+        String startAfterId = null;
+        try {
+            List<User> page;
+            do {
+                page = userRepository.findPage(startAfterId, PAGE_SIZE);
+                for (User user : page) {
+                    total++;
+                    if (!StringUtils.hasText(user.getUsername())) {
+                        continue;
+                    }
+                    try {
+                        if (!userRepository.linkUsername(user.getUsername(), user.getId())) {
+                            conflicts++;
+                            log.warn("用户名已被其他用户占用，需人工处理: username={}, userId={}",
+                                    user.getUsername(), user.getId());
+                        }
+                    } catch (InterruptedException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        failed++;
+                        log.error("回填用户名映射失败: userId={}", user.getId(), e);
+                    }
+                }
+                if (!page.isEmpty()) {
+                    startAfterId = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == PAGE_SIZE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("用户名映射回填被中断: processed={}", total);
+            return;
+        } catch (Exception e) {
+            log.error("读取用户列表失败: processed={}", total, e);
+            return;
+        }
+        log.info("用户名映射回填完成: total={}, conflicts={}, failed={}", total, conflicts, failed);
+    }
+}
@@ -0,0 +1,237 @@
+package com.tinglans.backend.repository;
+
+import com.tinglans.backend.domain.Expense;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 支出组提交写入器
+ * 并发的新增支出先进入队列，在时间窗口或数量上限内合并为一个 WriteBatch 提交（同一行程的聚合增量合并为一次分片写入），
+ * 提交完成后逐个完成调用方的 future。组提交失败或行程聚合尚未初始化时，退回逐条事务保存。
+ * 停止时先拒绝新的写入，再提交队列中剩余的写入；无法提交的写入以异常完成，调用方不会一直等待
+ */
+@Slf4j
+@Component
+public class ExpenseGroupCommitWriter {
+
+    /**
+     * 每条支出一次写入，每个行程再加一次分片写入，控制在 WriteBatch 的 500 次上限以内
+     */
+    private static final int MAX_BATCH_SIZE = 250;
+
+    private final ExpenseRepository expenseRepository;
+    private final boolean enabled;
+    private final long flushWindowNanos;
+    private final int maxBatchSize;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+
+    private final long writeTimeoutMillis;
+
+    private final BlockingDeque<PendingWrite> queue = new LinkedBlockingDeque<>();
+
+    /**
+     * write 持读锁检查 running 并入队，shutdown 持写锁置 running = false：停止后不会再有写入进入队列
+     */
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+    private volatile boolean running;
+    private Thread flusher;
+
+    public ExpenseGroupCommitWriter(ExpenseRepository expenseRepository,
+                                    @Value("${expense.group-commit.enabled:true}") boolean enabled,
+                                    @Value("${expense.group-commit.flush-window-ms:10}") long flushWindowMs,
+                                    @Value("${expense.group-commit.max-batch-size:200}") int maxBatchSize,
+                                    @Value("${expense.group-commit.max-in-flight:4}") int maxInFlight,
+                                    @Value("${expense.group-commit.write-timeout-ms:10000}") long writeTimeoutMillis) {
+        this.expenseRepository = expenseRepository;
+        this.enabled = enabled;
+        this.flushWindowNanos = TimeUnit.MILLISECONDS.toNanos(flushWindowMs);
+        this.maxBatchSize = Math.max(1, Math.min(maxBatchSize, MAX_BATCH_SIZE));
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.inFlight = new Semaphore(this.maxInFlight);
+        this.writeTimeoutMillis = writeTimeoutMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::runFlushLoop, "expense-group-commit");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("支出组提交已启动: flushWindowMs={}, maxBatchSize={}",
+                TimeUnit.NANOSECONDS.toMillis(flushWindowNanos), maxBatchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        stateLock.writeLock().lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(5));
+
+        // 提交队列中剩余的写入（包括刷盘线程中断时放回的批次），并等待进行中的批次完成
+        List<PendingWrite> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        int from = 0;
+        try {
+            for (; from < remaining.size(); from += maxBatchSize) {
+                inFlight.acquire();
+                commit(remaining.subList(from, Math.min(from + maxBatchSize, remaining.size())));
+            }
+            if (!inFlight.tryAcquire(maxInFlight, 10, TimeUnit.SECONDS)) {
+                log.warn("等待进行中的支出组提交超时");
+            }
+        } finally {
+            failAll(remaining.subList(Math.min(from, remaining.size()), remaining.size()));
+        }
+        log.info("支出组提交已停止: drained={}", remaining.size());
+    }
+
+    /**
+     * 新增支出，写入落库后完成返回的 future
+     */
+    public CompletableFuture<Void> write(String tripId, Expense expense) {
+        if (!enabled) {
+            return expenseRepository.saveAsync(tripId, expense);
+        }
+        stateLock.readLock().lock();
+        try {
+            if (!running) {
+                return expenseRepository.saveAsync(tripId, expense);
+            }
+            PendingWrite pending = new PendingWrite(tripId, expense, new CompletableFuture<>());
+            queue.add(pending);
+            return pending.future();
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 调用方等待单条写入完成的最长时间（毫秒）
+     */
+    public long getWriteTimeoutMillis() {
+        return writeTimeoutMillis;
+    }
+
+    /**
+     * 当前排队等待提交的写入数
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private void runFlushLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+        while (running) {
+            try {
+                PendingWrite first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                // 从第一条写入开始计时，窗口结束或达到上限时提交
+                batch.add(first);
+                long deadline = System.nanoTime() + flushWindowNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                inFlight.acquire();
+                commit(List.copyOf(batch));
+                batch.clear();
+            } catch (InterruptedException e) {
+                // 手中尚未提交的批次按原顺序放回队首，由 shutdown 统一提交
+                for (int i = batch.size() - 1; i >= 0; i--) {
+                    queue.addFirst(batch.get(i));
+                }
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 异步提交一批写入（调用前已获取 inFlight 许可，完成后释放）
+     */
+    private void commit(List<PendingWrite> batch) {
+        Map<String, List<Expense>> expensesByTrip = new LinkedHashMap<>();
+        batch.forEach(pending ->
+                expensesByTrip.computeIfAbsent(pending.tripId(), key -> new ArrayList<>()).add(pending.expense()));
+
+        CompletableFuture<Set<String>> result;
+        try {
+            result = expenseRepository.createAllIfAggregatedAsync(expensesByTrip);
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+
+        result.whenComplete((skipped, error) -> {
+            inFlight.release();
+            if (error != null) {
+                log.warn("支出组提交失败，改为逐条保存: size={}, error={}", batch.size(), error.getMessage());
+                batch.forEach(this::saveIndividually);
+                return;
+            }
+            for (PendingWrite pending : batch) {
+                if (skipped.contains(pending.tripId())) {
+                    saveIndividually(pending);
+                } else {
+                    pending.future().complete(null);
+                }
+            }
+            log.debug("支出组提交完成: size={}, fallback={}", batch.size(), skipped.size());
+        });
+    }
+
+    private void saveIndividually(PendingWrite pending) {
+        expenseRepository.saveAsync(pending.tripId(), pending.expense()).whenComplete((result, error) -> {
+            if (error != null) {
+                pending.future().completeExceptionally(error);
+            } else {
+                pending.future().complete(null);
+            }
+        });
+    }
+
+    private void failAll(List<PendingWrite> writes) {
+        if (writes.isEmpty()) {
+            return;
+        }
+        log.warn("支出组提交停止时仍有未提交的写入: size={}", writes.size());
+        IllegalStateException error = new IllegalStateException("支出组提交已停止，写入未完成");
+        writes.forEach(pending -> pending.future().completeExceptionally(error));
+    }
+
+    private record PendingWrite(String tripId, Expense expense, CompletableFuture<Void> future) {
+    }
+}
@@ -1,20 +1,30 @@
 package com.tinglans.backend.repository;
 
 import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.*;
 import com.tinglans.backend.domain.Expense;
+import com.tinglans.backend.domain.ExpenseAggregate;
+import com.tinglans.backend.domain.ExpenseCategory;
+import com.tinglans.backend.util.FutureUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
 
 /**
  * Expense 数据访问层
  * 管理 trips/{tripId}/expenses 子集合
+ * 以及 trips/{tripId}/expenseStats 聚合集合（按类别的累计金额与笔数）：
+ * summary 文档保存基准值与分片数，增量分散写入 shard-{n} 分片文档，读取时对整个集合求和，
+ * 多人同时记账时避免单文档写入速率上限
  */
 @Slf4j
 @Repository
@@ -23,24 +33,119 @@ public class ExpenseRepository {
 
     private static final String COLLECTION_TRIPS = "trips";
     private static final String COLLECTION_EXPENSES = "expenses";
+    private static final String COLLECTION_EXPENSE_STATS = "expenseStats";
+    private static final String DOC_SUMMARY = "summary";
+    private static final String SHARD_PREFIX = "shard-";
+    private static final int DEFAULT_SHARD_COUNT = 1;
+    private static final int DEFAULT_DELETE_PAGE_SIZE = 500;
 
     private final Firestore firestore;
 
     /**
      * 保存单个支出记录
+     * 与聚合分片的增量更新在同一事务中提交
      */
     public void save(String tripId, Expense expense) throws ExecutionException, InterruptedException {
-        DocumentReference docRef = firestore
-                .collection(COLLECTION_TRIPS)
-                .document(tripId)
-                .collection(COLLECTION_EXPENSES)
-                .document(expense.getId());
+        saveAsync(tripId, expense).get();
+    }
 
-        Map<String, Object> data = convertExpenseToMap(expense);
-        ApiFuture<WriteResult> result = docRef.set(data);
-        result.get();
-        
-        log.debug("保存支出到 Firestore: tripId={}, expenseId={}", tripId, expense.getId());
+    /**
+     * 保存单个支出记录（异步）
+     * summary 在事务外读取（只用于取分片数），事务只读取支出文档、写入随机分片，
+     * 并发记账不会在 summary 上互相冲突；summary 缺失时才在事务内读取并全量计算
+     */
+    public CompletableFuture<Void> saveAsync(String tripId, Expense expense) {
+        return FutureUtil.toCompletableFuture(statsRef(tripId).get())
+                .thenCompose(summary -> saveInTransactionAsync(tripId, expense, summary));
+    }
+
+    private CompletableFuture<Void> saveInTransactionAsync(String tripId, Expense expense, DocumentSnapshot summary) {
+        DocumentReference docRef = expensesRef(tripId).document(expense.getId());
+
+        ApiFuture<Void> result = firestore.runTransaction(transaction -> {
+            DocumentSnapshot existing = transaction.get(docRef).get();
+            DocumentSnapshot stats = statsInTransaction(transaction, tripId, summary);
+
+            Map<String, Long> totalDeltas = new HashMap<>();
+            Map<String, Long> countDeltas = new HashMap<>();
+            if (existing.exists()) {
+                // 覆盖写入时先扣除旧记录
+                totalDeltas.merge(categoryOf(existing.getString("category")), -amountOf(existing), Long::sum);
+                countDeltas.merge(categoryOf(existing.getString("category")), -1L, Long::sum);
+            }
+            totalDeltas.merge(categoryOf(expense.getCategory()), amountOf(expense), Long::sum);
+            countDeltas.merge(categoryOf(expense.getCategory()), 1L, Long::sum);
+
+            applyDeltas(transaction, tripId, stats, totalDeltas, countDeltas);
+            transaction.set(docRef, convertExpenseToMap(expense));
+            return null;
+        });
+
+        return FutureUtil.toCompletableFuture(result).thenRun(() ->
+                log.debug("保存支出到 Firestore: tripId={}, expenseId={}", tripId, expense.getId()));
+    }
+
+    /**
+     * 批量新增支出记录（组提交）
+     * 一次 getAll 读取各行程的 summary；聚合已初始化的行程，将支出创建与合并后的分片增量放入同一个 WriteBatch 原子提交。
+     * 聚合尚未初始化的行程不写入，由调用方逐条走事务保存
+     *
+     * @param expensesByTrip tripId -> 新增支出（写入总数加行程数不超过 500）
+     * @return 未写入的行程ID
+     */
+    public Set<String> createAllIfAggregated(Map<String, List<Expense>> expensesByTrip)
+            throws ExecutionException, InterruptedException {
+        return createAllIfAggregatedAsync(expensesByTrip).get();
+    }
+
+    /**
+     * 批量新增支出记录（组提交，异步）
+     */
+    public CompletableFuture<Set<String>> createAllIfAggregatedAsync(Map<String, List<Expense>> expensesByTrip) {
+        List<String> tripIds = new ArrayList<>(expensesByTrip.keySet());
+        DocumentReference[] statsRefs = tripIds.stream().map(this::statsRef).toArray(DocumentReference[]::new);
+
+        return FutureUtil.toCompletableFuture(firestore.getAll(statsRefs)).thenCompose(snapshots -> {
+            Set<String> skipped = new HashSet<>();
+            WriteBatch batch = firestore.batch();
+            int writes = 0;
+
+            for (int i = 0; i < tripIds.size(); i++) {
+                String tripId = tripIds.get(i);
+                DocumentSnapshot stats = snapshots.get(i);
+                if (!stats.exists()) {
+                    skipped.add(tripId);
+                    continue;
+                }
+
+                Map<String, Long> totalDeltas = new HashMap<>();
+                Map<String, Long> countDeltas = new HashMap<>();
+                for (Expense expense : expensesByTrip.get(tripId)) {
+                    // create 保证仅新增，ID 冲突时整批失败，避免聚合被重复累加
+                    batch.create(expensesRef(tripId).document(expense.getId()), convertExpenseToMap(expense));
+                    totalDeltas.merge(categoryOf(expense.getCategory()), amountOf(expense), Long::sum);
+                    countDeltas.merge(categoryOf(expense.getCategory()), 1L, Long::sum);
+                    writes++;
+                }
+
+                Long shardCount = stats.getLong("shardCount");
+                int shards = shardCount != null && shardCount > 0 ? shardCount.intValue() : DEFAULT_SHARD_COUNT;
+                DocumentReference shardRef = statsCollectionRef(tripId)
+                        .document(SHARD_PREFIX + ThreadLocalRandom.current().nextInt(shards));
+                batch.set(shardRef, buildIncrementUpdate(totalDeltas, countDeltas), SetOptions.merge());
+                writes++;
+            }
+
+            if (writes == 0) {
+                return CompletableFuture.completedFuture(skipped);
+            }
+            int committed = writes;
+            return FutureUtil.toCompletableFuture(batch.commit()).thenApply(results -> {
+                log.debug("组提交支出到 Firestore: trips={}, writes={}, skipped={}",
+                        tripIds.size() - skipped.size(), committed, skipped.size());
+                return skipped;
+            });
+        });
     }
 
     /**
@@ -48,41 +153,47 @@ public class ExpenseRepository {
      */
     public Optional<Expense> findById(String tripId, String expenseId) 
             throws ExecutionException, InterruptedException {
-        DocumentReference docRef = firestore
-                .collection(COLLECTION_TRIPS)
-                .document(tripId)
-                .collection(COLLECTION_EXPENSES)
-                .document(expenseId);
+        return findByIdAsync(tripId, expenseId).get();
+    }
 
-        ApiFuture<DocumentSnapshot> future = docRef.get();
-        DocumentSnapshot document = future.get();
+    /**
+     * 根据ID获取单个支出记录（异步）
+     */
+    public CompletableFuture<Optional<Expense>> findByIdAsync(String tripId, String expenseId) {
+        ApiFuture<DocumentSnapshot> future = expensesRef(tripId).document(expenseId).get();
 
-        if (!document.exists()) {
-            return Optional.empty();
-        }
+        return FutureUtil.toCompletableFuture(future).thenApply(document -> {
+            if (!document.exists()) {
+                return Optional.empty();
+            }
 
-        log.debug("从 Firestore 获取支出: tripId={}, expenseId={}", tripId, expenseId);
-        return Optional.of(convertDocumentToExpense(document));
+            log.debug("从 Firestore 获取支出: tripId={}, expenseId={}", tripId, expenseId);
+            return Optional.of(convertDocumentToExpense(document));
+        });
     }
 
     /**
      * 获取某个行程的所有支出记录
      */
     public List<Expense> findByTripId(String tripId) throws ExecutionException, InterruptedException {
-        CollectionReference expensesRef = firestore
-                .collection(COLLECTION_TRIPS)
-                .document(tripId)
-                .collection(COLLECTION_EXPENSES);
+        return findByTripIdAsync(tripId).get();
+    }
 
-        Query query = expensesRef.orderBy("happenedAt", Query.Direction.DESCENDING);
+    /**
+     * 获取某个行程的所有支出记录（异步）
+     */
+    public CompletableFuture<List<Expense>> findByTripIdAsync(String tripId) {
+        Query query = expensesRef(tripId).orderBy("happenedAt", Query.Direction.DESCENDING);
         ApiFuture<QuerySnapshot> future = query.get();
-        List<QueryDocumentSnapshot> documents = future.get().getDocuments();
 
-        log.debug("从 Firestore 获取行程支出列表: tripId={}, count={}", tripId, documents.size());
-        
-        return documents.stream()
-                .map(this::convertDocumentToExpense)
-                .collect(Collectors.toList());
+        return FutureUtil.toCompletableFuture(future).thenApply(snapshot -> {
+            List<QueryDocumentSnapshot> documents = snapshot.getDocuments();
+            log.debug("从 Firestore 获取行程支出列表: tripId={}, count={}", tripId, documents.size());
+
+            return documents.stream()
+                    .map(this::convertDocumentToExpense)
+                    .collect(Collectors.toList());
+        });
     }
 
     /**
@@ -90,65 +201,336 @@ public class ExpenseRepository {
      */
     public List<Expense> findByTripIdAndCategory(String tripId, String category) 
             throws ExecutionException, InterruptedException {
-        CollectionReference expensesRef = firestore
-                .collection(COLLECTION_TRIPS)
-                .document(tripId)
-                .collection(COLLECTION_EXPENSES);
+        return findByTripIdAndCategoryAsync(tripId, category).get();
+    }
 
-        Query query = expensesRef
+    /**
+     * 按类别获取支出记录（异步）
+     */
+    public CompletableFuture<List<Expense>> findByTripIdAndCategoryAsync(String tripId, String category) {
+        Query query = expensesRef(tripId)
                 .whereEqualTo("category", category)
                 .orderBy("happenedAt", Query.Direction.DESCENDING);
         ApiFuture<QuerySnapshot> future = query.get();
-        List<QueryDocumentSnapshot> documents = future.get().getDocuments();
 
-        log.debug("从 Firestore 获取指定类别支出: tripId={}, category={}, count={}", 
-                tripId, category, documents.size());
-        
-        return documents.stream()
-                .map(this::convertDocumentToExpense)
-                .collect(Collectors.toList());
+        return FutureUtil.toCompletableFuture(future).thenApply(snapshot -> {
+            List<QueryDocumentSnapshot> documents = snapshot.getDocuments();
+            log.debug("从 Firestore 获取指定类别支出: tripId={}, category={}, count={}", 
+                    tripId, category, documents.size());
+
+            return documents.stream()
+                    .map(this::convertDocumentToExpense)
+                    .collect(Collectors.toList());
+        });
     }
 
     /**
      * 删除单个支出记录
+     * 与聚合分片的扣减在同一事务中提交
      */
     public void delete(String tripId, String expenseId) throws ExecutionException, InterruptedException {
-        DocumentReference docRef = firestore
-                .collection(COLLECTION_TRIPS)
-                .document(tripId)
-                .collection(COLLECTION_EXPENSES)
-                .document(expenseId);
+        deleteAsync(tripId, expenseId).get();
+    }
+
+    /**
+     * 删除单个支出记录（异步，summary 的读取方式同 saveAsync）
+     */
+    public CompletableFuture<Void> deleteAsync(String tripId, String expenseId) {
+        return FutureUtil.toCompletableFuture(statsRef(tripId).get())
+                .thenCompose(summary -> deleteInTransactionAsync(tripId, expenseId, summary));
+    }
+
+    private CompletableFuture<Void> deleteInTransactionAsync(String tripId, String expenseId, DocumentSnapshot summary) {
+        DocumentReference docRef = expensesRef(tripId).document(expenseId);
 
-        ApiFuture<WriteResult> result = docRef.delete();
-        result.get();
-        
-        log.debug("从 Firestore 删除支出: tripId={}, expenseId={}", tripId, expenseId);
+        ApiFuture<Void> result = firestore.runTransaction(transaction -> {
+            DocumentSnapshot existing = transaction.get(docRef).get();
+            if (!existing.exists()) {
+                return null;
+            }
+            DocumentSnapshot stats = statsInTransaction(transaction, tripId, summary);
+
+            String category = categoryOf(existing.getString("category"));
+            applyDeltas(transaction, tripId, stats,
+                    Map.of(category, -amountOf(existing)), Map.of(category, -1L));
+            transaction.delete(docRef);
+            return null;
+        });
+
+        return FutureUtil.toCompletableFuture(result).thenRun(() ->
+                log.debug("从 Firestore 删除支出: tripId={}, expenseId={}", tripId, expenseId));
     }
 
     /**
      * 删除某个行程的所有支出记录
      */
     public void deleteByTripId(String tripId) throws ExecutionException, InterruptedException {
-        CollectionReference expensesRef = firestore
+        deleteByTripId(tripId, DEFAULT_DELETE_PAGE_SIZE, deleted -> { });
+    }
+
+    /**
+     * 分页删除某个行程的所有支出记录及聚合文档
+     * 每页只读取文档引用（不含字段），通过 BulkWriter 删除后再读取下一页，内存占用与支出总数无关。
+     * 已删除的文档不会再被查询到，中断后重新调用即可从剩余文档继续
+     *
+     * @param pageSize   每页删除的文档数
+     * @param onProgress 每页完成后回调累计删除数
+     * @return 删除的支出记录数
+     */
+    public long deleteByTripId(String tripId, int pageSize, LongConsumer onProgress)
+            throws ExecutionException, InterruptedException {
+        long deleted = 0;
+        try (BulkWriter bulkWriter = firestore.bulkWriter()) {
+            int pageCount;
+            do {
+                pageCount = deletePage(bulkWriter, expensesRef(tripId), pageSize);
+                deleted += pageCount;
+                if (pageCount > 0) {
+                    onProgress.accept(deleted);
+                }
+            } while (pageCount == pageSize);
+
+            while (deletePage(bulkWriter, statsCollectionRef(tripId), pageSize) == pageSize) {
+                log.debug("继续删除开销聚合文档: tripId={}", tripId);
+            }
+        }
+
+        log.info("删除行程所有支出: tripId={}, count={}", tripId, deleted);
+        return deleted;
+    }
+
+    /**
+     * 删除集合中的一页文档，等待本页写入完成后返回删除数
+     */
+    private int deletePage(BulkWriter bulkWriter, CollectionReference collection, int pageSize)
+            throws ExecutionException, InterruptedException {
+        List<QueryDocumentSnapshot> documents = collection
+                .orderBy(FieldPath.documentId())
+                .select(FieldPath.documentId())
+                .limit(pageSize)
+                .get()
+                .get()
+                .getDocuments();
+        for (QueryDocumentSnapshot document : documents) {
+            bulkWriter.delete(document.getReference());
+        }
+        bulkWriter.flush().get();
+        return documents.size();
+    }
+
+    /**
+     * 读取行程的开销聚合（summary 与所有分片求和）
+     */
+    public Optional<ExpenseAggregate> findAggregate(String tripId) throws ExecutionException, InterruptedException {
+        return findAggregateAsync(tripId).get();
+    }
+
+    /**
+     * 读取行程的开销聚合（异步）
+     */
+    public CompletableFuture<Optional<ExpenseAggregate>> findAggregateAsync(String tripId) {
+        return FutureUtil.toCompletableFuture(statsCollectionRef(tripId).get()).thenApply(snapshot -> {
+            List<QueryDocumentSnapshot> documents = snapshot.getDocuments();
+            boolean hasSummary = documents.stream().anyMatch(doc -> DOC_SUMMARY.equals(doc.getId()));
+            if (!hasSummary) {
+                return Optional.empty();
+            }
+
+            log.debug("从 Firestore 获取开销聚合: tripId={}, documents={}", tripId, documents.size());
+            return Optional.of(sumAggregateDocuments(tripId, documents));
+        });
+    }
+
+    /**
+     * 从支出子集合全量重算聚合（修复任务使用）
+     * 在事务内读取与写入，与并发记账互斥；重算结果写入 summary 并清空分片
+     */
+    public ExpenseAggregate rebuildAggregate(String tripId) throws ExecutionException, InterruptedException {
+        return rebuildAggregateAsync(tripId).get();
+    }
+
+    /**
+     * 从支出子集合全量重算聚合（异步）
+     */
+    public CompletableFuture<ExpenseAggregate> rebuildAggregateAsync(String tripId) {
+        ApiFuture<ExpenseAggregate> result = firestore.runTransaction(transaction -> {
+            List<QueryDocumentSnapshot> statsDocuments = transaction.get(statsCollectionRef(tripId)).get().getDocuments();
+            ExpenseAggregate aggregate = aggregateInTransaction(transaction, tripId);
+            aggregate.setShardCount(sumAggregateDocuments(tripId, statsDocuments).getShardCount());
+
+            for (DocumentSnapshot doc : statsDocuments) {
+                if (!DOC_SUMMARY.equals(doc.getId())) {
+                    transaction.delete(doc.getReference());
+                }
+            }
+            transaction.set(statsRef(tripId), convertAggregateToMap(aggregate));
+            return aggregate;
+        });
+
+        return FutureUtil.toCompletableFuture(result).thenApply(aggregate -> {
+            log.info("重算开销聚合: tripId={}, categories={}", tripId, aggregate.getTotals().keySet());
+            return aggregate;
+        });
+    }
+
+    /**
+     * 设置行程的聚合分片数
+     * 缩减分片数后旧分片仍参与求和，只是不再写入
+     */
+    public void updateShardCount(String tripId, int shardCount) throws ExecutionException, InterruptedException {
+        updateShardCountAsync(tripId, shardCount).get();
+    }
+
+    /**
+     * 设置行程的聚合分片数（异步）
+     */
+    public CompletableFuture<Void> updateShardCountAsync(String tripId, int shardCount) {
+        DocumentReference statsRef = statsRef(tripId);
+        ApiFuture<Void> result = firestore.runTransaction(transaction -> {
+            DocumentSnapshot stats = transaction.get(statsRef).get();
+            if (stats.exists()) {
+                transaction.update(statsRef, "shardCount", shardCount);
+            } else {
+                ExpenseAggregate aggregate = aggregateInTransaction(transaction, tripId);
+                aggregate.setShardCount(shardCount);
+                transaction.set(statsRef, convertAggregateToMap(aggregate));
+            }
+            return null;
+        });
+
+        return FutureUtil.toCompletableFuture(result).thenRun(() ->
+                log.info("设置开销聚合分片数: tripId={}, shardCount={}", tripId, shardCount));
+    }
+
+    /**
+     * 事务内使用的 summary
+     * 事务外已读到 summary 时直接使用（summary 只在设置分片数与重算时更新，分片数过期也只影响写入哪个分片，
+     * 所有分片都参与求和）；缺失时在事务内读取，与并发的首次初始化互斥
+     */
+    private DocumentSnapshot statsInTransaction(Transaction transaction, String tripId, DocumentSnapshot summary)
+            throws ExecutionException, InterruptedException {
+        return summary.exists() ? summary : transaction.get(statsRef(tripId)).get();
+    }
+
+    /**
+     * 在事务中写入聚合增量
+     * summary 已存在时随机写入一个分片；缺失（历史行程）时在事务内全量计算 summary，避免只记录增量
+     */
+    private void applyDeltas(Transaction transaction, String tripId, DocumentSnapshot stats,
+                             Map<String, Long> totalDeltas, Map<String, Long> countDeltas)
+            throws ExecutionException, InterruptedException {
+        if (stats.exists()) {
+            Long shardCount = stats.getLong("shardCount");
+            int shards = shardCount != null && shardCount > 0 ? shardCount.intValue() : DEFAULT_SHARD_COUNT;
+            DocumentReference shardRef = statsCollectionRef(tripId)
+                    .document(SHARD_PREFIX + ThreadLocalRandom.current().nextInt(shards));
+            transaction.set(shardRef, buildIncrementUpdate(totalDeltas, countDeltas), SetOptions.merge());
+        } else {
+            ExpenseAggregate aggregate = aggregateInTransaction(transaction, tripId);
+            totalDeltas.forEach((category, delta) -> aggregate.getTotals().merge(category, delta, Long::sum));
+            countDeltas.forEach((category, delta) -> aggregate.getCounts().merge(category, delta, Long::sum));
+            transaction.set(statsRef(tripId), convertAggregateToMap(aggregate));
+        }
+    }
+
+    private ExpenseAggregate aggregateInTransaction(Transaction transaction, String tripId)
+            throws ExecutionException, InterruptedException {
+        List<QueryDocumentSnapshot> documents = transaction.get(expensesRef(tripId)).get().getDocuments();
+        List<Expense> expenses = documents.stream()
+                .map(doc -> Expense.builder()
+                        .category(categoryOf(doc.getString("category")))
+                        .amountCents(amountOf(doc))
+                        .build())
+                .collect(Collectors.toList());
+        return ExpenseAggregate.fromExpenses(tripId, expenses);
+    }
+
+    /**
+     * 聚合使用的类别（缺少类别字段的支出计入 other）
+     */
+    private static String categoryOf(String category) {
+        return category != null ? category : ExpenseCategory.OTHER.getValue();
+    }
+
+    private CollectionReference expensesRef(String tripId) {
+        return firestore
                 .collection(COLLECTION_TRIPS)
                 .document(tripId)
                 .collection(COLLECTION_EXPENSES);
+    }
+
+    private CollectionReference statsCollectionRef(String tripId) {
+        return firestore
+                .collection(COLLECTION_TRIPS)
+                .document(tripId)
+                .collection(COLLECTION_EXPENSE_STATS);
+    }
+
+    private DocumentReference statsRef(String tripId) {
+        return statsCollectionRef(tripId).document(DOC_SUMMARY);
+    }
 
-        ApiFuture<QuerySnapshot> future = expensesRef.get();
-        List<QueryDocumentSnapshot> documents = future.get().getDocuments();
+    // ========== 辅助转换方法 ==========
+
+    private long amountOf(Expense expense) {
+        return expense.getAmountCents() != null ? expense.getAmountCents() : 0L;
+    }
+
+    private long amountOf(DocumentSnapshot doc) {
+        Long amount = doc.getLong("amountCents");
+        return amount != null ? amount : 0L;
+    }
+
+    private Map<String, Object> buildIncrementUpdate(Map<String, Long> totalDeltas, Map<String, Long> countDeltas) {
+        Map<String, Object> totals = new HashMap<>();
+        totalDeltas.forEach((category, delta) -> totals.put(category, FieldValue.increment(delta)));
+        Map<String, Object> counts = new HashMap<>();
+        countDeltas.forEach((category, delta) -> counts.put(category, FieldValue.increment(delta)));
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("totals", totals);
+        map.put("counts", counts);
+        map.put("updatedAt", FieldValue.serverTimestamp());
+        return map;
+    }
+
+    private Map<String, Object> convertAggregateToMap(ExpenseAggregate aggregate) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("tripId", aggregate.getTripId());
+        map.put("totals", aggregate.getTotals());
+        map.put("counts", aggregate.getCounts());
+        map.put("shardCount", aggregate.getShardCount());
+        map.put("updatedAt", FieldValue.serverTimestamp());
+        return map;
+    }
 
-        WriteBatch batch = firestore.batch();
+    private ExpenseAggregate sumAggregateDocuments(String tripId, List<? extends DocumentSnapshot> documents) {
+        ExpenseAggregate aggregate = ExpenseAggregate.builder().tripId(tripId).build();
         for (DocumentSnapshot doc : documents) {
-            batch.delete(doc.getReference());
+            mergeLongMap(aggregate.getTotals(), doc.get("totals"));
+            mergeLongMap(aggregate.getCounts(), doc.get("counts"));
+
+            Timestamp updatedAt = doc.getTimestamp("updatedAt");
+            if (updatedAt != null && (aggregate.getUpdatedAt() == null
+                    || updatedAt.toDate().toInstant().isAfter(aggregate.getUpdatedAt()))) {
+                aggregate.setUpdatedAt(updatedAt.toDate().toInstant());
+            }
+            if (DOC_SUMMARY.equals(doc.getId()) && doc.getLong("shardCount") != null) {
+                aggregate.setShardCount(doc.getLong("shardCount").intValue());
+            }
         }
-        
-        ApiFuture<List<WriteResult>> result = batch.commit();
-        result.get();
-        
-        log.info("删除行程所有支出: tripId={}, count={}", tripId, documents.size());
+        return aggregate;
     }
 
-    // ========== 辅助转换方法 ==========
+    private void mergeLongMap(Map<String, Long> target, Object value) {
+        if (value instanceof Map<?, ?> map) {
+            map.forEach((key, number) -> {
+                if (number instanceof Number n) {
+                    target.merge(key.toString(), n.longValue(), Long::sum);
+                }
+            });
+        }
+    }
 
     private Map<String, Object> convertExpenseToMap(Expense expense) {
         Map<String, Object> map = new HashMap<>();
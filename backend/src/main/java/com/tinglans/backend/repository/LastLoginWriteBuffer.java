@@ -0,0 +1,181 @@
+package com.tinglans.backend.repository;
+
+import com.tinglans.backend.util.FirestoreErrorUtil;
+import io.grpc.Status;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 最后登录时间写缓冲（write-behind）
+ * 登录时只在内存中记录时间，同一用户多次登录合并为最新一次，
+ * 由后台线程定期通过 Firestore WriteBatch 批量写入，应用关闭时强制刷盘
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LastLoginWriteBuffer {
+
+    /**
+     * Firestore 单个 WriteBatch 的写入上限
+     */
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private final UserRepository userRepository;
+
+    private final Map<String, Instant> pending = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    @Value("${user.last-login.flush-interval-ms:5000}")
+    private long flushIntervalMs;
+
+    @Value("${user.last-login.batch-size:500}")
+    private int batchSize;
+
+    private volatile long lastFlushMillis;
+    private volatile int lastFlushCount;
+
+    @PostConstruct
+    public void start() {
+        batchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "last-login-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("最后登录时间写缓冲已启动: flushIntervalMs={}, batchSize={}", flushIntervalMs, batchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        boolean interrupted = false;
+        try {
+            scheduler.awaitTermination(flushIntervalMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        log.info("应用关闭，刷写剩余最后登录时间: backlog={}", pending.size());
+        flushQuietly();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 记录一次登录（只保留每个用户最新的时间）
+     */
+    public void record(String userId, Instant lastLoginAt) {
+        pending.merge(userId, lastLoginAt, (current, incoming) -> incoming.isAfter(current) ? incoming : current);
+    }
+
+    /**
+     * 当前待写入的用户数
+     */
+    public int getBacklogSize() {
+        return pending.size();
+    }
+
+    /**
+     * 最近一次刷盘耗时（毫秒）
+     */
+    public long getLastFlushMillis() {
+        return lastFlushMillis;
+    }
+
+    /**
+     * 最近一次刷盘写入的用户数
+     */
+    public int getLastFlushCount() {
+        return lastFlushCount;
+    }
+
+    /**
+     * 将缓冲中的时间批量写入 Firestore
+     * 写入成功后仅移除未被新登录覆盖的条目；用户已删除（NOT_FOUND）导致整批失败时逐条重试并丢弃不存在的用户，
+     * 其他失败（UNAVAILABLE、DEADLINE_EXCEEDED 等）保留在缓冲中，下次刷盘重试
+     *
+     * @return 本次写入成功的用户数
+     */
+    public synchronized int flush() throws InterruptedException {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        List<Map.Entry<String, Instant>> snapshot = pending.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue()))
+                .toList();
+
+        int written = 0;
+        for (int from = 0; from < snapshot.size(); from += batchSize) {
+            List<Map.Entry<String, Instant>> chunk = snapshot.subList(from, Math.min(from + batchSize, snapshot.size()));
+            written += writeChunk(chunk);
+        }
+
+        lastFlushMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        lastFlushCount = written;
+        log.info("刷写最后登录时间: written={}, elapsed={}ms, backlog={}", written, lastFlushMillis, pending.size());
+        return written;
+    }
+
+    private int writeChunk(List<Map.Entry<String, Instant>> chunk) throws InterruptedException {
+        Map<String, Instant> updates = new LinkedHashMap<>();
+        chunk.forEach(entry -> updates.put(entry.getKey(), entry.getValue()));
+
+        try {
+            userRepository.updateLastLoginAtBatch(updates);
+            chunk.forEach(entry -> pending.remove(entry.getKey(), entry.getValue()));
+            return chunk.size();
+        } catch (ExecutionException e) {
+            if (!FirestoreErrorUtil.hasStatus(e, Status.Code.NOT_FOUND)) {
+                log.warn("批量更新最后登录时间失败，保留到下次刷盘: count={}, error={}", chunk.size(), e.getMessage());
+                return 0;
+            }
+            // 某个用户已被删除导致整批失败，逐条写入以隔离失败条目
+            log.warn("批量更新最后登录时间失败，改为逐条写入: count={}, error={}", chunk.size(), e.getMessage());
+            return writeIndividually(chunk);
+        }
+    }
+
+    private int writeIndividually(List<Map.Entry<String, Instant>> chunk) throws InterruptedException {
+        int written = 0;
+        for (Map.Entry<String, Instant> entry : chunk) {
+            try {
+                userRepository.updateLastLoginAtBatch(Map.of(entry.getKey(), entry.getValue()));
+                written++;
+            } catch (ExecutionException e) {
+                if (!FirestoreErrorUtil.hasStatus(e, Status.Code.NOT_FOUND)) {
+                    log.warn("更新最后登录时间失败，保留到下次刷盘: userId={}, error={}", entry.getKey(), e.getMessage());
+                    continue;
+                }
+                log.warn("用户不存在，丢弃最后登录时间: userId={}", entry.getKey());
+            }
+            pending.remove(entry.getKey(), entry.getValue());
+        }
+        return written;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("刷写最后登录时间异常", e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.tinglans.backend.repository;
+
+import com.google.cloud.firestore.*;
+import com.tinglans.backend.thirdparty.amap.dto.AmapPoi;
+import com.tinglans.backend.util.FutureUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * POI 数据访问层
+ * 管理 pois/{amapId} 集合，行程中的活动只保存 POI ID，读取时批量回填。
+ * 进程内缓存已写入或已读取的 POI，命中时既不重复写入也不重复读取
+ */
+@Slf4j
+@Repository
+public class PoiRepository {
+
+    private static final String COLLECTION_POIS = "pois";
+
+    private final Firestore firestore;
+    private final int cacheMaxSize;
+
+    private final Map<String, AmapPoi> cache = new ConcurrentHashMap<>();
+
+    public PoiRepository(Firestore firestore, @Value("${cache.poi.max-size:50000}") int cacheMaxSize) {
+        this.firestore = firestore;
+        this.cacheMaxSize = cacheMaxSize;
+    }
+
+    /**
+     * 将缓存中没有的 POI 加入批量写入（与行程文档在同一批次提交）
+     *
+     * @return 加入批次的 POI，提交成功后应调用 {@link #remember(Collection)}
+     */
+    public List<AmapPoi> stage(WriteBatch batch, Collection<AmapPoi> pois) {
+        List<AmapPoi> staged = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (AmapPoi poi : pois) {
+            if (!seen.add(poi.getId()) || poi.equals(cache.get(poi.getId()))) {
+                continue;
+            }
+            batch.set(firestore.collection(COLLECTION_POIS).document(poi.getId()), convertPoiToMap(poi));
+            staged.add(poi);
+        }
+        return staged;
+    }
+
+    /**
+     * 记录已持久化的 POI
+     */
+    public void remember(Collection<AmapPoi> pois) {
+        pois.forEach(this::putCache);
+    }
+
+    /**
+     * 批量获取 POI（先查缓存，未命中的通过一次 getAll 读取）
+     *
+     * @return id -> POI，不存在的 ID 不在结果中
+     */
+    public Map<String, AmapPoi> findAllByIds(Collection<String> poiIds) throws Exception {
+        return findAllByIdsAsync(poiIds).get();
+    }
+
+    /**
+     * 批量获取 POI（异步）
+     */
+    public CompletableFuture<Map<String, AmapPoi>> findAllByIdsAsync(Collection<String> poiIds) {
+        Map<String, AmapPoi> result = new HashMap<>();
+        List<DocumentReference> misses = new ArrayList<>();
+        for (String poiId : new LinkedHashSet<>(poiIds)) {
+            AmapPoi cached = cache.get(poiId);
+            if (cached != null) {
+                result.put(poiId, cached);
+            } else {
+                misses.add(firestore.collection(COLLECTION_POIS).document(poiId));
+            }
+        }
+        if (misses.isEmpty()) {
+            return CompletableFuture.completedFuture(result);
+        }
+
+        return FutureUtil.toCompletableFuture(firestore.getAll(misses.toArray(DocumentReference[]::new)))
+                .thenApply(snapshots -> {
+                    for (DocumentSnapshot snapshot : snapshots) {
+                        if (snapshot.exists()) {
+                            AmapPoi poi = convertDocumentToPoi(snapshot);
+                            putCache(poi);
+                            result.put(poi.getId(), poi);
+                        }
+                    }
+                    log.debug("从 Firestore 批量获取 POI: requested={}, fromCache={}, loaded={}",
+                            poiIds.size(), result.size() - misses.size(), misses.size());
+                    return result;
+                });
+    }
+
+    private void putCache(AmapPoi poi) {
+        if (cache.size() >= cacheMaxSize && !cache.containsKey(poi.getId())) {
+            // 缓存已满时整体清空，POI 数据量有限，重新预热代价很小
+            cache.clear();
+        }
+        cache.put(poi.getId(), poi);
+    }
+
+    // ========== 辅助转换方法 ==========
+
+    private Map<String, Object> convertPoiToMap(AmapPoi poi) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", poi.getId());
+        map.put("name", poi.getName());
+        map.put("type", poi.getType());
+        map.put("typecode", poi.getTypecode());
+        map.put("address", poi.getAddress());
+        map.put("location", poi.getLocation());
+        map.put("pname", poi.getPname());
+        map.put("cityname", poi.getCityname());
+        map.put("adname", poi.getAdname());
+        map.put("pcode", poi.getPcode());
+        map.put("citycode", poi.getCitycode());
+        map.put("adcode", poi.getAdcode());
+        map.put("tel", poi.getTel());
+        return map;
+    }
+
+    private AmapPoi convertDocumentToPoi(DocumentSnapshot doc) {
+        return AmapPoi.builder()
+                .id(doc.getId())
+                .name(doc.getString("name"))
+                .type(doc.getString("type"))
+                .typecode(doc.getString("typecode"))
+                .address(doc.getString("address"))
+                .location(doc.getString("location"))
+                .pname(doc.getString("pname"))
+                .cityname(doc.getString("cityname"))
+                .adname(doc.getString("adname"))
+                .pcode(doc.getString("pcode"))
+                .citycode(doc.getString("citycode"))
+                .adcode(doc.getString("adcode"))
+                .tel(doc.getString("tel"))
+                .build();
+    }
+}
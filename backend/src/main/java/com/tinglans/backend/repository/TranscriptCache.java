@@ -0,0 +1,54 @@
+package com.tinglans.backend.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 语音识别结果缓存（Redis）
+ * speech:transcript:{contentHash}  音频内容哈希 -> 识别文本
+ * 缓存只用于跳过重复上传，读写失败时按未命中处理，不影响识别
+ */
+@Slf4j
+@Component
+public class TranscriptCache {
+
+    private static final String KEY_PREFIX = "speech:transcript:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final long ttl;
+
+    public TranscriptCache(StringRedisTemplate stringRedisTemplate,
+                           @Value("${speech.cache.ttl:86400}") long ttl) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.ttl = ttl;
+    }
+
+    /**
+     * 读取缓存的识别文本
+     */
+    public Optional<String> get(String contentHash) {
+        try {
+            return Optional.ofNullable(stringRedisTemplate.opsForValue().get(KEY_PREFIX + contentHash));
+        } catch (RuntimeException e) {
+            log.warn("读取识别结果缓存失败: hash={}, error={}", contentHash, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 写入识别文本
+     */
+    public void put(String contentHash, String transcript) {
+        try {
+            stringRedisTemplate.opsForValue().set(KEY_PREFIX + contentHash, transcript, ttl, TimeUnit.SECONDS);
+            log.debug("保存识别结果缓存: hash={}", contentHash);
+        } catch (RuntimeException e) {
+            log.warn("保存识别结果缓存失败: hash={}, error={}", contentHash, e.getMessage());
+        }
+    }
+}
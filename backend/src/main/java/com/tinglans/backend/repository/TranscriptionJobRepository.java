@@ -0,0 +1,134 @@
+package com.tinglans.backend.repository;
+
+import com.tinglans.backend.dto.TranscriptionJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 语音转写任务状态（Redis）
+ * speech:job:{jobId}    任务状态
+ * speech:task:{taskId}  讯飞任务ID -> 任务ID，用于处理回调，任务结束后删除
+ * speech:job:running    转写中的任务ID集合，用于重启后恢复兜底轮询；任务结束时移出，移出成功者负责写入最终状态
+ * 任务结束时在 speech:job:finished 频道发布任务ID，通知各节点上等待结果的订阅者
+ */
+@Slf4j
+@Repository
+public class TranscriptionJobRepository {
+
+    public static final String FINISHED_CHANNEL = "speech:job:finished";
+
+    private static final String JOB_KEY_PREFIX = "speech:job:";
+    private static final String TASK_KEY_PREFIX = "speech:task:";
+    private static final String RUNNING_KEY = "speech:job:running";
+
+    /**
+     * 结束任务：只有把任务移出 running 集合的一方写入最终状态，回调与轮询同时结束时不会互相覆盖
+     */
+    private static final RedisScript<Long> FINISH_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('SREM', KEYS[1], ARGV[1]) == 0 then
+              return 0
+            end
+            redis.call('SET', KEYS[2], ARGV[2], 'EX', ARGV[3])
+            redis.call('DEL', KEYS[3])
+            return 1
+            """, Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final long jobTtl;
+
+    public TranscriptionJobRepository(RedisTemplate<String, Object> redisTemplate,
+                                      StringRedisTemplate stringRedisTemplate,
+                                      @Value("${speech.job.ttl:3600}") long jobTtl) {
+        this.redisTemplate = redisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.jobTtl = jobTtl;
+    }
+
+    /**
+     * 保存任务状态
+     */
+    public void save(TranscriptionJob job) {
+        redisTemplate.opsForValue().set(JOB_KEY_PREFIX + job.getId(), job, jobTtl, TimeUnit.SECONDS);
+        log.debug("保存转写任务: jobId={}, status={}", job.getId(), job.getStatus());
+    }
+
+    /**
+     * 保存转写中的任务，并登记到 running 集合
+     */
+    public void saveRunning(TranscriptionJob job) {
+        save(job);
+        stringRedisTemplate.opsForSet().add(RUNNING_KEY, job.getId());
+    }
+
+    /**
+     * 写入任务最终状态并删除讯飞任务ID映射（原子操作）
+     *
+     * @return 任务已被其他调用方结束（或不在 running 集合中）时返回 false，不做任何修改
+     */
+    public boolean finishIfRunning(TranscriptionJob job) {
+        @SuppressWarnings("unchecked")
+        RedisSerializer<Object> serializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        byte[] payload = serializer.serialize(job);
+        Long finished = stringRedisTemplate.execute(FINISH_SCRIPT,
+                List.of(RUNNING_KEY, JOB_KEY_PREFIX + job.getId(), TASK_KEY_PREFIX + job.getTaskId()),
+                job.getId(), new String(payload, StandardCharsets.UTF_8), String.valueOf(jobTtl));
+        return Long.valueOf(1).equals(finished);
+    }
+
+    /**
+     * 转写中的任务ID
+     */
+    public Set<String> findRunningJobIds() {
+        Set<String> jobIds = stringRedisTemplate.opsForSet().members(RUNNING_KEY);
+        return jobIds != null ? jobIds : Set.of();
+    }
+
+    /**
+     * 从 running 集合移除（任务状态已过期时清理）
+     */
+    public void removeRunning(String jobId) {
+        stringRedisTemplate.opsForSet().remove(RUNNING_KEY, jobId);
+    }
+
+    /**
+     * 获取任务状态
+     */
+    public Optional<TranscriptionJob> findById(String jobId) {
+        Object cached = redisTemplate.opsForValue().get(JOB_KEY_PREFIX + jobId);
+        return cached instanceof TranscriptionJob job ? Optional.of(job) : Optional.empty();
+    }
+
+    /**
+     * 记录讯飞任务ID对应的任务
+     */
+    public void saveTaskMapping(String taskId, String jobId) {
+        stringRedisTemplate.opsForValue().set(TASK_KEY_PREFIX + taskId, jobId, jobTtl, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 根据讯飞任务ID查找任务ID
+     */
+    public Optional<String> findJobIdByTaskId(String taskId) {
+        return Optional.ofNullable(stringRedisTemplate.opsForValue().get(TASK_KEY_PREFIX + taskId));
+    }
+
+    /**
+     * 发布任务结束通知
+     */
+    public void publishFinished(String jobId) {
+        stringRedisTemplate.convertAndSend(FINISHED_CHANNEL, jobId);
+    }
+}
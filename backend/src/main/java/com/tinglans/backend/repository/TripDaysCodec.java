@@ -0,0 +1,318 @@
+package com.tinglans.backend.repository;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tinglans.backend.domain.Activity;
+import com.tinglans.backend.domain.Day;
+import com.tinglans.backend.thirdparty.amap.dto.AmapPoi;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 行程 days 的存储编解码
+ * map 格式：嵌套 Map 数组（原有格式，字段可在控制台直接查看）；subcollection 存储时每天一个同结构的文档
+ * blob 格式：1 字节版本号 + Deflate 压缩的 JSON，整体存为一个 Blob 字段，文档更小、解码更快
+ * 两种格式中活动的 POI 都可以只保存 ID（POI 详情存于 pois 集合，读取时回填）
+ */
+public final class TripDaysCodec {
+
+    /**
+     * blob 格式版本：Deflate 压缩的 JSON
+     */
+    static final byte VERSION_DEFLATE_JSON = 1;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private static final TypeReference<List<Day>> DAYS_TYPE = new TypeReference<>() {
+    };
+
+    private TripDaysCodec() {
+    }
+
+    // ========== POI 引用 ==========
+
+    /**
+     * 复制 days，并将带 ID 的 POI 替换为只含 ID 的引用
+     */
+    public static List<Day> withPoiReferences(List<Day> days) {
+        List<Day> copies = new ArrayList<>();
+        for (Day day : days) {
+            List<Activity> activities = null;
+            if (day.getActivities() != null) {
+                activities = new ArrayList<>();
+                for (Activity activity : day.getActivities()) {
+                    AmapPoi poi = activity.getPoi();
+                    Activity copy = Activity.builder()
+                            .id(activity.getId())
+                            .dayIndex(activity.getDayIndex())
+                            .type(activity.getType())
+                            .title(activity.getTitle())
+                            .locationName(activity.getLocationName())
+                            .poi(poi != null && poi.getId() != null ? poiReference(poi.getId()) : poi)
+                            .startTime(activity.getStartTime())
+                            .endTime(activity.getEndTime())
+                            .estimatedCost(activity.getEstimatedCost())
+                            .build();
+                    activities.add(copy);
+                }
+            }
+            copies.add(Day.builder()
+                    .dayIndex(day.getDayIndex())
+                    .date(day.getDate())
+                    .activities(activities)
+                    .build());
+        }
+        return copies;
+    }
+
+    /**
+     * 收集 days 中所有带 ID 的完整 POI（不含引用）
+     */
+    public static List<AmapPoi> collectPois(List<Day> days) {
+        List<AmapPoi> pois = new ArrayList<>();
+        forEachActivity(days, activity -> {
+            AmapPoi poi = activity.getPoi();
+            if (poi != null && poi.getId() != null && !isPoiReference(poi)) {
+                pois.add(poi);
+            }
+        });
+        return pois;
+    }
+
+    /**
+     * 收集 days 中 POI 引用的 ID
+     */
+    public static Set<String> collectPoiReferenceIds(List<Day> days) {
+        Set<String> poiIds = new LinkedHashSet<>();
+        forEachActivity(days, activity -> {
+            if (isPoiReference(activity.getPoi())) {
+                poiIds.add(activity.getPoi().getId());
+            }
+        });
+        return poiIds;
+    }
+
+    /**
+     * 用查询到的 POI 替换引用（未找到的保持引用）
+     */
+    public static void resolvePoiReferences(List<Day> days, Map<String, AmapPoi> pois) {
+        forEachActivity(days, activity -> {
+            if (isPoiReference(activity.getPoi())) {
+                AmapPoi poi = pois.get(activity.getPoi().getId());
+                if (poi != null) {
+                    activity.setPoi(poi);
+                }
+            }
+        });
+    }
+
+    /**
+     * 是否为只含 ID 的 POI 引用
+     */
+    static boolean isPoiReference(AmapPoi poi) {
+        return poi != null && poi.getId() != null && poi.getName() == null && poi.getLocation() == null;
+    }
+
+    private static AmapPoi poiReference(String poiId) {
+        return AmapPoi.builder().id(poiId).build();
+    }
+
+    private static void forEachActivity(List<Day> days, Consumer<Activity> action) {
+        if (days == null) {
+            return;
+        }
+        for (Day day : days) {
+            if (day.getActivities() != null) {
+                day.getActivities().forEach(action);
+            }
+        }
+    }
+
+    // ========== blob 格式 ==========
+
+    /**
+     * 编码为 blob 格式
+     */
+    public static byte[] encode(List<Day> days) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(VERSION_DEFLATE_JSON);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream deflaterOut = new DeflaterOutputStream(out, deflater, BUFFER_SIZE)) {
+            OBJECT_MAPPER.writeValue(deflaterOut, days);
+        } catch (IOException e) {
+            throw new UncheckedIOException("行程日程编码失败", e);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 解码 blob 格式
+     */
+    public static List<Day> decode(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            throw new IllegalArgumentException("行程日程数据为空");
+        }
+        if (bytes[0] != VERSION_DEFLATE_JSON) {
+            throw new IllegalArgumentException("不支持的行程日程格式版本: " + bytes[0]);
+        }
+
+        Inflater inflater = new Inflater();
+        try (InputStream in = new InflaterInputStream(
+                new ByteArrayInputStream(bytes, 1, bytes.length - 1), inflater, BUFFER_SIZE)) {
+            return OBJECT_MAPPER.readValue(in, DAYS_TYPE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("行程日程解码失败", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // ========== map 格式 ==========
+
+    /**
+     * 转换为 map 格式
+     */
+    public static List<Map<String, Object>> toMapList(List<Day> days) {
+        List<Map<String, Object>> daysList = new ArrayList<>();
+        for (Day day : days) {
+            daysList.add(toMap(day));
+        }
+        return daysList;
+    }
+
+    /**
+     * 单天转换为 map 格式（subcollection 存储的每天一个文档）
+     */
+    public static Map<String, Object> toMap(Day day) {
+        Map<String, Object> dayMap = new HashMap<>();
+        dayMap.put("dayIndex", day.getDayIndex());
+        if (day.getDate() != null) {
+            dayMap.put("date", day.getDate().toString());
+        }
+
+        if (day.getActivities() != null) {
+            List<Map<String, Object>> activitiesList = new ArrayList<>();
+            for (Activity activity : day.getActivities()) {
+                activitiesList.add(convertActivityToMap(activity));
+            }
+            dayMap.put("activities", activitiesList);
+        }
+        return dayMap;
+    }
+
+    /**
+     * 从 map 格式解析
+     */
+    public static List<Day> fromMapList(List<Map<String, Object>> daysList) {
+        List<Day> days = new ArrayList<>();
+        for (Map<String, Object> dayMap : daysList) {
+            days.add(fromMap(dayMap));
+        }
+        return days;
+    }
+
+    /**
+     * 从 map 格式解析单天
+     */
+    @SuppressWarnings("unchecked")
+    public static Day fromMap(Map<String, Object> dayMap) {
+        Integer dayIndex = ((Long) dayMap.get("dayIndex")).intValue();
+        LocalDate date = dayMap.get("date") instanceof String dateText ? LocalDate.parse(dateText) : null;
+
+        List<Activity> activities = null;
+        List<Map<String, Object>> activitiesList = (List<Map<String, Object>>) dayMap.get("activities");
+        if (activitiesList != null) {
+            activities = new ArrayList<>();
+            for (Map<String, Object> activityMap : activitiesList) {
+                activities.add(convertMapToActivity(activityMap));
+            }
+        }
+
+        return Day.builder()
+                .dayIndex(dayIndex)
+                .date(date)
+                .activities(activities)
+                .build();
+    }
+
+    private static Map<String, Object> convertActivityToMap(Activity activity) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", activity.getId());
+        map.put("dayIndex", activity.getDayIndex());
+        map.put("type", activity.getType());
+        map.put("title", activity.getTitle());
+        map.put("locationName", activity.getLocationName());
+        // POI 引用只保存 ID，完整 POI 保持原有嵌套格式
+        if (isPoiReference(activity.getPoi())) {
+            map.put("poiId", activity.getPoi().getId());
+        } else {
+            map.put("poi", activity.getPoi());
+        }
+        map.put("startTime", activity.getStartTime());
+        map.put("endTime", activity.getEndTime());
+        map.put("estimatedCost", activity.getEstimatedCost());
+        return map;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Activity convertMapToActivity(Map<String, Object> map) {
+        // 解析 POI 对象
+        AmapPoi poi = null;
+        Object poiObj = map.get("poi");
+        if (poiObj instanceof Map) {
+            Map<String, Object> poiMap = (Map<String, Object>) poiObj;
+            poi = AmapPoi.builder()
+                    .id((String) poiMap.get("id"))
+                    .name((String) poiMap.get("name"))
+                    .type((String) poiMap.get("type"))
+                    .typecode((String) poiMap.get("typecode"))
+                    .address((String) poiMap.get("address"))
+                    .location((String) poiMap.get("location"))
+                    .pname((String) poiMap.get("pname"))
+                    .cityname((String) poiMap.get("cityname"))
+                    .adname((String) poiMap.get("adname"))
+                    .pcode((String) poiMap.get("pcode"))
+                    .citycode((String) poiMap.get("citycode"))
+                    .adcode((String) poiMap.get("adcode"))
+                    .tel((String) poiMap.get("tel"))
+                    .build();
+        } else if (map.get("poiId") instanceof String poiId) {
+            poi = poiReference(poiId);
+        }
+
+        return Activity.builder()
+                .id((String) map.get("id"))
+                .dayIndex(((Long) map.get("dayIndex")).intValue())
+                .type((String) map.get("type"))
+                .title((String) map.get("title"))
+                .locationName((String) map.get("locationName"))
+                .poi(poi)
+                .startTime((String) map.get("startTime"))
+                .endTime((String) map.get("endTime"))
+                .estimatedCost((Long) map.get("estimatedCost"))
+                .build();
+    }
+}
@@ -0,0 +1,326 @@
+package com.tinglans.backend.repository;
+
+import com.tinglans.backend.dto.PageResult;
+import com.tinglans.backend.dto.TripSummary;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * 用户行程索引（Redis）
+ * trip:index:{userId}    有序集合，member 为行程ID，score 为 createdAt 毫秒值
+ * trip:summary:{tripId}  哈希，保存精简的 TripSummary 字段
+ * 索引缺失时由业务层从 Firestore 惰性重建：重建期间（trip:index:rebuilding:{userId} 存在）新增、删除的行程先记录下来，
+ * 新索引写入临时键，合并这些变更后再 RENAME 为正式索引，读取方不会看到半成品，也不会丢失重建期间确认的行程
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class TripIndexRepository {
+
+    private static final String INDEX_KEY_PREFIX = "trip:index:";
+    private static final String SUMMARY_KEY_PREFIX = "trip:summary:";
+    private static final String REBUILDING_KEY_PREFIX = "trip:index:rebuilding:";
+    private static final String REBUILD_ADDED_KEY_PREFIX = "trip:index:rebuild-added:";
+    private static final String REBUILD_REMOVED_KEY_PREFIX = "trip:index:rebuild-removed:";
+    private static final String REBUILD_TMP_KEY_PREFIX = "trip:index:tmp:";
+
+    /**
+     * 重建标记的最长存活时间（秒），重建进程异常退出时自动失效
+     */
+    private static final long REBUILD_TTL_SECONDS = 120;
+
+    /**
+     * 索引已存在时追加新行程；正在重建时记录到重建期间新增集合；都不是时跳过，避免生成不完整的索引
+     * KEYS: 索引、概要、重建标记、重建期间新增；ARGV: score、tripId、TTL、重建标记 TTL、概要字段...
+     */
+    private static final RedisScript<Long> ADD_IF_INDEXED_SCRIPT = new DefaultRedisScript<>("""
+            local target
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+              target = KEYS[1]
+            elseif redis.call('EXISTS', KEYS[3]) == 1 then
+              target = KEYS[4]
+            else
+              return 0
+            end
+            redis.call('ZADD', target, ARGV[1], ARGV[2])
+            redis.call('EXPIRE', target, target == KEYS[1] and ARGV[3] or ARGV[4])
+            redis.call('DEL', KEYS[2])
+            redis.call('HSET', KEYS[2], unpack(ARGV, 5))
+            redis.call('EXPIRE', KEYS[2], ARGV[3])
+            return 1
+            """, Long.class);
+
+    /**
+     * 从索引移除行程；正在重建时同时记录到重建期间删除集合
+     * KEYS: 索引、重建标记、重建期间新增、重建期间删除；ARGV: tripId、重建标记 TTL
+     */
+    private static final RedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('ZREM', KEYS[1], ARGV[1])
+            if redis.call('EXISTS', KEYS[2]) == 1 then
+              redis.call('ZREM', KEYS[3], ARGV[1])
+              redis.call('SADD', KEYS[4], ARGV[1])
+              redis.call('EXPIRE', KEYS[4], ARGV[2])
+            end
+            return 1
+            """, Long.class);
+
+    /**
+     * 开始重建：重建标记计数加一（允许多个请求同时重建）
+     * KEYS: 重建标记；ARGV: 重建标记 TTL
+     */
+    private static final RedisScript<Long> BEGIN_REBUILD_SCRIPT = new DefaultRedisScript<>("""
+            local count = redis.call('INCR', KEYS[1])
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            return count
+            """, Long.class);
+
+    /**
+     * 完成重建：合并重建期间的新增与删除后将临时索引 RENAME 为正式索引；最后一个重建结束时清理重建标记
+     * KEYS: 临时索引、索引、重建标记、重建期间新增、重建期间删除；ARGV: TTL
+     */
+    private static final RedisScript<Long> FINISH_REBUILD_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[4]) == 1 then
+              redis.call('ZUNIONSTORE', KEYS[1], 2, KEYS[1], KEYS[4], 'AGGREGATE', 'MAX')
+            end
+            local removed = redis.call('SMEMBERS', KEYS[5])
+            if #removed > 0 and redis.call('EXISTS', KEYS[1]) == 1 then
+              redis.call('ZREM', KEYS[1], unpack(removed))
+            end
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+              redis.call('RENAME', KEYS[1], KEYS[2])
+              redis.call('EXPIRE', KEYS[2], ARGV[1])
+            end
+            if redis.call('DECR', KEYS[3]) <= 0 then
+              redis.call('DEL', KEYS[3], KEYS[4], KEYS[5])
+            end
+            return 1
+            """, Long.class);
+
+    /**
+     * 读取一页行程ID：游标定位与 ZREVRANGE 在一次往返中完成，索引不存在时返回 false
+     * KEYS: 索引；ARGV: 游标行程ID、游标 createdAt 毫秒值、读取条数
+     */
+    private static final RedisScript<List> FIND_PAGE_IDS_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+              return false
+            end
+            local start = 0
+            if ARGV[1] ~= '' then
+              local rank = redis.call('ZREVRANK', KEYS[1], ARGV[1])
+              if rank then
+                start = rank + 1
+              else
+                start = redis.call('ZCOUNT', KEYS[1], ARGV[2], '+inf')
+              end
+            end
+            return redis.call('ZREVRANGE', KEYS[1], start, start + tonumber(ARGV[3]) - 1)
+            """, List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final long cacheDefaultTtl;
+
+    /**
+     * 判断用户索引是否存在
+     */
+    public boolean exists(String userId) {
+        return Boolean.TRUE.equals(stringRedisTemplate.hasKey(INDEX_KEY_PREFIX + userId));
+    }
+
+    /**
+     * 将行程加入用户索引（索引不存在且未在重建时跳过，等待下次惰性重建）
+     */
+    public void addIfIndexed(TripSummary summary) {
+        if (summary.getCreatedAt() == null) {
+            return;
+        }
+
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(summary.getCreatedAt().toEpochMilli()));
+        args.add(summary.getId());
+        args.add(String.valueOf(cacheDefaultTtl));
+        args.add(String.valueOf(REBUILD_TTL_SECONDS));
+        convertSummaryToHash(summary).forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+
+        String userId = summary.getUserId();
+        Long added = stringRedisTemplate.execute(ADD_IF_INDEXED_SCRIPT,
+                List.of(INDEX_KEY_PREFIX + userId, SUMMARY_KEY_PREFIX + summary.getId(),
+                        REBUILDING_KEY_PREFIX + userId, REBUILD_ADDED_KEY_PREFIX + userId),
+                args.toArray());
+        log.debug("更新用户行程索引: userId={}, tripId={}, indexed={}", summary.getUserId(), summary.getId(), added);
+    }
+
+    /**
+     * 从用户索引中移除行程
+     */
+    public void remove(String userId, String tripId) {
+        stringRedisTemplate.execute(REMOVE_SCRIPT,
+                List.of(INDEX_KEY_PREFIX + userId, REBUILDING_KEY_PREFIX + userId,
+                        REBUILD_ADDED_KEY_PREFIX + userId, REBUILD_REMOVED_KEY_PREFIX + userId),
+                tripId, String.valueOf(REBUILD_TTL_SECONDS));
+        stringRedisTemplate.delete(SUMMARY_KEY_PREFIX + tripId);
+        log.debug("从用户行程索引移除: userId={}, tripId={}", userId, tripId);
+    }
+
+    /**
+     * 开始重建用户索引（在从 Firestore 加载行程概要之前调用）
+     * 之后新增、删除的行程会被记录，在 rebuild 时合并，加载期间确认的行程不会丢失
+     */
+    public void beginRebuild(String userId) {
+        stringRedisTemplate.execute(BEGIN_REBUILD_SCRIPT,
+                List.of(REBUILDING_KEY_PREFIX + userId), String.valueOf(REBUILD_TTL_SECONDS));
+    }
+
+    /**
+     * 使用完整的行程概要列表重建用户索引（须先调用 beginRebuild）
+     * 先写入临时索引，合并重建期间的变更后原子地替换正式索引
+     */
+    public void rebuild(String userId, List<TripSummary> summaries) {
+        String tmpKey = REBUILD_TMP_KEY_PREFIX + userId + ":" + UUID.randomUUID();
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (TripSummary summary : summaries) {
+                String summaryKey = SUMMARY_KEY_PREFIX + summary.getId();
+                conn.zAdd(tmpKey, summary.getCreatedAt().toEpochMilli(), summary.getId());
+                conn.del(summaryKey);
+                conn.hMSet(summaryKey, convertSummaryToHash(summary));
+                conn.expire(summaryKey, cacheDefaultTtl);
+            }
+            // 重建中断时临时索引自动过期
+            conn.expire(tmpKey, REBUILD_TTL_SECONDS);
+            return null;
+        });
+        stringRedisTemplate.execute(FINISH_REBUILD_SCRIPT,
+                List.of(tmpKey, INDEX_KEY_PREFIX + userId, REBUILDING_KEY_PREFIX + userId,
+                        REBUILD_ADDED_KEY_PREFIX + userId, REBUILD_REMOVED_KEY_PREFIX + userId),
+                String.valueOf(cacheDefaultTtl));
+        log.info("重建用户行程索引: userId={}, count={}", userId, summaries.size());
+    }
+
+    /**
+     * 从索引分页读取行程概要
+     * 一次脚本调用完成游标定位与 ZREVRANGE，再通过一次管道批量 HGETALL 读取概要，共两次往返
+     *
+     * @return 索引不存在或不完整时返回 empty，由调用方回源 Firestore
+     */
+    public Optional<PageResult<TripSummary>> findPage(String userId, int pageSize, String pageToken) {
+        String indexKey = INDEX_KEY_PREFIX + userId;
+
+        String cursorTripId = "";
+        String cursorCreatedAt = "";
+        if (pageToken != null && !pageToken.isEmpty()) {
+            // 游标对应的行程已被删除时按 score 定位
+            TripPageToken cursor = TripPageToken.decode(pageToken);
+            cursorTripId = cursor.tripId();
+            cursorCreatedAt = String.valueOf(cursor.createdAtMillis());
+        }
+
+        // 多取一条用于判断是否还有下一页
+        @SuppressWarnings("unchecked")
+        List<String> idList = stringRedisTemplate.execute(FIND_PAGE_IDS_SCRIPT, List.of(indexKey),
+                cursorTripId, cursorCreatedAt, String.valueOf(pageSize + 1));
+        if (idList == null) {
+            return Optional.empty();
+        }
+        List<String> tripIds = idList;
+        boolean hasMore = tripIds.size() > pageSize;
+        if (hasMore) {
+            tripIds = tripIds.subList(0, pageSize);
+        }
+
+        List<TripSummary> items = new ArrayList<>(tripIds.size());
+        if (!tripIds.isEmpty()) {
+            List<String> pageIds = tripIds;
+            List<Object> hashes = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                pageIds.forEach(tripId -> conn.hGetAll(SUMMARY_KEY_PREFIX + tripId));
+                return null;
+            });
+
+            for (Object hash : hashes) {
+                @SuppressWarnings("unchecked")
+                Map<String, String> fields = (Map<String, String>) hash;
+                if (fields == null || fields.isEmpty()) {
+                    // 概要已过期，索引不完整，删除后让调用方回源重建
+                    log.debug("用户行程索引不完整，等待重建: userId={}", userId);
+                    stringRedisTemplate.delete(indexKey);
+                    return Optional.empty();
+                }
+                items.add(convertHashToSummary(fields));
+            }
+        }
+
+        String nextPageToken = null;
+        if (hasMore) {
+            TripSummary last = items.get(items.size() - 1);
+            nextPageToken = TripPageToken.of(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        log.debug("从 Redis 索引获取行程概要: userId={}, count={}, hasMore={}", userId, items.size(), hasMore);
+        return Optional.of(PageResult.<TripSummary>builder()
+                .items(items)
+                .nextPageToken(nextPageToken)
+                .build());
+    }
+
+    // ========== 辅助转换方法 ==========
+
+    private Map<String, String> convertSummaryToHash(TripSummary summary) {
+        Map<String, String> hash = new LinkedHashMap<>();
+        putIfNotNull(hash, "id", summary.getId());
+        putIfNotNull(hash, "userId", summary.getUserId());
+        putIfNotNull(hash, "title", summary.getTitle());
+        putIfNotNull(hash, "destination", summary.getDestination());
+        putIfNotNull(hash, "startDate", summary.getStartDate());
+        putIfNotNull(hash, "endDate", summary.getEndDate());
+        putIfNotNull(hash, "totalBudget", summary.getTotalBudget());
+        if (summary.getHeadcount() != null) {
+            putIfNotNull(hash, "adults", summary.getHeadcount().getAdults());
+            putIfNotNull(hash, "children", summary.getHeadcount().getChildren());
+        }
+        putIfNotNull(hash, "createdAt", summary.getCreatedAt());
+        putIfNotNull(hash, "updatedAt", summary.getUpdatedAt());
+        return hash;
+    }
+
+    private void putIfNotNull(Map<String, String> hash, String field, Object value) {
+        if (value != null) {
+            hash.put(field, value.toString());
+        }
+    }
+
+    private TripSummary convertHashToSummary(Map<String, String> hash) {
+        TripSummary.Headcount headcount = null;
+        if (hash.containsKey("adults")) {
+            headcount = TripSummary.Headcount.builder()
+                    .adults(Integer.valueOf(hash.get("adults")))
+                    .children(hash.containsKey("children") ? Integer.valueOf(hash.get("children")) : 0)
+                    .build();
+        }
+
+        return TripSummary.builder()
+                .id(hash.get("id"))
+                .userId(hash.get("userId"))
+                .title(hash.get("title"))
+                .destination(hash.get("destination"))
+                .startDate(hash.containsKey("startDate") ? LocalDate.parse(hash.get("startDate")) : null)
+                .endDate(hash.containsKey("endDate") ? LocalDate.parse(hash.get("endDate")) : null)
+                .totalBudget(hash.containsKey("totalBudget") ? Long.valueOf(hash.get("totalBudget")) : null)
+                .headcount(headcount)
+                .createdAt(hash.containsKey("createdAt") ? Instant.parse(hash.get("createdAt")) : null)
+                .updatedAt(hash.containsKey("updatedAt") ? Instant.parse(hash.get("updatedAt")) : null)
+                .build();
+    }
+}
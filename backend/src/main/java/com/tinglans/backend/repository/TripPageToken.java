@@ -0,0 +1,53 @@
+package com.tinglans.backend.repository;
+
+import com.google.cloud.Timestamp;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * 行程列表分页游标
+ * 记录上一页最后一条行程的 createdAt 与ID，编码为对外不透明的 pageToken
+ * Firestore 查询与 Redis 索引共用同一种游标格式
+ *
+ * @param createdAt 最后一条行程的创建时间
+ * @param tripId    最后一条行程的ID
+ */
+public record TripPageToken(Timestamp createdAt, String tripId) {
+
+    public static TripPageToken of(Instant createdAt, String tripId) {
+        return new TripPageToken(Timestamp.ofTimeSecondsAndNanos(createdAt.getEpochSecond(), createdAt.getNano()), tripId);
+    }
+
+    /**
+     * 编码为 pageToken
+     */
+    public String encode() {
+        String raw = createdAt.getSeconds() + ":" + createdAt.getNanos() + ":" + tripId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 从 pageToken 解码
+     *
+     * @throws IllegalArgumentException 游标格式无效
+     */
+    public static TripPageToken decode(String pageToken) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            Timestamp createdAt = Timestamp.ofTimeSecondsAndNanos(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+            return new TripPageToken(createdAt, parts[2]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("分页游标无效");
+        }
+    }
+
+    /**
+     * 创建时间的毫秒值（用作 Redis 有序集合的 score）
+     */
+    public long createdAtMillis() {
+        return createdAt.toDate().getTime();
+    }
+}
@@ -3,18 +3,26 @@ package com.tinglans.backend.repository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
-import com.tinglans.backend.domain.Activity;
 import com.tinglans.backend.domain.Day;
 import com.tinglans.backend.domain.Trip;
+import com.tinglans.backend.dto.PageResult;
+import com.tinglans.backend.dto.TripHeader;
+import com.tinglans.backend.dto.TripSummary;
 import com.tinglans.backend.thirdparty.amap.dto.AmapPoi;
+import com.tinglans.backend.util.FirestoreErrorUtil;
+import com.tinglans.backend.util.FutureUtil;
+import com.tinglans.backend.util.RedisCallbackExecutor;
+import io.grpc.Status;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -30,17 +38,51 @@ public class TripRepository {
 
     private static final String COLLECTION_TRIPS = "trips";
     private static final String REDIS_KEY_PREFIX = "trip:";
+    private static final String REDIS_TOMBSTONE_PREFIX = "trip:missing:";
+    private static final String SUBCOLLECTION_DAYS = "days";
+    private static final String DAYS_FORMAT_BLOB = "blob";
+    private static final String DAYS_FORMAT_SUBCOLLECTION = "subcollection";
+    private static final int MAX_REWRITE_ATTEMPTS = 5;
+
+    /**
+     * 各存储格式下保存 days 的行程文档字段
+     */
+    private static final List<String> DAYS_FIELDS = List.of("days", "daysBlob", "daysIndex");
+
+    /**
+     * 列表查询只读取的概要字段（不包含 days）
+     */
+    private static final String[] SUMMARY_FIELDS = {
+            "id", "userId", "title", "destination", "startDate", "endDate",
+            "totalBudget", "headcount", "createdAt", "updatedAt"
+    };
 
     private final Firestore firestore;
     private final RedisTemplate<String, Object> redisTemplate;
     private final long cacheDefaultTtl;
+    private final long cacheTombstoneTtl;
+    private final PoiRepository poiRepository;
+    private final RedisCallbackExecutor redisCallbackExecutor;
 
     /**
-     * 保存行程到 Redis 缓存
+     * days 的存储格式：map（嵌套数组）、blob（压缩二进制）或 subcollection（每天一个子文档）
+     */
+    @Value("${trip.storage.days-format:map}")
+    private String daysFormat;
+
+    /**
+     * 活动是否只保存 POI ID（POI 详情写入 pois 集合）
+     */
+    @Value("${trip.storage.poi-references:true}")
+    private boolean poiReferences;
+
+    /**
+     * 保存行程到 Redis 缓存（同时清除不存在标记）
      */
     public void saveToCache(Trip trip) {
         String key = REDIS_KEY_PREFIX + trip.getId();
         redisTemplate.opsForValue().set(key, trip, cacheDefaultTtl, TimeUnit.SECONDS);
+        redisTemplate.delete(REDIS_TOMBSTONE_PREFIX + trip.getId());
         log.debug("保存行程到 Redis: {}", trip.getId());
     }
 
@@ -66,13 +108,104 @@ public class TripRepository {
         log.debug("从 Redis 删除行程: {}", tripId);
     }
 
+    /**
+     * 写入行程不存在标记（短 TTL），避免对不存在的ID反复查询 Firestore
+     */
+    public void markMissing(String tripId) {
+        String key = REDIS_TOMBSTONE_PREFIX + tripId;
+        redisTemplate.opsForValue().set(key, Boolean.TRUE, cacheTombstoneTtl, TimeUnit.SECONDS);
+        log.debug("写入行程不存在标记: {}", tripId);
+    }
+
+    /**
+     * 检查行程是否已被标记为不存在
+     */
+    public boolean isMarkedMissing(String tripId) {
+        String key = REDIS_TOMBSTONE_PREFIX + tripId;
+        return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+    }
+
     /**
      * 保存行程到 Firestore
      */
     public void saveToFirestore(Trip trip) throws ExecutionException, InterruptedException {
+        saveToFirestoreAsync(trip).get();
+    }
+
+    /**
+     * 保存行程到 Firestore（异步）
+     */
+    public CompletableFuture<Void> saveToFirestoreAsync(Trip trip) {
         DocumentReference docRef = firestore.collection(COLLECTION_TRIPS).document(trip.getId());
-        
-        Map<String, Object> data = new HashMap<>();
+
+        // 先列出已有的天文档，不再使用的天文档与行程文档在同一批次删除
+        return FutureUtil.toCompletableFuture(listDayDocuments(docRef)).thenCompose(existingDays -> {
+            WriteBatch batch = firestore.batch();
+            Map<String, Object> data = new HashMap<>();
+            List<AmapPoi> stagedPois = stageTrip(batch, trip, data, existingDays);
+            batch.set(docRef, data);
+
+            return FutureUtil.toCompletableFuture(batch.commit()).thenAccept(writeResults -> {
+                poiRepository.remember(stagedPois);
+                log.info("保存行程到 Firestore: tripId={}, newPois={}", trip.getId(), stagedPois.size());
+            });
+        });
+    }
+
+    /**
+     * 按当前存储格式重写行程文档（格式迁移）
+     * 以读取时的 updateTime 作为前置条件写入，期间行程被修改时重新读取后重试，不会覆盖并发的修改
+     *
+     * @return 行程不存在时返回 false
+     */
+    public boolean rewriteInCurrentFormat(String tripId) throws ExecutionException, InterruptedException {
+        DocumentReference docRef = firestore.collection(COLLECTION_TRIPS).document(tripId);
+        for (int attempt = 1; ; attempt++) {
+            DocumentSnapshot document = docRef.get().get();
+            if (!document.exists()) {
+                return false;
+            }
+            Trip trip = convertDocumentToTrip(document);
+            loadDaysAsync(List.of(document), List.of(trip))
+                    .thenCompose(loaded -> resolvePoisAsync(List.of(trip)))
+                    .get();
+
+            WriteBatch batch = firestore.batch();
+            Map<String, Object> data = new HashMap<>();
+            List<AmapPoi> stagedPois = stageTrip(batch, trip, data, listDayDocuments(docRef).get());
+            // update 只覆盖给出的字段，其他格式的 days 字段显式删除
+            for (String field : DAYS_FIELDS) {
+                data.putIfAbsent(field, FieldValue.delete());
+            }
+            batch.update(docRef, data, Precondition.updatedAt(document.getUpdateTime()));
+
+            try {
+                batch.commit().get();
+                poiRepository.remember(stagedPois);
+                return true;
+            } catch (ExecutionException e) {
+                if (!FirestoreErrorUtil.hasStatus(e, Status.Code.FAILED_PRECONDITION) || attempt >= MAX_REWRITE_ATTEMPTS) {
+                    throw e;
+                }
+                log.info("行程在重写期间被修改，重新读取: tripId={}, attempt={}", tripId, attempt);
+            }
+        }
+    }
+
+    /**
+     * 列出行程已有的天文档（只读取文档ID）
+     */
+    private ApiFuture<QuerySnapshot> listDayDocuments(DocumentReference docRef) {
+        return docRef.collection(SUBCOLLECTION_DAYS).select(FieldPath.documentId()).get();
+    }
+
+    /**
+     * 将行程文档字段写入 data，天文档与新 POI 放入批次
+     * existingDays 中不属于本次保存的天文档（天数减少或格式已切换）一并删除，避免按天读取时读到过期数据
+     *
+     * @return 本次批次中写入的 POI，提交成功后记入已写入集合
+     */
+    private List<AmapPoi> stageTrip(WriteBatch batch, Trip trip, Map<String, Object> data, QuerySnapshot existingDays) {
         data.put("id", trip.getId());
         data.put("userId", trip.getUserId());
         data.put("title", trip.getTitle());
@@ -81,18 +214,41 @@ public class TripRepository {
         data.put("endDate", trip.getEndDate().toString());
         data.put("totalBudget", trip.getTotalBudget());
         data.put("headcount", convertHeadcountToMap(trip.getHeadcount()));
+        data.put("participantIds", trip.getParticipantIds() != null ? trip.getParticipantIds() : List.of());
         data.put("createdAt", trip.getCreatedAt());
         data.put("updatedAt", trip.getUpdatedAt());
-        
-        // 将 days 作为嵌入式数组保存
+
+        // days 按配置保存为嵌套数组（map）、压缩二进制（blob）或 trips/{id}/days/{n} 子文档，只写其一
+        List<AmapPoi> pois = List.of();
+        Set<String> writtenDays = new HashSet<>();
         if (trip.getDays() != null) {
-            data.put("days", convertDaysToList(trip.getDays()));
+            List<Day> days = trip.getDays();
+            if (poiReferences) {
+                pois = TripDaysCodec.collectPois(days);
+                days = TripDaysCodec.withPoiReferences(days);
+            }
+            if (DAYS_FORMAT_BLOB.equals(daysFormat)) {
+                data.put("daysBlob", Blob.fromBytes(TripDaysCodec.encode(days)));
+            } else if (DAYS_FORMAT_SUBCOLLECTION.equals(daysFormat)) {
+                // 行程文档只保留日程索引，详情页按天加载
+                data.put("daysIndex", convertDaysToIndex(days));
+                for (Day day : days) {
+                    batch.set(dayDocument(trip.getId(), day.getDayIndex()), TripDaysCodec.toMap(day));
+                    writtenDays.add(String.valueOf(day.getDayIndex()));
+                }
+            } else {
+                data.put("days", TripDaysCodec.toMapList(days));
+            }
         }
 
-        ApiFuture<WriteResult> result = docRef.set(data);
-        result.get();
-        
-        log.info("保存行程到 Firestore: {}", trip.getId());
+        for (QueryDocumentSnapshot existingDay : existingDays.getDocuments()) {
+            if (!writtenDays.contains(existingDay.getId())) {
+                batch.delete(existingDay.getReference());
+            }
+        }
+
+        // POI、天文档与行程文档在同一批次提交，已写入过的 POI 不再重复写入
+        return poiRepository.stage(batch, pois);
     }
 
     /**
@@ -100,18 +256,95 @@ public class TripRepository {
      */
     public Optional<Trip> getFromFirestore(String tripId) 
             throws ExecutionException, InterruptedException {
+        return getFromFirestoreAsync(tripId).get();
+    }
+
+    /**
+     * 从 Firestore 获取行程（异步）
+     */
+    public CompletableFuture<Optional<Trip>> getFromFirestoreAsync(String tripId) {
         DocumentReference docRef = firestore.collection(COLLECTION_TRIPS).document(tripId);
         ApiFuture<DocumentSnapshot> future = docRef.get();
-        DocumentSnapshot document = future.get();
 
-        if (!document.exists()) {
-            return Optional.empty();
+        return FutureUtil.toCompletableFuture(future).thenCompose(document -> {
+            if (!document.exists()) {
+                return CompletableFuture.completedFuture(Optional.<Trip>empty());
+            }
+
+            Trip trip = convertDocumentToTrip(document);
+
+            log.debug("从 Firestore 获取行程: {}", tripId);
+            return loadDaysAsync(List.of(document), List.of(trip))
+                    .thenCompose(loaded -> resolvePoisAsync(List.of(trip)))
+                    .thenApply(resolved -> Optional.of(trip));
+        });
+    }
+
+    /**
+     * 从 Firestore 获取行程头部（subcollection 格式不读取天文档）
+     */
+    public Optional<TripHeader> getHeaderFromFirestore(String tripId)
+            throws ExecutionException, InterruptedException {
+        return getHeaderFromFirestoreAsync(tripId).get();
+    }
+
+    /**
+     * 从 Firestore 获取行程头部（异步）
+     */
+    public CompletableFuture<Optional<TripHeader>> getHeaderFromFirestoreAsync(String tripId) {
+        DocumentReference docRef = firestore.collection(COLLECTION_TRIPS).document(tripId);
+        return FutureUtil.toCompletableFuture(docRef.get()).thenApply(document -> {
+            if (!document.exists()) {
+                return Optional.empty();
+            }
+
+            Trip trip = convertDocumentToTrip(document);
+            List<Map<String, Object>> daysIndex = getDaysIndex(document);
+            List<TripHeader.DayEntry> dayEntries = daysIndex != null
+                    ? convertIndexToDayEntries(daysIndex)
+                    : convertDaysToDayEntries(trip.getDays());
+
+            log.debug("从 Firestore 获取行程头部: {}", tripId);
+            return Optional.of(convertTripToHeader(trip, dayEntries));
+        });
+    }
+
+    /**
+     * 从 Firestore 获取行程的某一天
+     *
+     * @return 行程不存在时为空；行程存在但没有该天时为 Optional.of(Optional.empty())
+     */
+    public Optional<Optional<Day>> getDayFromFirestore(String tripId, int dayIndex)
+            throws ExecutionException, InterruptedException {
+        return getDayFromFirestoreAsync(tripId, dayIndex).get();
+    }
+
+    /**
+     * 从 Firestore 获取行程的某一天（异步）
+     * 当前为 subcollection 格式时先读取 trips/{id}/days/{n} 子文档（保存时会删除不再使用的天文档，存在即为最新），
+     * 不存在时（尚未迁移的行程）回退为读取整个行程；其他格式直接读取整个行程，不多一次子文档读取
+     *
+     * @return 行程不存在时为空；行程存在但没有该天时为 Optional.of(Optional.empty())
+     */
+    public CompletableFuture<Optional<Optional<Day>>> getDayFromFirestoreAsync(String tripId, int dayIndex) {
+        if (!DAYS_FORMAT_SUBCOLLECTION.equals(daysFormat)) {
+            return getFromFirestoreAsync(tripId).thenApply(trip -> trip
+                    .map(found -> findDay(found.getDays(), dayIndex)));
         }
 
-        Trip trip = convertDocumentToTrip(document);
+        ApiFuture<DocumentSnapshot> future = dayDocument(tripId, dayIndex).get();
+
+        return FutureUtil.toCompletableFuture(future).thenCompose(document -> {
+            if (!document.exists()) {
+                return getFromFirestoreAsync(tripId).thenApply(trip -> trip
+                        .map(found -> findDay(found.getDays(), dayIndex)));
+            }
 
-        log.debug("从 Firestore 获取行程: {}", tripId);
-        return Optional.of(trip);
+            Day day = TripDaysCodec.fromMap(document.getData());
+
+            log.debug("从 Firestore 获取行程日程: tripId={}, dayIndex={}", tripId, dayIndex);
+            return resolveDayPoisAsync(List.of(day)).thenApply(resolved -> Optional.of(Optional.of(day)));
+        });
     }
 
     /**
@@ -119,74 +352,286 @@ public class TripRepository {
      */
     public List<Trip> findConfirmedTripsByUserId(String userId) 
             throws ExecutionException, InterruptedException {
+        return findConfirmedTripsByUserIdAsync(userId).get();
+    }
+
+    /**
+     * 根据用户ID查询行程列表（异步）
+     */
+    public CompletableFuture<List<Trip>> findConfirmedTripsByUserIdAsync(String userId) {
         CollectionReference tripsRef = firestore.collection(COLLECTION_TRIPS);
         Query query = tripsRef
                 .whereEqualTo("userId", userId)
                 .orderBy("createdAt", Query.Direction.DESCENDING);
 
         ApiFuture<QuerySnapshot> future = query.get();
-        List<QueryDocumentSnapshot> documents = future.get().getDocuments();
+        return FutureUtil.toCompletableFuture(future).thenCompose(snapshot -> {
+            List<QueryDocumentSnapshot> documents = snapshot.getDocuments();
+            List<Trip> trips = documents.stream()
+                    .map(this::convertDocumentToTrip)
+                    .collect(Collectors.toList());
+            return loadDaysAsync(documents, trips)
+                    .thenCompose(loaded -> resolvePoisAsync(trips))
+                    .thenApply(resolved -> trips);
+        });
+    }
 
-        return documents.stream()
-                .map(this::convertDocumentToTrip)
-                .collect(Collectors.toList());
+    /**
+     * 加载 subcollection 格式行程的天文档（所有行程的天文档合并为一次 getAll）
+     *
+     * @param documents 行程文档
+     * @param trips     与 documents 一一对应的行程
+     */
+    private CompletableFuture<Void> loadDaysAsync(List<? extends DocumentSnapshot> documents, List<Trip> trips) {
+        Map<String, Trip> tripsById = new HashMap<>();
+        List<DocumentReference> dayRefs = new ArrayList<>();
+        for (int i = 0; i < documents.size(); i++) {
+            List<Map<String, Object>> daysIndex = getDaysIndex(documents.get(i));
+            Trip trip = trips.get(i);
+            if (daysIndex == null || trip.getDays() != null) {
+                continue;
+            }
+            trip.setDays(new ArrayList<>());
+            tripsById.put(documents.get(i).getId(), trip);
+            for (Map<String, Object> entry : daysIndex) {
+                dayRefs.add(dayDocument(documents.get(i).getId(), ((Long) entry.get("dayIndex")).intValue()));
+            }
+        }
+        if (dayRefs.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        ApiFuture<List<DocumentSnapshot>> future = firestore.getAll(dayRefs.toArray(DocumentReference[]::new));
+        return FutureUtil.toCompletableFuture(future).thenAccept(snapshots -> {
+            // getAll 按请求顺序返回，天的顺序与索引一致
+            for (DocumentSnapshot snapshot : snapshots) {
+                if (snapshot.exists()) {
+                    String tripId = snapshot.getReference().getParent().getParent().getId();
+                    tripsById.get(tripId).getDays().add(TripDaysCodec.fromMap(snapshot.getData()));
+                }
+            }
+        });
+    }
+
+    /**
+     * 回填活动中的 POI 引用（所有行程的引用合并为一次批量读取）
+     */
+    private CompletableFuture<Void> resolvePoisAsync(List<Trip> trips) {
+        List<Day> days = new ArrayList<>();
+        trips.stream()
+                .filter(trip -> trip.getDays() != null)
+                .forEach(trip -> days.addAll(trip.getDays()));
+        return resolveDayPoisAsync(days);
+    }
+
+    private CompletableFuture<Void> resolveDayPoisAsync(List<Day> days) {
+        Set<String> poiIds = TripDaysCodec.collectPoiReferenceIds(days);
+        if (poiIds.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return poiRepository.findAllByIdsAsync(poiIds)
+                .thenAccept(pois -> TripDaysCodec.resolvePoiReferences(days, pois));
+    }
+
+    /**
+     * 根据用户ID分页查询行程概要
+     * 仅投影概要字段，按 createdAt 倒序，使用游标分页
+     *
+     * @param userId    用户ID
+     * @param pageSize  每页数量
+     * @param pageToken 上一页返回的游标（首页为 null）
+     */
+    public PageResult<TripSummary> findTripSummariesByUserId(String userId, int pageSize, String pageToken)
+            throws ExecutionException, InterruptedException {
+        return findTripSummariesByUserIdAsync(userId, pageSize, pageToken).get();
+    }
+
+    /**
+     * 根据用户ID分页查询行程概要（异步）
+     */
+    public CompletableFuture<PageResult<TripSummary>> findTripSummariesByUserIdAsync(
+            String userId, int pageSize, String pageToken) {
+        Query query = firestore.collection(COLLECTION_TRIPS)
+                .whereEqualTo("userId", userId)
+                .orderBy("createdAt", Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING)
+                .select(SUMMARY_FIELDS);
+
+        if (pageToken != null && !pageToken.isEmpty()) {
+            TripPageToken cursor = TripPageToken.decode(pageToken);
+            query = query.startAfter(cursor.createdAt(), cursor.tripId());
+        }
+
+        // 多取一条用于判断是否还有下一页
+        ApiFuture<QuerySnapshot> future = query.limit(pageSize + 1).get();
+        return FutureUtil.toCompletableFuture(future)
+                .thenApply(snapshot -> toSummaryPage(userId, pageSize, snapshot.getDocuments()));
+    }
+
+    private PageResult<TripSummary> toSummaryPage(String userId, int pageSize, List<QueryDocumentSnapshot> documents) {
+        boolean hasMore = documents.size() > pageSize;
+        List<QueryDocumentSnapshot> pageDocuments = hasMore ? documents.subList(0, pageSize) : documents;
+
+        String nextPageToken = null;
+        if (hasMore) {
+            QueryDocumentSnapshot last = pageDocuments.get(pageDocuments.size() - 1);
+            nextPageToken = new TripPageToken(last.getTimestamp("createdAt"), last.getId()).encode();
+        }
+
+        log.debug("分页查询行程概要: userId={}, count={}, hasMore={}", userId, pageDocuments.size(), hasMore);
+        return PageResult.<TripSummary>builder()
+                .items(pageDocuments.stream().map(this::convertDocumentToSummary).collect(Collectors.toList()))
+                .nextPageToken(nextPageToken)
+                .build();
+    }
+
+    /**
+     * 添加共享行程参与者
+     */
+    public void addParticipant(String tripId, String userId) throws ExecutionException, InterruptedException {
+        addParticipantAsync(tripId, userId).get();
+    }
+
+    /**
+     * 添加共享行程参与者（异步）
+     */
+    public CompletableFuture<Void> addParticipantAsync(String tripId, String userId) {
+        DocumentReference docRef = firestore.collection(COLLECTION_TRIPS).document(tripId);
+        ApiFuture<WriteResult> result = docRef.update(
+                "participantIds", FieldValue.arrayUnion(userId),
+                "updatedAt", Instant.now());
+
+        return FutureUtil.toCompletableFuture(result).thenAcceptAsync(writeResult -> {
+            // 删除缓存，下次读取时回源
+            deleteFromCache(tripId);
+
+            log.info("添加行程参与者: tripId={}, userId={}", tripId, userId);
+        }, redisCallbackExecutor.executor());
+    }
+
+    /**
+     * 列出所有行程ID（仅列出文档引用，不读取文档内容）
+     */
+    public List<String> findAllTripIds() {
+        List<String> tripIds = new ArrayList<>();
+        for (DocumentReference docRef : firestore.collection(COLLECTION_TRIPS).listDocuments()) {
+            tripIds.add(docRef.getId());
+        }
+        return tripIds;
     }
 
     /**
      * 从 Firestore 删除行程
      */
     public void deleteFromFirestore(String tripId) throws ExecutionException, InterruptedException {
+        deleteFromFirestoreAsync(tripId).get();
+    }
+
+    /**
+     * 从 Firestore 删除行程（异步）
+     */
+    public CompletableFuture<Void> deleteFromFirestoreAsync(String tripId) {
         DocumentReference docRef = firestore.collection(COLLECTION_TRIPS).document(tripId);
-        ApiFuture<WriteResult> result = docRef.delete();
-        result.get();
-        
-        // 同时删除 Redis 缓存
-        deleteFromCache(tripId);
-        
-        log.info("从 Firestore 删除行程: {}", tripId);
+        // 子集合不会随文档删除，天文档与行程文档在同一批次删除（天数有限，无需分页）
+        return FutureUtil.toCompletableFuture(listDayDocuments(docRef)).thenCompose(days -> {
+            WriteBatch batch = firestore.batch();
+            days.getDocuments().forEach(day -> batch.delete(day.getReference()));
+            batch.delete(docRef);
+            return FutureUtil.toCompletableFuture(batch.commit());
+        }).thenAcceptAsync(writeResults -> {
+            // 同时删除 Redis 缓存，并写入不存在标记（阻塞调用，不在 gRPC 回调线程上执行）
+            deleteFromCache(tripId);
+            markMissing(tripId);
+
+            log.info("从 Firestore 删除行程: {}", tripId);
+        }, redisCallbackExecutor.executor());
     }
 
-    // ========== 辅助转换方法 ==========
+    private DocumentReference dayDocument(String tripId, int dayIndex) {
+        return firestore.collection(COLLECTION_TRIPS).document(tripId)
+                .collection(SUBCOLLECTION_DAYS).document(String.valueOf(dayIndex));
+    }
 
-    private Map<String, Object> convertHeadcountToMap(Trip.Headcount headcount) {
-        Map<String, Object> map = new HashMap<>();
-        if (headcount != null) {
-            map.put("adults", headcount.getAdults());
-            map.put("children", headcount.getChildren());
+    private Optional<Day> findDay(List<Day> days, int dayIndex) {
+        if (days == null) {
+            return Optional.empty();
         }
-        return map;
+        return days.stream().filter(day -> day.getDayIndex() == dayIndex).findFirst();
     }
 
-    private List<Map<String, Object>> convertDaysToList(List<Day> days) {
-        List<Map<String, Object>> daysList = new ArrayList<>();
+    // ========== 辅助转换方法 ==========
+
+    private List<Map<String, Object>> convertDaysToIndex(List<Day> days) {
+        List<Map<String, Object>> daysIndex = new ArrayList<>();
         for (Day day : days) {
-            Map<String, Object> dayMap = new HashMap<>();
-            dayMap.put("dayIndex", day.getDayIndex());
-            
-            if (day.getActivities() != null) {
-                List<Map<String, Object>> activitiesList = new ArrayList<>();
-                for (Activity activity : day.getActivities()) {
-                    activitiesList.add(convertActivityToMap(activity));
-                }
-                dayMap.put("activities", activitiesList);
-            }
-            
-            daysList.add(dayMap);
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("dayIndex", day.getDayIndex());
+            entry.put("date", day.getDate() != null ? day.getDate().toString() : null);
+            entry.put("activityCount", day.getActivities() != null ? day.getActivities().size() : 0);
+            daysIndex.add(entry);
+        }
+        return daysIndex;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> getDaysIndex(DocumentSnapshot doc) {
+        return (List<Map<String, Object>>) doc.get("daysIndex");
+    }
+
+    private List<TripHeader.DayEntry> convertIndexToDayEntries(List<Map<String, Object>> daysIndex) {
+        return daysIndex.stream()
+                .map(entry -> TripHeader.DayEntry.builder()
+                        .dayIndex(((Long) entry.get("dayIndex")).intValue())
+                        .date(entry.get("date") != null ? LocalDate.parse((String) entry.get("date")) : null)
+                        .activityCount(((Long) entry.get("activityCount")).intValue())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private List<TripHeader.DayEntry> convertDaysToDayEntries(List<Day> days) {
+        if (days == null) {
+            return List.of();
         }
-        return daysList;
+        return days.stream()
+                .map(day -> TripHeader.DayEntry.builder()
+                        .dayIndex(day.getDayIndex())
+                        .date(day.getDate())
+                        .activityCount(day.getActivities() != null ? day.getActivities().size() : 0)
+                        .build())
+                .collect(Collectors.toList());
     }
 
-    private Map<String, Object> convertActivityToMap(Activity activity) {
+    private TripHeader convertTripToHeader(Trip trip, List<TripHeader.DayEntry> dayEntries) {
+        TripSummary.Headcount headcount = null;
+        if (trip.getHeadcount() != null) {
+            headcount = TripSummary.Headcount.builder()
+                    .adults(trip.getHeadcount().getAdults())
+                    .children(trip.getHeadcount().getChildren())
+                    .build();
+        }
+
+        return TripHeader.builder()
+                .id(trip.getId())
+                .userId(trip.getUserId())
+                .title(trip.getTitle())
+                .destination(trip.getDestination())
+                .startDate(trip.getStartDate())
+                .endDate(trip.getEndDate())
+                .totalBudget(trip.getTotalBudget())
+                .headcount(headcount)
+                .participantIds(trip.getParticipantIds())
+                .days(dayEntries)
+                .createdAt(trip.getCreatedAt())
+                .updatedAt(trip.getUpdatedAt())
+                .build();
+    }
+
+    private Map<String, Object> convertHeadcountToMap(Trip.Headcount headcount) {
         Map<String, Object> map = new HashMap<>();
-        map.put("id", activity.getId());
-        map.put("dayIndex", activity.getDayIndex());
-        map.put("type", activity.getType());
-        map.put("title", activity.getTitle());
-        map.put("locationName", activity.getLocationName());
-        map.put("poi", activity.getPoi());
-        map.put("startTime", activity.getStartTime());
-        map.put("endTime", activity.getEndTime());
-        map.put("estimatedCost", activity.getEstimatedCost());
+        if (headcount != null) {
+            map.put("adults", headcount.getAdults());
+            map.put("children", headcount.getChildren());
+        }
         return map;
     }
 
@@ -201,15 +646,14 @@ public class TripRepository {
                     .build();
         }
 
-        // 解析 days 数组
+        // 解析 days（迁移期间多种格式并存，优先读取 blob；subcollection 格式由 loadDaysAsync 加载）
         List<Day> days = null;
+        Blob daysBlob = doc.getBlob("daysBlob");
         List<Map<String, Object>> daysList = (List<Map<String, Object>>) doc.get("days");
-        if (daysList != null) {
-            days = new ArrayList<>();
-            for (Map<String, Object> dayMap : daysList) {
-                Day day = convertMapToDay(dayMap);
-                days.add(day);
-            }
+        if (daysBlob != null) {
+            days = TripDaysCodec.decode(daysBlob.toBytes());
+        } else if (daysList != null) {
+            days = TripDaysCodec.fromMapList(daysList);
         }
 
         // 处理可能为 null 的日期字段
@@ -225,6 +669,8 @@ public class TripRepository {
             updatedAt = updatedAtDate.toInstant();
         }
 
+        List<String> participantIds = (List<String>) doc.get("participantIds");
+
         return Trip.builder()
                 .id(doc.getString("id"))
                 .userId(doc.getString("userId"))
@@ -234,6 +680,7 @@ public class TripRepository {
                 .endDate(LocalDate.parse(doc.getString("endDate")))
                 .totalBudget(doc.getLong("totalBudget"))
                 .headcount(headcount)
+                .participantIds(participantIds)
                 .createdAt(createdAt)
                 .updatedAt(updatedAt)
                 .days(days)
@@ -241,58 +688,30 @@ public class TripRepository {
     }
 
     @SuppressWarnings("unchecked")
-    private Day convertMapToDay(Map<String, Object> dayMap) {
-        Integer dayIndex = ((Long) dayMap.get("dayIndex")).intValue();
-        
-        List<Activity> activities = null;
-        List<Map<String, Object>> activitiesList = (List<Map<String, Object>>) dayMap.get("activities");
-        if (activitiesList != null) {
-            activities = new ArrayList<>();
-            for (Map<String, Object> activityMap : activitiesList) {
-                activities.add(convertMapToActivity(activityMap));
-            }
-        }
-        
-        return Day.builder()
-                .dayIndex(dayIndex)
-                .activities(activities)
-                .build();
-    }
-
-    @SuppressWarnings("unchecked")
-    private Activity convertMapToActivity(Map<String, Object> map) {
-        // 解析 POI 对象
-        AmapPoi poi = null;
-        Object poiObj = map.get("poi");
-        if (poiObj instanceof Map) {
-            Map<String, Object> poiMap = (Map<String, Object>) poiObj;
-            poi = AmapPoi.builder()
-                    .id((String) poiMap.get("id"))
-                    .name((String) poiMap.get("name"))
-                    .type((String) poiMap.get("type"))
-                    .typecode((String) poiMap.get("typecode"))
-                    .address((String) poiMap.get("address"))
-                    .location((String) poiMap.get("location"))
-                    .pname((String) poiMap.get("pname"))
-                    .cityname((String) poiMap.get("cityname"))
-                    .adname((String) poiMap.get("adname"))
-                    .pcode((String) poiMap.get("pcode"))
-                    .citycode((String) poiMap.get("citycode"))
-                    .adcode((String) poiMap.get("adcode"))
-                    .tel((String) poiMap.get("tel"))
+    private TripSummary convertDocumentToSummary(DocumentSnapshot doc) {
+        Map<String, Object> headcountMap = (Map<String, Object>) doc.get("headcount");
+        TripSummary.Headcount headcount = null;
+        if (headcountMap != null && headcountMap.get("adults") != null) {
+            headcount = TripSummary.Headcount.builder()
+                    .adults(((Long) headcountMap.get("adults")).intValue())
+                    .children(((Long) headcountMap.get("children")).intValue())
                     .build();
         }
-        
-        return Activity.builder()
-                .id((String) map.get("id"))
-                .dayIndex(((Long) map.get("dayIndex")).intValue())
-                .type((String) map.get("type"))
-                .title((String) map.get("title"))
-                .locationName((String) map.get("locationName"))
-                .poi(poi)
-                .startTime((String) map.get("startTime"))
-                .endTime((String) map.get("endTime"))
-                .estimatedCost((Long) map.get("estimatedCost"))
+
+        Date createdAtDate = doc.getDate("createdAt");
+        Date updatedAtDate = doc.getDate("updatedAt");
+
+        return TripSummary.builder()
+                .id(doc.getString("id"))
+                .userId(doc.getString("userId"))
+                .title(doc.getString("title"))
+                .destination(doc.getString("destination"))
+                .startDate(LocalDate.parse(doc.getString("startDate")))
+                .endDate(LocalDate.parse(doc.getString("endDate")))
+                .totalBudget(doc.getLong("totalBudget"))
+                .headcount(headcount)
+                .createdAt(createdAtDate != null ? createdAtDate.toInstant() : null)
+                .updatedAt(updatedAtDate != null ? updatedAtDate.toInstant() : null)
                 .build();
     }
 }
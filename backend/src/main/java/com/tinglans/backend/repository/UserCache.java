@@ -0,0 +1,159 @@
+package com.tinglans.backend.repository;
+
+import com.tinglans.backend.domain.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户缓存（两级：进程内 + Redis）
+ * 缓存的用户对象不包含密码哈希，登录校验必须直接读取 Firestore。
+ * 进程内缓存无法跨实例失效，因此只保留很短的 TTL，写操作时两级同时清除。
+ * 清除时在 Redis 中留下短期失效标记，标记存在期间不回填缓存：
+ * 避免写入前发起的读取在清除之后才回填，把旧数据重新写回缓存直到 TTL 过期
+ */
+@Slf4j
+@Component
+public class UserCache {
+
+    private static final String REDIS_KEY_PREFIX = "user:";
+    private static final String EVICTED_KEY_PREFIX = "user:evicted:";
+
+    /**
+     * 失效标记不存在时写入缓存
+     * KEYS: 用户缓存、失效标记；ARGV: 序列化后的用户、TTL
+     */
+    private static final RedisScript<Long> PUT_IF_NOT_EVICTED_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[2]) == 1 then
+              return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2])
+            return 1
+            """, Long.class);
+
+    /**
+     * 删除用户缓存并写入失效标记
+     * KEYS: 依次为用户缓存、失效标记（可多组）；ARGV: 失效标记 TTL
+     */
+    private static final RedisScript<Long> EVICT_SCRIPT = new DefaultRedisScript<>("""
+            for i = 1, #KEYS, 2 do
+              redis.call('DEL', KEYS[i])
+              redis.call('SET', KEYS[i + 1], '1', 'EX', ARGV[1])
+            end
+            return #KEYS / 2
+            """, Long.class);
+
+    private static final RedisSerializer<Long> LONG_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final long cacheDefaultTtl;
+    private final long evictedTtl;
+    private final long localTtlMillis;
+    private final int localMaxSize;
+
+    private final Map<String, LocalEntry> local = new ConcurrentHashMap<>();
+
+    public UserCache(RedisTemplate<String, Object> redisTemplate,
+                     long cacheDefaultTtl,
+                     @Value("${cache.user.evicted-ttl:5}") long evictedTtl,
+                     @Value("${cache.user.local-ttl:30}") long localTtlSeconds,
+                     @Value("${cache.user.local-max-size:10000}") int localMaxSize) {
+        this.redisTemplate = redisTemplate;
+        this.cacheDefaultTtl = cacheDefaultTtl;
+        this.evictedTtl = evictedTtl;
+        this.localTtlMillis = TimeUnit.SECONDS.toMillis(localTtlSeconds);
+        this.localMaxSize = localMaxSize;
+    }
+
+    /**
+     * 读取缓存的用户（先查进程内，再查 Redis 并回填进程内）
+     */
+    public Optional<User> get(String userId) {
+        LocalEntry entry = local.get(userId);
+        if (entry != null) {
+            if (entry.expiresAt() > System.currentTimeMillis()) {
+                return Optional.of(entry.user());
+            }
+            local.remove(userId, entry);
+        }
+
+        Object cached = redisTemplate.opsForValue().get(REDIS_KEY_PREFIX + userId);
+        if (cached instanceof User user) {
+            log.debug("从 Redis 获取用户: {}", userId);
+            putLocal(user);
+            return Optional.of(user);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 写入缓存（调用方传入的对象应已去除密码哈希）
+     * 用户刚被清除缓存（失效标记未过期）时不写入，下次读取重新查询 Firestore
+     */
+    public void put(User user) {
+        @SuppressWarnings("unchecked")
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        Long written = redisTemplate.execute(PUT_IF_NOT_EVICTED_SCRIPT, RedisSerializer.byteArray(), LONG_SERIALIZER,
+                List.of(REDIS_KEY_PREFIX + user.getId(), EVICTED_KEY_PREFIX + user.getId()),
+                valueSerializer.serialize(user), String.valueOf(cacheDefaultTtl).getBytes(StandardCharsets.UTF_8));
+        if (written == null || written == 0) {
+            log.debug("用户缓存刚被清除，跳过回填: {}", user.getId());
+            return;
+        }
+        putLocal(user);
+        log.debug("保存用户到缓存: {}", user.getId());
+    }
+
+    /**
+     * 清除用户缓存
+     */
+    public void evict(String userId) {
+        evictAll(List.of(userId));
+        log.debug("清除用户缓存: {}", userId);
+    }
+
+    /**
+     * 批量清除用户缓存
+     */
+    public void evictAll(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(userIds.size() * 2);
+        for (String userId : userIds) {
+            local.remove(userId);
+            keys.add(REDIS_KEY_PREFIX + userId);
+            keys.add(EVICTED_KEY_PREFIX + userId);
+        }
+        redisTemplate.execute(EVICT_SCRIPT, RedisSerializer.string(), LONG_SERIALIZER,
+                keys, String.valueOf(evictedTtl));
+    }
+
+    private void putLocal(User user) {
+        long now = System.currentTimeMillis();
+        if (local.size() >= localMaxSize) {
+            local.entrySet().removeIf(entry -> entry.getValue().expiresAt() <= now);
+            if (local.size() >= localMaxSize) {
+                return;
+            }
+        }
+        local.put(user.getId(), new LocalEntry(user, now + localTtlMillis));
+    }
+
+    private record LocalEntry(User user, long expiresAt) {
+    }
+}
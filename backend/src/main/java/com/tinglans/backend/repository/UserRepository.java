@@ -3,17 +3,23 @@ package com.tinglans.backend.repository;
 import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
 import com.tinglans.backend.domain.User;
+import com.tinglans.backend.util.FutureUtil;
+import com.tinglans.backend.util.RedisCallbackExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 /**
  * User 数据访问层
- * 管理 users 集合
+ * 管理 users 集合，以及用户名到用户ID的映射集合 usernames/{id}
+ * 映射文档ID为用户名 UTF-8 字节的 base64url 编码（无填充）：用户名中的 "/"、"."、"__x__" 等字符不能直接作为文档ID。
+ * 写入后清除缓存在 Redis 回调线程池中执行，不占用 Firestore 的 gRPC 回调线程
  */
 @Slf4j
 @Repository
@@ -21,72 +27,130 @@ import java.util.concurrent.ExecutionException;
 public class UserRepository {
 
     private static final String COLLECTION_USERS = "users";
+    private static final String COLLECTION_USERNAMES = "usernames";
 
     private final Firestore firestore;
+    private final UserCache userCache;
+    private final RedisCallbackExecutor redisCallbackExecutor;
 
     /**
      * 保存或更新用户
      */
     public void save(User user) throws ExecutionException, InterruptedException {
+        saveAsync(user).get();
+    }
+
+    /**
+     * 保存或更新用户（异步）
+     */
+    public CompletableFuture<Void> saveAsync(User user) {
         DocumentReference docRef = firestore.collection(COLLECTION_USERS).document(user.getId());
         
         Map<String, Object> data = convertUserToMap(user);
         ApiFuture<WriteResult> result = docRef.set(data);
-        result.get();
         
-        log.info("保存用户到 Firestore: userId={}", user.getId());
+        return FutureUtil.toCompletableFuture(result).thenRunAsync(() -> {
+            userCache.evict(user.getId());
+            log.info("保存用户到 Firestore: userId={}", user.getId());
+        }, redisCallbackExecutor.executor());
+    }
+
+    /**
+     * 创建用户（用户名唯一）
+     * 在同一事务中检查用户名映射并写入用户文档和用户名映射，并发注册同名用户时只有一个成功
+     *
+     * @return 用户名已被占用时返回 false
+     */
+    public boolean createIfUsernameAbsent(User user) throws ExecutionException, InterruptedException {
+        return createIfUsernameAbsentAsync(user).get();
+    }
+
+    /**
+     * 创建用户（用户名唯一，异步）
+     */
+    public CompletableFuture<Boolean> createIfUsernameAbsentAsync(User user) {
+        DocumentReference userRef = firestore.collection(COLLECTION_USERS).document(user.getId());
+        DocumentReference usernameRef = usernameRef(user.getUsername());
+        Map<String, Object> data = convertUserToMap(user);
+
+        ApiFuture<Boolean> result = firestore.runTransaction(transaction -> {
+            if (transaction.get(usernameRef).get().exists()) {
+                return false;
+            }
+            transaction.create(usernameRef, Map.of("userId", user.getId()));
+            transaction.create(userRef, data);
+            return true;
+        });
+
+        return FutureUtil.toCompletableFuture(result).thenApply(created -> {
+            log.info("创建用户: userId={}, username={}, created={}", user.getId(), user.getUsername(), created);
+            return created;
+        });
     }
 
     /**
      * 根据ID获取用户
      */
     public Optional<User> findById(String userId) throws ExecutionException, InterruptedException {
+        return findByIdAsync(userId).get();
+    }
+
+    /**
+     * 根据ID获取用户（异步）
+     */
+    public CompletableFuture<Optional<User>> findByIdAsync(String userId) {
         DocumentReference docRef = firestore.collection(COLLECTION_USERS).document(userId);
         ApiFuture<DocumentSnapshot> future = docRef.get();
-        DocumentSnapshot document = future.get();
 
-        if (!document.exists()) {
-            return Optional.empty();
-        }
+        return FutureUtil.toCompletableFuture(future).thenApply(document -> {
+            if (!document.exists()) {
+                return Optional.empty();
+            }
 
-        log.debug("从 Firestore 获取用户: userId={}", userId);
-        return Optional.of(convertDocumentToUser(document));
+            log.debug("从 Firestore 获取用户: userId={}", userId);
+            return Optional.of(convertDocumentToUser(document));
+        });
     }
 
     /**
      * 根据邮箱查找用户
      */
     public Optional<User> findByEmail(String email) throws ExecutionException, InterruptedException {
-        CollectionReference usersRef = firestore.collection(COLLECTION_USERS);
-        Query query = usersRef.whereEqualTo("email", email).limit(1);
-
-        ApiFuture<QuerySnapshot> future = query.get();
-        List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-
-        if (documents.isEmpty()) {
-            return Optional.empty();
-        }
+        return findByEmailAsync(email).get();
+    }
 
+    /**
+     * 根据邮箱查找用户（异步）
+     */
+    public CompletableFuture<Optional<User>> findByEmailAsync(String email) {
         log.debug("通过邮箱查找用户: email={}", email);
-        return Optional.of(convertDocumentToUser(documents.get(0)));
+        return findFirstByFieldAsync("email", email);
     }
 
     /**
      * 根据用户名查找用户
      */
     public Optional<User> findByUsername(String username) throws ExecutionException, InterruptedException {
-        CollectionReference usersRef = firestore.collection(COLLECTION_USERS);
-        Query query = usersRef.whereEqualTo("username", username).limit(1);
-
-        ApiFuture<QuerySnapshot> future = query.get();
-        List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-
-        if (documents.isEmpty()) {
-            return Optional.empty();
-        }
+        return findByUsernameAsync(username).get();
+    }
 
+    /**
+     * 根据用户名查找用户（异步）
+     */
+    public CompletableFuture<Optional<User>> findByUsernameAsync(String username) {
         log.debug("通过用户名查找用户: username={}", username);
-        return Optional.of(convertDocumentToUser(documents.get(0)));
+        return findUserIdByUsernameAsync(username).thenCompose(userIdOpt -> userIdOpt
+                .map(this::findByIdAsync)
+                .orElseGet(() -> CompletableFuture.completedFuture(Optional.empty())));
+    }
+
+    /**
+     * 根据用户名映射获取用户ID（异步）
+     */
+    public CompletableFuture<Optional<String>> findUserIdByUsernameAsync(String username) {
+        DocumentReference usernameRef = usernameRef(username);
+        return FutureUtil.toCompletableFuture(usernameRef.get()).thenApply(document ->
+                document.exists() ? Optional.ofNullable(document.getString("userId")) : Optional.empty());
     }
 
     /**
@@ -94,60 +158,181 @@ public class UserRepository {
      */
     public void updatePreferences(String userId, List<String> preferences) 
             throws ExecutionException, InterruptedException {
+        updatePreferencesAsync(userId, preferences).get();
+    }
+
+    /**
+     * 更新用户偏好（异步）
+     */
+    public CompletableFuture<Void> updatePreferencesAsync(String userId, List<String> preferences) {
         DocumentReference docRef = firestore.collection(COLLECTION_USERS).document(userId);
         
         Map<String, Object> updates = new HashMap<>();
         updates.put("preferences", preferences);
         
         ApiFuture<WriteResult> result = docRef.update(updates);
-        result.get();
-        
-        log.info("更新用户偏好: userId={}", userId);
+        return FutureUtil.toCompletableFuture(result).thenRunAsync(() -> {
+            userCache.evict(userId);
+            log.info("更新用户偏好: userId={}", userId);
+        }, redisCallbackExecutor.executor());
     }
 
     /**
      * 更新最后登录时间
      */
     public void updateLastLoginAt(String userId) throws ExecutionException, InterruptedException {
+        updateLastLoginAtAsync(userId).get();
+    }
+
+    /**
+     * 更新最后登录时间（异步）
+     */
+    public CompletableFuture<Void> updateLastLoginAtAsync(String userId) {
         DocumentReference docRef = firestore.collection(COLLECTION_USERS).document(userId);
         
         Map<String, Object> updates = new HashMap<>();
         updates.put("lastLoginAt", Instant.now());
         
         ApiFuture<WriteResult> result = docRef.update(updates);
-        result.get();
-        
-        log.debug("更新最后登录时间: userId={}", userId);
+        return FutureUtil.toCompletableFuture(result).thenRunAsync(() -> {
+            userCache.evict(userId);
+            log.debug("更新最后登录时间: userId={}", userId);
+        }, redisCallbackExecutor.executor());
+    }
+
+    /**
+     * 批量更新最后登录时间（单个 WriteBatch 提交，调用方保证不超过 500 条）
+     *
+     * @param lastLogins userId -> 最后登录时间
+     */
+    public void updateLastLoginAtBatch(Map<String, Instant> lastLogins) throws ExecutionException, InterruptedException {
+        WriteBatch batch = firestore.batch();
+        lastLogins.forEach((userId, lastLoginAt) -> batch.update(
+                firestore.collection(COLLECTION_USERS).document(userId), "lastLoginAt", lastLoginAt));
+        batch.commit().get();
+        userCache.evictAll(lastLogins.keySet());
+        log.debug("批量更新最后登录时间: count={}", lastLogins.size());
     }
 
     /**
      * 删除用户
      */
     public void delete(String userId) throws ExecutionException, InterruptedException {
+        deleteAsync(userId).get();
+    }
+
+    /**
+     * 删除用户（异步）
+     */
+    public CompletableFuture<Void> deleteAsync(String userId) {
         DocumentReference docRef = firestore.collection(COLLECTION_USERS).document(userId);
-        
-        ApiFuture<WriteResult> result = docRef.delete();
-        result.get();
-        
-        log.info("删除用户: userId={}", userId);
+
+        // 同一事务中删除用户名映射（仅当映射仍指向该用户）
+        ApiFuture<Void> result = firestore.runTransaction(transaction -> {
+            DocumentSnapshot userDoc = transaction.get(docRef).get();
+            String username = userDoc.getString("username");
+            DocumentReference usernameRef = username != null ? usernameRef(username) : null;
+            DocumentSnapshot usernameDoc = usernameRef != null ? transaction.get(usernameRef).get() : null;
+
+            if (usernameDoc != null && userId.equals(usernameDoc.getString("userId"))) {
+                transaction.delete(usernameRef);
+            }
+            transaction.delete(docRef);
+            return null;
+        });
+        return FutureUtil.toCompletableFuture(result).thenRunAsync(() -> {
+            userCache.evict(userId);
+            log.info("删除用户: userId={}", userId);
+        }, redisCallbackExecutor.executor());
     }
 
     /**
      * 检查邮箱是否已存在
      */
     public boolean existsByEmail(String email) throws ExecutionException, InterruptedException {
-        return findByEmail(email).isPresent();
+        return existsByEmailAsync(email).get();
+    }
+
+    /**
+     * 检查邮箱是否已存在（异步）
+     */
+    public CompletableFuture<Boolean> existsByEmailAsync(String email) {
+        return findByEmailAsync(email).thenApply(Optional::isPresent);
     }
 
     /**
      * 检查用户名是否已存在
      */
     public boolean existsByUsername(String username) throws ExecutionException, InterruptedException {
-        return findByUsername(username).isPresent();
+        return existsByUsernameAsync(username).get();
+    }
+
+    /**
+     * 检查用户名是否已存在（异步）
+     */
+    public CompletableFuture<Boolean> existsByUsernameAsync(String username) {
+        return findUserIdByUsernameAsync(username).thenApply(Optional::isPresent);
+    }
+
+    /**
+     * 按文档ID顺序分页读取用户（用于数据迁移）
+     *
+     * @param startAfterId 上一页最后一个用户ID，首页传 null
+     */
+    public List<User> findPage(String startAfterId, int limit) throws ExecutionException, InterruptedException {
+        Query query = firestore.collection(COLLECTION_USERS).orderBy(FieldPath.documentId()).limit(limit);
+        if (startAfterId != null) {
+            query = query.startAfter(startAfterId);
+        }
+
+        List<User> users = new ArrayList<>();
+        for (QueryDocumentSnapshot document : query.get().get().getDocuments()) {
+            users.add(convertDocumentToUser(document));
+        }
+        return users;
+    }
+
+    /**
+     * 为已有用户补建用户名映射（不存在时创建）
+     *
+     * @return 映射已指向该用户返回 true；用户名被其他用户占用返回 false
+     */
+    public boolean linkUsername(String username, String userId) throws ExecutionException, InterruptedException {
+        DocumentReference usernameRef = usernameRef(username);
+        return firestore.runTransaction(transaction -> {
+            DocumentSnapshot usernameDoc = transaction.get(usernameRef).get();
+            if (usernameDoc.exists()) {
+                return userId.equals(usernameDoc.getString("userId"));
+            }
+            transaction.create(usernameRef, Map.of("userId", userId));
+            return true;
+        }).get();
+    }
+
+    private CompletableFuture<Optional<User>> findFirstByFieldAsync(String field, String value) {
+        Query query = firestore.collection(COLLECTION_USERS).whereEqualTo(field, value).limit(1);
+
+        ApiFuture<QuerySnapshot> future = query.get();
+        return FutureUtil.toCompletableFuture(future).thenApply(snapshot -> {
+            List<QueryDocumentSnapshot> documents = snapshot.getDocuments();
+            if (documents.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(convertDocumentToUser(documents.get(0)));
+        });
     }
 
     // ========== 辅助转换方法 ==========
 
+    /**
+     * 用户名映射文档引用
+     */
+    private DocumentReference usernameRef(String username) {
+        String documentId = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(username.getBytes(StandardCharsets.UTF_8));
+        return firestore.collection(COLLECTION_USERNAMES).document(documentId);
+    }
+
     private Map<String, Object> convertUserToMap(User user) {
         Map<String, Object> map = new HashMap<>();
         map.put("id", user.getId());
@@ -9,6 +9,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -72,6 +73,26 @@ public class BudgetService {
         Map<String, Long> actualExpense = expenseService.calculateExpenseByCategory(trip.getId());
 
         // 3. 构建汇总对象
+        return buildBudgetSummary(trip, plannedBudget, actualExpense);
+    }
+
+    /**
+     * 计算预算汇总（异步）
+     * 计划预算在当前线程计算，实际开销等待聚合文档读取完成后再合并
+     *
+     * @param trip 行程对象
+     * @return 预算汇总数据
+     */
+    public CompletableFuture<BudgetSummary> getBudgetSummaryAsync(Trip trip) {
+        log.info("生成预算汇总: tripId={}", trip.getId());
+
+        Map<String, Long> plannedBudget = calculatePlannedBudget(trip);
+        return expenseService.calculateExpenseByCategoryAsync(trip.getId())
+                .thenApply(actualExpense -> buildBudgetSummary(trip, plannedBudget, actualExpense));
+    }
+
+    private BudgetSummary buildBudgetSummary(Trip trip, Map<String, Long> plannedBudget,
+                                             Map<String, Long> actualExpense) {
         BudgetSummary summary = new BudgetSummary();
         summary.setTripId(trip.getId());
         summary.setPlannedBudget(plannedBudget);
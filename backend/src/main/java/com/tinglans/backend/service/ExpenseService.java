@@ -5,6 +5,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tinglans.backend.common.BusinessException;
 import com.tinglans.backend.common.ResponseCode;
 import com.tinglans.backend.domain.Expense;
+import com.tinglans.backend.domain.ExpenseAggregate;
+import com.tinglans.backend.repository.ExpenseGroupCommitWriter;
 import com.tinglans.backend.repository.ExpenseRepository;
 import com.tinglans.backend.thirdparty.llm.QwenClient;
 import lombok.RequiredArgsConstructor;
@@ -15,9 +17,12 @@ import org.springframework.util.StringUtils;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 开销业务逻辑层
@@ -28,7 +33,13 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ExpenseService {
 
+    /**
+     * 单个行程聚合分片数上限
+     */
+    static final int MAX_SHARD_COUNT = 50;
+
     private final ExpenseRepository expenseRepository;
+    private final ExpenseGroupCommitWriter expenseGroupCommitWriter;
     private final QwenClient qwenClient;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -69,8 +80,14 @@ public class ExpenseService {
         expense.setHappenedAt(Instant.now());
         expense.setCreatedAt(Instant.now());
 
-        // 3. 保存到数据库
-        expenseRepository.save(tripId, expense);
+        // 3. 保存到数据库（组提交，与同一时间窗口内的其他记账合并写入）
+        try {
+            expenseGroupCommitWriter.write(tripId, expense)
+                    .get(expenseGroupCommitWriter.getWriteTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.error("记账写入超时: tripId={}, expenseId={}", tripId, expense.getId());
+            throw new BusinessException(ResponseCode.SERVICE_UNAVAILABLE, "记账超时，请稍后查看开销列表确认是否已记录");
+        }
 
         log.info("文本记账成功: expenseId={}, category={}, amount={}", 
                 expense.getId(), expense.getCategory(), expense.getAmountCents());
@@ -88,8 +105,18 @@ public class ExpenseService {
         return expenseRepository.findByTripId(tripId);
     }
 
+    /**
+     * 获取行程的所有开销记录（异步）
+     */
+    public CompletableFuture<List<Expense>> getExpensesByTripIdAsync(String tripId) {
+        log.debug("获取行程开销列表: tripId={}", tripId);
+        return expenseRepository.findByTripIdAsync(tripId);
+    }
+
     /**
      * 按类别统计开销
+     * 读取增量维护的聚合文档；聚合缺失（历史行程）时从支出明细计算后直接返回，不在读请求中写入，
+     * 聚合文档在下次记账时于事务内初始化，也可调用 repairExpenseAggregate 修复
      *
      * @param tripId 行程ID
      * @return 类别 -> 金额的映射
@@ -98,17 +125,58 @@ public class ExpenseService {
             throws ExecutionException, InterruptedException {
         log.debug("按类别统计开销: tripId={}", tripId);
 
-        List<Expense> expenses = expenseRepository.findByTripId(tripId);
-        Map<String, Long> categoryTotals = expenses.stream()
-                .collect(Collectors.groupingBy(
-                        Expense::getCategory,
-                        Collectors.summingLong(Expense::getAmountCents)
-                ));
+        Optional<ExpenseAggregate> aggregateOpt = expenseRepository.findAggregate(tripId);
+        ExpenseAggregate aggregate = aggregateOpt.isPresent()
+                ? aggregateOpt.get()
+                : ExpenseAggregate.fromExpenses(tripId, expenseRepository.findByTripId(tripId));
+        Map<String, Long> categoryTotals = aggregate.activeTotals();
         
         log.debug("类别统计完成: tripId={}, categories={}", tripId, categoryTotals.keySet());
         return categoryTotals;
     }
 
+    /**
+     * 按类别统计开销（异步）
+     */
+    public CompletableFuture<Map<String, Long>> calculateExpenseByCategoryAsync(String tripId) {
+        log.debug("按类别统计开销: tripId={}", tripId);
+
+        return expenseRepository.findAggregateAsync(tripId)
+                .thenCompose(aggregateOpt -> aggregateOpt
+                        .map(CompletableFuture::completedFuture)
+                        .orElseGet(() -> expenseRepository.findByTripIdAsync(tripId)
+                                .thenApply(expenses -> ExpenseAggregate.fromExpenses(tripId, expenses))))
+                .thenApply(ExpenseAggregate::activeTotals);
+    }
+
+    /**
+     * 修复行程的开销聚合（从支出子集合重算）
+     *
+     * @param tripId 行程ID
+     * @return 重算后的聚合
+     */
+    public ExpenseAggregate repairExpenseAggregate(String tripId) throws ExecutionException, InterruptedException {
+        log.info("修复开销聚合: tripId={}", tripId);
+        return expenseRepository.rebuildAggregate(tripId);
+    }
+
+    /**
+     * 设置行程开销聚合的分片数
+     * 多人共享行程同时记账时调大，以分散聚合文档的写入
+     *
+     * @param tripId     行程ID
+     * @param shardCount 分片数（1 ~ 50）
+     */
+    public void updateExpenseShardCount(String tripId, Integer shardCount)
+            throws ExecutionException, InterruptedException {
+        if (shardCount == null || shardCount < 1 || shardCount > MAX_SHARD_COUNT) {
+            throw new BusinessException(ResponseCode.INVALID_PARAM, "分片数必须在 1 到 " + MAX_SHARD_COUNT + " 之间");
+        }
+
+        log.info("设置开销聚合分片数: tripId={}, shardCount={}", tripId, shardCount);
+        expenseRepository.updateShardCount(tripId, shardCount);
+    }
+
     private String buildExpenseParsePrompt() {
         return """
             你是一个智能记账助手。从用户口述中提取支出信息，必须返回有效的 JSON 格式。
@@ -2,7 +2,9 @@ package com.tinglans.backend.service;
 
 import com.tinglans.backend.common.BusinessException;
 import com.tinglans.backend.common.ResponseCode;
+import com.tinglans.backend.repository.TranscriptCache;
 import com.tinglans.backend.thirdparty.stt.XfyunAsrClient;
+import com.tinglans.backend.thirdparty.stt.util.FileUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -10,14 +12,25 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 语音服务层
  * 职责：提供通用的语音转文字功能，与具体业务逻辑无关
+ * 识别前先计算音频内容的 SHA-256：命中 Redis 缓存时直接返回（弱网重试重复上传同一段录音时免去上传与转写），
+ * 同一内容正在识别时合并到进行中的请求
  */
 @Slf4j
 @Service
@@ -25,109 +38,160 @@ import java.nio.file.StandardCopyOption;
 public class SpeechService {
 
     private final XfyunAsrClient xfyunAsrClient;
+    private final TranscriptCache transcriptCache;
+
+    /**
+     * 进行中的识别（内容哈希 -> 识别结果）
+     */
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
 
     /**
      * 语音转文本（从 MultipartFile）
-     * 处理文件上传、校验、临时文件管理等业务逻辑
+     * 上传内容从请求的输入流直接写入讯飞上传请求，不创建临时文件，也不整体读入内存；
+     * 上传完成后即返回，识别结果通过 future 异步返回，等待期间不占用请求线程
      *
      * @param audioFile 音频文件
      * @return 识别的文本
-     * @throws IOException            文件读取异常
-     * @throws InterruptedException   STT 调用中断异常
+     * @throws IOException          文件读取异常
+     * @throws InterruptedException 上传中断异常
      */
-    public String transcribeVoice(MultipartFile audioFile) throws IOException, InterruptedException {
+    public CompletableFuture<String> transcribeVoiceAsync(MultipartFile audioFile) throws IOException, InterruptedException {
         // 1. 校验文件
         validateAudioFile(audioFile);
         
         log.info("收到语音转文字请求，文件名: {}, 大小: {} bytes", 
                 audioFile.getOriginalFilename(), audioFile.getSize());
 
-        // 2. 创建临时文件并进行识别
-        File tempFile = null;
-        try {
-            tempFile = createTempFile(audioFile);
-            log.info("临时文件已创建: {}", tempFile.getAbsolutePath());
+        // 2. 计算内容哈希（流式读取已接收的文件，不整体读入内存）
+        String uploadFileName = FileUtil.uploadFileName(audioFile.getOriginalFilename());
+        String contentHash;
+        try (InputStream audio = audioFile.getInputStream()) {
+            contentHash = contentHash(audio, uploadFileName);
+        }
 
-            // 3. 调用 STT 服务进行语音识别
-            String transcript = transcribeFromFile(tempFile);
-            
+        // 3. 查询缓存，未命中时流式上传并进行识别
+        return transcribeCached(contentHash, () -> {
+            try (InputStream audio = audioFile.getInputStream()) {
+                return xfyunAsrClient.transcribeAsync(audio, uploadFileName, audioFile.getSize());
+            }
+        }).thenApply(transcript -> {
+            requireTranscript(transcript);
             log.info("语音识别成功，返回文本长度: {}", transcript.length());
             return transcript;
-
-        } finally {
-            // 4. 清理临时文件
-            cleanupTempFile(tempFile);
-        }
+        });
     }
 
     /**
      * 语音转文本
-     * 直接处理文件的语音识别
+     * 直接处理文件的语音识别（响应式栈上传的文件已落盘，直接调用）；
+     * 返回时文件已上传完成，可以删除
      *
      * @param audioFile 音频文件
      * @return 识别的文本
      * @throws IOException            文件读取异常
-     * @throws InterruptedException   STT 调用中断异常
+     * @throws InterruptedException   上传中断异常
      */
-    private String transcribeFromFile(File audioFile) throws IOException, InterruptedException {
+    public CompletableFuture<String> transcribeFromFileAsync(File audioFile) throws IOException, InterruptedException {
         if (audioFile == null || !audioFile.exists()) {
             throw new BusinessException(ResponseCode.INVALID_PARAM, "音频文件不存在");
         }
         
         log.info("开始语音识别，文件: {}", audioFile.getName());
 
-        // 调用 STT 服务进行语音识别
-        String transcript = xfyunAsrClient.transcribe(audioFile);
-        
-        if (!StringUtils.hasText(transcript)) {
-            throw new BusinessException(ResponseCode.VOICE_RECOGNITION_FAILED, "语音识别失败，未能识别出文本");
+        String contentHash;
+        try (InputStream audio = new FileInputStream(audioFile)) {
+            contentHash = contentHash(audio, audioFile.getName());
         }
-        
-        log.info("语音识别完成，文本长度: {}, 内容: {}", 
-                transcript.length(), transcript);
-        return transcript;
+
+        // 查询缓存，未命中时调用 STT 服务进行语音识别
+        return transcribeCached(contentHash, () -> xfyunAsrClient.transcribeAsync(audioFile))
+                .thenApply(transcript -> {
+                    requireTranscript(transcript);
+                    log.info("语音识别完成，文本长度: {}, 内容: {}", 
+                            transcript.length(), transcript);
+                    return transcript;
+                });
     }
 
     /**
-     * 校验音频文件
+     * 按内容哈希识别：先查缓存，再合并进行中的相同请求，都没有时发起识别并缓存非空结果
      */
-    private void validateAudioFile(MultipartFile audioFile) {
-        if (audioFile == null || audioFile.isEmpty()) {
-            throw new BusinessException(ResponseCode.INVALID_PARAM, "音频文件不能为空");
+    private CompletableFuture<String> transcribeCached(String contentHash, Transcription transcription)
+            throws IOException, InterruptedException {
+        Optional<String> cached = transcriptCache.get(contentHash);
+        if (cached.isPresent()) {
+            log.info("命中识别结果缓存，跳过上传: hash={}", contentHash);
+            return CompletableFuture.completedFuture(cached.get());
+        }
+
+        CompletableFuture<String> result = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(contentHash, result);
+        if (existing != null) {
+            log.info("相同音频正在识别，合并请求: hash={}", contentHash);
+            return existing;
+        }
+
+        try {
+            transcription.start().whenComplete((transcript, error) -> {
+                if (error == null && StringUtils.hasText(transcript)) {
+                    transcriptCache.put(contentHash, transcript);
+                }
+                inFlight.remove(contentHash, result);
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(transcript);
+                }
+            });
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            inFlight.remove(contentHash, result);
+            result.completeExceptionally(e);
+            throw e;
         }
+        return result;
     }
 
     /**
-     * 创建临时文件
+     * 计算音频内容哈希（SHA-256，包含扩展名，相同数据按不同编码上传时不共用结果）
      */
-    private File createTempFile(MultipartFile audioFile) throws IOException {
-        // 获取原始文件名和扩展名
-        String originalFilename = audioFile.getOriginalFilename();
-        String extension = originalFilename != null && originalFilename.contains(".") 
-                ? originalFilename.substring(originalFilename.lastIndexOf("."))
-                : ".tmp";
-        
-        // 创建临时文件
-        File tempFile = File.createTempFile("audio_", extension);
-        
-        // 将上传的文件保存到临时文件
-        Path tempPath = tempFile.toPath();
-        Files.copy(audioFile.getInputStream(), tempPath, StandardCopyOption.REPLACE_EXISTING);
-        
-        return tempFile;
+    private String contentHash(InputStream audio, String fileName) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+        String extension = fileName.contains(".") ? fileName.substring(fileName.lastIndexOf('.')).toLowerCase() : "";
+        digest.update(extension.getBytes(StandardCharsets.UTF_8));
+        try (DigestInputStream in = new DigestInputStream(audio, digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
     }
 
     /**
-     * 清理临时文件
+     * 发起一次识别
      */
-    private void cleanupTempFile(File tempFile) {
-        if (tempFile != null && tempFile.exists()) {
-            boolean deleted = tempFile.delete();
-            if (deleted) {
-                log.info("临时文件已删除: {}", tempFile.getAbsolutePath());
-            } else {
-                log.warn("临时文件删除失败: {}", tempFile.getAbsolutePath());
-            }
+    @FunctionalInterface
+    private interface Transcription {
+        CompletableFuture<String> start() throws IOException, InterruptedException;
+    }
+
+    /**
+     * 校验音频文件
+     */
+    private void validateAudioFile(MultipartFile audioFile) {
+        if (audioFile == null || audioFile.isEmpty()) {
+            throw new BusinessException(ResponseCode.INVALID_PARAM, "音频文件不能为空");
+        }
+    }
+
+    /**
+     * 校验识别结果
+     */
+    private void requireTranscript(String transcript) {
+        if (!StringUtils.hasText(transcript)) {
+            throw new BusinessException(ResponseCode.VOICE_RECOGNITION_FAILED, "语音识别失败，未能识别出文本");
         }
     }
 }
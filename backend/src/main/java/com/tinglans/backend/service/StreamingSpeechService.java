@@ -0,0 +1,122 @@
+package com.tinglans.backend.service;
+
+import com.tinglans.backend.dto.StreamingTranscriptEvent;
+import com.tinglans.backend.thirdparty.stt.StreamingAsrClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.function.Consumer;
+
+/**
+ * 实时语音转写服务层
+ * 将前端推送的 PCM 音频转发给流式识别服务，并把识别结果合并为完整文本推送回前端。
+ * 与 WebSocket 传输无关，Servlet 与响应式栈的端点共用
+ */
+@Slf4j
+@Service
+public class StreamingSpeechService {
+
+    /**
+     * 16kHz 16bit 单声道 PCM 每秒字节数
+     */
+    private static final long PCM_BYTES_PER_SECOND = 16000 * 2;
+
+    private final StreamingAsrClient streamingAsrClient;
+    private final long maxBytes;
+
+    public StreamingSpeechService(StreamingAsrClient streamingAsrClient,
+                                  @Value("${speech.streaming.max-seconds:120}") long maxSeconds) {
+        this.streamingAsrClient = streamingAsrClient;
+        this.maxBytes = maxSeconds * PCM_BYTES_PER_SECOND;
+    }
+
+    /**
+     * 开始实时转写
+     *
+     * @param userId 用户ID
+     * @param sink   事件推送（终止事件之后不再推送）
+     * @return 转写会话
+     */
+    public Transcription start(String userId, Consumer<StreamingTranscriptEvent> sink) {
+        log.info("开始实时语音转写，userId: {}", userId);
+        Transcription transcription = new Transcription(userId, sink);
+        transcription.session = streamingAsrClient.open(transcription);
+        return transcription;
+    }
+
+    /**
+     * 实时转写会话
+     * 已确认的句子依次拼接，当前句子的中间结果会被后续结果替换
+     */
+    public class Transcription implements StreamingAsrClient.Listener {
+
+        private final String userId;
+        private final Consumer<StreamingTranscriptEvent> sink;
+        private final StringBuilder confirmed = new StringBuilder();
+
+        private StreamingAsrClient.Session session;
+        private long receivedBytes;
+        private boolean finished;
+
+        private Transcription(String userId, Consumer<StreamingTranscriptEvent> sink) {
+            this.userId = userId;
+            this.sink = sink;
+        }
+
+        /**
+         * 接收一段音频，超过单次会话时长上限后自动结束
+         */
+        public synchronized void accept(byte[] pcm) {
+            if (finished) {
+                return;
+            }
+            receivedBytes += pcm.length;
+            session.sendAudio(pcm);
+            if (receivedBytes >= maxBytes) {
+                log.info("实时语音转写达到时长上限，自动结束，userId: {}", userId);
+                finish();
+            }
+        }
+
+        /**
+         * 音频发送完毕，等待最终结果
+         */
+        public synchronized void finish() {
+            if (!finished) {
+                finished = true;
+                session.finish();
+            }
+        }
+
+        /**
+         * 前端断开连接，关闭识别会话
+         */
+        public synchronized void cancel() {
+            finished = true;
+            session.close();
+        }
+
+        @Override
+        public synchronized void onResult(String text, boolean sentenceFinal) {
+            if (sentenceFinal) {
+                confirmed.append(text);
+                sink.accept(StreamingTranscriptEvent.partial(confirmed.toString()));
+            } else {
+                sink.accept(StreamingTranscriptEvent.partial(confirmed + text));
+            }
+        }
+
+        @Override
+        public synchronized void onComplete() {
+            log.info("实时语音转写完成，userId: {}, 音频: {} bytes, 文本长度: {}", userId, receivedBytes, confirmed.length());
+            sink.accept(StreamingTranscriptEvent.complete(confirmed.toString()));
+        }
+
+        @Override
+        public synchronized void onError(Throwable error) {
+            log.warn("实时语音转写失败，userId: {}, error: {}", userId, error.getMessage());
+            sink.accept(StreamingTranscriptEvent.error("实时语音识别失败，请稍后重试"));
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.tinglans.backend.service;
+
+import com.tinglans.backend.common.BusinessException;
+import com.tinglans.backend.common.ResponseCode;
+import com.tinglans.backend.dto.TranscriptionJob;
+import com.tinglans.backend.repository.TranscriptionJobRepository;
+import com.tinglans.backend.thirdparty.stt.XfyunAsrClient;
+import com.tinglans.backend.thirdparty.stt.util.FileUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 语音转写任务服务层
+ * 提交时上传音频并创建讯飞任务后立即返回任务ID，任务状态保存在 Redis 中。
+ * 配置了回调地址时由讯飞回调通知完成，轮询只作为兜底；等待期间不占用请求线程。
+ * 任务结束后通过 Redis 发布订阅通知各节点上等待结果的订阅者。
+ * 兜底轮询只存在于发起的节点：应用重启时恢复所有转写中的任务的轮询，其他节点订阅时若本地没有轮询也会接管；
+ * 多个节点同时轮询同一任务时，只有第一个结束任务的一方写入最终状态
+ */
+@Slf4j
+@Service
+public class TranscriptionJobService implements ApplicationRunner {
+
+    private static final String EMPTY_TRANSCRIPT_MESSAGE = "语音识别失败，未能识别出文本";
+
+    private final XfyunAsrClient xfyunAsrClient;
+    private final TranscriptionJobRepository jobRepository;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final long awaitTimeoutMillis;
+
+    /**
+     * 本节点提交的任务的兜底轮询，任务结束后取消
+     */
+    private final Map<String, CompletableFuture<String>> polls = new ConcurrentHashMap<>();
+
+    /**
+     * 本节点上等待任务结束的订阅
+     */
+    private final Map<String, CompletableFuture<TranscriptionJob>> waiters = new ConcurrentHashMap<>();
+
+    public TranscriptionJobService(XfyunAsrClient xfyunAsrClient,
+                                   TranscriptionJobRepository jobRepository,
+                                   RedisMessageListenerContainer listenerContainer,
+                                   @Value("${speech.job.await-timeout:600}") long awaitTimeoutSeconds) {
+        this.xfyunAsrClient = xfyunAsrClient;
+        this.jobRepository = jobRepository;
+        this.listenerContainer = listenerContainer;
+        this.awaitTimeoutMillis = TimeUnit.SECONDS.toMillis(awaitTimeoutSeconds);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        // 只登记监听器，容器在首次提交或订阅任务时启动
+        listenerContainer.addMessageListener(this::onJobFinished, new ChannelTopic(TranscriptionJobRepository.FINISHED_CHANNEL));
+    }
+
+    /**
+     * 启动时恢复转写中的任务的兜底轮询（Redis 不可用时跳过，不影响启动）
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        Set<String> jobIds;
+        try {
+            jobIds = jobRepository.findRunningJobIds();
+        } catch (RuntimeException e) {
+            log.warn("读取转写中的任务失败，跳过恢复: {}", e.getMessage());
+            return;
+        }
+        if (jobIds.isEmpty()) {
+            return;
+        }
+
+        log.info("恢复转写中的任务的兜底轮询: count={}", jobIds.size());
+        for (String jobId : jobIds) {
+            Optional<TranscriptionJob> job = jobRepository.findById(jobId);
+            if (job.isEmpty() || job.get().getStatus().isFinished()) {
+                jobRepository.removeRunning(jobId);
+            } else {
+                schedulePoll(job.get(), 0, false);
+            }
+        }
+    }
+
+    /**
+     * 提交转写任务（从 MultipartFile）
+     * 音频从请求的输入流直接上传，上传并创建讯飞任务后返回
+     *
+     * @param audioFile 音频文件
+     * @param userId    用户ID
+     * @return 转写任务
+     */
+    public TranscriptionJob submit(MultipartFile audioFile, String userId) throws IOException, InterruptedException {
+        if (audioFile == null || audioFile.isEmpty()) {
+            throw new BusinessException(ResponseCode.INVALID_PARAM, "音频文件不能为空");
+        }
+        String fileName = FileUtil.uploadFileName(audioFile.getOriginalFilename());
+        long size = audioFile.getSize();
+        return start(userId, fileName, size, () -> {
+            try (InputStream audio = audioFile.getInputStream()) {
+                return xfyunAsrClient.submitTask(audio, fileName, size);
+            }
+        });
+    }
+
+    /**
+     * 提交转写任务（响应式栈上传的文件已落盘，返回时文件已上传完成，可以删除）
+     *
+     * @param audioFile 音频文件
+     * @param userId    用户ID
+     * @return 转写任务
+     */
+    public TranscriptionJob submitFromFile(File audioFile, String userId) throws IOException, InterruptedException {
+        if (audioFile == null || !audioFile.exists() || audioFile.length() == 0) {
+            throw new BusinessException(ResponseCode.INVALID_PARAM, "音频文件不能为空");
+        }
+        return start(userId, audioFile.getName(), audioFile.length(), () -> xfyunAsrClient.submitTask(audioFile));
+    }
+
+    /**
+     * 获取转写任务
+     */
+    public TranscriptionJob getJob(String jobId, String userId) {
+        TranscriptionJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new BusinessException(ResponseCode.NOT_FOUND, "转写任务不存在或已过期"));
+        if (!job.getUserId().equals(userId)) {
+            throw new BusinessException(ResponseCode.PERMISSION_DENIED, "无权查看该转写任务");
+        }
+        return job;
+    }
+
+    /**
+     * 等待转写任务结束
+     * 任务已结束时立即返回；否则在任务结束（任意节点发布通知）或等待超时后完成，等待期间不占用线程
+     *
+     * @param jobId  任务ID
+     * @param userId 用户ID
+     * @return 结束后的任务
+     */
+    public CompletableFuture<TranscriptionJob> awaitJob(String jobId, String userId) {
+        TranscriptionJob job = getJob(jobId, userId);
+        if (job.getStatus().isFinished()) {
+            return CompletableFuture.completedFuture(job);
+        }
+        ensureListening();
+
+        // 发起轮询的节点已重启或下线时由本节点接管（重复轮询无副作用）
+        if (!polls.containsKey(jobId)) {
+            log.info("本节点没有该任务的兜底轮询，接管轮询: jobId={}", jobId);
+            schedulePoll(job, 0, false);
+        }
+
+        CompletableFuture<TranscriptionJob> waiter = waiters.computeIfAbsent(jobId, id -> {
+            CompletableFuture<TranscriptionJob> future = new CompletableFuture<>();
+            future.orTimeout(awaitTimeoutMillis, TimeUnit.MILLISECONDS)
+                    .whenComplete((result, error) -> waiters.remove(id, future));
+            return future;
+        });
+
+        // 注册后再读取一次，避免错过注册前发布的结束通知
+        jobRepository.findById(jobId)
+                .filter(latest -> latest.getStatus().isFinished())
+                .ifPresent(this::notifyWaiter);
+        return waiter.copy();
+    }
+
+    /**
+     * 等待任务结束的最长时间（毫秒）
+     */
+    public long getAwaitTimeoutMillis() {
+        return awaitTimeoutMillis;
+    }
+
+    /**
+     * 处理讯飞任务完成回调
+     * 回调只携带任务ID，结果通过一次查询获取；查询失败时由兜底轮询继续获取
+     *
+     * @param taskId 讯飞任务ID
+     */
+    public void handleCallback(String taskId) {
+        String jobId = jobRepository.findJobIdByTaskId(taskId).orElse(null);
+        if (jobId == null) {
+            log.warn("收到未知或已结束的转写任务回调: taskId={}", taskId);
+            return;
+        }
+
+        try {
+            xfyunAsrClient.fetchTaskResult(taskId).ifPresentOrElse(
+                    transcript -> finish(jobId, transcript, null),
+                    () -> log.info("转写任务回调时尚未完成，继续等待兜底轮询: taskId={}", taskId));
+        } catch (RuntimeException e) {
+            log.warn("转写任务回调查询结果失败，继续等待兜底轮询: taskId={}, error={}", taskId, e.getMessage());
+        }
+    }
+
+    private TranscriptionJob start(String userId, String fileName, long size, TaskSubmitter submitter)
+            throws IOException, InterruptedException {
+        log.info("提交语音转写任务，userId: {}, 文件名: {}, 大小: {} bytes", userId, fileName, size);
+        ensureListening();
+
+        // 1. 上传音频并创建讯飞任务
+        String taskId = submitter.submit();
+
+        // 2. 保存任务状态
+        Instant now = Instant.now();
+        TranscriptionJob job = TranscriptionJob.builder()
+                .id(UUID.randomUUID().toString())
+                .userId(userId)
+                .taskId(taskId)
+                .status(TranscriptionJob.Status.RUNNING)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+        jobRepository.saveRunning(job);
+        jobRepository.saveTaskMapping(taskId, job.getId());
+
+        // 3. 调度兜底轮询（使用回调时首次查询推迟，回调先到达时取消）
+        boolean callbackExpected = xfyunAsrClient.isCallbackEnabled();
+        schedulePoll(job, FileUtil.estimateDurationMillis(fileName, size), callbackExpected);
+
+        log.info("语音转写任务已提交，jobId: {}, taskId: {}, 回调: {}", job.getId(), taskId, callbackExpected);
+        return job;
+    }
+
+    /**
+     * 调度兜底轮询，结束后写入任务结果
+     */
+    private void schedulePoll(TranscriptionJob job, long audioDurationMillis, boolean callbackExpected) {
+        String jobId = job.getId();
+        boolean[] created = {false};
+        CompletableFuture<String> poll = polls.computeIfAbsent(jobId, id -> {
+            created[0] = true;
+            return xfyunAsrClient.awaitTaskResult(job.getTaskId(), audioDurationMillis, callbackExpected);
+        });
+        if (!created[0]) {
+            return;
+        }
+        poll.whenComplete((transcript, error) -> {
+            polls.remove(jobId, poll);
+            if (error instanceof CancellationException) {
+                return;
+            }
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                finish(jobId, null, "语音识别失败: " + cause.getMessage());
+            } else {
+                finish(jobId, transcript, null);
+            }
+        });
+    }
+
+    /**
+     * 结束任务：保存结果、取消兜底轮询并通知订阅者
+     * 状态转换是原子的：回调与轮询（或多个节点的轮询）同时结束时只有一方生效，其余调用忽略
+     */
+    private void finish(String jobId, String transcript, String errorMessage) {
+        TranscriptionJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null || job.getStatus().isFinished()) {
+            return;
+        }
+
+        if (errorMessage == null && !StringUtils.hasText(transcript)) {
+            errorMessage = EMPTY_TRANSCRIPT_MESSAGE;
+        }
+        job.setStatus(errorMessage == null ? TranscriptionJob.Status.SUCCEEDED : TranscriptionJob.Status.FAILED);
+        job.setTranscript(errorMessage == null ? transcript : null);
+        job.setErrorMessage(errorMessage);
+        job.setUpdatedAt(Instant.now());
+        if (!jobRepository.finishIfRunning(job)) {
+            log.debug("转写任务已由其他调用方结束，忽略: jobId={}", jobId);
+            cancelPoll(jobId);
+            return;
+        }
+
+        cancelPoll(jobId);
+        notifyWaiter(job);
+        jobRepository.publishFinished(jobId);
+        log.info("语音转写任务结束，jobId: {}, status: {}", jobId, job.getStatus());
+    }
+
+    /**
+     * 收到任务结束通知（包括本节点发布的通知）
+     */
+    private void onJobFinished(Message message, byte[] pattern) {
+        String jobId = new String(message.getBody(), StandardCharsets.UTF_8);
+        cancelPoll(jobId);
+        if (waiters.containsKey(jobId)) {
+            jobRepository.findById(jobId)
+                    .filter(job -> job.getStatus().isFinished())
+                    .ifPresent(this::notifyWaiter);
+        }
+    }
+
+    /**
+     * 启动结束通知的监听（容器不随应用启动，Redis 不可用时不影响应用启动）
+     */
+    private void ensureListening() {
+        if (!listenerContainer.isRunning()) {
+            synchronized (listenerContainer) {
+                if (!listenerContainer.isRunning()) {
+                    listenerContainer.start();
+                    log.info("已启动语音转写任务结束通知监听");
+                }
+            }
+        }
+    }
+
+    private void cancelPoll(String jobId) {
+        CompletableFuture<String> poll = polls.remove(jobId);
+        if (poll != null) {
+            poll.cancel(false);
+        }
+    }
+
+    private void notifyWaiter(TranscriptionJob job) {
+        CompletableFuture<TranscriptionJob> waiter = waiters.remove(job.getId());
+        if (waiter != null) {
+            waiter.complete(job);
+        }
+    }
+
+    /**
+     * 上传音频并创建讯飞任务
+     */
+    @FunctionalInterface
+    private interface TaskSubmitter {
+        String submit() throws IOException, InterruptedException;
+    }
+}
@@ -8,11 +8,17 @@ import com.tinglans.backend.common.ResponseCode;
 import com.tinglans.backend.domain.Activity;
 import com.tinglans.backend.domain.Day;
 import com.tinglans.backend.domain.Trip;
+import com.tinglans.backend.dto.CascadeDeleteStatus;
+import com.tinglans.backend.dto.PageResult;
+import com.tinglans.backend.dto.TripHeader;
 import com.tinglans.backend.dto.TripSummary;
+import com.tinglans.backend.job.ExpenseCascadeDeleteJob;
+import com.tinglans.backend.repository.TripIndexRepository;
 import com.tinglans.backend.repository.TripRepository;
 import com.tinglans.backend.thirdparty.amap.AmapClient;
 import com.tinglans.backend.thirdparty.amap.dto.AmapPoi;
 import com.tinglans.backend.thirdparty.llm.QwenClient;
+import com.tinglans.backend.util.RedisCallbackExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -24,6 +30,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -36,11 +43,18 @@ import java.util.concurrent.ExecutionException;
 public class TripService {
 
     private final TripRepository tripRepository;
+    private final TripIndexRepository tripIndexRepository;
     private final UserService userService;
     private final QwenClient qwenClient;
     private final AmapClient amapClient;
+    private final ExpenseCascadeDeleteJob expenseCascadeDeleteJob;
+    private final RedisCallbackExecutor redisCallbackExecutor;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 50;
+    private static final int INDEX_REBUILD_BATCH_SIZE = 500;
+
     // ==================== 校验方法 ====================
 
     /**
@@ -72,6 +86,14 @@ public class TripService {
         return tripOpt.get();
     }
 
+    /**
+     * 校验并获取行程（异步）
+     */
+    public CompletableFuture<Trip> validateAndGetTripAsync(String tripId) {
+        return getTripByIdAsync(tripId).thenApply(tripOpt ->
+                tripOpt.orElseThrow(() -> new BusinessException(ResponseCode.TRIP_NOT_FOUND)));
+    }
+
     /**
      * 校验行程权限
      */
@@ -81,6 +103,17 @@ public class TripService {
         }
     }
 
+    /**
+     * 校验行程访问权限（创建者或共享行程参与者）
+     */
+    public void validateTripAccess(Trip trip, String userId) {
+        boolean isOwner = trip.getUserId().equals(userId);
+        boolean isParticipant = trip.getParticipantIds() != null && trip.getParticipantIds().contains(userId);
+        if (!isOwner && !isParticipant) {
+            throw new BusinessException(ResponseCode.PERMISSION_DENIED, "无权访问该行程");
+        }
+    }
+
     // ==================== 业务方法 ====================
 
     /**
@@ -93,12 +126,28 @@ public class TripService {
     public Trip createTripFromText(String userInput, String userId) throws ExecutionException, InterruptedException {
         validateUserInput(userInput);
         validateUserId(userId);
+
+        return createTripFromText(userInput, userId, userService.getPreferencesList(userId));
+    }
+
+    /**
+     * 从文本创建行程预览（使用已查询的用户偏好）
+     * 语音一步生成行程时，偏好查询与语音识别并行，识别完成后直接传入
+     *
+     * @param userInput   用户输入的文本描述
+     * @param userId      用户ID
+     * @param preferences 用户偏好
+     * @return 生成的行程对象
+     */
+    public Trip createTripFromText(String userInput, String userId, List<String> preferences) {
+        validateUserInput(userInput);
+        validateUserId(userId);
         
         log.info("开始从文本创建行程: userId={}", userId);
 
         // 1. 构建 LLM Prompt
         String systemPrompt = buildTripGenerationSystemPrompt();
-        String enhancedUserMessage = buildTripGenerationUserMessage(userInput, userId);
+        String enhancedUserMessage = buildTripGenerationUserMessage(userInput, preferences);
 
         // 2. 调用 LLM 生成行程 JSON
         String llmJsonResponse = qwenClient.chat(systemPrompt, enhancedUserMessage);
@@ -130,17 +179,121 @@ public class TripService {
             return cachedTrip;
         }
 
-        // 2. 缓存未命中，从 Firestore 获取
+        // 2. 已标记为不存在，直接返回，不再查询 Firestore
+        if (tripRepository.isMarkedMissing(tripId)) {
+            log.debug("行程已被标记为不存在: tripId={}", tripId);
+            return Optional.empty();
+        }
+
+        // 3. 缓存未命中，从 Firestore 获取
         Optional<Trip> trip = tripRepository.getFromFirestore(tripId);
         if (trip.isPresent()) {
-            // 3. 回写缓存
+            // 4. 回写缓存
             tripRepository.saveToCache(trip.get());
             log.debug("从数据库获取行程并回写缓存: tripId={}", tripId);
+        } else {
+            // 4. 写入不存在标记
+            tripRepository.markMissing(tripId);
         }
 
         return trip;
     }
 
+    /**
+     * 获取行程详情（异步）
+     * 缓存与不存在标记在调用线程上读取 Redis，Firestore 回源后的缓存回写在 Redis 回调线程池上执行
+     *
+     * @param tripId 行程ID
+     * @return 行程对象
+     */
+    public CompletableFuture<Optional<Trip>> getTripByIdAsync(String tripId) {
+        log.debug("获取行程: tripId={}", tripId);
+
+        Optional<Trip> cachedTrip = tripRepository.getFromCache(tripId);
+        if (cachedTrip.isPresent()) {
+            log.debug("从缓存获取行程成功: tripId={}", tripId);
+            return CompletableFuture.completedFuture(cachedTrip);
+        }
+
+        if (tripRepository.isMarkedMissing(tripId)) {
+            log.debug("行程已被标记为不存在: tripId={}", tripId);
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        return tripRepository.getFromFirestoreAsync(tripId).thenApplyAsync(trip -> {
+            if (trip.isPresent()) {
+                tripRepository.saveToCache(trip.get());
+                log.debug("从数据库获取行程并回写缓存: tripId={}", tripId);
+            } else {
+                tripRepository.markMissing(tripId);
+            }
+            return trip;
+        }, redisCallbackExecutor.executor());
+    }
+
+    /**
+     * 获取行程头部（异步，只包含日程索引，不包含活动）
+     * 缓存命中时由完整行程转换，否则只读取行程文档
+     *
+     * @param tripId 行程ID
+     * @return 行程头部
+     */
+    public CompletableFuture<TripHeader> getTripHeaderAsync(String tripId) {
+        Optional<Trip> cachedTrip = tripRepository.getFromCache(tripId);
+        if (cachedTrip.isPresent()) {
+            return CompletableFuture.completedFuture(convertToHeader(cachedTrip.get()));
+        }
+
+        if (tripRepository.isMarkedMissing(tripId)) {
+            return CompletableFuture.failedFuture(new BusinessException(ResponseCode.TRIP_NOT_FOUND));
+        }
+
+        return tripRepository.getHeaderFromFirestoreAsync(tripId).thenApplyAsync(header -> {
+            if (header.isEmpty()) {
+                tripRepository.markMissing(tripId);
+                throw new BusinessException(ResponseCode.TRIP_NOT_FOUND);
+            }
+            return header.get();
+        }, redisCallbackExecutor.executor());
+    }
+
+    /**
+     * 获取行程的某一天（异步）
+     * 缓存命中时直接取出，否则只读取该天的文档；行程不存在时记录不存在标记
+     *
+     * @param tripId   行程ID
+     * @param dayIndex 第几天（从1开始）
+     * @return 该天的日程
+     */
+    public CompletableFuture<Day> getTripDayAsync(String tripId, int dayIndex) {
+        if (dayIndex < 1) {
+            return CompletableFuture.failedFuture(new BusinessException(ResponseCode.INVALID_PARAM, "天数必须从1开始"));
+        }
+
+        Optional<Trip> cachedTrip = tripRepository.getFromCache(tripId);
+        if (cachedTrip.isPresent()) {
+            List<Day> days = cachedTrip.get().getDays() != null ? cachedTrip.get().getDays() : List.of();
+            return days.stream()
+                    .filter(day -> day.getDayIndex() == dayIndex)
+                    .findFirst()
+                    .map(CompletableFuture::completedFuture)
+                    .orElseGet(() -> CompletableFuture.failedFuture(
+                            new BusinessException(ResponseCode.NOT_FOUND, "该天日程不存在")));
+        }
+
+        if (tripRepository.isMarkedMissing(tripId)) {
+            return CompletableFuture.failedFuture(new BusinessException(ResponseCode.TRIP_NOT_FOUND));
+        }
+
+        return tripRepository.getDayFromFirestoreAsync(tripId, dayIndex).thenApplyAsync(day -> {
+            if (day.isEmpty()) {
+                tripRepository.markMissing(tripId);
+                throw new BusinessException(ResponseCode.TRIP_NOT_FOUND);
+            }
+            return day.get().orElseThrow(() -> new BusinessException(ResponseCode.NOT_FOUND, "该天日程不存在"));
+        }, redisCallbackExecutor.executor());
+    }
+
     /**
      * 确认行程（持久化到 Firestore）
      *
@@ -170,13 +323,48 @@ public class TripService {
         // 4. 持久化到 Firestore
         tripRepository.saveToFirestore(trip);
 
-        // 5. 更新 Redis 缓存
+        // 5. 更新 Redis 缓存与用户行程索引
         tripRepository.saveToCache(trip);
+        tripIndexRepository.addIfIndexed(convertToSummary(trip));
 
         log.info("行程确认成功: tripId={}", tripId);
         return trip;
     }
 
+    /**
+     * 添加共享行程参与者（仅行程创建者可操作，行程需已确认）
+     *
+     * @param tripId        行程ID
+     * @param userId        当前用户ID（行程创建者）
+     * @param participantId 参与者用户ID
+     * @return 更新后的行程对象
+     */
+    public Trip addParticipant(String tripId, String userId, String participantId)
+            throws ExecutionException, InterruptedException {
+        validateUserId(userId);
+        validateUserId(participantId);
+
+        log.info("添加行程参与者: tripId={}, userId={}, participantId={}", tripId, userId, participantId);
+
+        Trip trip = tripRepository.getFromFirestore(tripId)
+                .orElseThrow(() -> new BusinessException(ResponseCode.TRIP_NOT_FOUND));
+        validateTripPermission(trip, userId);
+        if (trip.getUserId().equals(participantId)) {
+            throw new BusinessException(ResponseCode.INVALID_PARAM, "不能将行程创建者添加为参与者");
+        }
+        userService.validateAndGetUser(participantId);
+
+        tripRepository.addParticipant(tripId, participantId);
+
+        List<String> participantIds = new ArrayList<>(
+                trip.getParticipantIds() != null ? trip.getParticipantIds() : List.of());
+        if (!participantIds.contains(participantId)) {
+            participantIds.add(participantId);
+        }
+        trip.setParticipantIds(participantIds);
+        return trip;
+    }
+
     /**
      * 获取用户的已确认行程列表
      *
@@ -188,6 +376,111 @@ public class TripService {
         return tripRepository.findConfirmedTripsByUserId(userId);
     }
 
+    /**
+     * 分页获取用户的已确认行程概要
+     *
+     * @param userId    用户ID
+     * @param pageSize  每页数量（为空时使用默认值，超出上限时截断）
+     * @param pageToken 上一页返回的游标（首页为 null）
+     * @return 行程概要分页结果
+     */
+    public PageResult<TripSummary> getConfirmedTripSummaries(String userId, Integer pageSize, String pageToken)
+            throws ExecutionException, InterruptedException {
+        validateUserId(userId);
+
+        int size = resolvePageSize(pageSize);
+        log.debug("分页获取用户行程概要: userId={}, pageSize={}", userId, size);
+
+        // 1. 优先从 Redis 索引读取
+        Optional<PageResult<TripSummary>> indexedPage = tripIndexRepository.findPage(userId, size, pageToken);
+        if (indexedPage.isPresent()) {
+            return indexedPage.get();
+        }
+
+        // 2. 索引缺失，从 Firestore 加载全部概要并重建索引（加载期间确认的行程在重建时合并）
+        tripIndexRepository.beginRebuild(userId);
+        List<TripSummary> summaries = loadAllTripSummaries(userId);
+        tripIndexRepository.rebuild(userId, summaries);
+        if (summaries.isEmpty()) {
+            return PageResult.<TripSummary>builder().items(new ArrayList<>()).build();
+        }
+
+        // 3. 重建后从索引读取，仍失败时回源 Firestore 分页查询
+        Optional<PageResult<TripSummary>> rebuiltPage = tripIndexRepository.findPage(userId, size, pageToken);
+        if (rebuiltPage.isPresent()) {
+            return rebuiltPage.get();
+        }
+        return tripRepository.findTripSummariesByUserId(userId, size, pageToken);
+    }
+
+    /**
+     * 分页获取用户已确认行程概要（异步）
+     *
+     * @param userId    用户ID
+     * @param pageSize  每页数量（为空时使用默认值，超过上限时截断）
+     * @param pageToken 上一页返回的游标
+     * @return 分页结果
+     */
+    public CompletableFuture<PageResult<TripSummary>> getConfirmedTripSummariesAsync(
+            String userId, Integer pageSize, String pageToken) {
+        validateUserId(userId);
+        int size = resolvePageSize(pageSize);
+
+        log.debug("分页获取用户行程概要: userId={}, pageSize={}", userId, size);
+
+        Optional<PageResult<TripSummary>> indexedPage = tripIndexRepository.findPage(userId, size, pageToken);
+        if (indexedPage.isPresent()) {
+            return CompletableFuture.completedFuture(indexedPage.get());
+        }
+
+        // 重建索引与读取索引都是阻塞的 Redis 调用，在 Redis 回调线程池上执行
+        tripIndexRepository.beginRebuild(userId);
+        return loadAllTripSummariesAsync(userId, null, new ArrayList<>()).thenComposeAsync(summaries -> {
+            tripIndexRepository.rebuild(userId, summaries);
+            if (summaries.isEmpty()) {
+                return CompletableFuture.completedFuture(
+                        PageResult.<TripSummary>builder().items(new ArrayList<>()).build());
+            }
+
+            Optional<PageResult<TripSummary>> rebuiltPage = tripIndexRepository.findPage(userId, size, pageToken);
+            if (rebuiltPage.isPresent()) {
+                return CompletableFuture.completedFuture(rebuiltPage.get());
+            }
+            return tripRepository.findTripSummariesByUserIdAsync(userId, size, pageToken);
+        }, redisCallbackExecutor.executor());
+    }
+
+    /**
+     * 分批加载用户全部行程概要（用于重建索引）
+     */
+    private CompletableFuture<List<TripSummary>> loadAllTripSummariesAsync(
+            String userId, String pageToken, List<TripSummary> loaded) {
+        return tripRepository.findTripSummariesByUserIdAsync(userId, INDEX_REBUILD_BATCH_SIZE, pageToken)
+                .thenCompose(page -> {
+                    loaded.addAll(page.getItems());
+                    if (page.getNextPageToken() == null) {
+                        return CompletableFuture.completedFuture(loaded);
+                    }
+                    return loadAllTripSummariesAsync(userId, page.getNextPageToken(), loaded);
+                });
+    }
+
+    private int resolvePageSize(Integer pageSize) {
+        return pageSize == null || pageSize <= 0 ? DEFAULT_PAGE_SIZE : Math.min(pageSize, MAX_PAGE_SIZE);
+    }
+
+    private List<TripSummary> loadAllTripSummaries(String userId) throws ExecutionException, InterruptedException {
+        List<TripSummary> summaries = new ArrayList<>();
+        String pageToken = null;
+        do {
+            PageResult<TripSummary> page = tripRepository.findTripSummariesByUserId(
+                    userId, INDEX_REBUILD_BATCH_SIZE, pageToken);
+            summaries.addAll(page.getItems());
+            pageToken = page.getNextPageToken();
+        } while (pageToken != null);
+        return summaries;
+    }
+
     /**
      * 删除行程
      *
@@ -210,12 +503,29 @@ public class TripService {
         // 2. 权限校验
         validateTripPermission(trip, userId);
 
-        // 3. 删除行程（同时删除 Firestore 和 Redis）
+        // 3. 删除行程（同时删除 Firestore 和 Redis），删除前登记级联删除，宕机后可继续
+        expenseCascadeDeleteJob.markPending(tripId, userId);
         tripRepository.deleteFromFirestore(tripId);
+        tripIndexRepository.remove(userId, tripId);
+
+        // 4. 后台分页删除行程下的开销记录
+        expenseCascadeDeleteJob.submit(tripId);
 
         log.info("行程删除成功: tripId={}", tripId);
     }
 
+    /**
+     * 查询行程删除后开销级联删除的进度
+     *
+     * @param tripId 行程ID
+     * @param userId 用户ID
+     * @return 删除进度
+     */
+    public CascadeDeleteStatus getTripDeletionStatus(String tripId, String userId) {
+        validateUserId(userId);
+        return expenseCascadeDeleteJob.getStatus(tripId, userId);
+    }
+
     /**
      * 构建行程生成的系统 Prompt
      */
@@ -315,12 +625,11 @@ public class TripService {
     /**
      * 构建增强的用户消息（加入用户偏好）
      */
-    private String buildTripGenerationUserMessage(String userInput, String userId) throws ExecutionException, InterruptedException {
+    private String buildTripGenerationUserMessage(String userInput, List<String> preferences) {
         StringBuilder enhancedMessage = new StringBuilder(userInput);
         
-        // 获取用户偏好
-        List<String> preferences = userService.getPreferencesList(userId);
-        if (!preferences.isEmpty()) {
+        // 附加用户偏好
+        if (preferences != null && !preferences.isEmpty()) {
             String preferencesText = String.join("、", preferences);
             enhancedMessage.append("\n\n我的旅行偏好：").append(preferencesText);
         }
@@ -545,6 +854,45 @@ public class TripService {
                 .build();
     }
 
+    /**
+     * 将Trip转换为TripHeader（日程只保留索引）
+     *
+     * @param trip 完整的Trip对象
+     * @return TripHeader头部对象
+     */
+    public TripHeader convertToHeader(Trip trip) {
+        TripSummary summary = convertToSummary(trip);
+        if (summary == null) {
+            return null;
+        }
+
+        List<TripHeader.DayEntry> dayEntries = new ArrayList<>();
+        if (trip.getDays() != null) {
+            for (Day day : trip.getDays()) {
+                dayEntries.add(TripHeader.DayEntry.builder()
+                        .dayIndex(day.getDayIndex())
+                        .date(day.getDate())
+                        .activityCount(day.getActivities() != null ? day.getActivities().size() : 0)
+                        .build());
+            }
+        }
+
+        return TripHeader.builder()
+                .id(summary.getId())
+                .userId(summary.getUserId())
+                .title(summary.getTitle())
+                .destination(summary.getDestination())
+                .startDate(summary.getStartDate())
+                .endDate(summary.getEndDate())
+                .totalBudget(summary.getTotalBudget())
+                .headcount(summary.getHeadcount())
+                .participantIds(trip.getParticipantIds())
+                .days(dayEntries)
+                .createdAt(summary.getCreatedAt())
+                .updatedAt(summary.getUpdatedAt())
+                .build();
+    }
+
     /**
      * 将Trip列表转换为TripSummary列表
      *
@@ -3,8 +3,11 @@ package com.tinglans.backend.service;
 import com.tinglans.backend.common.BusinessException;
 import com.tinglans.backend.common.ResponseCode;
 import com.tinglans.backend.domain.User;
+import com.tinglans.backend.repository.LastLoginWriteBuffer;
+import com.tinglans.backend.repository.UserCache;
 import com.tinglans.backend.repository.UserRepository;
 import com.tinglans.backend.util.JwtUtil;
+import com.tinglans.backend.util.RedisCallbackExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -17,6 +20,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
@@ -31,6 +35,9 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
+    private final LastLoginWriteBuffer lastLoginWriteBuffer;
+    private final UserCache userCache;
+    private final RedisCallbackExecutor redisCallbackExecutor;
     private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
     
     private static final String PREFERENCE_DELIMITER = ";";
@@ -60,14 +67,56 @@ public class UserService {
     // ==================== 业务方法 ====================
 
     /**
-     * 根据ID获取用户
+     * 根据ID获取用户（读穿缓存，返回的用户不含密码哈希）
      *
      * @param userId 用户ID
      * @return 用户对象
      */
     public Optional<User> getUserById(String userId) throws ExecutionException, InterruptedException {
         log.debug("获取用户: userId={}", userId);
-        return userRepository.findById(userId);
+        Optional<User> cached = userCache.get(userId);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        return userRepository.findById(userId).map(this::cacheUser);
+    }
+
+    /**
+     * 根据ID获取用户（异步，读穿缓存）
+     * 缓存读取在调用线程执行（响应式栈需在阻塞调度器上调用），未命中时的回写缓存切换到 Redis 回调线程池
+     */
+    public CompletableFuture<Optional<User>> getUserByIdAsync(String userId) {
+        log.debug("获取用户: userId={}", userId);
+        Optional<User> cached = userCache.get(userId);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return userRepository.findByIdAsync(userId)
+                .thenApplyAsync(userOpt -> userOpt.map(this::cacheUser), redisCallbackExecutor.executor());
+    }
+
+    /**
+     * 去除密码哈希后写入缓存
+     */
+    private User cacheUser(User user) {
+        User cachedUser = User.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .preferences(user.getPreferences())
+                .createdAt(user.getCreatedAt())
+                .lastLoginAt(user.getLastLoginAt())
+                .build();
+        userCache.put(cachedUser);
+        return cachedUser;
+    }
+
+    /**
+     * 校验并获取用户（异步）
+     */
+    public CompletableFuture<User> validateAndGetUserAsync(String userId) {
+        return getUserByIdAsync(userId).thenApply(userOpt ->
+                userOpt.orElseThrow(() -> new BusinessException(ResponseCode.USER_NOT_FOUND)));
     }
 
     /**
@@ -112,11 +161,27 @@ public class UserService {
         return result;
     }
 
+    /**
+     * 查看用户偏好（异步）
+     */
+    public CompletableFuture<String> getPreferencesAsync(String userId) {
+        validateUserId(userId);
+
+        log.debug("查看用户偏好: userId={}", userId);
+        return validateAndGetUserAsync(userId).thenApply(user -> {
+            List<String> preferences = user.getPreferences();
+            if (preferences == null || preferences.isEmpty()) {
+                return "";
+            }
+            return String.join(PREFERENCE_DELIMITER, preferences);
+        });
+    }
+
     /**
      * 获取用户偏好列表
      */
     public List<String> getPreferencesList(String userId) throws ExecutionException, InterruptedException {
-        Optional<User> userOpt = userRepository.findById(userId);
+        Optional<User> userOpt = getUserById(userId);
         if (userOpt.isEmpty()) {
             return new ArrayList<>();
         }
@@ -125,6 +190,16 @@ public class UserService {
         return user.getPreferences() != null ? user.getPreferences() : new ArrayList<>();
     }
 
+    /**
+     * 获取用户偏好列表（异步）
+     */
+    public CompletableFuture<List<String>> getPreferencesListAsync(String userId) {
+        return getUserByIdAsync(userId).thenApply(userOpt -> userOpt
+                .map(User::getPreferences)
+                .map(preferences -> (List<String>) new ArrayList<>(preferences))
+                .orElseGet(ArrayList::new));
+    }
+
     /**
      * 解析偏好字符串为列表
      */
@@ -167,11 +242,6 @@ public class UserService {
             throw new BusinessException(ResponseCode.INVALID_PARAM, "密码长度至少6个字符");
         }
 
-        // 检查用户名是否已存在
-        if (userRepository.existsByUsername(username)) {
-            throw new BusinessException(ResponseCode.USER_ALREADY_EXISTS);
-        }
-
         // 创建新用户
         String userId = "user-" + UUID.randomUUID().toString();
         String passwordHash = passwordEncoder.encode(password);
@@ -184,7 +254,10 @@ public class UserService {
                 .createdAt(Instant.now())
                 .build();
 
-        userRepository.save(newUser);
+        // 用户名唯一性由事务内的用户名映射（usernames 集合，文档ID为编码后的用户名）保证
+        if (!userRepository.createIfUsernameAbsent(newUser)) {
+            throw new BusinessException(ResponseCode.USER_ALREADY_EXISTS);
+        }
 
         log.info("用户注册成功: userId={}, username={}", userId, username);
         return userId;
@@ -218,8 +291,8 @@ public class UserService {
             throw new BusinessException(ResponseCode.INVALID_CREDENTIALS);
         }
 
-        // 更新最后登录时间
-        userRepository.updateLastLoginAt(user.getId());
+        // 记录最后登录时间（写缓冲定期批量落库）
+        lastLoginWriteBuffer.record(user.getId(), Instant.now());
 
         // 生成Token
         String token = jwtUtil.generateToken(user.getId());
@@ -0,0 +1,231 @@
+package com.tinglans.backend.service;
+
+import com.tinglans.backend.common.BusinessException;
+import com.tinglans.backend.domain.Expense;
+import com.tinglans.backend.domain.Trip;
+import com.tinglans.backend.dto.VoicePipelineEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * 语音一步生成业务逻辑层
+ * 负责：语音 → 行程、语音 → 开销的一次请求完成，省去客户端先取识别结果再提交文本的一次往返。
+ * 用户偏好查询（行程）在上传、转写的同时进行，行程权限校验（开销）在上传之前完成；识别完成、开始生成、生成完成时依次推送阶段事件。
+ * 大模型调用在专用线程池上执行，不占用讯飞轮询线程；调用方可取消返回的 future 停止后续阶段
+ */
+@Slf4j
+@Service
+public class VoicePipelineService {
+
+    private final SpeechService speechService;
+    private final TripService tripService;
+    private final ExpenseService expenseService;
+    private final UserService userService;
+    private final long timeoutMillis;
+    private final ExecutorService executor;
+
+    public VoicePipelineService(SpeechService speechService,
+                                TripService tripService,
+                                ExpenseService expenseService,
+                                UserService userService,
+                                @Value("${speech.pipeline.timeout:600}") long timeoutSeconds,
+                                @Value("${speech.pipeline.threads:4}") int threads) {
+        this.speechService = speechService;
+        this.tripService = tripService;
+        this.expenseService = expenseService;
+        this.userService = userService;
+        this.timeoutMillis = timeoutSeconds * 1000;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "voice-pipeline-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 单次请求的最长处理时间（毫秒），用于 SSE 连接超时
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    // ==================== 语音 → 行程 ====================
+
+    /**
+     * 从语音创建行程预览（从 MultipartFile）
+     * 返回时音频已上传完成，后续阶段通过 listener 推送
+     *
+     * @param audioFile 音频文件
+     * @param userId    用户ID
+     * @param listener  阶段事件监听器
+     * @return 生成的行程对象
+     */
+    public CompletableFuture<Trip> createTripFromVoice(MultipartFile audioFile, String userId,
+                                                       Consumer<VoicePipelineEvent> listener)
+            throws IOException, InterruptedException {
+        tripService.validateUserId(userId);
+        log.info("开始语音生成行程: userId={}", userId);
+
+        // 偏好查询先行发起，与上传、转写并行
+        CompletableFuture<List<String>> preferences = userService.getPreferencesListAsync(userId);
+        CompletableFuture<String> transcript = speechService.transcribeVoiceAsync(audioFile);
+        return generateTrip(transcript, preferences, userId, listener);
+    }
+
+    /**
+     * 从语音创建行程预览（响应式栈上传的文件已落盘）
+     * 返回时文件已上传完成，可以删除
+     */
+    public CompletableFuture<Trip> createTripFromVoiceFile(File audioFile, String userId,
+                                                           Consumer<VoicePipelineEvent> listener)
+            throws IOException, InterruptedException {
+        tripService.validateUserId(userId);
+        log.info("开始语音生成行程: userId={}", userId);
+
+        CompletableFuture<List<String>> preferences = userService.getPreferencesListAsync(userId);
+        CompletableFuture<String> transcript = speechService.transcribeFromFileAsync(audioFile);
+        return generateTrip(transcript, preferences, userId, listener);
+    }
+
+    private CompletableFuture<Trip> generateTrip(CompletableFuture<String> transcript,
+                                                 CompletableFuture<List<String>> preferences,
+                                                 String userId,
+                                                 Consumer<VoicePipelineEvent> listener) {
+        return runPipeline(transcript, preferences,
+                (text, preferenceList) -> tripService.createTripFromText(text, userId, preferenceList), listener);
+    }
+
+    // ==================== 语音 → 开销 ====================
+
+    /**
+     * 从语音创建开销记录（从 MultipartFile，行程创建者与参与者均可记账）
+     * 先校验行程权限，无权访问时不上传讯飞、不转写；返回时音频已上传完成，后续阶段通过 listener 推送
+     *
+     * @param tripId    行程ID
+     * @param audioFile 音频文件
+     * @param userId    用户ID
+     * @param listener  阶段事件监听器
+     * @return 创建的开销对象
+     */
+    public CompletableFuture<Expense> createExpenseFromVoice(String tripId, MultipartFile audioFile, String userId,
+                                                             Consumer<VoicePipelineEvent> listener)
+            throws IOException, InterruptedException, ExecutionException {
+        log.info("开始语音记账: tripId={}, userId={}", tripId, userId);
+
+        validateTripAccess(tripId, userId);
+        CompletableFuture<String> transcript = speechService.transcribeVoiceAsync(audioFile);
+        return generateExpense(transcript, tripId, listener);
+    }
+
+    /**
+     * 从语音创建开销记录（响应式栈上传的文件已落盘）
+     * 返回时文件已上传完成，可以删除
+     */
+    public CompletableFuture<Expense> createExpenseFromVoiceFile(String tripId, File audioFile, String userId,
+                                                                 Consumer<VoicePipelineEvent> listener)
+            throws IOException, InterruptedException, ExecutionException {
+        log.info("开始语音记账: tripId={}, userId={}", tripId, userId);
+
+        validateTripAccess(tripId, userId);
+        CompletableFuture<String> transcript = speechService.transcribeFromFileAsync(audioFile);
+        return generateExpense(transcript, tripId, listener);
+    }
+
+    private void validateTripAccess(String tripId, String userId) throws ExecutionException, InterruptedException {
+        Trip trip = tripService.validateAndGetTrip(tripId);
+        tripService.validateTripAccess(trip, userId);
+    }
+
+    private CompletableFuture<Expense> generateExpense(CompletableFuture<String> transcript,
+                                                       String tripId,
+                                                       Consumer<VoicePipelineEvent> listener) {
+        return runPipeline(transcript, CompletableFuture.completedFuture(null), (text, ignored) -> {
+            try {
+                return expenseService.createExpenseFromText(tripId, text);
+            } catch (ExecutionException e) {
+                throw new CompletionException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+        }, listener);
+    }
+
+    // ==================== 阶段事件 ====================
+
+    /**
+     * 识别完成即推送识别文本，不等待并行的偏好查询；两者都就绪后在专用线程池上生成，最后推送结果或错误（只推送一次）。
+     * 返回的 future 可取消（SSE 连接超时或断开时）：取消后不再推送事件，尚未开始的生成不再调用大模型；
+     * 进行中的转写不中断，结果仍写入识别缓存，重试时直接命中
+     */
+    private <U, T> CompletableFuture<T> runPipeline(CompletableFuture<String> transcript,
+                                                    CompletableFuture<U> ready,
+                                                    BiFunction<String, U, T> generate,
+                                                    Consumer<VoicePipelineEvent> listener) {
+        CompletableFuture<T> pipeline = new CompletableFuture<>();
+        Consumer<VoicePipelineEvent> activeListener = event -> {
+            if (!pipeline.isCancelled()) {
+                listener.accept(event);
+            }
+        };
+
+        transcript.thenApply(text -> {
+            activeListener.accept(VoicePipelineEvent.transcript(text));
+            return text;
+        }).thenCombineAsync(ready, (text, value) -> {
+            if (pipeline.isCancelled()) {
+                throw new CancellationException();
+            }
+            activeListener.accept(VoicePipelineEvent.generating());
+            return generate.apply(text, value);
+        }, executor).whenComplete((value, error) -> {
+            // 先推送终止事件再完成 pipeline，调用方拿到结果时事件已推送
+            if (pipeline.isCancelled()) {
+                return;
+            }
+            if (error == null) {
+                activeListener.accept(VoicePipelineEvent.done(value));
+                pipeline.complete(value);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof BusinessException businessException) {
+                log.warn("语音一步生成失败: {}", businessException.getDisplayMessage());
+                activeListener.accept(VoicePipelineEvent.error(businessException.getDisplayMessage()));
+            } else {
+                log.error("语音一步生成失败", cause);
+                activeListener.accept(VoicePipelineEvent.error("系统错误，请稍后重试"));
+            }
+            pipeline.completeExceptionally(error);
+        });
+
+        pipeline.whenComplete((value, error) -> {
+            if (pipeline.isCancelled()) {
+                log.info("语音一步生成已取消");
+            }
+        });
+        return pipeline;
+    }
+}
@@ -0,0 +1,61 @@
+package com.tinglans.backend.thirdparty.stt;
+
+/**
+ * 流式语音识别客户端
+ * 边发送音频边返回识别结果；音频为 16kHz 16bit 单声道小端 PCM
+ */
+public interface StreamingAsrClient {
+
+    /**
+     * 打开识别会话（异步建立连接，连接建立前发送的音频会排队）
+     *
+     * @param listener 识别结果回调（同一会话的回调不会并发调用）
+     * @return 识别会话
+     */
+    Session open(Listener listener);
+
+    /**
+     * 识别会话
+     */
+    interface Session {
+
+        /**
+         * 发送一段音频（调用后不可再修改该数组）
+         */
+        void sendAudio(byte[] pcm);
+
+        /**
+         * 音频发送完毕，等待剩余结果后结束会话
+         */
+        void finish();
+
+        /**
+         * 立即关闭会话，不再回调
+         */
+        void close();
+    }
+
+    /**
+     * 识别结果回调
+     */
+    interface Listener {
+
+        /**
+         * 当前句子的识别结果
+         *
+         * @param text          当前句子的文本
+         * @param sentenceFinal 是否为该句的最终结果（否则为中间结果，会被后续结果替换）
+         */
+        void onResult(String text, boolean sentenceFinal);
+
+        /**
+         * 会话正常结束
+         */
+        void onComplete();
+
+        /**
+         * 会话异常结束
+         */
+        void onError(Throwable error);
+    }
+}
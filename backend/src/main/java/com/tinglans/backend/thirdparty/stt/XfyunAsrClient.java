@@ -1,23 +1,46 @@
 package com.tinglans.backend.thirdparty.stt;
 
 import com.alibaba.fastjson.JSON;
+import com.tinglans.backend.common.BusinessException;
+import com.tinglans.backend.common.ResponseCode;
 import com.tinglans.backend.config.XfyunConfig;
 import com.tinglans.backend.thirdparty.stt.dto.*;
+import com.tinglans.backend.thirdparty.stt.util.AudioNormalizer;
 import com.tinglans.backend.thirdparty.stt.util.FileUtil;
+import com.tinglans.backend.thirdparty.stt.util.MultipartStreamBody;
+import com.tinglans.backend.thirdparty.stt.util.PollBackoff;
 import com.tinglans.backend.thirdparty.stt.util.SignUtil;
+import com.tinglans.backend.thirdparty.stt.util.VoiceActivityTrimmer;
+import com.tinglans.backend.thirdparty.stt.util.WavHeader;
+import com.tinglans.backend.thirdparty.stt.util.XfyunResultExtractor;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.*;
 import org.springframework.stereotype.Component;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestTemplate;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 科大讯飞语音识别客户端
@@ -26,100 +49,409 @@ import java.util.UUID;
 @Component
 public class XfyunAsrClient {
 
-    // API端点
-    private static final String UPLOAD_HOST = "upload-ost-api.xfyun.cn";
-    private static final String TASK_HOST = "ost-api.xfyun.cn";
-
-    private static final String SMALL_FILE_UPLOAD_URL = "https://" + UPLOAD_HOST + "/file/upload";
-    private static final String MULTIPART_INIT_URL = "https://" + UPLOAD_HOST + "/file/mpupload/init";
-    private static final String MULTIPART_UPLOAD_URL = "https://" + UPLOAD_HOST + "/file/mpupload/upload";
-    private static final String MULTIPART_COMPLETE_URL = "https://" + UPLOAD_HOST + "/file/mpupload/complete";
-    private static final String TASK_CREATE_URL = "https://" + TASK_HOST + "/v2/ost/pro_create";
-    private static final String TASK_QUERY_URL = "https://" + TASK_HOST + "/v2/ost/query";
+    /**
+     * 分块重试的基础退避时间（毫秒），第 n 次重试等待 n 倍
+     */
+    private static final long RETRY_BACKOFF_MILLIS = 500;
+
+    // API端点（服务地址可配置，签名使用地址中的主机名）
+    private final String uploadHost;
+    private final String taskHost;
+    private final String smallFileUploadUrl;
+    private final String multipartInitUrl;
+    private final String multipartUploadUrl;
+    private final String multipartCompleteUrl;
+    private final String taskCreateUrl;
+    private final String taskQueryUrl;
 
     private final XfyunConfig config;
     private final RestTemplate restTemplate;
+    private final ExecutorService uploadExecutor;
+    private final ScheduledExecutorService pollScheduler;
+    private final VoiceActivityTrimmer voiceActivityTrimmer;
 
     public XfyunAsrClient(XfyunConfig config) {
         this.config = config;
         this.restTemplate = new RestTemplate();
+
+        this.uploadHost = URI.create(config.getUploadBaseUrl()).getHost();
+        this.taskHost = URI.create(config.getTaskBaseUrl()).getHost();
+        this.smallFileUploadUrl = config.getUploadBaseUrl() + "/file/upload";
+        this.multipartInitUrl = config.getUploadBaseUrl() + "/file/mpupload/init";
+        this.multipartUploadUrl = config.getUploadBaseUrl() + "/file/mpupload/upload";
+        this.multipartCompleteUrl = config.getUploadBaseUrl() + "/file/mpupload/complete";
+        this.taskCreateUrl = config.getTaskBaseUrl() + "/v2/ost/pro_create";
+        this.taskQueryUrl = config.getTaskBaseUrl() + "/v2/ost/query";
+
+        AtomicInteger counter = new AtomicInteger();
+        this.uploadExecutor = Executors.newFixedThreadPool(Math.max(1, config.getUploadParallelism()), runnable -> {
+            Thread thread = new Thread(runnable, "xfyun-upload-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        AtomicInteger pollCounter = new AtomicInteger();
+        this.pollScheduler = Executors.newScheduledThreadPool(Math.max(1, config.getPollThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "xfyun-poll-" + pollCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.voiceActivityTrimmer = new VoiceActivityTrimmer(config.getVadEnergyThreshold(), config.getVadZcrThreshold(),
+                config.getVadPadding(), config.getVadMaxPause());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        uploadExecutor.shutdownNow();
+        pollScheduler.shutdownNow();
     }
 
     /**
-     * 转写音频文件
+     * 转写音频文件（阻塞等待结果）
      *
      * @param audioFile 音频文件
      * @return 识别结果文本
      */
     public String transcribe(File audioFile) throws IOException, InterruptedException {
+        try {
+            return transcribeAsync(audioFile).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("音频转写失败: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * 转写音频文件
+     * 上传与创建任务在调用线程完成，返回的 future 在转写结果就绪后完成，等待期间不占用线程
+     *
+     * @param audioFile 音频文件
+     * @return 识别结果文本
+     */
+    public CompletableFuture<String> transcribeAsync(File audioFile) throws IOException, InterruptedException {
         log.info("开始转写音频文件: {}, 大小: {} bytes", audioFile.getName(), audioFile.length());
 
-        // 1. 上传音频文件
-        String audioUrl = uploadFile(audioFile);
-        log.info("音频文件上传成功，URL: {}", audioUrl);
+        // 1. 上传音频文件（未检测到语音时不上传）
+        Optional<UploadedAudio> uploaded = upload(audioFile, true);
+        if (uploaded.isEmpty()) {
+            return CompletableFuture.completedFuture("");
+        }
+        log.info("音频文件上传成功，URL: {}", uploaded.get().url());
 
-        // 2. 创建转写任务
-        String taskId = createTask(audioUrl, audioFile.getName());
-        log.info("转写任务创建成功，任务ID: {}", taskId);
+        // 2. 创建转写任务并调度轮询
+        return transcribeUploaded(uploaded.get());
+    }
+
+    /**
+     * 上传音频文件并创建转写任务（配置了回调地址时任务完成后讯飞回调通知）
+     *
+     * @param audioFile 音频文件
+     * @return 任务ID
+     * @throws BusinessException 音频中未检测到语音（不上传、不创建任务）
+     */
+    public String submitTask(File audioFile) throws IOException, InterruptedException {
+        log.info("提交转写任务，文件: {}, 大小: {} bytes", audioFile.getName(), audioFile.length());
+        return createTask(upload(audioFile, true).orElseThrow(XfyunAsrClient::noSpeech), config.getCallbackUrl());
+    }
 
-        // 3. 轮询查询任务状态
-        String result = pollTaskResult(taskId);
-        log.info("转写完成，文本长度: {}", result.length());
+    /**
+     * 上传音频流并创建转写任务（配置了回调地址时任务完成后讯飞回调通知）
+     *
+     * @param audio    音频数据流（调用方负责关闭）
+     * @param fileName 文件名（用于推断音频编码）
+     * @param size     音频字节数
+     * @return 任务ID
+     * @throws BusinessException 音频中未检测到语音（不上传、不创建任务）
+     */
+    public String submitTask(InputStream audio, String fileName, long size) throws IOException {
+        log.info("提交转写任务，音频流: {}, 大小: {} bytes", fileName, size);
+        return createTask(upload(audio, fileName, size, true).orElseThrow(XfyunAsrClient::noSpeech),
+                config.getCallbackUrl());
+    }
 
-        return result;
+    /**
+     * 异步任务没有可返回的空结果，静音音频直接拒绝，避免上传只有文件头的 WAV
+     */
+    private static BusinessException noSpeech() {
+        return new BusinessException(ResponseCode.VOICE_RECOGNITION_FAILED, "音频中未检测到语音");
+    }
+
+    /**
+     * 调度轮询已创建任务的结果
+     * 使用回调时轮询只作为兜底：首次查询推迟到回调等待时间之后，调用方在回调到达后取消返回的 future 即可停止轮询
+     *
+     * @param taskId              任务ID
+     * @param audioDurationMillis 音频时长（毫秒），用于计算轮询间隔
+     * @param callbackExpected    是否等待讯飞回调
+     * @return 识别结果文本
+     */
+    public CompletableFuture<String> awaitTaskResult(String taskId, long audioDurationMillis, boolean callbackExpected) {
+        PollBackoff backoff = new PollBackoff(config.getPollInitialDelay(), config.getPollInterval(), audioDurationMillis);
+        long firstDelay = callbackExpected ? config.getCallbackFallbackDelay() : backoff.nextDelay();
+        return pollTaskResultAsync(taskId, firstDelay, backoff);
+    }
+
+    /**
+     * 查询一次任务结果（收到回调时调用）
+     *
+     * @param taskId 任务ID
+     * @return 任务已完成时返回识别结果文本
+     */
+    public Optional<String> fetchTaskResult(String taskId) {
+        XfyunResultExtractor.QueryResult queryResult = queryTask(taskId);
+        return queryResult.isFinished() ? Optional.of(queryResult.text()) : Optional.empty();
+    }
+
+    /**
+     * 是否配置了任务完成回调地址
+     */
+    public boolean isCallbackEnabled() {
+        return StringUtils.hasText(config.getCallbackUrl());
+    }
+
+    /**
+     * 转写音频流（不落盘，上传时从输入流直接写出，内存占用与文件大小无关）
+     * 上传与创建任务在调用线程完成（输入流读取完毕后即可关闭），返回的 future 在转写结果就绪后完成
+     *
+     * @param audio    音频数据流（调用方负责关闭）
+     * @param fileName 文件名（用于推断音频编码）
+     * @param size     音频字节数
+     * @return 识别结果文本
+     */
+    public CompletableFuture<String> transcribeAsync(InputStream audio, String fileName, long size) throws IOException {
+        log.info("开始转写音频流: {}, 大小: {} bytes", fileName, size);
+
+        // 1. 上传音频数据（未检测到语音时不上传）
+        Optional<UploadedAudio> uploaded = upload(audio, fileName, size, true);
+        if (uploaded.isEmpty()) {
+            return CompletableFuture.completedFuture("");
+        }
+        log.info("音频流上传成功，URL: {}", uploaded.get().url());
+
+        // 2. 创建转写任务并调度轮询
+        return transcribeUploaded(uploaded.get());
+    }
+
+    /**
+     * 为已上传的音频创建转写任务，并按音频时长调度轮询
+     */
+    private CompletableFuture<String> transcribeUploaded(UploadedAudio uploaded) {
+        // 1. 创建转写任务
+        String taskId = createTask(uploaded, null);
+
+        // 2. 调度轮询查询任务状态
+        return awaitTaskResult(taskId, FileUtil.estimateDurationMillis(uploaded.fileName(), uploaded.size()), false)
+                .whenComplete((result, error) -> {
+                    if (error == null) {
+                        log.info("转写完成，任务ID: {}, 文本长度: {}", taskId, result.length());
+                    }
+                });
     }
 
     /**
      * 上传音频文件
+     * 经过归一化或静音裁剪的音频按音频流上传（处理后通常不超过小文件阈值），其余按文件上传
+     *
+     * @param skipSilent 未检测到语音时是否跳过上传（返回空）
+     */
+    private Optional<UploadedAudio> upload(File audioFile, boolean skipSilent) throws IOException, InterruptedException {
+        int sampleRate = AudioNormalizer.TARGET_SAMPLE_RATE;
+        if (Boolean.TRUE.equals(config.getNormalizeAudio())) {
+            try (InputStream in = new FileInputStream(audioFile)) {
+                AudioNormalizer.NormalizedAudio audio = prepare(in, audioFile.getName(), audioFile.length());
+                try {
+                    if (skipSilent && isSilent(audio)) {
+                        return Optional.empty();
+                    }
+                    if (audio.converted()) {
+                        return Optional.of(uploadStream(audio));
+                    }
+                    sampleRate = audio.sampleRate();
+                } finally {
+                    release(audio);
+                }
+            }
+        }
+        return Optional.of(new UploadedAudio(uploadFile(audioFile), audioFile.getName(), audioFile.length(), sampleRate));
+    }
+
+    /**
+     * 上传音频流（按配置先归一化、裁剪静音）
+     *
+     * @param skipSilent 未检测到语音时是否跳过上传（返回空）
      */
-    private String uploadFile(File audioFile) throws IOException {
-        if (FileUtil.isSmallFile(audioFile)) {
-            return uploadSmallFile(audioFile);
+    private Optional<UploadedAudio> upload(InputStream audio, String fileName, long size, boolean skipSilent)
+            throws IOException {
+        AudioNormalizer.NormalizedAudio prepared = prepare(audio, fileName, size);
+        try {
+            if (skipSilent && isSilent(prepared)) {
+                return Optional.empty();
+            }
+            return Optional.of(uploadStream(prepared));
+        } finally {
+            release(prepared);
+        }
+    }
+
+    /**
+     * 上传前处理：WAV 归一化为 16kHz 单声道 PCM，再裁剪首尾静音、压缩长停顿
+     */
+    private AudioNormalizer.NormalizedAudio prepare(InputStream audio, String fileName, long size) throws IOException {
+        if (!Boolean.TRUE.equals(config.getNormalizeAudio())) {
+            return AudioNormalizer.passthrough(audio, fileName, size, AudioNormalizer.TARGET_SAMPLE_RATE);
+        }
+
+        AudioNormalizer.NormalizedAudio normalized = AudioNormalizer.normalize(audio, fileName, size);
+        if (normalized.converted()) {
+            log.info("音频已归一化: {}Hz {}声道 {}bit -> {}Hz 单声道 16bit, {} -> {} bytes",
+                    normalized.source().getSampleRate(), normalized.source().getChannels(),
+                    normalized.source().getBitsPerSample(), normalized.sampleRate(), size, normalized.size());
+        }
+
+        if (Boolean.TRUE.equals(config.getVadEnabled()) && normalized.canonicalPcm()) {
+            return trimSilence(normalized);
+        }
+        return normalized;
+    }
+
+    /**
+     * 裁剪静音，返回标准文件头 + 保留的 PCM
+     * 上传需要先得到输出长度，裁剪结果写入临时文件（先占位文件头，写完后回填长度），内存占用与音频大小无关；
+     * 临时文件在上传结束后由 release 删除
+     */
+    private AudioNormalizer.NormalizedAudio trimSilence(AudioNormalizer.NormalizedAudio audio) throws IOException {
+        InputStream in = audio.stream();
+        in.skipNBytes(WavHeader.CANONICAL_SIZE);
+
+        Path spill = Files.createTempFile("xfyun-vad-", ".wav");
+        try {
+            VoiceActivityTrimmer.TrimResult result;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(spill))) {
+                out.write(new byte[WavHeader.CANONICAL_SIZE]);
+                result = voiceActivityTrimmer.trim(in, audio.size() - WavHeader.CANONICAL_SIZE, out);
+            }
+            log.info("静音裁剪完成: 原时长 {} ms, 保留 {} ms, 裁剪 {} ms, 语音段数 {}",
+                    result.originalMillis(), result.keptMillis(), result.trimmedMillis(), result.speechSegments());
+
+            byte[] header = WavHeader.canonical(1, AudioNormalizer.TARGET_SAMPLE_RATE, 16, result.outputBytes());
+            if (!result.hasSpeech()) {
+                Files.deleteIfExists(spill);
+                return new AudioNormalizer.NormalizedAudio(new ByteArrayInputStream(header), audio.fileName(),
+                        header.length, AudioNormalizer.TARGET_SAMPLE_RATE, true, true, audio.source());
+            }
+            try (FileChannel channel = FileChannel.open(spill, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(header), 0);
+            }
+            return new AudioNormalizer.NormalizedAudio(new SpillFileInputStream(spill), audio.fileName(),
+                    header.length + result.outputBytes(), AudioNormalizer.TARGET_SAMPLE_RATE, true, true,
+                    audio.source());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spill);
+            throw e;
+        }
+    }
+
+    /**
+     * 释放上传前处理产生的临时文件（其余音频流由调用方关闭）
+     */
+    private void release(AudioNormalizer.NormalizedAudio audio) {
+        if (audio.stream() instanceof SpillFileInputStream spill) {
+            try {
+                spill.close();
+            } catch (IOException e) {
+                log.warn("删除静音裁剪临时文件失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 静音裁剪结果的临时文件流，关闭时删除文件
+     */
+    private static final class SpillFileInputStream extends FilterInputStream {
+
+        private final Path path;
+
+        SpillFileInputStream(Path path) throws IOException {
+            super(new BufferedInputStream(Files.newInputStream(path)));
+            this.path = path;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * 是否未检测到语音（只剩文件头）
+     */
+    private boolean isSilent(AudioNormalizer.NormalizedAudio audio) {
+        if (audio.canonicalPcm() && audio.size() <= WavHeader.CANONICAL_SIZE) {
+            log.info("音频中未检测到语音，跳过转写: {}", audio.fileName());
+            return true;
+        }
+        return false;
+    }
+
+    private UploadedAudio uploadStream(AudioNormalizer.NormalizedAudio audio) {
+        String audioUrl = audio.size() <= config.getSmallFileThreshold()
+                ? uploadSmallFile(audio.stream(), audio.fileName(), audio.size())
+                : uploadLargeStream(audio.stream(), audio.fileName(), audio.size());
+        return new UploadedAudio(audioUrl, audio.fileName(), audio.size(), audio.sampleRate());
+    }
+
+    /**
+     * 已上传的音频
+     *
+     * @param url        音频地址
+     * @param fileName   文件名
+     * @param size       上传的字节数
+     * @param sampleRate 采样率
+     */
+    private record UploadedAudio(String url, String fileName, long size, int sampleRate) {
+    }
+
+    /**
+     * 按文件上传（超过阈值时分块并发上传）
+     */
+    private String uploadFile(File audioFile) throws IOException, InterruptedException {
+        if (audioFile.length() <= config.getSmallFileThreshold()) {
+            try (InputStream in = new FileInputStream(audioFile)) {
+                return uploadSmallFile(in, audioFile.getName(), audioFile.length());
+            }
         } else {
             return uploadLargeFile(audioFile);
         }
     }
 
     /**
-     * 上传小文件（小于30MB）
+     * 上传小文件（小于30MB，流式写出）
      */
-    private String uploadSmallFile(File audioFile) throws IOException {
+    private String uploadSmallFile(InputStream audio, String fileName, long size) {
         String requestId = generateRequestId();
 
         // 生成签名
         Map<String, String> authHeaders = SignUtil.generateHeaders(
-                "POST", "/file/upload", UPLOAD_HOST,
+                "POST", "/file/upload", uploadHost,
                 config.getApiKey(), config.getApiSecret()
         );
 
         // 构建multipart请求
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-        authHeaders.forEach(headers::add);
-
-        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-        body.add("request_id", requestId);
-        body.add("app_id", config.getAppId());
-        body.add("data", new ByteArrayResource(FileUtil.readFileBytes(audioFile)) {
-            @Override
-            public String getFilename() {
-                return audioFile.getName();
-            }
-        });
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("request_id", requestId);
+        fields.put("app_id", config.getAppId());
+        MultipartStreamBody body = new MultipartStreamBody(fields, "data", fileName, audio, size);
 
-        HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
-
-        // 发送请求
-        ResponseEntity<String> response = restTemplate.exchange(
-                SMALL_FILE_UPLOAD_URL,
-                HttpMethod.POST,
-                requestEntity,
-                String.class
-        );
-
-        // 解析响应
+        // 发送请求并解析响应
         XfyunUploadResponse.SmallFile uploadResponse = JSON.parseObject(
-                response.getBody(),
+                postMultipart(smallFileUploadUrl, authHeaders, body),
                 XfyunUploadResponse.SmallFile.class
         );
 
@@ -131,20 +463,79 @@ public class XfyunAsrClient {
     }
 
     /**
-     * 上传大文件（大于30MB，使用分块上传）
+     * 上传大文件（超过阈值，分块并发上传）
+     * 各分块通过 FileChannel 定位读取后直接流式写出，不复制整个文件；失败的分块单独重试
+     */
+    private String uploadLargeFile(File audioFile) throws IOException, InterruptedException {
+        String requestId = generateRequestId();
+
+        // 1. 初始化分块上传
+        String uploadId = initMultipartUpload(requestId);
+        log.info("分块上传初始化成功，uploadId: {}", uploadId);
+
+        // 2. 并发上传所有分块
+        List<FileUtil.FileSlice> slices = FileUtil.sliceFile(audioFile.length(), config.getChunkSize());
+        try (FileChannel channel = FileChannel.open(audioFile.toPath(), StandardOpenOption.READ)) {
+            List<CompletableFuture<Void>> parts = slices.stream()
+                    .map(slice -> CompletableFuture.runAsync(() -> uploadFilePartWithRetry(
+                            requestId, uploadId, channel, slice, audioFile.getName()), uploadExecutor))
+                    .toList();
+            CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new)).get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("分块上传失败: " + e.getCause().getMessage(), e.getCause());
+        }
+        log.info("分块上传完成: 总块数={}, 并发数={}", slices.size(), config.getUploadParallelism());
+
+        // 3. 完成分块上传
+        String audioUrl = completeMultipartUpload(requestId, uploadId);
+        log.info("分块上传完成，URL: {}", audioUrl);
+
+        return audioUrl;
+    }
+
+    /**
+     * 上传单个文件分块，失败时重新定位读取并重试
+     */
+    private void uploadFilePartWithRetry(String requestId, String uploadId, FileChannel channel,
+                                         FileUtil.FileSlice slice, String fileName) {
+        int attempt = 0;
+        while (true) {
+            try {
+                uploadFilePart(requestId, uploadId, slice.index(),
+                        new FileUtil.FileSliceInputStream(channel, slice), slice.length(), fileName);
+                log.debug("上传分块成功: index={}, attempt={}", slice.index(), attempt + 1);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= config.getUploadMaxRetries()) {
+                    throw e;
+                }
+                attempt++;
+                log.warn("上传分块失败，准备重试: index={}, attempt={}, error={}", slice.index(), attempt, e.getMessage());
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MILLIS * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * 上传大音频流（超过阈值，按顺序从流中切出分块直接写出，不缓存分块数据；流只能读取一次，分块不重试）
      */
-    private String uploadLargeFile(File audioFile) throws IOException {
+    private String uploadLargeStream(InputStream audio, String fileName, long size) {
         String requestId = generateRequestId();
 
         // 1. 初始化分块上传
         String uploadId = initMultipartUpload(requestId);
         log.info("分块上传初始化成功，uploadId: {}", uploadId);
 
-        // 2. 分块上传文件
-        List<FileUtil.FileChunk> chunks = FileUtil.splitFile(audioFile);
-        for (FileUtil.FileChunk chunk : chunks) {
-            uploadFilePart(requestId, uploadId, chunk, audioFile.getName());
-            log.debug("上传分块 {}/{}", chunk.getIndex() + 1, chunks.size());
+        // 2. 依次上传分块（每个分块从流中读取 chunkSize 字节）
+        List<FileUtil.FileSlice> slices = FileUtil.sliceFile(size, config.getChunkSize());
+        for (FileUtil.FileSlice slice : slices) {
+            uploadFilePart(requestId, uploadId, slice.index(), audio, slice.length(), fileName);
+            log.debug("上传分块 {}/{}", slice.index() + 1, slices.size());
         }
 
         // 3. 完成分块上传
@@ -160,7 +551,7 @@ public class XfyunAsrClient {
     private String initMultipartUpload(String requestId) {
         // 生成签名
         Map<String, String> authHeaders = SignUtil.generateHeaders(
-                "POST", "/file/mpupload/init", UPLOAD_HOST,
+                "POST", "/file/mpupload/init", uploadHost,
                 config.getApiKey(), config.getApiSecret()
         );
 
@@ -179,7 +570,7 @@ public class XfyunAsrClient {
 
         // 发送请求
         ResponseEntity<String> response = restTemplate.exchange(
-                MULTIPART_INIT_URL,
+                multipartInitUrl,
                 HttpMethod.POST,
                 requestEntity,
                 String.class
@@ -199,45 +590,27 @@ public class XfyunAsrClient {
     }
 
     /**
-     * 上传文件分块
+     * 上传文件分块（从 data 中读取 length 字节流式写出）
      */
-    private void uploadFilePart(String requestId, String uploadId, FileUtil.FileChunk chunk, String fileName) {
+    private void uploadFilePart(String requestId, String uploadId, int sliceIndex,
+                                InputStream data, long length, String fileName) {
         // 生成签名
         Map<String, String> authHeaders = SignUtil.generateHeaders(
-                "POST", "/file/mpupload/upload", UPLOAD_HOST,
+                "POST", "/file/mpupload/upload", uploadHost,
                 config.getApiKey(), config.getApiSecret()
         );
 
         // 构建multipart请求
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-        authHeaders.forEach(headers::add);
-
-        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-        body.add("request_id", requestId);
-        body.add("app_id", config.getAppId());
-        body.add("upload_id", uploadId);
-        body.add("slice_id", String.valueOf(chunk.getIndex()));
-        body.add("data", new ByteArrayResource(chunk.getData()) {
-            @Override
-            public String getFilename() {
-                return fileName;
-            }
-        });
-
-        HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
-
-        // 发送请求
-        ResponseEntity<String> response = restTemplate.exchange(
-                MULTIPART_UPLOAD_URL,
-                HttpMethod.POST,
-                requestEntity,
-                String.class
-        );
-
-        // 解析响应
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("request_id", requestId);
+        fields.put("app_id", config.getAppId());
+        fields.put("upload_id", uploadId);
+        fields.put("slice_id", String.valueOf(sliceIndex));
+        MultipartStreamBody body = new MultipartStreamBody(fields, "data", fileName, data, length);
+
+        // 发送请求并解析响应
         XfyunUploadResponse.Part partResponse = JSON.parseObject(
-                response.getBody(),
+                postMultipart(multipartUploadUrl, authHeaders, body),
                 XfyunUploadResponse.Part.class
         );
 
@@ -246,13 +619,33 @@ public class XfyunAsrClient {
         }
     }
 
+    /**
+     * 发送流式 multipart 请求
+     * 设置 Content-Length 并通过 StreamingHttpOutputMessage 写出，请求体不在内存中缓冲
+     *
+     * @return 响应体
+     */
+    private String postMultipart(String url, Map<String, String> authHeaders, MultipartStreamBody body) {
+        return restTemplate.execute(url, HttpMethod.POST, request -> {
+            HttpHeaders headers = request.getHeaders();
+            authHeaders.forEach(headers::add);
+            headers.setContentType(body.getContentType());
+            headers.setContentLength(body.getContentLength());
+            if (request instanceof StreamingHttpOutputMessage streamingRequest) {
+                streamingRequest.setBody(body::writeTo);
+            } else {
+                body.writeTo(request.getBody());
+            }
+        }, response -> StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8));
+    }
+
     /**
      * 完成分块上传
      */
     private String completeMultipartUpload(String requestId, String uploadId) {
         // 生成签名
         Map<String, String> authHeaders = SignUtil.generateHeaders(
-                "POST", "/file/mpupload/complete", UPLOAD_HOST,
+                "POST", "/file/mpupload/complete", uploadHost,
                 config.getApiKey(), config.getApiSecret()
         );
 
@@ -271,7 +664,7 @@ public class XfyunAsrClient {
 
         // 发送请求
         ResponseEntity<String> response = restTemplate.exchange(
-                MULTIPART_COMPLETE_URL,
+                multipartCompleteUrl,
                 HttpMethod.POST,
                 requestEntity,
                 String.class
@@ -293,10 +686,10 @@ public class XfyunAsrClient {
     /**
      * 创建转写任务
      */
-    private String createTask(String audioUrl, String fileName) {
+    private String createTask(UploadedAudio audio, String callbackUrl) {
         // 生成签名
         Map<String, String> authHeaders = SignUtil.generateHeaders(
-                "POST", "/v2/ost/pro_create", TASK_HOST,
+                "POST", "/v2/ost/pro_create", taskHost,
                 config.getApiKey(), config.getApiSecret()
         );
 
@@ -314,13 +707,14 @@ public class XfyunAsrClient {
                         .language("zh_cn")
                         .domain("pro_ost_ed")
                         .accent("mandarin")
+                        .callbackUrl(StringUtils.hasText(callbackUrl) ? callbackUrl : null)
                         .postprocOn(1)
                         .build())
                 .data(XfyunTaskCreateRequest.AudioData.builder()
-                        .audioUrl(audioUrl)
+                        .audioUrl(audio.url())
                         .audioSrc("http")
-                        .format(FileUtil.getFormat(fileName))
-                        .encoding(FileUtil.getEncoding(fileName))
+                        .format(FileUtil.getFormat(audio.sampleRate()))
+                        .encoding(FileUtil.getEncoding(audio.fileName()))
                         .build())
                 .build();
 
@@ -328,7 +722,7 @@ public class XfyunAsrClient {
 
         // 发送请求
         ResponseEntity<String> response = restTemplate.exchange(
-                TASK_CREATE_URL,
+                taskCreateUrl,
                 HttpMethod.POST,
                 requestEntity,
                 String.class
@@ -344,41 +738,66 @@ public class XfyunAsrClient {
             throw new RuntimeException("创建转写任务失败: " + createResponse.getMessage());
         }
 
-        return createResponse.getData().getTaskId();
+        String taskId = createResponse.getData().getTaskId();
+        log.info("转写任务创建成功，任务ID: {}", taskId);
+        return taskId;
     }
 
     /**
-     * 轮询查询任务结果
+     * 调度轮询任务结果
+     * 每次查询由调度线程执行，未完成时按退避间隔调度下一次查询，两次查询之间不占用线程；
+     * 返回的 future 被取消或已完成时停止轮询
      */
-    private String pollTaskResult(String taskId) throws InterruptedException {
-        int pollCount = 0;
+    private CompletableFuture<String> pollTaskResultAsync(String taskId, long firstDelay, PollBackoff backoff) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        long deadline = System.currentTimeMillis() + config.getPollTimeout();
+        log.debug("调度转写任务轮询，任务ID: {}, 首次延迟: {} ms, 最大间隔: {} ms",
+                taskId, firstDelay, backoff.getMaxDelay());
 
-        while (pollCount < config.getMaxPollCount()) {
-            XfyunTaskResponse.Query queryResponse = queryTask(taskId);
+        schedulePoll(taskId, firstDelay, backoff, deadline, 1, result);
+        return result;
+    }
 
-            String taskStatus = queryResponse.getData().getTaskStatus();
-            log.debug("任务状态: {}, 轮询次数: {}/{}", taskStatus, pollCount + 1, config.getMaxPollCount());
+    private void schedulePoll(String taskId, long delay, PollBackoff backoff, long deadline, int pollCount,
+                              CompletableFuture<String> result) {
+        if (System.currentTimeMillis() + delay > deadline) {
+            result.completeExceptionally(new RuntimeException("转写任务超时，任务ID: " + taskId));
+            return;
+        }
 
-            // 任务状态：1-待处理 2-处理中 3-处理完成 4-回调完成
-            if ("3".equals(taskStatus) || "4".equals(taskStatus)) {
-                return extractText(queryResponse);
-            }
+        try {
+            pollScheduler.schedule(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                try {
+                    XfyunResultExtractor.QueryResult queryResult = queryTask(taskId);
+                    log.debug("任务状态: {}, 轮询次数: {}", queryResult.taskStatus(), pollCount);
 
-            // 等待后继续轮询
-            Thread.sleep(config.getPollInterval());
-            pollCount++;
-        }
+                    if (queryResult.isFinished()) {
+                        result.complete(queryResult.text());
+                        return;
+                    }
 
-        throw new RuntimeException("转写任务超时，任务ID: " + taskId);
+                    schedulePoll(taskId, backoff.nextDelay(), backoff, deadline, pollCount + 1, result);
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // 调度器已关闭
+            result.completeExceptionally(e);
+        }
     }
 
     /**
      * 查询任务状态
+     * 响应体流式解析，只提取状态与识别文本，不构建完整的结果对象树
      */
-    private XfyunTaskResponse.Query queryTask(String taskId) {
+    private XfyunResultExtractor.QueryResult queryTask(String taskId) {
         // 生成签名
         Map<String, String> authHeaders = SignUtil.generateHeaders(
-                "POST", "/v2/ost/query", TASK_HOST,
+                "POST", "/v2/ost/query", taskHost,
                 config.getApiKey(), config.getApiSecret()
         );
 
@@ -398,60 +817,19 @@ public class XfyunAsrClient {
 
         HttpEntity<String> requestEntity = new HttpEntity<>(JSON.toJSONString(queryRequest), headers);
 
-        // 发送请求
-        ResponseEntity<String> response = restTemplate.exchange(
-                TASK_QUERY_URL,
+        // 发送请求并流式解析响应
+        XfyunResultExtractor.QueryResult queryResult = restTemplate.execute(
+                taskQueryUrl,
                 HttpMethod.POST,
-                requestEntity,
-                String.class
+                restTemplate.httpEntityCallback(requestEntity),
+                response -> XfyunResultExtractor.extract(response.getBody())
         );
 
-        // 解析响应
-        XfyunTaskResponse.Query queryResponse = JSON.parseObject(
-                response.getBody(),
-                XfyunTaskResponse.Query.class
-        );
-
-        if (queryResponse.getCode() != 0) {
-            throw new RuntimeException("查询任务失败: " + queryResponse.getMessage());
-        }
-
-        return queryResponse;
-    }
-
-    /**
-     * 从查询结果中提取文本
-     */
-    private String extractText(XfyunTaskResponse.Query queryResponse) {
-        StringBuilder text = new StringBuilder();
-
-        XfyunTaskResponse.Query.Result result = queryResponse.getData().getResult();
-        if (result == null || result.getLattice() == null) {
-            return "";
-        }
-
-        // 使用lattice（经过后处理的识别结果）
-        for (XfyunTaskResponse.Query.Lattice lattice : result.getLattice()) {
-            if (lattice.getJson1best() != null && lattice.getJson1best().getSt() != null) {
-                XfyunTaskResponse.Query.St st = lattice.getJson1best().getSt();
-
-                if (st.getRt() != null) {
-                    for (XfyunTaskResponse.Query.Rt rt : st.getRt()) {
-                        if (rt.getWs() != null) {
-                            for (XfyunTaskResponse.Query.Ws ws : rt.getWs()) {
-                                if (ws.getCw() != null && !ws.getCw().isEmpty()) {
-                                    // 获取第一个候选词
-                                    XfyunTaskResponse.Query.Cw cw = ws.getCw().get(0);
-                                    text.append(cw.getW());
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+        if (queryResult == null || queryResult.code() != 0) {
+            throw new RuntimeException("查询任务失败: " + (queryResult != null ? queryResult.message() : "响应为空"));
         }
 
-        return text.toString();
+        return queryResult;
     }
 
     /**
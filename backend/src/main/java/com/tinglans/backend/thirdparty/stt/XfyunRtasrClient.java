@@ -0,0 +1,194 @@
+package com.tinglans.backend.thirdparty.stt;
+
+import com.alibaba.fastjson.JSON;
+import com.tinglans.backend.config.XfyunConfig;
+import com.tinglans.backend.thirdparty.stt.dto.XfyunRtasrResponse;
+import com.tinglans.backend.thirdparty.stt.util.SignUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * 科大讯飞实时语音转写客户端（WebSocket）
+ * 音频按 1280 字节（40ms）分帧发送，发送完毕后发送结束标记，服务端返回剩余结果后关闭连接
+ */
+@Slf4j
+@Component
+public class XfyunRtasrClient implements StreamingAsrClient {
+
+    /**
+     * 每帧字节数：16kHz 16bit 单声道 40ms
+     */
+    private static final int FRAME_SIZE = 1280;
+
+    private static final String END_MESSAGE = "{\"end\": true}";
+
+    private final XfyunConfig config;
+    private final HttpClient httpClient;
+
+    public XfyunRtasrClient(XfyunConfig config) {
+        this.config = config;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(config.getTimeout()))
+                .build();
+    }
+
+    @Override
+    public Session open(Listener listener) {
+        long ts = System.currentTimeMillis() / 1000;
+        String signa = SignUtil.generateRtasrSigna(config.getAppId(), config.getRtasrApiKey(), ts);
+        URI uri = URI.create(config.getRtasrUrl()
+                + "?appid=" + config.getAppId()
+                + "&ts=" + ts
+                + "&signa=" + URLEncoder.encode(signa, StandardCharsets.UTF_8));
+
+        RtasrSession session = new RtasrSession(listener);
+        session.connect(httpClient.newWebSocketBuilder().buildAsync(uri, session));
+        return session;
+    }
+
+    /**
+     * 单个实时转写会话
+     * 发送操作串行地链接在上一次发送之后（WebSocket 同一时间只允许一个未完成的发送）
+     */
+    private static class RtasrSession implements Session, WebSocket.Listener {
+
+        private final Listener listener;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private final StringBuilder textBuffer = new StringBuilder();
+
+        private CompletableFuture<WebSocket> connecting;
+        private CompletableFuture<WebSocket> sendChain;
+
+        RtasrSession(Listener listener) {
+            this.listener = listener;
+        }
+
+        synchronized void connect(CompletableFuture<WebSocket> connecting) {
+            this.connecting = connecting;
+            this.sendChain = connecting;
+            connecting.exceptionally(error -> {
+                fail(new RuntimeException("实时语音转写连接失败: " + error.getMessage(), error));
+                return null;
+            });
+        }
+
+        @Override
+        public synchronized void sendAudio(byte[] pcm) {
+            for (int offset = 0; offset < pcm.length; offset += FRAME_SIZE) {
+                ByteBuffer frame = ByteBuffer.wrap(pcm, offset, Math.min(FRAME_SIZE, pcm.length - offset));
+                chain(webSocket -> webSocket.sendBinary(frame, true));
+            }
+        }
+
+        @Override
+        public synchronized void finish() {
+            chain(webSocket -> webSocket.sendText(END_MESSAGE, true));
+        }
+
+        @Override
+        public void close() {
+            done.set(true);
+            connecting.thenAccept(WebSocket::abort);
+        }
+
+        private void chain(Function<WebSocket, CompletableFuture<WebSocket>> send) {
+            if (done.get()) {
+                return;
+            }
+            sendChain = sendChain.thenCompose(send);
+            sendChain.exceptionally(error -> {
+                fail(new RuntimeException("实时语音转写发送失败: " + error.getMessage(), error));
+                return null;
+            });
+        }
+
+        @Override
+        public void onOpen(WebSocket webSocket) {
+            log.debug("实时语音转写连接已建立");
+            webSocket.request(1);
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            textBuffer.append(data);
+            if (last) {
+                String message = textBuffer.toString();
+                textBuffer.setLength(0);
+                handleMessage(webSocket, message);
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            log.debug("实时语音转写连接关闭: code={}, reason={}", statusCode, reason);
+            if (done.compareAndSet(false, true)) {
+                listener.onComplete();
+            }
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            fail(error);
+        }
+
+        private void handleMessage(WebSocket webSocket, String message) {
+            XfyunRtasrResponse response = JSON.parseObject(message, XfyunRtasrResponse.class);
+            switch (response.getAction()) {
+                case "started" -> log.debug("实时语音转写握手成功: sid={}", response.getSid());
+                case "result" -> {
+                    if (done.get()) {
+                        return;
+                    }
+                    XfyunRtasrResponse.Result result = JSON.parseObject(response.getData(), XfyunRtasrResponse.Result.class);
+                    XfyunRtasrResponse.St st = result.getCn().getSt();
+                    listener.onResult(extractText(st), "0".equals(st.getType()));
+                }
+                case "error" -> {
+                    fail(new RuntimeException("实时语音转写失败: " + response.getDesc()));
+                    webSocket.abort();
+                }
+                default -> log.debug("忽略实时语音转写消息: action={}", response.getAction());
+            }
+        }
+
+        private String extractText(XfyunRtasrResponse.St st) {
+            StringBuilder text = new StringBuilder();
+            if (st.getRt() == null) {
+                return "";
+            }
+            for (XfyunRtasrResponse.Rt rt : st.getRt()) {
+                if (rt.getWs() == null) {
+                    continue;
+                }
+                for (XfyunRtasrResponse.Ws ws : rt.getWs()) {
+                    if (ws.getCw() != null && !ws.getCw().isEmpty()) {
+                        text.append(ws.getCw().get(0).getW());
+                    }
+                }
+            }
+            return text.toString();
+        }
+
+        private void fail(Throwable error) {
+            if (done.compareAndSet(false, true)) {
+                log.warn("实时语音转写异常结束: {}", error.getMessage());
+                listener.onError(error);
+            }
+        }
+    }
+}
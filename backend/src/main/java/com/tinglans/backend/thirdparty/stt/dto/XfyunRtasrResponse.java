@@ -0,0 +1,77 @@
+package com.tinglans.backend.thirdparty.stt.dto;
+
+import com.alibaba.fastjson.annotation.JSONField;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 科大讯飞实时语音转写响应DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class XfyunRtasrResponse {
+
+    private String action;  // started: 握手成功 result: 识别结果 error: 出错
+    private String code;
+    private String data;    // action 为 result 时是 Result 的 JSON 字符串
+    private String desc;
+    private String sid;
+
+    /**
+     * 识别结果
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private Cn cn;
+
+        @JSONField(name = "seg_id")
+        private Integer segId;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Cn {
+        private St st;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class St {
+        private String bg;    // 句子开始时间(ms)
+        private String ed;    // 句子结束时间(ms)
+        private String type;  // 0: 最终结果 1: 中间结果
+        private List<Rt> rt;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Rt {
+        private List<Ws> ws;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Ws {
+        private List<Cw> cw;
+        private Integer wb;  // 词语开始帧数
+        private Integer we;  // 词语结束帧数
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Cw {
+        private String w;   // 识别结果
+        private String wp;  // 词语属性: n-正常词 s-顺滑 p-标点 g-分段
+    }
+}
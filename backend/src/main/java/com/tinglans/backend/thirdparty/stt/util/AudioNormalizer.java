@@ -0,0 +1,96 @@
+package com.tinglans.backend.thirdparty.stt.util;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+
+/**
+ * 音频归一化
+ * 上传前将 WAV 音频流式转换为 16kHz 16bit 单声道 PCM（讯飞转写推荐格式）：浏览器录制的 44.1/48kHz 立体声
+ * 上传字节数约降为 1/6。已是目标格式、无法解析或非 WAV 的音频原样返回
+ */
+public final class AudioNormalizer {
+
+    /**
+     * 目标采样率：16kHz
+     */
+    public static final int TARGET_SAMPLE_RATE = 16000;
+
+    /**
+     * WAV 文件头最大长度（含 LIST 等附加块）
+     */
+    private static final int MAX_HEADER_SIZE = 64 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private AudioNormalizer() {
+    }
+
+    /**
+     * 归一化音频流
+     *
+     * @param audio    音频数据流（调用方负责关闭）
+     * @param fileName 文件名（用于判断音频格式）
+     * @param size     音频字节数
+     * @return 归一化后的音频（converted 为 false 时 stream 为原始数据）
+     */
+    public static NormalizedAudio normalize(InputStream audio, String fileName, long size) throws IOException {
+        if (!fileName.toLowerCase().endsWith(".wav")) {
+            return passthrough(audio, fileName, size, TARGET_SAMPLE_RATE);
+        }
+
+        BufferedInputStream in = new BufferedInputStream(audio, BUFFER_SIZE);
+        in.mark(MAX_HEADER_SIZE);
+        WavHeader header;
+        try {
+            header = WavHeader.read(in, MAX_HEADER_SIZE);
+        } catch (IOException e) {
+            // 文件头无法解析，交由讯飞按原格式处理
+            in.reset();
+            return passthrough(in, fileName, size, TARGET_SAMPLE_RATE);
+        }
+
+        // 边录边写的文件 data 块长度可能未回填，以实际剩余字节数为准
+        long available = size - header.getHeaderLength();
+        long dataLength = header.getDataLength() == 0 || header.getDataLength() > available
+                ? available
+                : header.getDataLength();
+
+        boolean alreadyNormalized = header.isMonoPcm16(TARGET_SAMPLE_RATE)
+                && header.getHeaderLength() == WavHeader.CANONICAL_SIZE && dataLength == available;
+        if (alreadyNormalized || !header.isDecodable()) {
+            in.reset();
+            return new NormalizedAudio(in, fileName, size, header.getSampleRate(), false, alreadyNormalized, null);
+        }
+
+        PcmResampleInputStream pcm = new PcmResampleInputStream(in, header, dataLength, TARGET_SAMPLE_RATE);
+        byte[] canonicalHeader = WavHeader.canonical(1, TARGET_SAMPLE_RATE, 16, pcm.getOutputLength());
+        InputStream stream = new SequenceInputStream(new ByteArrayInputStream(canonicalHeader), pcm);
+        return new NormalizedAudio(stream, fileName, canonicalHeader.length + pcm.getOutputLength(),
+                TARGET_SAMPLE_RATE, true, true, header);
+    }
+
+    /**
+     * 不做转换，原样返回
+     */
+    public static NormalizedAudio passthrough(InputStream audio, String fileName, long size, int sampleRate) {
+        return new NormalizedAudio(audio, fileName, size, sampleRate, false, false, null);
+    }
+
+    /**
+     * 归一化结果
+     *
+     * @param stream       音频数据流（读取 size 字节）
+     * @param fileName     文件名
+     * @param size         音频字节数
+     * @param sampleRate   采样率（用于告知讯飞音频格式）
+     * @param converted    是否经过转换
+     * @param canonicalPcm 是否为 44 字节标准文件头 + 16kHz 16bit 单声道 PCM（可继续做静音裁剪）
+     * @param source       转换前的 WAV 文件头（未转换时为 null）
+     */
+    public record NormalizedAudio(InputStream stream, String fileName, long size, int sampleRate,
+                                  boolean converted, boolean canonicalPcm, WavHeader source) {
+    }
+}
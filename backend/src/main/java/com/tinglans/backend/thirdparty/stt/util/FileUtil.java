@@ -1,86 +1,98 @@
 package com.tinglans.backend.thirdparty.stt.util;
 
-import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.FileUtils;
-
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 /**
  * 文件处理工具类
  */
-@Slf4j
 public class FileUtil {
 
     /**
-     * 小文件上传阈值：30MB
+     * 16kHz 16bit 单声道 PCM 每秒字节数
      */
-    private static final long SMALL_FILE_THRESHOLD = 30 * 1024 * 1024;
+    private static final long PCM_BYTES_PER_SECOND = 16000 * 2;
 
     /**
-     * 分块大小：10MB
+     * 128kbps MP3 每秒字节数
      */
-    private static final int CHUNK_SIZE = 10 * 1024 * 1024;
+    private static final long MP3_BYTES_PER_SECOND = 128 * 1000 / 8;
 
     /**
-     * 判断是否为小文件
+     * 按分块大小计算文件分块（只计算偏移量，不读取数据）
+     *
+     * @param fileSize  文件大小
+     * @param chunkSize 分块大小
+     * @return 分块列表
      */
-    public static boolean isSmallFile(File file) {
-        return file.length() <= SMALL_FILE_THRESHOLD;
+    public static List<FileSlice> sliceFile(long fileSize, int chunkSize) {
+        List<FileSlice> slices = new ArrayList<>();
+        for (long offset = 0, index = 0; offset < fileSize; offset += chunkSize, index++) {
+            slices.add(new FileSlice((int) index, offset, Math.min(chunkSize, fileSize - offset)));
+        }
+        return slices;
     }
 
     /**
-     * 读取文件内容
+     * 文件分块（偏移量与长度）
      */
-    public static byte[] readFileBytes(File file) throws IOException {
-        return FileUtils.readFileToByteArray(file);
+    public record FileSlice(int index, long offset, long length) {
     }
 
     /**
-     * 将文件分块
-     *
-     * @param file 文件
-     * @return 分块列表
+     * 文件分块输入流
+     * 通过 FileChannel 定位读取（不移动通道位置，多个分块可并发读取同一通道），不复制整个文件
      */
-    public static List<FileChunk> splitFile(File file) throws IOException {
-        List<FileChunk> chunks = new ArrayList<>();
-        byte[] fileBytes = readFileBytes(file);
-        int totalChunks = (int) Math.ceil((double) fileBytes.length / CHUNK_SIZE);
+    public static class FileSliceInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        public FileSliceInputStream(FileChannel channel, FileSlice slice) {
+            this.channel = channel;
+            this.position = slice.offset();
+            this.end = slice.offset() + slice.length();
+        }
 
-        for (int i = 0; i < totalChunks; i++) {
-            int start = i * CHUNK_SIZE;
-            int end = Math.min(start + CHUNK_SIZE, fileBytes.length);
-            byte[] chunkData = Arrays.copyOfRange(fileBytes, start, end);
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
 
-            chunks.add(new FileChunk(i, chunkData));
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int toRead = (int) Math.min(length, end - position);
+            int read = channel.read(ByteBuffer.wrap(buffer, offset, toRead), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
         }
 
-        log.info("文件分块完成，总块数: {}, 文件大小: {} bytes", totalChunks, fileBytes.length);
-        return chunks;
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
     }
 
     /**
-     * 文件分块数据类
+     * 上传使用的文件名（只保留原始扩展名，用于推断音频编码）
+     *
+     * @param originalFilename 客户端上传的原始文件名（可为 null）
      */
-    public static class FileChunk {
-        private final int index;
-        private final byte[] data;
-
-        public FileChunk(int index, byte[] data) {
-            this.index = index;
-            this.data = data;
-        }
-
-        public int getIndex() {
-            return index;
-        }
-
-        public byte[] getData() {
-            return data;
-        }
+    public static String uploadFileName(String originalFilename) {
+        String extension = originalFilename != null && originalFilename.contains(".")
+                ? originalFilename.substring(originalFilename.lastIndexOf("."))
+                : ".tmp";
+        return "audio" + extension;
     }
 
     /**
@@ -97,10 +109,20 @@ public class FileUtil {
     }
 
     /**
-     * 获取音频格式描述
+     * 按文件大小估算音频时长（毫秒）
+     * wav/pcm 按 16kHz 16bit 单声道计算，mp3 按 128kbps 计算，结果只用于调整轮询节奏
+     */
+    public static long estimateDurationMillis(String fileName, long size) {
+        long bytesPerSecond = "lame".equals(getEncoding(fileName)) ? MP3_BYTES_PER_SECOND : PCM_BYTES_PER_SECOND;
+        return size * 1000 / bytesPerSecond;
+    }
+
+    /**
+     * 获取音频格式描述（讯飞支持 16k 与 8k 采样率）
+     *
+     * @param sampleRate 音频采样率
      */
-    public static String getFormat(String fileName) {
-        // 默认返回16k采样率格式
-        return "audio/L16;rate=16000";
+    public static String getFormat(int sampleRate) {
+        return "audio/L16;rate=" + sampleRate;
     }
 }
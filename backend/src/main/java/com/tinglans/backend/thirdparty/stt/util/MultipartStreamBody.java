@@ -0,0 +1,97 @@
+package com.tinglans.backend.thirdparty.stt.util;
+
+import org.springframework.http.MediaType;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 流式 multipart/form-data 请求体
+ * 预先计算整个请求体的长度，使请求以固定长度流式发送；文件部分经有界缓冲区从输入流直接写出，
+ * 内存占用与文件大小无关。输入流只读取 dataLength 字节且不会被关闭，可在同一流上依次构造多个分块
+ */
+public class MultipartStreamBody {
+
+    /**
+     * 复制缓冲区大小：64KB
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String CRLF = "\r\n";
+
+    private final String boundary;
+    private final byte[] head;
+    private final byte[] tail;
+    private final InputStream data;
+    private final long dataLength;
+
+    /**
+     * @param fields     文本字段（按迭代顺序写出）
+     * @param fileField  文件字段名
+     * @param fileName   文件名
+     * @param data       文件数据
+     * @param dataLength 从 data 中读取的字节数
+     */
+    public MultipartStreamBody(Map<String, String> fields, String fileField, String fileName,
+                               InputStream data, long dataLength) {
+        this.boundary = UUID.randomUUID().toString().replace("-", "");
+        this.data = data;
+        this.dataLength = dataLength;
+
+        StringBuilder headBuilder = new StringBuilder();
+        fields.forEach((name, value) -> headBuilder
+                .append("--").append(boundary).append(CRLF)
+                .append("Content-Disposition: form-data; name=\"").append(name).append('"').append(CRLF)
+                .append("Content-Type: text/plain;charset=UTF-8").append(CRLF)
+                .append(CRLF)
+                .append(value).append(CRLF));
+        headBuilder.append("--").append(boundary).append(CRLF)
+                .append("Content-Disposition: form-data; name=\"").append(fileField)
+                .append("\"; filename=\"").append(fileName).append('"').append(CRLF)
+                .append("Content-Type: application/octet-stream").append(CRLF)
+                .append(CRLF);
+
+        this.head = headBuilder.toString().getBytes(StandardCharsets.UTF_8);
+        this.tail = (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 请求的 Content-Type（包含 boundary）
+     */
+    public MediaType getContentType() {
+        return new MediaType(MediaType.MULTIPART_FORM_DATA, Map.of("boundary", boundary));
+    }
+
+    /**
+     * 请求体总长度
+     */
+    public long getContentLength() {
+        return head.length + dataLength + tail.length;
+    }
+
+    /**
+     * 写出请求体
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(head);
+
+        byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, Math.max(dataLength, 1))];
+        long remaining = dataLength;
+        while (remaining > 0) {
+            int read = data.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                throw new EOFException("音频数据不足，还差 " + remaining + " 字节");
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+
+        out.write(tail);
+        out.flush();
+    }
+}
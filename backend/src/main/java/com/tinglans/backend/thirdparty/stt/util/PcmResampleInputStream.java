@@ -0,0 +1,197 @@
+package com.tinglans.backend.thirdparty.stt.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 流式重采样输入流
+ * 从 WAV 音频数据中逐帧解码，多声道取平均混为单声道，并重采样为目标采样率的 16bit 小端 PCM。
+ * 降采样时每个输出采样取对应区间内输入采样的平均值（兼作低通滤波），升采样时线性插值；
+ * 只保留当前帧与下一帧，内存占用与音频长度无关。输出长度可预先计算，便于以固定长度上传
+ */
+public class PcmResampleInputStream extends InputStream {
+
+    /**
+     * 每次解码的输出采样数
+     */
+    private static final int OUTPUT_BATCH = 4096;
+
+    private final InputStream data;
+    private final int channels;
+    private final int bytesPerSample;
+    private final int format;
+    private final int sourceRate;
+    private final int targetRate;
+    private final long sourceFrames;
+    private final long targetFrames;
+
+    private final byte[] frameBuffer;
+    private final byte[] output = new byte[OUTPUT_BATCH * 2];
+    private int outputPosition;
+    private int outputLimit;
+
+    /**
+     * 下一个待生成的输出采样序号
+     */
+    private long targetIndex;
+
+    /**
+     * 已读取的输入帧数
+     */
+    private long sourceIndex;
+
+    /**
+     * 升采样插值用的相邻两帧（sourceIndex - 2、sourceIndex - 1）
+     */
+    private double previous;
+    private double current;
+
+    /**
+     * @param data       音频数据（读取 dataLength 字节，不会被关闭）
+     * @param header     WAV 文件头（需可解码）
+     * @param dataLength 音频数据字节数
+     * @param targetRate 目标采样率
+     */
+    public PcmResampleInputStream(InputStream data, WavHeader header, long dataLength, int targetRate) {
+        if (!header.isDecodable()) {
+            throw new IllegalArgumentException("不支持的 WAV 采样格式: format=" + header.getFormat()
+                    + ", bits=" + header.getBitsPerSample());
+        }
+        this.data = data;
+        this.channels = header.getChannels();
+        this.bytesPerSample = header.getBitsPerSample() / 8;
+        this.format = header.getFormat();
+        this.sourceRate = header.getSampleRate();
+        this.targetRate = targetRate;
+        this.sourceFrames = dataLength / header.getFrameSize();
+        this.targetFrames = outputFrames(sourceFrames, sourceRate, targetRate);
+        this.frameBuffer = new byte[header.getFrameSize()];
+    }
+
+    /**
+     * 重采样后的采样数
+     */
+    public static long outputFrames(long sourceFrames, int sourceRate, int targetRate) {
+        return sourceFrames * targetRate / sourceRate;
+    }
+
+    /**
+     * 输出的总字节数
+     */
+    public long getOutputLength() {
+        return targetFrames * 2;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (outputPosition >= outputLimit && !fillOutput()) {
+            return -1;
+        }
+        int count = Math.min(length, outputLimit - outputPosition);
+        System.arraycopy(output, outputPosition, buffer, offset, count);
+        outputPosition += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return outputLimit - outputPosition;
+    }
+
+    /**
+     * 生成下一批输出采样
+     */
+    private boolean fillOutput() throws IOException {
+        if (targetIndex >= targetFrames) {
+            return false;
+        }
+        int count = (int) Math.min(OUTPUT_BATCH, targetFrames - targetIndex);
+        for (int i = 0; i < count; i++, targetIndex++) {
+            double sample = sourceRate >= targetRate ? nextAveraged() : nextInterpolated();
+            int value = (int) Math.round(Math.max(-1.0, Math.min(1.0, sample)) * Short.MAX_VALUE);
+            output[i * 2] = (byte) value;
+            output[i * 2 + 1] = (byte) (value >> 8);
+        }
+        outputPosition = 0;
+        outputLimit = count * 2;
+        return true;
+    }
+
+    /**
+     * 降采样：输出采样 k 对应输入区间 [k * sourceRate / targetRate, (k + 1) * sourceRate / targetRate)
+     */
+    private double nextAveraged() throws IOException {
+        long end = Math.min(sourceFrames, (targetIndex + 1) * sourceRate / targetRate);
+        double sum = 0;
+        int count = 0;
+        while (sourceIndex < end) {
+            sum += readFrame();
+            count++;
+        }
+        return count == 0 ? current : sum / count;
+    }
+
+    /**
+     * 升采样：在输出采样位置两侧的输入帧之间线性插值（最后一帧之后保持不变）
+     */
+    private double nextInterpolated() throws IOException {
+        long numerator = targetIndex * sourceRate;
+        long left = numerator / targetRate;
+        // 保证已读取 left 与 left + 1 两帧（previous 为 left，current 为 left + 1）
+        while (sourceIndex < Math.min(left + 2, sourceFrames)) {
+            previous = current;
+            current = readFrame();
+            if (sourceIndex == 1) {
+                previous = current;
+            }
+        }
+        if (left + 1 >= sourceFrames) {
+            return current;
+        }
+        double fraction = (double) (numerator % targetRate) / targetRate;
+        return previous + (current - previous) * fraction;
+    }
+
+    /**
+     * 读取一帧并混为单声道，取值范围 [-1, 1)
+     */
+    private double readFrame() throws IOException {
+        int read = data.readNBytes(frameBuffer, 0, frameBuffer.length);
+        if (read < frameBuffer.length) {
+            throw new EOFException("音频数据不足，还差 " + (sourceFrames - sourceIndex) + " 帧");
+        }
+        sourceIndex++;
+
+        double sum = 0;
+        for (int channel = 0; channel < channels; channel++) {
+            sum += decodeSample(channel * bytesPerSample);
+        }
+        current = sum / channels;
+        return current;
+    }
+
+    private double decodeSample(int offset) {
+        byte[] b = frameBuffer;
+        if (format == WavHeader.FORMAT_IEEE_FLOAT) {
+            return Float.intBitsToFloat((b[offset] & 0xFF) | (b[offset + 1] & 0xFF) << 8
+                    | (b[offset + 2] & 0xFF) << 16 | b[offset + 3] << 24);
+        }
+        return switch (bytesPerSample) {
+            case 1 -> ((b[offset] & 0xFF) - 128) / 128.0;
+            case 2 -> (short) ((b[offset] & 0xFF) | b[offset + 1] << 8) / 32768.0;
+            case 3 -> ((b[offset] & 0xFF) | (b[offset + 1] & 0xFF) << 8 | b[offset + 2] << 16) / 8388608.0;
+            default -> ((b[offset] & 0xFF) | (b[offset + 1] & 0xFF) << 8
+                    | (b[offset + 2] & 0xFF) << 16 | b[offset + 3] << 24) / 2147483648.0;
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package com.tinglans.backend.thirdparty.stt.util;
+
+/**
+ * 转写任务轮询间隔
+ * 首次查询使用初始延迟，之后间隔逐次翻倍；间隔上限为音频时长的 1/10，
+ * 并限制在 [初始延迟, 最大间隔] 之间，短音频很快拿到结果，长音频不会频繁查询
+ */
+public class PollBackoff {
+
+    private final long maxDelay;
+    private long nextDelay;
+
+    /**
+     * @param initialDelay        首次查询延迟（毫秒）
+     * @param maxInterval         最大间隔（毫秒）
+     * @param audioDurationMillis 音频时长（毫秒）
+     */
+    public PollBackoff(long initialDelay, long maxInterval, long audioDurationMillis) {
+        this.nextDelay = initialDelay;
+        this.maxDelay = Math.max(initialDelay, Math.min(maxInterval, audioDurationMillis / 10));
+    }
+
+    /**
+     * 下一次查询前的等待时间（毫秒）
+     */
+    public long nextDelay() {
+        long delay = nextDelay;
+        nextDelay = Math.min(delay * 2, maxDelay);
+        return delay;
+    }
+
+    /**
+     * 间隔上限（毫秒）
+     */
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+}
@@ -112,4 +112,25 @@ public class SignUtil {
             throw new RuntimeException("生成签名失败", e);
         }
     }
+
+    /**
+     * 生成实时语音转写签名 signa
+     * signa = Base64(HmacSHA1(MD5(appId + ts), apiKey))
+     *
+     * @param appId  应用ID
+     * @param apiKey 实时语音转写API密钥
+     * @param ts     当前时间戳（秒）
+     * @return 签名
+     */
+    public static String generateRtasrSigna(String appId, String apiKey, long ts) {
+        String baseString = DigestUtils.md5Hex(appId + ts);
+        try {
+            Mac mac = Mac.getInstance("HmacSHA1");
+            mac.init(new SecretKeySpec(apiKey.getBytes(StandardCharsets.UTF_8), "HmacSHA1"));
+            return Base64.encodeBase64String(mac.doFinal(baseString.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            log.error("生成实时语音转写签名失败", e);
+            throw new RuntimeException("生成实时语音转写签名失败", e);
+        }
+    }
 }
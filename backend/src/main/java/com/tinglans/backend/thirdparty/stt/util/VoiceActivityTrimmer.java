@@ -0,0 +1,217 @@
+package com.tinglans.backend.thirdparty.stt.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 语音活动检测（VAD）静音裁剪
+ * 以 20ms 为一帧计算短时能量与过零率：能量高于阈值的帧为语音；能量略低但过零率高的帧（清辅音）也视为语音。
+ * 去掉首尾静音（各保留 padding），将超过 maxPause 的句间停顿压缩为 maxPause（保留停顿的首尾各一半）。
+ * 逐帧流式处理，只缓存当前静音段首尾各若干帧，内存占用与音频长度无关。
+ * 输入输出均为 16kHz 16bit 单声道小端 PCM（不含 WAV 文件头）
+ */
+public class VoiceActivityTrimmer {
+
+    /**
+     * 帧长（毫秒）
+     */
+    public static final int FRAME_MILLIS = 20;
+
+    private static final int BYTES_PER_MILLI = AudioNormalizer.TARGET_SAMPLE_RATE * 2 / 1000;
+    private static final int FRAME_BYTES = FRAME_MILLIS * BYTES_PER_MILLI;
+
+    /**
+     * 按过零率判定时，能量允许低于阈值的幅度（dB）
+     */
+    private static final double ZCR_ENERGY_MARGIN_DB = 10;
+
+    private final double energyThresholdDb;
+    private final double zcrThreshold;
+    private final int paddingFrames;
+    private final int maxPauseFrames;
+
+    /**
+     * @param energyThresholdDb 语音能量阈值（dBFS，如 -40）
+     * @param zcrThreshold      清辅音过零率阈值（0~1，如 0.3）
+     * @param paddingMillis     首尾保留的静音时长（毫秒）
+     * @param maxPauseMillis    句间停顿最大保留时长（毫秒）
+     */
+    public VoiceActivityTrimmer(double energyThresholdDb, double zcrThreshold, long paddingMillis, long maxPauseMillis) {
+        this.energyThresholdDb = energyThresholdDb;
+        this.zcrThreshold = zcrThreshold;
+        this.paddingFrames = (int) (paddingMillis / FRAME_MILLIS);
+        this.maxPauseFrames = (int) Math.max(maxPauseMillis / FRAME_MILLIS, paddingFrames);
+    }
+
+    /**
+     * 裁剪静音
+     *
+     * @param pcm        PCM 数据（读取 dataLength 字节，不会被关闭）
+     * @param dataLength PCM 字节数
+     * @param out        保留的 PCM 数据写入此处
+     * @return 裁剪报告
+     */
+    public TrimResult trim(InputStream pcm, long dataLength, OutputStream out) throws IOException {
+        Pause pause = new Pause(maxPauseFrames);
+        boolean speechSeen = false;
+        long outputBytes = 0;
+        int segments = 0;
+
+        long remaining = dataLength - (dataLength & 1);
+        while (remaining > 0) {
+            byte[] frame = pcm.readNBytes((int) Math.min(FRAME_BYTES, remaining));
+            if (frame.length == 0) {
+                break;
+            }
+            remaining -= frame.length;
+
+            if (!isSpeech(frame)) {
+                pause.add(frame);
+                continue;
+            }
+
+            // 语音帧：先写出当前静音段中保留的部分
+            List<byte[]> kept;
+            if (!speechSeen) {
+                kept = pause.last(paddingFrames);
+            } else if (pause.length <= maxPauseFrames) {
+                kept = pause.all();
+            } else {
+                kept = new ArrayList<>(pause.first(maxPauseFrames / 2));
+                kept.addAll(pause.last(maxPauseFrames - maxPauseFrames / 2));
+            }
+            if (!speechSeen || pause.length > 0) {
+                segments++;
+            }
+            for (byte[] silence : kept) {
+                out.write(silence);
+                outputBytes += silence.length;
+            }
+            pause.clear();
+
+            out.write(frame);
+            outputBytes += frame.length;
+            speechSeen = true;
+        }
+
+        // 尾部静音只保留 padding
+        if (speechSeen) {
+            for (byte[] silence : pause.first(paddingFrames)) {
+                out.write(silence);
+                outputBytes += silence.length;
+            }
+        }
+        out.flush();
+
+        return new TrimResult(dataLength - remaining, outputBytes, segments);
+    }
+
+    /**
+     * 判定一帧是否为语音
+     */
+    boolean isSpeech(byte[] frame) {
+        int samples = frame.length / 2;
+        if (samples == 0) {
+            return false;
+        }
+
+        double sumSquares = 0;
+        int crossings = 0;
+        int previous = 0;
+        for (int i = 0; i < samples; i++) {
+            int sample = (short) ((frame[i * 2] & 0xFF) | frame[i * 2 + 1] << 8);
+            sumSquares += (double) sample * sample;
+            if (i > 0 && (previous < 0) != (sample < 0)) {
+                crossings++;
+            }
+            previous = sample;
+        }
+
+        double meanSquare = sumSquares / samples;
+        double energyDb = meanSquare == 0 ? Double.NEGATIVE_INFINITY
+                : 10 * Math.log10(meanSquare / ((double) Short.MAX_VALUE * Short.MAX_VALUE));
+        if (energyDb >= energyThresholdDb) {
+            return true;
+        }
+        double zcr = samples > 1 ? (double) crossings / (samples - 1) : 0;
+        return energyDb >= energyThresholdDb - ZCR_ENERGY_MARGIN_DB && zcr >= zcrThreshold;
+    }
+
+    /**
+     * 当前静音段：只保存开头与末尾各 capacity 帧
+     */
+    private static final class Pause {
+        private final int capacity;
+        private final List<byte[]> head = new ArrayList<>();
+        private final Deque<byte[]> tail = new ArrayDeque<>();
+        private long length;
+
+        Pause(int capacity) {
+            this.capacity = capacity;
+        }
+
+        void add(byte[] frame) {
+            if (head.size() < capacity) {
+                head.add(frame);
+            }
+            tail.addLast(frame);
+            if (tail.size() > capacity) {
+                tail.removeFirst();
+            }
+            length++;
+        }
+
+        /**
+         * 整段静音（长度不超过 capacity 时 head 即为整段）
+         */
+        List<byte[]> all() {
+            return head;
+        }
+
+        List<byte[]> first(int count) {
+            return head.subList(0, Math.min(count, head.size()));
+        }
+
+        List<byte[]> last(int count) {
+            List<byte[]> frames = new ArrayList<>(tail);
+            return frames.subList(Math.max(0, frames.size() - count), frames.size());
+        }
+
+        void clear() {
+            head.clear();
+            tail.clear();
+            length = 0;
+        }
+    }
+
+    /**
+     * 裁剪报告
+     *
+     * @param inputBytes     输入的 PCM 字节数
+     * @param outputBytes    保留的 PCM 字节数
+     * @param speechSegments 语音段数
+     */
+    public record TrimResult(long inputBytes, long outputBytes, int speechSegments) {
+
+        public boolean hasSpeech() {
+            return speechSegments > 0;
+        }
+
+        public long originalMillis() {
+            return inputBytes / BYTES_PER_MILLI;
+        }
+
+        public long keptMillis() {
+            return outputBytes / BYTES_PER_MILLI;
+        }
+
+        public long trimmedMillis() {
+            return originalMillis() - keptMillis();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.tinglans.backend.thirdparty.stt.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * WAV 文件头
+ * 依次读取 RIFF 块直到 data 块，读取完成后输入流正好位于音频数据起始处；
+ * 支持 PCM（8/16/24/32bit 整数）、32bit 浮点以及 WAVE_FORMAT_EXTENSIBLE 封装的这两种格式
+ */
+public class WavHeader {
+
+    /**
+     * 标准 PCM 文件头长度（RIFF + fmt + data）
+     */
+    public static final int CANONICAL_SIZE = 44;
+
+    static final int FORMAT_PCM = 1;
+    static final int FORMAT_IEEE_FLOAT = 3;
+    private static final int FORMAT_EXTENSIBLE = 0xFFFE;
+
+    private final int format;
+    private final int channels;
+    private final int sampleRate;
+    private final int bitsPerSample;
+    private final long dataLength;
+    private final long headerLength;
+
+    WavHeader(int format, int channels, int sampleRate, int bitsPerSample, long dataLength, long headerLength) {
+        this.format = format;
+        this.channels = channels;
+        this.sampleRate = sampleRate;
+        this.bitsPerSample = bitsPerSample;
+        this.dataLength = dataLength;
+        this.headerLength = headerLength;
+    }
+
+    /**
+     * 读取 WAV 文件头
+     *
+     * @param in        输入流（读取后位于音频数据起始处）
+     * @param maxLength 文件头最大长度，超出时视为无效文件
+     * @throws IOException 不是 WAV 文件、文件头不完整或超出最大长度
+     */
+    public static WavHeader read(InputStream in, int maxLength) throws IOException {
+        byte[] riff = readBytes(in, 12);
+        if (!"RIFF".equals(fourCc(riff, 0)) || !"WAVE".equals(fourCc(riff, 8))) {
+            throw new IOException("不是 WAV 文件");
+        }
+
+        long consumed = riff.length;
+        Integer format = null;
+        int channels = 0;
+        int sampleRate = 0;
+        int bitsPerSample = 0;
+
+        while (true) {
+            byte[] chunkHeader = readBytes(in, 8);
+            consumed += chunkHeader.length;
+            String chunkId = fourCc(chunkHeader, 0);
+            long chunkSize = ByteBuffer.wrap(chunkHeader, 4, 4).order(ByteOrder.LITTLE_ENDIAN).getInt() & 0xFFFFFFFFL;
+
+            if ("data".equals(chunkId)) {
+                if (format == null) {
+                    throw new IOException("WAV 文件缺少 fmt 块");
+                }
+                return new WavHeader(format, channels, sampleRate, bitsPerSample, chunkSize, consumed);
+            }
+
+            // 块长度为奇数时有 1 字节填充
+            long paddedSize = chunkSize + (chunkSize & 1);
+            if (consumed + paddedSize > maxLength) {
+                throw new IOException("WAV 文件头过长");
+            }
+
+            if ("fmt ".equals(chunkId)) {
+                if (chunkSize < 16) {
+                    throw new IOException("WAV fmt 块不完整");
+                }
+                ByteBuffer fmt = ByteBuffer.wrap(readBytes(in, (int) paddedSize)).order(ByteOrder.LITTLE_ENDIAN);
+                format = fmt.getShort(0) & 0xFFFF;
+                channels = fmt.getShort(2) & 0xFFFF;
+                sampleRate = fmt.getInt(4);
+                bitsPerSample = fmt.getShort(14) & 0xFFFF;
+                // WAVE_FORMAT_EXTENSIBLE：实际格式为子格式 GUID 的前两个字节
+                if (format == FORMAT_EXTENSIBLE && chunkSize >= 26) {
+                    format = fmt.getShort(24) & 0xFFFF;
+                }
+            } else {
+                readBytes(in, (int) paddedSize);
+            }
+            consumed += paddedSize;
+        }
+    }
+
+    /**
+     * 生成标准 PCM 文件头
+     */
+    public static byte[] canonical(int channels, int sampleRate, int bitsPerSample, long dataLength) {
+        int blockAlign = channels * bitsPerSample / 8;
+        ByteBuffer header = ByteBuffer.allocate(CANONICAL_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.put("RIFF".getBytes(StandardCharsets.US_ASCII));
+        header.putInt((int) (36 + dataLength));
+        header.put("WAVEfmt ".getBytes(StandardCharsets.US_ASCII));
+        header.putInt(16);
+        header.putShort((short) FORMAT_PCM);
+        header.putShort((short) channels);
+        header.putInt(sampleRate);
+        header.putInt(sampleRate * blockAlign);
+        header.putShort((short) blockAlign);
+        header.putShort((short) bitsPerSample);
+        header.put("data".getBytes(StandardCharsets.US_ASCII));
+        header.putInt((int) dataLength);
+        return header.array();
+    }
+
+    /**
+     * 是否为可解码的采样格式
+     */
+    public boolean isDecodable() {
+        if (channels <= 0 || sampleRate <= 0) {
+            return false;
+        }
+        if (format == FORMAT_PCM) {
+            return bitsPerSample == 8 || bitsPerSample == 16 || bitsPerSample == 24 || bitsPerSample == 32;
+        }
+        return format == FORMAT_IEEE_FLOAT && bitsPerSample == 32;
+    }
+
+    /**
+     * 是否已是指定采样率的 16bit 单声道 PCM
+     */
+    public boolean isMonoPcm16(int targetSampleRate) {
+        return format == FORMAT_PCM && channels == 1 && bitsPerSample == 16 && sampleRate == targetSampleRate;
+    }
+
+    /**
+     * 每帧字节数（所有声道的一个采样）
+     */
+    public int getFrameSize() {
+        return channels * (bitsPerSample / 8);
+    }
+
+    public int getFormat() {
+        return format;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getBitsPerSample() {
+        return bitsPerSample;
+    }
+
+    /**
+     * data 块声明的长度（边录边写的文件可能为 0 或 0xFFFFFFFF，使用时应结合文件大小）
+     */
+    public long getDataLength() {
+        return dataLength;
+    }
+
+    /**
+     * 文件头长度（音频数据的起始偏移）
+     */
+    public long getHeaderLength() {
+        return headerLength;
+    }
+
+    private static byte[] readBytes(InputStream in, int length) throws IOException {
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length < length) {
+            throw new EOFException("WAV 文件头不完整");
+        }
+        return bytes;
+    }
+
+    private static String fourCc(byte[] bytes, int offset) {
+        return new String(bytes, offset, 4, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,221 @@
+package com.tinglans.backend.thirdparty.stt.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 讯飞转写查询结果的流式解析
+ * 直接在 JSON token 流上读取 code、message、task_status，并把 lattice 中每个 ws 的首个候选词 cw.w 追加到同一个
+ * StringBuilder，不构建 lattice → json_1best → st → rt → ws → cw 对象树；其余字段（lattice2、词语置信度等）跳过不解析
+ */
+public final class XfyunResultExtractor {
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+            .build();
+
+    private XfyunResultExtractor() {
+    }
+
+    /**
+     * 解析查询响应
+     *
+     * @param body 响应体（不会被关闭）
+     */
+    public static QueryResult extract(InputStream body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            return extract(parser);
+        }
+    }
+
+    /**
+     * 解析查询响应
+     */
+    public static QueryResult extract(String body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            return extract(parser);
+        }
+    }
+
+    private static QueryResult extract(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("转写查询响应不是 JSON 对象");
+        }
+
+        int code = -1;
+        String message = null;
+        String taskStatus = null;
+        StringBuilder text = new StringBuilder();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "code" -> code = parser.getValueAsInt(-1);
+                case "message" -> message = value == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+                case "data" -> {
+                    if (value == JsonToken.START_OBJECT) {
+                        taskStatus = readData(parser, text);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return new QueryResult(code, message, taskStatus, text.toString());
+    }
+
+    /**
+     * data：读取 task_status，解析 result
+     */
+    private static String readData(JsonParser parser, StringBuilder text) throws IOException {
+        String taskStatus = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("task_status".equals(field)) {
+                taskStatus = value == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+            } else if ("result".equals(field) && value == JsonToken.START_OBJECT) {
+                forEachField(parser, "lattice", () -> forEachArrayObject(parser, () -> readLattice(parser, text)));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return taskStatus;
+    }
+
+    /**
+     * lattice 元素：json_1best 一般为对象，兼容以字符串形式嵌套的 JSON
+     */
+    private static void readLattice(JsonParser parser, StringBuilder text) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (!"json_1best".equals(field)) {
+                parser.skipChildren();
+            } else if (value == JsonToken.START_OBJECT) {
+                readJson1Best(parser, text);
+            } else if (value == JsonToken.VALUE_STRING) {
+                try (JsonParser nested = JSON_FACTORY.createParser(parser.getText())) {
+                    if (nested.nextToken() == JsonToken.START_OBJECT) {
+                        readJson1Best(nested, text);
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * json_1best.st.rt[].ws[]
+     */
+    private static void readJson1Best(JsonParser parser, StringBuilder text) throws IOException {
+        forEachField(parser, "st", () ->
+                forEachField(parser, "rt", () ->
+                        forEachArrayObject(parser, () ->
+                                forEachField(parser, "ws", () ->
+                                        forEachArrayObject(parser, () -> readWs(parser, text))))));
+    }
+
+    /**
+     * ws：只取 cw 的第一个候选词
+     */
+    private static void readWs(JsonParser parser, StringBuilder text) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (!"cw".equals(field) || value != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+
+            boolean first = true;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (first && parser.currentToken() == JsonToken.START_OBJECT) {
+                    readFirstWord(parser, text);
+                } else {
+                    parser.skipChildren();
+                }
+                first = false;
+            }
+        }
+    }
+
+    private static void readFirstWord(JsonParser parser, StringBuilder text) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("w".equals(field) && value == JsonToken.VALUE_STRING) {
+                text.append(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * 在当前对象中找到指定字段（值为对象或数组时进入），其余字段跳过；返回时 parser 位于当前对象的 END_OBJECT
+     */
+    private static void forEachField(JsonParser parser, String name, Step step) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (name.equals(field) && (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY)) {
+                step.run();
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * 对数组中每个对象元素执行 step（step 读取到对应的 END_OBJECT），非对象元素跳过；调用时 parser 位于 START_ARRAY
+     */
+    private static void forEachArrayObject(JsonParser parser, Step step) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() == JsonToken.START_OBJECT) {
+                step.run();
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Step {
+        void run() throws IOException;
+    }
+
+    /**
+     * 查询结果
+     *
+     * @param code       响应码（0 为成功）
+     * @param message    响应信息
+     * @param taskStatus 任务状态：1-待处理 2-处理中 3-处理完成 4-回调完成
+     * @param text       识别文本（任务未完成时为空串）
+     */
+    public record QueryResult(int code, String message, String taskStatus, String text) {
+
+        /**
+         * 任务是否已完成
+         */
+        public boolean isFinished() {
+            return "3".equals(taskStatus) || "4".equals(taskStatus);
+        }
+    }
+}
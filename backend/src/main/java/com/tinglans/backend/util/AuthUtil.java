@@ -4,10 +4,11 @@ import com.tinglans.backend.common.BusinessException;
 import com.tinglans.backend.common.ResponseCode;
 import com.tinglans.backend.interceptor.JwtInterceptor;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.server.ServerWebExchange;
 
 /**
  * 认证工具类
- * 用于从HttpServletRequest中获取当前登录用户信息
+ * 用于从HttpServletRequest或ServerWebExchange中获取当前登录用户信息
  */
 public class AuthUtil {
 
@@ -28,4 +29,22 @@ public class AuthUtil {
         
         return userId.toString();
     }
+
+    /**
+     * 从ServerWebExchange中获取当前登录用户的ID（响应式栈）
+     * 该ID由JwtWebFilter在验证token后放入exchange attributes
+     *
+     * @param exchange ServerWebExchange
+     * @return 当前登录用户的ID
+     * @throws BusinessException 如果无法获取用户ID
+     */
+    public static String getCurrentUserId(ServerWebExchange exchange) {
+        Object userId = exchange.getAttribute(JwtInterceptor.USER_ID_ATTRIBUTE);
+
+        if (userId == null) {
+            throw new BusinessException(ResponseCode.UNAUTHORIZED, "无法获取用户信息");
+        }
+
+        return userId.toString();
+    }
 }
@@ -0,0 +1,33 @@
+package com.tinglans.backend.util;
+
+import com.google.api.gax.rpc.ApiException;
+import com.google.cloud.firestore.FirestoreException;
+import io.grpc.Status;
+
+/**
+ * Firestore 错误工具类
+ * 客户端按调用方式不同抛出 FirestoreException 或 gax ApiException（通常包装在 ExecutionException 中），统一按 gRPC 状态码判断
+ */
+public class FirestoreErrorUtil {
+
+    private FirestoreErrorUtil() {
+    }
+
+    /**
+     * 异常链中是否包含指定状态码的 Firestore 错误
+     */
+    public static boolean hasStatus(Throwable error, Status.Code code) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof FirestoreException firestoreException
+                    && firestoreException.getStatus() != null
+                    && firestoreException.getStatus().getCode() == code) {
+                return true;
+            }
+            if (cause instanceof ApiException apiException
+                    && apiException.getStatusCode().getCode().name().equals(code.name())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
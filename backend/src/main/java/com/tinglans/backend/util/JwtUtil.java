@@ -1,11 +1,14 @@
 package com.tinglans.backend.util;
 
+import com.tinglans.backend.common.BusinessException;
+import com.tinglans.backend.common.ResponseCode;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
@@ -19,6 +22,8 @@ import java.util.Date;
 @Component
 public class JwtUtil {
 
+    private static final String BEARER_PREFIX = "Bearer ";
+
     @Value("${jwt.secret:itinerary-assistant-secret-key-for-jwt-token-generation-and-validation}")
     private String secret;
 
@@ -106,4 +111,43 @@ public class JwtUtil {
             return true;
         }
     }
+
+    /**
+     * 校验 Authorization header 并返回用户ID
+     * 供 Servlet 拦截器与 WebFlux 过滤器共用
+     *
+     * @param authHeader Authorization header 值
+     * @return 用户ID
+     * @throws BusinessException 认证凭证缺失、格式错误或无效
+     */
+    public String authenticate(String authHeader) {
+        if (!StringUtils.hasText(authHeader)) {
+            log.warn("请求缺少Authorization header");
+            throw new BusinessException(ResponseCode.UNAUTHORIZED, "未提供认证凭证");
+        }
+
+        if (!authHeader.startsWith(BEARER_PREFIX)) {
+            log.warn("Authorization header格式错误");
+            throw new BusinessException(ResponseCode.UNAUTHORIZED, "认证凭证格式错误");
+        }
+
+        // 提取Token
+        String token = authHeader.substring(BEARER_PREFIX.length());
+
+        if (!StringUtils.hasText(token)) {
+            log.warn("Token为空");
+            throw new BusinessException(ResponseCode.UNAUTHORIZED, "认证凭证为空");
+        }
+
+        // 验证Token
+        if (!validateToken(token)) {
+            log.warn("Token验证失败");
+            if (isTokenExpired(token)) {
+                throw new BusinessException(ResponseCode.TOKEN_EXPIRED);
+            }
+            throw new BusinessException(ResponseCode.INVALID_TOKEN);
+        }
+
+        return getUserIdFromToken(token);
+    }
 }
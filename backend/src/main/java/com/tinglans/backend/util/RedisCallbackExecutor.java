@@ -0,0 +1,42 @@
+package com.tinglans.backend.util;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Firestore 异步结果的后续 Redis 操作线程池
+ * FutureUtil 的回调运行在 gRPC 线程上，回写缓存、删除缓存、重建索引等阻塞调用通过 *Async(..., executor()) 切换到这里执行。
+ * 不注册为 Executor 类型的 Bean，以免替换 Spring Boot 默认的 applicationTaskExecutor
+ */
+@Slf4j
+@Component
+public class RedisCallbackExecutor {
+
+    private final ExecutorService executor;
+
+    public RedisCallbackExecutor(@Value("${cache.callback-threads:4}") int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "redis-callback-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Redis 回调线程池已创建: threads={}", Math.max(1, threads));
+    }
+
+    public Executor executor() {
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,149 @@
+package com.tinglans.backend.job;
+
+import com.tinglans.backend.common.BusinessException;
+import com.tinglans.backend.common.ResponseCode;
+import com.tinglans.backend.dto.CascadeDeleteStatus;
+import com.tinglans.backend.repository.ExpenseRepository;
+import com.tinglans.backend.repository.TripRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ExpenseCascadeDeleteJob 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ExpenseCascadeDeleteJobTest {
+
+    @Mock
+    private ExpenseRepository expenseRepository;
+
+    @Mock
+    private TripRepository tripRepository;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private SetOperations<String, String> setOperations;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    private ExpenseCascadeDeleteJob job;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(stringRedisTemplate.opsForSet()).thenReturn(setOperations);
+        lenient().when(stringRedisTemplate.opsForHash()).thenReturn(hashOperations);
+        job = new ExpenseCascadeDeleteJob(expenseRepository, tripRepository, stringRedisTemplate, 500, 1, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        job.shutdown();
+    }
+
+    @Test
+    void testRetryPending_redisUnavailableDoesNotThrow() {
+        // Given - 启动时 Redis 不可用
+        when(setOperations.members(anyString())).thenThrow(new RedisConnectionFailureException("connection refused"));
+
+        // When & Then - 只记录告警，等待下次重试
+        assertDoesNotThrow(() -> job.retryPending());
+        verifyNoInteractions(expenseRepository);
+    }
+
+    @Test
+    void testRetryPending_skipsTripAlreadyRunning() throws Exception {
+        // Given - 第一次删除进行中
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(tripRepository.getFromFirestore("trip-1")).thenReturn(Optional.empty());
+        when(expenseRepository.deleteByTripId(eq("trip-1"), anyInt(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 10L;
+        });
+        when(setOperations.members(anyString())).thenReturn(Set.of("trip-1"));
+        job.submit("trip-1");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // When - 定期重试时该行程仍在删除
+        job.retryPending();
+        release.countDown();
+
+        // Then - 不重复提交
+        verify(expenseRepository, after(200).times(1)).deleteByTripId(eq("trip-1"), anyInt(), any());
+        verify(setOperations, timeout(1000)).remove(anyString(), eq("trip-1"));
+    }
+
+    @Test
+    void testCascadeDelete_failureRecordsErrorAndKeepsPending() throws Exception {
+        // Given
+        when(tripRepository.getFromFirestore("trip-1")).thenReturn(Optional.empty());
+        when(expenseRepository.deleteByTripId(eq("trip-1"), anyInt(), any()))
+                .thenThrow(new IllegalStateException("DEADLINE_EXCEEDED"));
+
+        // When
+        job.cascadeDelete("trip-1");
+
+        // Then - 保留在待删除集合中，下次重试
+        verify(hashOperations).put(anyString(), eq("lastError"), eq("DEADLINE_EXCEEDED"));
+        verify(setOperations, never()).remove(anyString(), any());
+    }
+
+    @Test
+    void testGetStatus_inProgress() {
+        // Given
+        when(hashOperations.entries(anyString())).thenReturn(Map.of(
+                "userId", "user-1",
+                "requestedAt", "2025-05-01T10:00:00Z",
+                "deleted", "1500"));
+
+        // When
+        CascadeDeleteStatus status = job.getStatus("trip-1", "user-1");
+
+        // Then
+        assertFalse(status.isCompleted());
+        assertEquals(1500, status.getDeletedExpenses());
+        assertNotNull(status.getRequestedAt());
+        assertNull(status.getStartedAt());
+    }
+
+    @Test
+    void testGetStatus_completedWhenNoProgress() {
+        // Given
+        when(hashOperations.entries(anyString())).thenReturn(Map.of());
+
+        // When & Then
+        assertTrue(job.getStatus("trip-1", "user-1").isCompleted());
+    }
+
+    @Test
+    void testGetStatus_otherUserDenied() {
+        // Given
+        when(hashOperations.entries(anyString())).thenReturn(Map.of("userId", "user-1"));
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class, () -> job.getStatus("trip-1", "user-2"));
+        assertEquals(ResponseCode.PERMISSION_DENIED, exception.getResponseCode());
+    }
+}
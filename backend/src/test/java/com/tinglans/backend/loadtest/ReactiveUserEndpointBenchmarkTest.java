@@ -0,0 +1,95 @@
+package com.tinglans.backend.loadtest;
+
+import com.tinglans.backend.controller.reactive.ReactiveUserController;
+import com.tinglans.backend.domain.User;
+import com.tinglans.backend.interceptor.JwtInterceptor;
+import com.tinglans.backend.service.UserService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 响应式栈 /api/users/me 基准（模拟延迟，手动运行）
+ * 不依赖 Redis：用户缓存读取以 REDIS_RTT_MS 的阻塞等待模拟，请求在单线程（模拟 Netty 事件循环）上订阅。
+ * 对比缓存读取直接在事件循环上执行与切换到阻塞调度器上执行时的吞吐与延迟
+ */
+@Slf4j
+public class ReactiveUserEndpointBenchmarkTest {
+
+    private static final long REDIS_RTT_MS = 2;
+    private static final int REQUESTS = 500;
+
+    @Test
+    @Disabled
+    void testCompareEventLoopAndBlockingScheduler() {
+        UserService userService = mock(UserService.class, withSettings().stubOnly());
+        when(userService.validateAndGetUserAsync(anyString())).thenAnswer(invocation -> {
+            // 缓存命中：同步读取 Redis 后返回已完成的 future
+            Thread.sleep(REDIS_RTT_MS);
+            return CompletableFuture.completedFuture(User.builder().id(invocation.getArgument(0)).build());
+        });
+
+        Scheduler eventLoop = Schedulers.newSingle("event-loop");
+        Scheduler blockingScheduler = Schedulers.newBoundedElastic(64, 10000, "blocking-io");
+        try {
+            // 预热
+            run(new ReactiveUserController(userService, blockingScheduler), eventLoop);
+
+            String onEventLoop = run(new ReactiveUserController(userService, Schedulers.immediate()), eventLoop);
+            String offEventLoop = run(new ReactiveUserController(userService, blockingScheduler), eventLoop);
+            log.info("✅ 事件循环上读取缓存: {}", onEventLoop);
+            log.info("✅ 阻塞调度器上读取缓存: {}", offEventLoop);
+        } finally {
+            eventLoop.dispose();
+            blockingScheduler.dispose();
+        }
+    }
+
+    private String run(ReactiveUserController controller, Scheduler eventLoop) {
+        List<MockServerWebExchange> exchanges = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            exchanges.add(exchange("user-" + i));
+        }
+
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        long start = System.nanoTime();
+        Flux.range(0, REQUESTS)
+                .flatMap(i -> {
+                    long begin = System.nanoTime();
+                    return Mono.defer(() -> controller.getCurrentUser(exchanges.get(i)))
+                            .subscribeOn(eventLoop)
+                            .doOnSuccess(response -> latencies.add(System.nanoTime() - begin));
+                }, REQUESTS)
+                .blockLast(Duration.ofMinutes(1));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return String.format("requests=%d, elapsed=%dms, throughput=%d req/s, p50=%.1fms, p99=%.1fms",
+                REQUESTS, elapsedMs, REQUESTS * 1000L / Math.max(elapsedMs, 1),
+                sorted.get(sorted.size() / 2) / 1_000_000.0,
+                sorted.get((int) (sorted.size() * 0.99) - 1) / 1_000_000.0);
+    }
+
+    private MockServerWebExchange exchange(String userId) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/me"));
+        exchange.getAttributes().put(JwtInterceptor.USER_ID_ATTRIBUTE, userId);
+        return exchange;
+    }
+}
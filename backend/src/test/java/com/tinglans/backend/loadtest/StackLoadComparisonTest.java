@@ -0,0 +1,133 @@
+package com.tinglans.backend.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Servlet 栈与响应式栈压测对比（手动运行）
+ * 分别以默认配置和 reactive profile 启动两个后端实例，然后运行：
+ * mvn test -Dtest=StackLoadComparisonTest \
+ *   -Dloadtest.servlet-url=http://localhost:8080 -Dloadtest.reactive-url=http://localhost:8081 \
+ *   -Dloadtest.token=xxx -Dloadtest.trip-id=xxx
+ */
+@Slf4j
+public class StackLoadComparisonTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 200);
+    private static final int REQUESTS_PER_WORKER = Integer.getInteger("loadtest.requests", 50);
+
+    @Test
+    @Disabled
+    void testCompareServletAndReactiveStacks() throws Exception {
+        String token = System.getProperty("loadtest.token");
+        String tripId = System.getProperty("loadtest.trip-id");
+        assertNotNull(token, "需要 -Dloadtest.token");
+        assertNotNull(tripId, "需要 -Dloadtest.trip-id");
+
+        // 同时覆盖读路径：行程详情、开销列表、预算分析、当前用户与偏好（读取用户缓存）
+        List<String> paths = List.of(
+                "/api/trips/" + tripId + "/itinerary",
+                "/api/trips/" + tripId + "/expenses",
+                "/api/trips/" + tripId + "/budget",
+                "/api/users/me",
+                "/api/users/preferences");
+
+        Result servlet = run(System.getProperty("loadtest.servlet-url", "http://localhost:8080"), paths, token);
+        Result reactive = run(System.getProperty("loadtest.reactive-url", "http://localhost:8081"), paths, token);
+
+        log.info("✅ Servlet 栈: {}", servlet);
+        log.info("✅ 响应式栈: {}", reactive);
+        assertEquals(0, servlet.failures(), "Servlet 栈请求不应失败");
+        assertEquals(0, reactive.failures(), "响应式栈请求不应失败");
+    }
+
+    private Result run(String baseUrl, List<String> paths, String token) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(32))
+                .build();
+
+        // 预热
+        for (String path : paths) {
+            client.send(request(baseUrl, path, token), HttpResponse.BodyHandlers.discarding());
+        }
+
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(CONCURRENCY);
+        List<Future<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int w = 0; w < CONCURRENCY; w++) {
+            int offset = w;
+            futures.add(workers.submit(() -> {
+                for (int i = 0; i < REQUESTS_PER_WORKER; i++) {
+                    String path = paths.get((offset + i) % paths.size());
+                    long begin = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(
+                                request(baseUrl, path, token), HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                    latencies.add(System.nanoTime() - begin);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        workers.shutdown();
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return new Result(
+                sorted.size(),
+                failures.get(),
+                sorted.size() * 1000L / Math.max(elapsedMs, 1),
+                percentileMs(sorted, 0.50),
+                percentileMs(sorted, 0.99));
+    }
+
+    private HttpRequest request(String baseUrl, String path, String token) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    private double percentileMs(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.size() - 1, Math.ceil(percentile * sorted.size()) - 1);
+        return sorted.get(Math.max(index, 0)) / 1_000_000.0;
+    }
+
+    private record Result(int requests, int failures, long throughput, double p50Ms, double p99Ms) {
+        @Override
+        public String toString() {
+            return String.format("requests=%d, failures=%d, throughput=%d req/s, p50=%.1fms, p99=%.1fms",
+                    requests, failures, throughput, p50Ms, p99Ms);
+        }
+    }
+}
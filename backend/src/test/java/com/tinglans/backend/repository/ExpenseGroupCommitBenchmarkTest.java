@@ -0,0 +1,102 @@
+package com.tinglans.backend.repository;
+
+import com.tinglans.backend.domain.Expense;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 支出组提交吞吐基准
+ * 对比逐条事务保存与组提交在高并发记账下的吞吐（需要 Firestore 模拟器，手动运行）
+ */
+@Slf4j
+@SpringBootTest
+public class ExpenseGroupCommitBenchmarkTest {
+
+    private static final String TEST_TRIP_PREFIX = "test-trip-group-commit-";
+    private static final int TRIPS = 20;
+    private static final int EXPENSES_PER_TRIP = 100;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private ExpenseGroupCommitWriter expenseGroupCommitWriter;
+
+    @Test
+    @Disabled
+    void testCompareDirectAndGroupCommit() throws Exception {
+        // 先为每个行程写入一条支出，初始化聚合文档
+        for (int t = 0; t < TRIPS; t++) {
+            expenseRepository.save(tripId("direct", t), newExpense(tripId("direct", t)));
+            expenseRepository.save(tripId("group", t), newExpense(tripId("group", t)));
+        }
+
+        long direct = run("direct", expenseRepository::saveAsync);
+        long grouped = run("group", expenseGroupCommitWriter::write);
+        log.info("✅ 逐条事务保存: {} writes/s, 组提交: {} writes/s", direct, grouped);
+
+        for (int t = 0; t < TRIPS; t++) {
+            assertEquals(EXPENSES_PER_TRIP + 1L, expenseRepository.findAggregate(tripId("group", t))
+                    .orElseThrow().getCounts().get("food"), "组提交后聚合笔数应与写入数一致");
+        }
+    }
+
+    private long run(String mode, BiFunction<String, Expense, CompletableFuture<Void>> writer) throws Exception {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < EXPENSES_PER_TRIP; i++) {
+            for (int t = 0; t < TRIPS; t++) {
+                String tripId = tripId(mode, t);
+                futures.add(writer.apply(tripId, newExpense(tripId)));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.MINUTES);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        int total = TRIPS * EXPENSES_PER_TRIP;
+        log.info("{}: total={}, elapsed={}ms", mode, total, elapsedMs);
+        return total * 1000L / Math.max(elapsedMs, 1);
+    }
+
+    private static String tripId(String mode, int index) {
+        return TEST_TRIP_PREFIX + mode + "-" + index;
+    }
+
+    private static Expense newExpense(String tripId) {
+        return Expense.builder()
+                .id(UUID.randomUUID().toString())
+                .tripId(tripId)
+                .category("food")
+                .amountCents(1000L)
+                .note("压测")
+                .happenedAt(Instant.now())
+                .build();
+    }
+
+    @AfterAll
+    static void cleanup(@Autowired ExpenseRepository expenseRepository) {
+        for (String mode : List.of("direct", "group")) {
+            for (int t = 0; t < TRIPS; t++) {
+                try {
+                    expenseRepository.deleteByTripId(tripId(mode, t));
+                } catch (Exception e) {
+                    log.warn("⚠️ 清理数据失败: {}", e.getMessage());
+                }
+            }
+        }
+    }
+}
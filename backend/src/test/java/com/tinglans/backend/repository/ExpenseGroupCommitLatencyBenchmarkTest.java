@@ -0,0 +1,81 @@
+package com.tinglans.backend.repository;
+
+import com.tinglans.backend.domain.Expense;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiFunction;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 支出组提交吞吐基准（模拟延迟，手动运行）
+ * 不依赖 Firestore：逐条事务保存按行程串行（同一 summary 文档上的事务互相冲突），每次 2 个往返；
+ * 组提交每批 getAll + commit 共 2 个往返，批次之间不串行。单次往返延迟为 ROUND_TRIP_MS
+ */
+@Slf4j
+public class ExpenseGroupCommitLatencyBenchmarkTest {
+
+    private static final long ROUND_TRIP_MS = 10;
+    private static final int TRIPS = 20;
+    private static final int EXPENSES_PER_TRIP = 50;
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(8);
+    private final Map<String, CompletableFuture<Void>> tripTails = new ConcurrentHashMap<>();
+
+    @Test
+    @Disabled
+    void testCompareDirectAndGroupCommit() throws Exception {
+        ExpenseRepository expenseRepository = mock(ExpenseRepository.class);
+        when(expenseRepository.saveAsync(anyString(), any(Expense.class)))
+                .thenAnswer(invocation -> serializedPerTrip(invocation.getArgument(0)));
+        when(expenseRepository.createAllIfAggregatedAsync(anyMap()))
+                .thenAnswer(invocation -> delay(2 * ROUND_TRIP_MS).thenApply(ignored -> Set.<String>of()));
+
+        ExpenseGroupCommitWriter writer = new ExpenseGroupCommitWriter(expenseRepository, true, 10, 200, 4, 10000);
+        writer.start();
+        try {
+            long direct = run("direct", expenseRepository::saveAsync);
+            long grouped = run("group", writer::write);
+            log.info("✅ 逐条事务保存: {} writes/s, 组提交: {} writes/s", direct, grouped);
+        } finally {
+            writer.shutdown();
+            scheduler.shutdownNow();
+        }
+    }
+
+    private long run(String mode, BiFunction<String, Expense, CompletableFuture<Void>> writer) throws Exception {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < EXPENSES_PER_TRIP; i++) {
+            for (int t = 0; t < TRIPS; t++) {
+                String tripId = mode + "-" + t;
+                futures.add(writer.apply(tripId, Expense.builder()
+                        .id(UUID.randomUUID().toString()).tripId(tripId).category("food").amountCents(1000L).build()));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.MINUTES);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        int total = TRIPS * EXPENSES_PER_TRIP;
+        log.info("{}: total={}, elapsed={}ms", mode, total, elapsedMs);
+        return total * 1000L / Math.max(elapsedMs, 1);
+    }
+
+    private synchronized CompletableFuture<Void> serializedPerTrip(String tripId) {
+        CompletableFuture<Void> next = tripTails.getOrDefault(tripId, CompletableFuture.completedFuture(null))
+                .thenCompose(ignored -> delay(2 * ROUND_TRIP_MS));
+        tripTails.put(tripId, next);
+        return next;
+    }
+
+    private CompletableFuture<Void> delay(long millis) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        scheduler.schedule(() -> future.complete(null), millis, TimeUnit.MILLISECONDS);
+        return future;
+    }
+}
@@ -0,0 +1,165 @@
+package com.tinglans.backend.repository;
+
+import com.tinglans.backend.domain.Expense;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ExpenseGroupCommitWriter 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ExpenseGroupCommitWriterTest {
+
+    @Mock
+    private ExpenseRepository expenseRepository;
+
+    private ExpenseGroupCommitWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        // 较长的时间窗口保证测试中的写入落入同一批
+        writer = new ExpenseGroupCommitWriter(expenseRepository, true, 200, 3, 4, 10000);
+        writer.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writer.shutdown();
+    }
+
+    private Expense expense(String id) {
+        return Expense.builder().id(id).category("food").amountCents(100L).build();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testWrite_groupsConcurrentWritesIntoOneCommit() throws Exception {
+        // Given
+        when(expenseRepository.createAllIfAggregatedAsync(anyMap()))
+                .thenReturn(CompletableFuture.completedFuture(Set.of()));
+
+        // When
+        CompletableFuture<Void> first = writer.write("trip-1", expense("e1"));
+        CompletableFuture<Void> second = writer.write("trip-1", expense("e2"));
+        CompletableFuture<Void> third = writer.write("trip-2", expense("e3"));
+        CompletableFuture.allOf(first, second, third).get(5, TimeUnit.SECONDS);
+
+        // Then
+        ArgumentCaptor<Map<String, List<Expense>>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(expenseRepository, times(1)).createAllIfAggregatedAsync(captor.capture());
+        assertEquals(2, captor.getValue().get("trip-1").size());
+        assertEquals(1, captor.getValue().get("trip-2").size());
+        verify(expenseRepository, never()).saveAsync(anyString(), any(Expense.class));
+    }
+
+    @Test
+    void testWrite_fallsBackForTripWithoutAggregate() throws Exception {
+        // Given
+        when(expenseRepository.createAllIfAggregatedAsync(anyMap()))
+                .thenReturn(CompletableFuture.completedFuture(Set.of("trip-new")));
+        when(expenseRepository.saveAsync(eq("trip-new"), any(Expense.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        writer.write("trip-new", expense("e1")).get(5, TimeUnit.SECONDS);
+
+        // Then
+        verify(expenseRepository, times(1)).saveAsync(eq("trip-new"), any(Expense.class));
+    }
+
+    @Test
+    void testWrite_failedCommitRetriesIndividually() throws Exception {
+        // Given
+        when(expenseRepository.createAllIfAggregatedAsync(anyMap()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("ALREADY_EXISTS")));
+        when(expenseRepository.saveAsync(eq("trip-1"), any(Expense.class)))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("UNAVAILABLE")));
+
+        // When
+        CompletableFuture<Void> first = writer.write("trip-1", expense("e1"));
+        CompletableFuture<Void> second = writer.write("trip-1", expense("e2"));
+
+        // Then
+        first.get(5, TimeUnit.SECONDS);
+        assertThrows(Exception.class, () -> second.get(5, TimeUnit.SECONDS));
+        verify(expenseRepository, times(2)).saveAsync(eq("trip-1"), any(Expense.class));
+    }
+
+    @Test
+    void testShutdown_commitsQueuedWritesBeforeStopping() throws Exception {
+        // Given - 写入仍在时间窗口内等待
+        when(expenseRepository.createAllIfAggregatedAsync(anyMap()))
+                .thenReturn(CompletableFuture.completedFuture(Set.of()));
+        CompletableFuture<Void> first = writer.write("trip-1", expense("e1"));
+        CompletableFuture<Void> second = writer.write("trip-2", expense("e2"));
+
+        // When
+        writer.shutdown();
+
+        // Then - 停止时已提交，future 均已完成
+        assertTrue(first.isDone() && second.isDone());
+        first.get(1, TimeUnit.SECONDS);
+        second.get(1, TimeUnit.SECONDS);
+        verify(expenseRepository, atLeastOnce()).createAllIfAggregatedAsync(anyMap());
+    }
+
+    @Test
+    void testShutdown_failedSubmissionCompletesFuturesExceptionally() throws Exception {
+        // Given
+        when(expenseRepository.createAllIfAggregatedAsync(anyMap()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("UNAVAILABLE")));
+        when(expenseRepository.saveAsync(eq("trip-1"), any(Expense.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("UNAVAILABLE")));
+        CompletableFuture<Void> pending = writer.write("trip-1", expense("e1"));
+
+        // When
+        writer.shutdown();
+
+        // Then - 不会一直挂起
+        assertThrows(Exception.class, () -> pending.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testWrite_afterShutdownWritesDirectly() throws Exception {
+        // Given
+        writer.shutdown();
+        when(expenseRepository.saveAsync(eq("trip-1"), any(Expense.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        writer.write("trip-1", expense("e1")).get(1, TimeUnit.SECONDS);
+
+        // Then
+        verify(expenseRepository, never()).createAllIfAggregatedAsync(anyMap());
+        assertEquals(0, writer.getQueueSize());
+    }
+
+    @Test
+    void testWrite_disabledWritesDirectly() {
+        // Given
+        ExpenseGroupCommitWriter disabled = new ExpenseGroupCommitWriter(expenseRepository, false, 10, 200, 4, 10000);
+        disabled.start();
+        when(expenseRepository.saveAsync(eq("trip-1"), any(Expense.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        disabled.write("trip-1", expense("e1")).join();
+
+        // Then
+        verify(expenseRepository, never()).createAllIfAggregatedAsync(anyMap());
+    }
+}
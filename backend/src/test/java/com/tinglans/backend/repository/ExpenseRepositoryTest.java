@@ -2,12 +2,14 @@ package com.tinglans.backend.repository;
 
 import com.google.cloud.firestore.Firestore;
 import com.tinglans.backend.domain.Expense;
+import com.tinglans.backend.domain.ExpenseAggregate;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -119,6 +121,47 @@ public class ExpenseRepositoryTest {
         log.info("✅ 删除成功，剩余 {} 条支出", remaining.size());
     }
 
+    @Test
+    @Order(5)
+    @DisplayName("5. 测试开销聚合随保存和删除增量更新")
+    void testAggregate() throws ExecutionException, InterruptedException {
+        log.info("=== 测试5: 开销聚合 ===");
+
+        Optional<ExpenseAggregate> aggregate = expenseRepository.findAggregate(TEST_TRIP_ID);
+        assertTrue(aggregate.isPresent(), "保存支出后应存在聚合文档");
+        assertEquals(0L, aggregate.get().getCounts().get("food"), "删除后餐饮笔数应归零");
+        assertEquals(8000L, aggregate.get().getTotals().get("ticket"));
+        assertEquals(Map.of("ticket", 8000L, "transport", 1200L), aggregate.get().activeTotals());
+
+        ExpenseAggregate rebuilt = expenseRepository.rebuildAggregate(TEST_TRIP_ID);
+        assertEquals(aggregate.get().activeTotals(), rebuilt.activeTotals(), "重算结果应与增量结果一致");
+
+        log.info("✅ 聚合验证通过: {}", rebuilt.getTotals());
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("6. 测试分页级联删除")
+    void testDeleteByTripIdInPages() throws ExecutionException, InterruptedException {
+        log.info("=== 测试6: 分页级联删除 ===");
+
+        for (int i = 0; i < 5; i++) {
+            expenseRepository.save(TEST_TRIP_ID, createTestExpense("test-expense-page-" + i, "food", 100L, "小吃"));
+        }
+        int existing = expenseRepository.findByTripId(TEST_TRIP_ID).size();
+
+        List<Long> progress = new ArrayList<>();
+        long deleted = expenseRepository.deleteByTripId(TEST_TRIP_ID, 2, progress::add);
+
+        assertEquals(existing, deleted, "应删除全部支出");
+        assertEquals(deleted, progress.get(progress.size() - 1), "最终进度应等于删除总数");
+        assertTrue(progress.size() >= 3, "小分页时应多次回报进度");
+        assertTrue(expenseRepository.findByTripId(TEST_TRIP_ID).isEmpty());
+        assertTrue(expenseRepository.findAggregate(TEST_TRIP_ID).isEmpty(), "聚合文档应一并删除");
+
+        log.info("✅ 分页删除完成: deleted={}, progress={}", deleted, progress);
+    }
+
     @AfterAll
     static void cleanup(@Autowired Firestore firestore, @Autowired ExpenseRepository expenseRepository) 
             throws ExecutionException, InterruptedException {
@@ -0,0 +1,115 @@
+package com.tinglans.backend.repository;
+
+import com.google.cloud.firestore.Firestore;
+import com.tinglans.backend.domain.Expense;
+import com.tinglans.backend.domain.ExpenseAggregate;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 共享行程分片计数压测
+ * 多个参与者并发记账，验证持续写入吞吐、延迟与聚合求和的正确性（需要 Firestore 模拟器，手动运行）
+ */
+@Slf4j
+@SpringBootTest
+public class ExpenseShardLoadTest {
+
+    private static final String TEST_TRIP_ID_PREFIX = "test-trip-shard-load-";
+    private static final int SHARD_COUNT = 10;
+    private static final int PARTICIPANTS = 8;
+    private static final int EXPENSES_PER_PARTICIPANT = 50;
+    private static final long AMOUNT_CENTS = 1000L;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    /**
+     * 单分片与多分片对比，输出吞吐与单次记账延迟
+     */
+    @Test
+    @Disabled
+    void testConcurrentWritesAcrossShards() throws Exception {
+        String single = run(TEST_TRIP_ID_PREFIX + "1", 1);
+        String sharded = run(TEST_TRIP_ID_PREFIX + SHARD_COUNT, SHARD_COUNT);
+        log.info("✅ 单分片: {}", single);
+        log.info("✅ {} 分片: {}", SHARD_COUNT, sharded);
+    }
+
+    private String run(String tripId, int shardCount) throws Exception {
+        expenseRepository.updateShardCount(tripId, shardCount);
+
+        ExecutorService executor = Executors.newFixedThreadPool(PARTICIPANTS);
+        AtomicInteger failures = new AtomicInteger();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        List<Future<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int p = 0; p < PARTICIPANTS; p++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < EXPENSES_PER_PARTICIPANT; i++) {
+                    Expense expense = Expense.builder()
+                            .id(UUID.randomUUID().toString())
+                            .tripId(tripId)
+                            .category("food")
+                            .amountCents(AMOUNT_CENTS)
+                            .note("聚餐")
+                            .happenedAt(Instant.now())
+                            .build();
+                    long begin = System.nanoTime();
+                    try {
+                        expenseRepository.save(tripId, expense);
+                        latencies.add(System.nanoTime() - begin);
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                        log.warn("记账失败: {}", e.getMessage());
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        int total = PARTICIPANTS * EXPENSES_PER_PARTICIPANT;
+        ExpenseAggregate aggregate = expenseRepository.findAggregate(tripId).orElseThrow();
+        assertEquals(0, failures.get(), "并发写入不应失败");
+        assertEquals(total, aggregate.getCounts().get("food"));
+        assertEquals(total * AMOUNT_CENTS, aggregate.getTotals().get("food"));
+        assertEquals(shardCount, aggregate.getShardCount());
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return String.format("total=%d, elapsed=%dms, throughput=%d writes/s, p50=%.1fms, p99=%.1fms",
+                total, elapsedMs, total * 1000L / Math.max(elapsedMs, 1),
+                sorted.get(sorted.size() / 2) / 1_000_000.0,
+                sorted.get(Math.max((int) Math.ceil(sorted.size() * 0.99) - 1, 0)) / 1_000_000.0);
+    }
+
+    @AfterAll
+    static void cleanup(@Autowired Firestore firestore, @Autowired ExpenseRepository expenseRepository) {
+        try {
+            for (String tripId : List.of(TEST_TRIP_ID_PREFIX + "1", TEST_TRIP_ID_PREFIX + SHARD_COUNT)) {
+                expenseRepository.deleteByTripId(tripId);
+                firestore.collection("trips").document(tripId).delete().get();
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ 清理数据失败: {}", e.getMessage());
+        }
+    }
+}
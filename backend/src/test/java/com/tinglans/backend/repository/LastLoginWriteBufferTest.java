@@ -0,0 +1,131 @@
+package com.tinglans.backend.repository;
+
+import com.google.cloud.firestore.FirestoreException;
+import io.grpc.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * LastLoginWriteBuffer 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class LastLoginWriteBufferTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private LastLoginWriteBuffer lastLoginWriteBuffer;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(lastLoginWriteBuffer, "batchSize", 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_coalescesRepeatedLogins() throws ExecutionException, InterruptedException {
+        // Given
+        Instant first = Instant.parse("2025-01-01T00:00:00Z");
+        Instant latest = Instant.parse("2025-01-01T00:05:00Z");
+        lastLoginWriteBuffer.record("user-1", first);
+        lastLoginWriteBuffer.record("user-1", latest);
+        lastLoginWriteBuffer.record("user-1", first);
+
+        // When
+        int written = lastLoginWriteBuffer.flush();
+
+        // Then
+        ArgumentCaptor<Map<String, Instant>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(userRepository, times(1)).updateLastLoginAtBatch(captor.capture());
+        assertEquals(Map.of("user-1", latest), captor.getValue());
+        assertEquals(1, written);
+        assertEquals(0, lastLoginWriteBuffer.getBacklogSize());
+    }
+
+    @Test
+    void testFlush_splitsIntoBatches() throws ExecutionException, InterruptedException {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            lastLoginWriteBuffer.record("user-" + i, Instant.now());
+        }
+
+        // When
+        int written = lastLoginWriteBuffer.flush();
+
+        // Then
+        verify(userRepository, times(3)).updateLastLoginAtBatch(anyMap());
+        assertEquals(5, written);
+        assertEquals(5, lastLoginWriteBuffer.getLastFlushCount());
+        assertEquals(0, lastLoginWriteBuffer.getBacklogSize());
+    }
+
+    @Test
+    void testFlush_isolatesFailedEntries() throws ExecutionException, InterruptedException {
+        // Given
+        Instant now = Instant.now();
+        lastLoginWriteBuffer.record("user-ok", now);
+        lastLoginWriteBuffer.record("user-deleted", now);
+        doAnswer(invocation -> {
+            Map<String, Instant> updates = invocation.getArgument(0);
+            if (updates.containsKey("user-deleted")) {
+                throw new ExecutionException(FirestoreException.forServerRejection(Status.NOT_FOUND, "no entity"));
+            }
+            return null;
+        }).when(userRepository).updateLastLoginAtBatch(anyMap());
+
+        // When
+        int written = lastLoginWriteBuffer.flush();
+
+        // Then
+        assertEquals(1, written);
+        assertEquals(0, lastLoginWriteBuffer.getBacklogSize());
+        verify(userRepository).updateLastLoginAtBatch(Map.of("user-ok", now));
+    }
+
+    @Test
+    void testFlush_keepsEntriesOnTransientFailure() throws ExecutionException, InterruptedException {
+        // Given
+        Instant now = Instant.now();
+        lastLoginWriteBuffer.record("user-1", now);
+        lastLoginWriteBuffer.record("user-2", now);
+        doThrow(new ExecutionException(FirestoreException.forServerRejection(Status.UNAVAILABLE, "unavailable")))
+                .doNothing()
+                .when(userRepository).updateLastLoginAtBatch(anyMap());
+
+        // When - 第一次刷盘失败，不逐条重试
+        int firstWritten = lastLoginWriteBuffer.flush();
+
+        // Then - 条目保留，下次刷盘写入
+        assertEquals(0, firstWritten);
+        assertEquals(2, lastLoginWriteBuffer.getBacklogSize());
+        verify(userRepository, times(1)).updateLastLoginAtBatch(anyMap());
+
+        assertEquals(2, lastLoginWriteBuffer.flush());
+        assertEquals(0, lastLoginWriteBuffer.getBacklogSize());
+    }
+
+    @Test
+    void testFlush_emptyBufferSkipsWrite() throws ExecutionException, InterruptedException {
+        // When
+        int written = lastLoginWriteBuffer.flush();
+
+        // Then
+        assertEquals(0, written);
+        verifyNoInteractions(userRepository);
+    }
+}
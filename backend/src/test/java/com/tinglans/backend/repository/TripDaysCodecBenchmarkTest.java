@@ -0,0 +1,131 @@
+package com.tinglans.backend.repository;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tinglans.backend.domain.Day;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 行程 days 存储格式基准（手动运行）
+ * 对比 map 与 blob 两种格式的 Firestore 文档大小和解码耗时，以及活动 POI 内嵌与只保存引用时的文档大小。
+ * map 格式的耗时只包含 Map 到对象的转换，不包含 Firestore 客户端把嵌套值解析为 Map 的开销
+ */
+@Slf4j
+public class TripDaysCodecBenchmarkTest {
+
+    private static final int ITERATIONS = 20_000;
+
+    @Test
+    @Disabled
+    void testCompareSizeAndDecodeTime() throws Exception {
+        for (int[] shape : new int[][]{{3, 4}, {7, 6}, {14, 8}}) {
+            List<Day> days = TripDaysCodecTest.sampleDays(shape[0], shape[1]);
+
+            // 模拟 Firestore 读取后的结构：整数为 Long，POI 为 Map
+            ObjectMapper firestoreLike = new ObjectMapper().enable(DeserializationFeature.USE_LONG_FOR_INTS);
+            List<Map<String, Object>> mapList = firestoreLike.readValue(
+                    firestoreLike.writeValueAsBytes(TripDaysCodec.toMapList(days)), List.class);
+            byte[] blob = TripDaysCodec.encode(days);
+
+            long mapSize = firestoreSize(mapList);
+            long blobSize = "daysBlob".length() + 1 + blob.length;
+
+            long mapNanos = time(() -> TripDaysCodec.fromMapList(mapList));
+            long blobNanos = time(() -> TripDaysCodec.decode(blob));
+
+            log.info("✅ days={}, activities/day={}: map={}B, blob={}B ({}%), decode map={}µs, blob={}µs",
+                    shape[0], shape[1], mapSize, blobSize, blobSize * 100 / mapSize,
+                    mapNanos / 1000, blobNanos / 1000);
+            assertTrue(blobSize < mapSize, "blob 格式应更小");
+        }
+    }
+
+    @Test
+    @Disabled
+    void testComparePoiReferenceSize() throws Exception {
+        for (int[] shape : new int[][]{{3, 4}, {7, 6}, {14, 8}}) {
+            List<Day> days = TripDaysCodecTest.sampleDays(shape[0], shape[1]);
+            List<Day> referenced = TripDaysCodec.withPoiReferences(days);
+
+            long mapEmbedded = mapFieldSize(days);
+            long mapReferenced = mapFieldSize(referenced);
+            long blobEmbedded = blobFieldSize(days);
+            long blobReferenced = blobFieldSize(referenced);
+
+            // 引用的 POI 详情另存于 pois 集合，每个 POI 只写一次，由所有行程共用
+            ObjectMapper firestoreLike = new ObjectMapper();
+            long poiDocsSize = 0;
+            for (var poi : TripDaysCodec.collectPois(days)) {
+                poiDocsSize += firestoreSize(firestoreLike.convertValue(poi, Map.class));
+            }
+
+            log.info("✅ days={}, activities/day={}: map 内嵌={}B, 引用={}B ({}%); blob 内嵌={}B, 引用={}B ({}%); pois 文档合计={}B",
+                    shape[0], shape[1], mapEmbedded, mapReferenced, mapReferenced * 100 / mapEmbedded,
+                    blobEmbedded, blobReferenced, blobReferenced * 100 / blobEmbedded, poiDocsSize);
+            assertTrue(mapReferenced < mapEmbedded, "引用格式应更小");
+            assertTrue(blobReferenced < blobEmbedded, "引用格式应更小");
+        }
+    }
+
+    private long mapFieldSize(List<Day> days) throws Exception {
+        ObjectMapper firestoreLike = new ObjectMapper().enable(DeserializationFeature.USE_LONG_FOR_INTS);
+        List<Map<String, Object>> mapList = firestoreLike.readValue(
+                firestoreLike.writeValueAsBytes(TripDaysCodec.toMapList(days)), List.class);
+        return firestoreSize("days") + firestoreSize(mapList);
+    }
+
+    private long blobFieldSize(List<Day> days) {
+        return "daysBlob".length() + 1 + TripDaysCodec.encode(days).length;
+    }
+
+    private long time(Runnable decode) {
+        // 充分预热，避免先测的格式占 JIT 便宜
+        for (int i = 0; i < ITERATIONS * 2; i++) {
+            decode.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            decode.run();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    /**
+     * 按 Firestore 存储大小规则估算字段大小：字符串为 UTF-8 字节数 + 1，数值 8 字节，null 1 字节，
+     * Map 为各字段名大小与值大小之和
+     */
+    private long firestoreSize(Object value) {
+        if (value == null) {
+            return 1;
+        }
+        if (value instanceof String s) {
+            return s.getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return 8;
+        }
+        if (value instanceof Map<?, ?> map) {
+            long size = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += firestoreSize(entry.getKey().toString()) + firestoreSize(entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof List<?> list) {
+            long size = 0;
+            for (Object item : list) {
+                size += firestoreSize(item);
+            }
+            return size;
+        }
+        throw new IllegalArgumentException("未知类型: " + value.getClass());
+    }
+}
@@ -0,0 +1,159 @@
+package com.tinglans.backend.repository;
+
+import com.tinglans.backend.domain.Activity;
+import com.tinglans.backend.domain.Day;
+import com.tinglans.backend.thirdparty.amap.dto.AmapPoi;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TripDaysCodec 单元测试
+ */
+class TripDaysCodecTest {
+
+    static List<Day> sampleDays(int dayCount, int activitiesPerDay) {
+        List<Day> days = new ArrayList<>();
+        for (int d = 1; d <= dayCount; d++) {
+            List<Activity> activities = new ArrayList<>();
+            for (int a = 0; a < activitiesPerDay; a++) {
+                activities.add(Activity.builder()
+                        .id("act-" + d + "-" + a)
+                        .dayIndex(d)
+                        .type("attraction")
+                        .title("参观景点" + a)
+                        .locationName("浅草寺")
+                        .poi(AmapPoi.builder()
+                                .id("B0FFG" + d + a)
+                                .name("浅草寺")
+                                .type("风景名胜;风景名胜;国家级景点")
+                                .typecode("110202")
+                                .address("台东区浅草2-3-1")
+                                .location("139.796635,35.714765")
+                                .pname("东京都")
+                                .cityname("东京")
+                                .adname("台东区")
+                                .build())
+                        .startTime("09:00")
+                        .endTime("11:00")
+                        .estimatedCost(5000L)
+                        .build());
+            }
+            days.add(Day.builder()
+                    .dayIndex(d)
+                    .date(LocalDate.of(2025, 10, d))
+                    .activities(activities)
+                    .build());
+        }
+        return days;
+    }
+
+    @Test
+    void testEncodeDecode_roundTrip() {
+        // Given
+        List<Day> days = sampleDays(3, 4);
+
+        // When
+        byte[] encoded = TripDaysCodec.encode(days);
+        List<Day> decoded = TripDaysCodec.decode(encoded);
+
+        // Then
+        assertEquals(TripDaysCodec.VERSION_DEFLATE_JSON, encoded[0]);
+        assertEquals(days, decoded);
+        assertEquals(139.796635, decoded.get(0).getActivities().get(0).getPoi().getLng());
+    }
+
+    @Test
+    void testEncode_emptyDays() {
+        // When
+        List<Day> decoded = TripDaysCodec.decode(TripDaysCodec.encode(List.of()));
+
+        // Then
+        assertTrue(decoded.isEmpty());
+    }
+
+    @Test
+    void testDecode_unsupportedVersion() {
+        // Given
+        byte[] encoded = TripDaysCodec.encode(sampleDays(1, 1));
+        encoded[0] = 99;
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> TripDaysCodec.decode(encoded));
+        assertTrue(exception.getMessage().contains("99"));
+    }
+
+    @Test
+    void testDecode_emptyBytes() {
+        assertThrows(IllegalArgumentException.class, () -> TripDaysCodec.decode(new byte[0]));
+    }
+
+    @Test
+    void testWithPoiReferences_blobRoundTripAndResolve() {
+        // Given
+        List<Day> days = sampleDays(3, 4);
+        List<AmapPoi> pois = TripDaysCodec.collectPois(days);
+        Map<String, AmapPoi> poiById = pois.stream().collect(Collectors.toMap(AmapPoi::getId, poi -> poi));
+
+        // When
+        List<Day> references = TripDaysCodec.withPoiReferences(days);
+        byte[] encoded = TripDaysCodec.encode(references);
+        List<Day> decoded = TripDaysCodec.decode(encoded);
+        TripDaysCodec.resolvePoiReferences(decoded, poiById);
+
+        // Then
+        assertEquals(12, pois.size());
+        assertEquals("浅草寺", days.get(0).getActivities().get(0).getPoi().getName(), "原对象不应被修改");
+        assertTrue(encoded.length < TripDaysCodec.encode(days).length);
+        assertEquals(days, decoded);
+    }
+
+    @Test
+    void testWithPoiReferences_mapFormat() {
+        // Given
+        List<Day> references = TripDaysCodec.withPoiReferences(sampleDays(1, 1));
+
+        // When
+        Map<String, Object> activityMap = activityMaps(TripDaysCodec.toMapList(references)).get(0);
+
+        // Then
+        assertEquals("B0FFG10", activityMap.get("poiId"));
+        assertFalse(activityMap.containsKey("poi"));
+    }
+
+    @Test
+    void testFromMapList_poiIdBecomesReference() {
+        // Given
+        Map<String, Object> activityMap = new HashMap<>();
+        activityMap.put("id", "act-1");
+        activityMap.put("dayIndex", 1L);
+        activityMap.put("poiId", "B0FFG10");
+        Map<String, Object> dayMap = new HashMap<>();
+        dayMap.put("dayIndex", 1L);
+        dayMap.put("activities", List.of(activityMap));
+
+        // When
+        List<Day> days = TripDaysCodec.fromMapList(List.of(dayMap));
+        Set<String> referenceIds = TripDaysCodec.collectPoiReferenceIds(days);
+        TripDaysCodec.resolvePoiReferences(days, Map.of());
+
+        // Then
+        assertEquals(Set.of("B0FFG10"), referenceIds);
+        assertEquals("B0FFG10", days.get(0).getActivities().get(0).getPoi().getId(), "未找到的 POI 保持引用");
+        assertTrue(TripDaysCodec.collectPois(days).isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> activityMaps(List<Map<String, Object>> dayMaps) {
+        return (List<Map<String, Object>>) dayMaps.get(0).get("activities");
+    }
+}
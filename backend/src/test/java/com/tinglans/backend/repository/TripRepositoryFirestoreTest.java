@@ -4,6 +4,8 @@ import com.google.cloud.firestore.Firestore;
 import com.tinglans.backend.domain.Activity;
 import com.tinglans.backend.domain.Day;
 import com.tinglans.backend.domain.Trip;
+import com.tinglans.backend.dto.PageResult;
+import com.tinglans.backend.dto.TripSummary;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +15,7 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 
@@ -34,6 +37,8 @@ public class TripRepositoryFirestoreTest {
 
     private static final String TEST_TRIP_ID = "test-trip-firestore-001";
     private static final String TEST_USER_ID = "test-user-001";
+    private static final String TEST_PAGE_USER_ID = "test-user-page-001";
+    private static final List<String> TEST_PAGE_TRIP_IDS = List.of("test-trip-page-001", "test-trip-page-002");
 
     private Trip createTestTrip(String tripId, String title) {
         Activity activity1 = Activity.builder()
@@ -113,12 +118,83 @@ public class TripRepositoryFirestoreTest {
         log.info("✅ Firestore 数据库验证通过！数据已成功持久化并可正确读取");
     }
 
+    @Test
+    @Order(3)
+    @DisplayName("3. 分页查询行程概要（仅投影概要字段）")
+    void test3_FindTripSummariesPaged() throws ExecutionException, InterruptedException {
+        log.info("=== 测试3: 分页查询行程概要 ===");
+
+        for (int i = 0; i < TEST_PAGE_TRIP_IDS.size(); i++) {
+            Trip trip = createTestTrip(TEST_PAGE_TRIP_IDS.get(i), "分页行程" + (i + 1));
+            trip.setUserId(TEST_PAGE_USER_ID);
+            trip.setCreatedAt(Instant.now().plusSeconds(i));
+            tripRepository.saveToFirestore(trip);
+        }
+
+        PageResult<TripSummary> firstPage = tripRepository.findTripSummariesByUserId(TEST_PAGE_USER_ID, 1, null);
+        assertEquals(1, firstPage.getItems().size());
+        assertEquals("test-trip-page-002", firstPage.getItems().get(0).getId(), "应按创建时间倒序返回");
+        assertEquals(2, firstPage.getItems().get(0).getHeadcount().getAdults());
+        assertNotNull(firstPage.getNextPageToken(), "还有下一页时应返回游标");
+
+        PageResult<TripSummary> secondPage = tripRepository.findTripSummariesByUserId(
+                TEST_PAGE_USER_ID, 1, firstPage.getNextPageToken());
+        assertEquals(1, secondPage.getItems().size());
+        assertEquals("test-trip-page-001", secondPage.getItems().get(0).getId());
+        assertNull(secondPage.getNextPageToken(), "最后一页不应返回游标");
+
+        log.info("✅ 分页查询成功");
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("4. 按当前格式重写行程，不覆盖其他字段")
+    void test4_RewriteInCurrentFormat() throws ExecutionException, InterruptedException {
+        log.info("=== 测试4: 按当前格式重写行程 ===");
+
+        firestore.collection("trips").document(TEST_TRIP_ID).update("title", "日本京都3日游（已修改）").get();
+
+        assertTrue(tripRepository.rewriteInCurrentFormat(TEST_TRIP_ID));
+        assertFalse(tripRepository.rewriteInCurrentFormat("test-trip-not-exists"));
+
+        Trip trip = tripRepository.getFromFirestore(TEST_TRIP_ID).orElseThrow();
+        assertEquals("日本京都3日游（已修改）", trip.getTitle(), "重写前读取到的修改应保留");
+        assertEquals(1, trip.getDays().size());
+        assertEquals(2, trip.getDays().get(0).getActivities().size());
+
+        log.info("✅ 重写成功");
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("5. 保存时删除不再使用的天文档")
+    void test5_SaveDeletesStaleDayDocuments() throws ExecutionException, InterruptedException {
+        log.info("=== 测试5: 保存时删除不再使用的天文档 ===");
+
+        // 模拟旧的 subcollection 格式遗留的天文档（行程只有 1 天）
+        firestore.collection("trips").document(TEST_TRIP_ID).collection("days").document("3")
+                .set(Map.of("dayIndex", 3L)).get();
+
+        tripRepository.saveToFirestore(createTestTrip(TEST_TRIP_ID, "日本京都3日游"));
+
+        assertFalse(firestore.collection("trips").document(TEST_TRIP_ID).collection("days").document("3")
+                .get().get().exists(), "超出天数的天文档应被删除");
+        assertTrue(tripRepository.getDayFromFirestore(TEST_TRIP_ID, 3).orElseThrow().isEmpty());
+        assertEquals(2, tripRepository.getDayFromFirestore(TEST_TRIP_ID, 1).orElseThrow().orElseThrow()
+                .getActivities().size());
+
+        log.info("✅ 过期天文档已删除");
+    }
+
     @AfterAll
     static void cleanup(@Autowired Firestore firestore) throws ExecutionException, InterruptedException {
         log.info("=== 清理测试数据 ===");
         
         try {
             firestore.collection("trips").document(TEST_TRIP_ID).delete().get();
+            for (String tripId : TEST_PAGE_TRIP_IDS) {
+                firestore.collection("trips").document(tripId).delete().get();
+            }
             log.info("✅ 已清理 Firestore 测试数据: {}", TEST_TRIP_ID);
         } catch (Exception e) {
             log.warn("⚠️ 清理 Firestore 数据失败: {}", e.getMessage());
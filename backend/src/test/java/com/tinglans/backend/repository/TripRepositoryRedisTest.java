@@ -166,6 +166,23 @@ public class TripRepositoryRedisTest {
         log.info("✅ Redis 删除成功: 行程已被移除");
     }
 
+    @Test
+    @Order(6)
+    @DisplayName("6. 行程不存在标记的写入与清除")
+    void testMissingTripTombstone() {
+        log.info("=== 测试: 行程不存在标记 ===");
+
+        tripRepository.markMissing("test-redis-trip-missing");
+        assertTrue(tripRepository.isMarkedMissing("test-redis-trip-missing"), "写入后应该被标记为不存在");
+
+        // 保存行程后标记应被清除
+        Trip trip = createTestTrip("test-redis-trip-missing", "重新生成的行程");
+        tripRepository.saveToCache(trip);
+        assertFalse(tripRepository.isMarkedMissing("test-redis-trip-missing"), "保存后不应再被标记为不存在");
+
+        log.info("✅ 不存在标记写入与清除成功");
+    }
+
     @AfterEach
     void cleanupAfterEach() {
         // 每个测试后清理测试数据
@@ -174,6 +191,7 @@ public class TripRepositoryRedisTest {
             tripRepository.deleteFromCache(TEST_TRIP_ID_2);
             tripRepository.deleteFromCache(TEST_TRIP_ID_3);
             tripRepository.deleteFromCache("test-redis-trip-delete");
+            tripRepository.deleteFromCache("test-redis-trip-missing");
             log.debug("测试数据清理完成");
         } catch (Exception e) {
             log.warn("清理测试数据时出错: {}", e.getMessage());
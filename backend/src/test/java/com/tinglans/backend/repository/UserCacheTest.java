@@ -0,0 +1,88 @@
+package com.tinglans.backend.repository;
+
+import com.tinglans.backend.domain.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * UserCache 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class UserCacheTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+
+    private UserCache userCache;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().doReturn(new GenericJackson2JsonRedisSerializer()).when(redisTemplate).getValueSerializer();
+        userCache = new UserCache(redisTemplate, 1800, 5, 30, 100);
+    }
+
+    @Test
+    void testPut_writesThroughWhenNotEvicted() {
+        // Given
+        User user = User.builder().id("user-1").username("alice").build();
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(List.of("user:user-1", "user:evicted:user-1")), any(), any())).thenReturn(1L);
+
+        // When
+        userCache.put(user);
+
+        // Then - 进程内缓存命中，不再读取 Redis
+        assertSame(user, userCache.get("user-1").orElseThrow());
+        verify(valueOperations, never()).get(anyString());
+    }
+
+    @Test
+    void testPut_skippedWhileEvicted() {
+        // Given - 写入前发起的读取在清除之后才回填
+        User staleUser = User.builder().id("user-1").username("alice").build();
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                anyList(), any(), any())).thenReturn(0L);
+
+        // When
+        userCache.put(staleUser);
+
+        // Then - 旧数据不进入进程内缓存
+        assertTrue(userCache.get("user-1").isEmpty());
+        verify(valueOperations).get("user:user-1");
+    }
+
+    @Test
+    void testEvict_removesLocalAndWritesEvictedMarker() {
+        // Given
+        User user = User.builder().id("user-1").build();
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                anyList(), any(), any())).thenReturn(1L);
+        userCache.put(user);
+
+        // When
+        userCache.evict("user-1");
+
+        // Then
+        verify(redisTemplate).execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(List.of("user:user-1", "user:evicted:user-1")), eq("5"));
+        assertTrue(userCache.get("user-1").isEmpty());
+    }
+}
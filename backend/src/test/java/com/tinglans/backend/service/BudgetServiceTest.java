@@ -13,6 +13,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -291,6 +292,35 @@ class BudgetServiceTest {
         verify(expenseService, times(1)).calculateExpenseByCategory(testTripId);
     }
 
+    @Test
+    void testGetBudgetSummaryAsync_success() throws ExecutionException, InterruptedException {
+        // Given
+        Map<String, Long> actualExpense = Map.of("transport", 600L, "food", 2800L);
+        when(expenseService.calculateExpenseByCategoryAsync(testTripId))
+                .thenReturn(CompletableFuture.completedFuture(actualExpense));
+
+        // When
+        BudgetService.BudgetSummary summary = budgetService.getBudgetSummaryAsync(testTrip).get();
+
+        // Then
+        assertEquals(36500L, summary.getTotalPlanned());
+        assertEquals(3400L, summary.getTotalActual());
+        verify(expenseService, never()).calculateExpenseByCategory(anyString());
+    }
+
+    @Test
+    void testGetBudgetSummaryAsync_expenseServiceFails() {
+        // Given
+        when(expenseService.calculateExpenseByCategoryAsync(testTripId))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Database error")));
+
+        // When & Then
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> {
+            budgetService.getBudgetSummaryAsync(testTrip).get();
+        });
+        assertEquals("Database error", exception.getCause().getMessage());
+    }
+
     @Test
     void testGetBudgetSummary_withNullTrip() throws ExecutionException, InterruptedException {
         // Given
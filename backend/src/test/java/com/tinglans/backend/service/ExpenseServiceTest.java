@@ -1,7 +1,10 @@
 package com.tinglans.backend.service;
 
 import com.tinglans.backend.common.BusinessException;
+import com.tinglans.backend.common.ResponseCode;
 import com.tinglans.backend.domain.Expense;
+import com.tinglans.backend.domain.ExpenseAggregate;
+import com.tinglans.backend.repository.ExpenseGroupCommitWriter;
 import com.tinglans.backend.repository.ExpenseRepository;
 import com.tinglans.backend.thirdparty.llm.QwenClient;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,6 +16,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,6 +35,9 @@ class ExpenseServiceTest {
     @Mock
     private QwenClient qwenClient;
 
+    @Mock
+    private ExpenseGroupCommitWriter expenseGroupCommitWriter;
+
     @InjectMocks
     private ExpenseService expenseService;
 
@@ -88,7 +95,7 @@ class ExpenseServiceTest {
                 """;
 
         when(qwenClient.chat(anyString(), eq(userInput))).thenReturn(llmResponse);
-        doNothing().when(expenseRepository).save(eq(testTripId), any(Expense.class));
+        when(expenseGroupCommitWriter.write(eq(testTripId), any(Expense.class))).thenReturn(CompletableFuture.completedFuture(null));
 
         // When
         Expense result = expenseService.createExpenseFromText(testTripId, userInput);
@@ -104,7 +111,7 @@ class ExpenseServiceTest {
         assertNotNull(result.getCreatedAt());
 
         verify(qwenClient, times(1)).chat(anyString(), eq(userInput));
-        verify(expenseRepository, times(1)).save(eq(testTripId), any(Expense.class));
+        verify(expenseGroupCommitWriter, times(1)).write(eq(testTripId), any(Expense.class));
     }
 
     @Test
@@ -120,7 +127,7 @@ class ExpenseServiceTest {
                 """;
 
         when(qwenClient.chat(anyString(), eq(userInput))).thenReturn(llmResponse);
-        doNothing().when(expenseRepository).save(anyString(), any(Expense.class));
+        when(expenseGroupCommitWriter.write(anyString(), any(Expense.class))).thenReturn(CompletableFuture.completedFuture(null));
 
         // When
         Expense result = expenseService.createExpenseFromText(testTripId, userInput);
@@ -144,7 +151,7 @@ class ExpenseServiceTest {
                 """;
 
         when(qwenClient.chat(anyString(), anyString())).thenReturn(llmResponse);
-        doNothing().when(expenseRepository).save(anyString(), any(Expense.class));
+        when(expenseGroupCommitWriter.write(anyString(), any(Expense.class))).thenReturn(CompletableFuture.completedFuture(null));
 
         // When
         Expense result = expenseService.createExpenseFromText(testTripId, userInput);
@@ -165,7 +172,7 @@ class ExpenseServiceTest {
                 """;
 
         when(qwenClient.chat(anyString(), eq(userInput))).thenReturn(llmResponse);
-        doNothing().when(expenseRepository).save(anyString(), any(Expense.class));
+        when(expenseGroupCommitWriter.write(anyString(), any(Expense.class))).thenReturn(CompletableFuture.completedFuture(null));
 
         // When
         Expense result = expenseService.createExpenseFromText(testTripId, userInput);
@@ -191,7 +198,7 @@ class ExpenseServiceTest {
         assertEquals("Invalid JSON format for expense data", exception.getMessage());
 
         verify(qwenClient, times(1)).chat(anyString(), eq(userInput));
-        verify(expenseRepository, never()).save(anyString(), any(Expense.class));
+        verify(expenseGroupCommitWriter, never()).write(anyString(), any(Expense.class));
     }
 
     @Test
@@ -206,7 +213,7 @@ class ExpenseServiceTest {
             expenseService.createExpenseFromText(testTripId, userInput);
         });
 
-        verify(expenseRepository, never()).save(anyString(), any(Expense.class));
+        verify(expenseGroupCommitWriter, never()).write(anyString(), any(Expense.class));
     }
 
     @Test
@@ -222,8 +229,8 @@ class ExpenseServiceTest {
                 """;
 
         when(qwenClient.chat(anyString(), eq(userInput))).thenReturn(llmResponse);
-        doThrow(new RuntimeException("Database error"))
-                .when(expenseRepository).save(anyString(), any(Expense.class));
+        when(expenseGroupCommitWriter.write(anyString(), any(Expense.class)))
+                .thenThrow(new RuntimeException("Database error"));
 
         // When & Then
         assertThrows(RuntimeException.class, () -> {
@@ -231,6 +238,28 @@ class ExpenseServiceTest {
         });
     }
 
+    @Test
+    void testCreateExpenseFromText_writeTimeout() throws ExecutionException, InterruptedException {
+        // Given - 写入一直未完成
+        String userInput = "花了100元";
+        String llmResponse = """
+                {
+                  "category": "other",
+                  "amountCents": 10000,
+                  "note": "其他支出"
+                }
+                """;
+
+        when(qwenClient.chat(anyString(), eq(userInput))).thenReturn(llmResponse);
+        when(expenseGroupCommitWriter.write(anyString(), any(Expense.class))).thenReturn(new CompletableFuture<>());
+        when(expenseGroupCommitWriter.getWriteTimeoutMillis()).thenReturn(50L);
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class, () ->
+                expenseService.createExpenseFromText(testTripId, userInput));
+        assertEquals(ResponseCode.SERVICE_UNAVAILABLE, exception.getResponseCode());
+    }
+
     @Test
     void testGetExpensesByTripId_success() throws ExecutionException, InterruptedException {
         // Given
@@ -277,7 +306,8 @@ class ExpenseServiceTest {
     @Test
     void testCalculateExpenseByCategory_success() throws ExecutionException, InterruptedException {
         // Given
-        when(expenseRepository.findByTripId(testTripId)).thenReturn(testExpenses);
+        when(expenseRepository.findAggregate(testTripId))
+                .thenReturn(Optional.of(ExpenseAggregate.fromExpenses(testTripId, testExpenses)));
 
         // When
         Map<String, Long> result = expenseService.calculateExpenseByCategory(testTripId);
@@ -288,12 +318,68 @@ class ExpenseServiceTest {
         assertEquals(1200L, result.get("transport"));
         assertNull(result.get("hotel"));  // 没有hotel类别的支出
 
-        verify(expenseRepository, times(1)).findByTripId(testTripId);
+        verify(expenseRepository, times(1)).findAggregate(testTripId);
+        verify(expenseRepository, never()).findByTripId(anyString());
+        verify(expenseRepository, never()).rebuildAggregate(anyString());
+    }
+
+    @Test
+    void testCalculateExpenseByCategory_computeWithoutWriteWhenAggregateMissing()
+            throws ExecutionException, InterruptedException {
+        // Given
+        when(expenseRepository.findAggregate(testTripId)).thenReturn(Optional.empty());
+        when(expenseRepository.findByTripId(testTripId)).thenReturn(testExpenses);
+
+        // When
+        Map<String, Long> result = expenseService.calculateExpenseByCategory(testTripId);
+
+        // Then - 读请求不写入聚合文档
+        assertEquals(8000L, result.get("food"));
+        assertEquals(1200L, result.get("transport"));
+        verify(expenseRepository, never()).rebuildAggregate(anyString());
+    }
+
+    @Test
+    void testCalculateExpenseByCategoryAsync_computeWithoutWriteWhenAggregateMissing()
+            throws ExecutionException, InterruptedException {
+        // Given
+        when(expenseRepository.findAggregateAsync(testTripId))
+                .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+        when(expenseRepository.findByTripIdAsync(testTripId))
+                .thenReturn(CompletableFuture.completedFuture(testExpenses));
+
+        // When
+        Map<String, Long> result = expenseService.calculateExpenseByCategoryAsync(testTripId).get();
+
+        // Then
+        assertEquals(8000L, result.get("food"));
+        assertEquals(1200L, result.get("transport"));
+        verify(expenseRepository, never()).findAggregate(anyString());
+        verify(expenseRepository, never()).rebuildAggregateAsync(anyString());
+    }
+
+    @Test
+    void testCalculateExpenseByCategory_skipCategoriesWithoutExpenses() throws ExecutionException, InterruptedException {
+        // Given - 餐饮支出已全部删除，聚合中笔数归零
+        ExpenseAggregate aggregate = ExpenseAggregate.builder()
+                .tripId(testTripId)
+                .totals(new HashMap<>(Map.of("food", 0L, "transport", 1200L)))
+                .counts(new HashMap<>(Map.of("food", 0L, "transport", 1L)))
+                .build();
+        when(expenseRepository.findAggregate(testTripId)).thenReturn(Optional.of(aggregate));
+
+        // When
+        Map<String, Long> result = expenseService.calculateExpenseByCategory(testTripId);
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals(1200L, result.get("transport"));
     }
 
     @Test
     void testCalculateExpenseByCategory_emptyExpenses() throws ExecutionException, InterruptedException {
         // Given
+        when(expenseRepository.findAggregate(testTripId)).thenReturn(Optional.empty());
         when(expenseRepository.findByTripId(testTripId)).thenReturn(new ArrayList<>());
 
         // When
@@ -316,7 +402,8 @@ class ExpenseServiceTest {
                 Expense.builder().category("food").amountCents(1500L).build()
         );
 
-        when(expenseRepository.findByTripId(testTripId)).thenReturn(diverseExpenses);
+        when(expenseRepository.findAggregate(testTripId))
+                .thenReturn(Optional.of(ExpenseAggregate.fromExpenses(testTripId, diverseExpenses)));
 
         // When
         Map<String, Long> result = expenseService.calculateExpenseByCategory(testTripId);
@@ -338,7 +425,8 @@ class ExpenseServiceTest {
                 Expense.builder().category("food").amountCents(3000L).build()
         );
 
-        when(expenseRepository.findByTripId(testTripId)).thenReturn(singleCategoryExpenses);
+        when(expenseRepository.findAggregate(testTripId))
+                .thenReturn(Optional.of(ExpenseAggregate.fromExpenses(testTripId, singleCategoryExpenses)));
 
         // When
         Map<String, Long> result = expenseService.calculateExpenseByCategory(testTripId);
@@ -348,6 +436,25 @@ class ExpenseServiceTest {
         assertEquals(6000L, result.get("food"));
     }
 
+    @Test
+    void testUpdateExpenseShardCount_success() throws ExecutionException, InterruptedException {
+        // When
+        expenseService.updateExpenseShardCount(testTripId, 10);
+
+        // Then
+        verify(expenseRepository, times(1)).updateShardCount(testTripId, 10);
+    }
+
+    @Test
+    void testUpdateExpenseShardCount_outOfRange() throws ExecutionException, InterruptedException {
+        // When & Then
+        assertThrows(BusinessException.class, () -> expenseService.updateExpenseShardCount(testTripId, 0));
+        assertThrows(BusinessException.class, () -> expenseService.updateExpenseShardCount(testTripId, 51));
+        assertThrows(BusinessException.class, () -> expenseService.updateExpenseShardCount(testTripId, null));
+
+        verify(expenseRepository, never()).updateShardCount(anyString(), anyInt());
+    }
+
     @Test
     void testParseExpenseJson_allCategories() throws ExecutionException, InterruptedException {
         // Test all category types
@@ -365,7 +472,7 @@ class ExpenseServiceTest {
                     """, category);
 
             when(qwenClient.chat(anyString(), eq(userInput))).thenReturn(llmResponse);
-            doNothing().when(expenseRepository).save(anyString(), any(Expense.class));
+            when(expenseGroupCommitWriter.write(anyString(), any(Expense.class))).thenReturn(CompletableFuture.completedFuture(null));
 
             // When
             Expense result = expenseService.createExpenseFromText(testTripId, userInput);
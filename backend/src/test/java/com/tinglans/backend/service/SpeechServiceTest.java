@@ -2,10 +2,12 @@ package com.tinglans.backend.service;
 
 import com.tinglans.backend.common.BusinessException;
 import com.tinglans.backend.common.ResponseCode;
+import com.tinglans.backend.repository.TranscriptCache;
 import com.tinglans.backend.thirdparty.stt.XfyunAsrClient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -14,9 +16,12 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 /**
@@ -28,6 +33,9 @@ class SpeechServiceTest {
     @Mock
     private XfyunAsrClient xfyunAsrClient;
 
+    @Mock
+    private TranscriptCache transcriptCache;
+
     @Mock
     private MultipartFile multipartFile;
 
@@ -50,28 +58,30 @@ class SpeechServiceTest {
         when(multipartFile.getOriginalFilename()).thenReturn("test.wav");
         when(multipartFile.getSize()).thenReturn((long) mockAudioData.length);
         when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(mockAudioData));
-        when(xfyunAsrClient.transcribe(any())).thenReturn(expectedTranscript);
+        when(xfyunAsrClient.transcribeAsync(any(InputStream.class), anyString(), anyLong())).thenReturn(CompletableFuture.completedFuture(expectedTranscript));
 
         // When
-        String result = speechService.transcribeVoice(multipartFile);
+        String result = speechService.transcribeVoiceAsync(multipartFile).join();
 
         // Then
         assertNotNull(result);
         assertEquals(expectedTranscript, result);
-        verify(xfyunAsrClient, times(1)).transcribe(any());
-        verify(multipartFile, times(1)).getInputStream();
+        verify(xfyunAsrClient, times(1)).transcribeAsync(any(InputStream.class), eq("audio.wav"), eq((long) mockAudioData.length));
+        // 先读取一次计算内容哈希，再读取一次上传
+        verify(multipartFile, times(2)).getInputStream();
+        verify(transcriptCache).put(anyString(), eq(expectedTranscript));
     }
 
     @Test
     void testTranscribeVoice_withNullFile() throws Exception {
         // When & Then
         BusinessException exception = assertThrows(BusinessException.class, () -> {
-            speechService.transcribeVoice(null);
+            speechService.transcribeVoiceAsync(null);
         });
 
         assertEquals(ResponseCode.INVALID_PARAM, exception.getResponseCode());
         assertEquals("音频文件不能为空", exception.getMessage());
-        verify(xfyunAsrClient, never()).transcribe(any());
+        verify(xfyunAsrClient, never()).transcribeAsync(any(InputStream.class), anyString(), anyLong());
     }
 
     @Test
@@ -81,12 +91,12 @@ class SpeechServiceTest {
 
         // When & Then
         BusinessException exception = assertThrows(BusinessException.class, () -> {
-            speechService.transcribeVoice(multipartFile);
+            speechService.transcribeVoiceAsync(multipartFile);
         });
 
         assertEquals(ResponseCode.INVALID_PARAM, exception.getResponseCode());
         assertEquals("音频文件不能为空", exception.getMessage());
-        verify(xfyunAsrClient, never()).transcribe(any());
+        verify(xfyunAsrClient, never()).transcribeAsync(any(InputStream.class), anyString(), anyLong());
     }
 
     @Test
@@ -96,13 +106,14 @@ class SpeechServiceTest {
         when(multipartFile.getOriginalFilename()).thenReturn("test.wav");
         when(multipartFile.getSize()).thenReturn((long) mockAudioData.length);
         when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(mockAudioData));
-        when(xfyunAsrClient.transcribe(any())).thenReturn("");
+        when(xfyunAsrClient.transcribeAsync(any(InputStream.class), anyString(), anyLong())).thenReturn(CompletableFuture.completedFuture(""));
 
         // When & Then
-        BusinessException exception = assertThrows(BusinessException.class, () -> {
-            speechService.transcribeVoice(multipartFile);
+        CompletionException completionException = assertThrows(CompletionException.class, () -> {
+            speechService.transcribeVoiceAsync(multipartFile).join();
         });
 
+        BusinessException exception = assertInstanceOf(BusinessException.class, completionException.getCause());
         assertEquals(ResponseCode.VOICE_RECOGNITION_FAILED, exception.getResponseCode());
         assertEquals("语音识别失败，未能识别出文本", exception.getMessage());
     }
@@ -114,13 +125,14 @@ class SpeechServiceTest {
         when(multipartFile.getOriginalFilename()).thenReturn("test.wav");
         when(multipartFile.getSize()).thenReturn((long) mockAudioData.length);
         when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(mockAudioData));
-        when(xfyunAsrClient.transcribe(any())).thenReturn(null);
+        when(xfyunAsrClient.transcribeAsync(any(InputStream.class), anyString(), anyLong())).thenReturn(CompletableFuture.completedFuture(null));
 
         // When & Then
-        BusinessException exception = assertThrows(BusinessException.class, () -> {
-            speechService.transcribeVoice(multipartFile);
+        CompletionException completionException = assertThrows(CompletionException.class, () -> {
+            speechService.transcribeVoiceAsync(multipartFile).join();
         });
 
+        BusinessException exception = assertInstanceOf(BusinessException.class, completionException.getCause());
         assertEquals(ResponseCode.VOICE_RECOGNITION_FAILED, exception.getResponseCode());
     }
 
@@ -131,9 +143,9 @@ class SpeechServiceTest {
         when(multipartFile.getOriginalFilename()).thenReturn("audio.mp3");
         when(multipartFile.getSize()).thenReturn((long) mockAudioData.length);
         when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(mockAudioData));
-        when(xfyunAsrClient.transcribe(any())).thenReturn(expectedTranscript);
+        when(xfyunAsrClient.transcribeAsync(any(InputStream.class), anyString(), anyLong())).thenReturn(CompletableFuture.completedFuture(expectedTranscript));
 
-        String result = speechService.transcribeVoice(multipartFile);
+        String result = speechService.transcribeVoiceAsync(multipartFile).join();
 
         assertNotNull(result);
         assertEquals(expectedTranscript, result);
@@ -146,10 +158,10 @@ class SpeechServiceTest {
         when(multipartFile.getOriginalFilename()).thenReturn("audiofile");
         when(multipartFile.getSize()).thenReturn((long) mockAudioData.length);
         when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(mockAudioData));
-        when(xfyunAsrClient.transcribe(any())).thenReturn(expectedTranscript);
+        when(xfyunAsrClient.transcribeAsync(any(InputStream.class), anyString(), anyLong())).thenReturn(CompletableFuture.completedFuture(expectedTranscript));
 
         // When
-        String result = speechService.transcribeVoice(multipartFile);
+        String result = speechService.transcribeVoiceAsync(multipartFile).join();
 
         // Then
         assertNotNull(result);
@@ -166,10 +178,10 @@ class SpeechServiceTest {
 
         // When & Then
         assertThrows(IOException.class, () -> {
-            speechService.transcribeVoice(multipartFile);
+            speechService.transcribeVoiceAsync(multipartFile);
         });
 
-        verify(xfyunAsrClient, never()).transcribe(any());
+        verify(xfyunAsrClient, never()).transcribeAsync(any(InputStream.class), anyString(), anyLong());
     }
 
     @Test
@@ -179,12 +191,15 @@ class SpeechServiceTest {
         when(multipartFile.getOriginalFilename()).thenReturn("test.wav");
         when(multipartFile.getSize()).thenReturn((long) mockAudioData.length);
         when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(mockAudioData));
-        when(xfyunAsrClient.transcribe(any())).thenThrow(new InterruptedException("STT service interrupted"));
+        when(xfyunAsrClient.transcribeAsync(any(InputStream.class), anyString(), anyLong()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("转写任务超时，任务ID: task-1")));
 
         // When & Then
-        assertThrows(InterruptedException.class, () -> {
-            speechService.transcribeVoice(multipartFile);
+        CompletionException exception = assertThrows(CompletionException.class, () -> {
+            speechService.transcribeVoiceAsync(multipartFile).join();
         });
+
+        assertEquals("转写任务超时，任务ID: task-1", exception.getCause().getMessage());
     }
 
     @Test
@@ -196,10 +211,10 @@ class SpeechServiceTest {
         when(multipartFile.getOriginalFilename()).thenReturn("long_audio.wav");
         when(multipartFile.getSize()).thenReturn(102400L);  // 100KB
         when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(mockAudioData));
-        when(xfyunAsrClient.transcribe(any())).thenReturn(longTranscript);
+        when(xfyunAsrClient.transcribeAsync(any(InputStream.class), anyString(), anyLong())).thenReturn(CompletableFuture.completedFuture(longTranscript));
 
         // When
-        String result = speechService.transcribeVoice(multipartFile);
+        String result = speechService.transcribeVoiceAsync(multipartFile).join();
 
         // Then
         assertNotNull(result);
@@ -216,10 +231,10 @@ class SpeechServiceTest {
         when(multipartFile.getOriginalFilename()).thenReturn("mixed.wav");
         when(multipartFile.getSize()).thenReturn((long) mockAudioData.length);
         when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(mockAudioData));
-        when(xfyunAsrClient.transcribe(any())).thenReturn(mixedTranscript);
+        when(xfyunAsrClient.transcribeAsync(any(InputStream.class), anyString(), anyLong())).thenReturn(CompletableFuture.completedFuture(mixedTranscript));
 
         // When
-        String result = speechService.transcribeVoice(multipartFile);
+        String result = speechService.transcribeVoiceAsync(multipartFile).join();
 
         // Then
         assertNotNull(result);
@@ -227,4 +242,89 @@ class SpeechServiceTest {
         assertTrue(result.contains("Tokyo"));
         assertTrue(result.contains("明天"));
     }
+
+    @Test
+    void testTranscribeVoice_cacheHitSkipsUpload() throws IOException, InterruptedException {
+        // Given
+        when(multipartFile.isEmpty()).thenReturn(false);
+        when(multipartFile.getOriginalFilename()).thenReturn("test.wav");
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(mockAudioData));
+        when(transcriptCache.get(anyString())).thenReturn(Optional.of(expectedTranscript));
+
+        // When
+        String result = speechService.transcribeVoiceAsync(multipartFile).join();
+
+        // Then
+        assertEquals(expectedTranscript, result);
+        verify(xfyunAsrClient, never()).transcribeAsync(any(InputStream.class), anyString(), anyLong());
+        verify(multipartFile, times(1)).getInputStream();
+    }
+
+    @Test
+    void testTranscribeVoice_sameContentSameHash() throws IOException, InterruptedException {
+        // Given - 两次上传相同内容，第二次应使用第一次缓存的键
+        when(multipartFile.isEmpty()).thenReturn(false);
+        when(multipartFile.getOriginalFilename()).thenReturn("retry.wav");
+        when(multipartFile.getSize()).thenReturn((long) mockAudioData.length);
+        when(multipartFile.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(mockAudioData));
+        when(xfyunAsrClient.transcribeAsync(any(InputStream.class), anyString(), anyLong()))
+                .thenReturn(CompletableFuture.completedFuture(expectedTranscript));
+
+        // When
+        speechService.transcribeVoiceAsync(multipartFile).join();
+        speechService.transcribeVoiceAsync(multipartFile).join();
+
+        // Then
+        ArgumentCaptor<String> putKey = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> getKey = ArgumentCaptor.forClass(String.class);
+        verify(transcriptCache, times(2)).put(putKey.capture(), eq(expectedTranscript));
+        verify(transcriptCache, times(2)).get(getKey.capture());
+        assertEquals(64, putKey.getValue().length());
+        assertEquals(getKey.getAllValues().get(0), getKey.getAllValues().get(1));
+        assertEquals(putKey.getAllValues().get(0), getKey.getAllValues().get(1));
+    }
+
+    @Test
+    void testTranscribeVoice_concurrentIdenticalUploadsCoalesced() throws IOException, InterruptedException {
+        // Given - 第一次识别尚未完成
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        when(multipartFile.isEmpty()).thenReturn(false);
+        when(multipartFile.getOriginalFilename()).thenReturn("test.wav");
+        when(multipartFile.getSize()).thenReturn((long) mockAudioData.length);
+        when(multipartFile.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(mockAudioData));
+        when(xfyunAsrClient.transcribeAsync(any(InputStream.class), anyString(), anyLong())).thenReturn(upstream);
+
+        // When
+        CompletableFuture<String> first = speechService.transcribeVoiceAsync(multipartFile);
+        CompletableFuture<String> second = speechService.transcribeVoiceAsync(multipartFile);
+        upstream.complete(expectedTranscript);
+
+        // Then - 只发起一次识别，两个请求得到相同结果
+        assertEquals(expectedTranscript, first.join());
+        assertEquals(expectedTranscript, second.join());
+        verify(xfyunAsrClient, times(1)).transcribeAsync(any(InputStream.class), anyString(), anyLong());
+        verify(transcriptCache, times(1)).put(anyString(), eq(expectedTranscript));
+    }
+
+    @Test
+    void testTranscribeVoice_failureNotCachedAndRetryable() throws IOException, InterruptedException {
+        // Given - 第一次识别失败，第二次成功
+        when(multipartFile.isEmpty()).thenReturn(false);
+        when(multipartFile.getOriginalFilename()).thenReturn("test.wav");
+        when(multipartFile.getSize()).thenReturn((long) mockAudioData.length);
+        when(multipartFile.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(mockAudioData));
+        when(xfyunAsrClient.transcribeAsync(any(InputStream.class), anyString(), anyLong()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("查询任务失败")))
+                .thenReturn(CompletableFuture.completedFuture(expectedTranscript));
+
+        // When
+        CompletableFuture<String> failed = speechService.transcribeVoiceAsync(multipartFile);
+        String retried = speechService.transcribeVoiceAsync(multipartFile).join();
+
+        // Then
+        assertThrows(CompletionException.class, failed::join);
+        assertEquals(expectedTranscript, retried);
+        verify(xfyunAsrClient, times(2)).transcribeAsync(any(InputStream.class), anyString(), anyLong());
+        verify(transcriptCache, times(1)).put(anyString(), anyString());
+    }
 }
@@ -0,0 +1,98 @@
+package com.tinglans.backend.service;
+
+import com.tinglans.backend.dto.StreamingTranscriptEvent;
+import com.tinglans.backend.thirdparty.stt.StreamingAsrClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * StreamingSpeechService 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class StreamingSpeechServiceTest {
+
+    @Mock
+    private StreamingAsrClient streamingAsrClient;
+
+    @Mock
+    private StreamingAsrClient.Session asrSession;
+
+    private StreamingSpeechService streamingSpeechService;
+    private final List<StreamingTranscriptEvent> events = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // 单次会话上限 1 秒音频
+        streamingSpeechService = new StreamingSpeechService(streamingAsrClient, 1);
+        when(streamingAsrClient.open(any())).thenReturn(asrSession);
+    }
+
+    @Test
+    void testResults_mergeConfirmedSentencesWithPartial() {
+        // Given
+        streamingSpeechService.start("user-1", events::add);
+        StreamingAsrClient.Listener listener = captureListener();
+
+        // When
+        listener.onResult("今天", false);
+        listener.onResult("今天去东京", true);
+        listener.onResult("塔", false);
+        listener.onResult("塔玩", true);
+        listener.onComplete();
+
+        // Then
+        assertEquals(List.of("今天", "今天去东京", "今天去东京塔", "今天去东京塔玩"),
+                events.subList(0, 4).stream().map(StreamingTranscriptEvent::getText).toList());
+        StreamingTranscriptEvent last = events.get(4);
+        assertEquals(StreamingTranscriptEvent.TYPE_FINAL, last.getType());
+        assertEquals("今天去东京塔玩", last.getText());
+        assertTrue(last.isTerminal());
+    }
+
+    @Test
+    void testAccept_autoFinishAtMaxDuration() {
+        // Given
+        StreamingSpeechService.Transcription transcription = streamingSpeechService.start("user-1", events::add);
+
+        // When - 发送 1.25 秒音频
+        for (int i = 0; i < 5; i++) {
+            transcription.accept(new byte[8000]);
+        }
+
+        // Then - 达到 1 秒后结束，之后的音频丢弃
+        verify(asrSession, times(4)).sendAudio(any());
+        verify(asrSession, times(1)).finish();
+    }
+
+    @Test
+    void testError_pushesErrorEvent() {
+        // Given
+        streamingSpeechService.start("user-1", events::add);
+        StreamingAsrClient.Listener listener = captureListener();
+
+        // When
+        listener.onError(new RuntimeException("实时语音转写失败: 10110"));
+
+        // Then
+        assertEquals(1, events.size());
+        assertEquals(StreamingTranscriptEvent.TYPE_ERROR, events.get(0).getType());
+        assertTrue(events.get(0).isTerminal());
+    }
+
+    private StreamingAsrClient.Listener captureListener() {
+        ArgumentCaptor<StreamingAsrClient.Listener> captor = ArgumentCaptor.forClass(StreamingAsrClient.Listener.class);
+        verify(streamingAsrClient).open(captor.capture());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,311 @@
+package com.tinglans.backend.service;
+
+import com.tinglans.backend.common.BusinessException;
+import com.tinglans.backend.common.ResponseCode;
+import com.tinglans.backend.dto.TranscriptionJob;
+import com.tinglans.backend.repository.TranscriptionJobRepository;
+import com.tinglans.backend.thirdparty.stt.XfyunAsrClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * TranscriptionJobService 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class TranscriptionJobServiceTest {
+
+    @Mock
+    private XfyunAsrClient xfyunAsrClient;
+
+    @Mock
+    private TranscriptionJobRepository jobRepository;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Mock
+    private MultipartFile multipartFile;
+
+    private TranscriptionJobService transcriptionJobService;
+    private MessageListener finishedListener;
+
+    private final Map<String, TranscriptionJob> store = new HashMap<>();
+    private final Set<String> running = new HashSet<>();
+    private final byte[] mockAudioData = "mock audio data".getBytes();
+
+    @BeforeEach
+    void setUp() {
+        transcriptionJobService = new TranscriptionJobService(xfyunAsrClient, jobRepository, listenerContainer, 600);
+        transcriptionJobService.subscribe();
+
+        ArgumentCaptor<MessageListener> listenerCaptor = ArgumentCaptor.forClass(MessageListener.class);
+        verify(listenerContainer).addMessageListener(listenerCaptor.capture(), any(Topic.class));
+        finishedListener = listenerCaptor.getValue();
+
+        // Redis 中的任务状态用内存 Map 模拟
+        lenient().doAnswer(invocation -> {
+            TranscriptionJob job = invocation.getArgument(0);
+            store.put(job.getId(), copyOf(job));
+            return null;
+        }).when(jobRepository).save(any(TranscriptionJob.class));
+        lenient().doAnswer(invocation -> {
+            TranscriptionJob job = invocation.getArgument(0);
+            store.put(job.getId(), copyOf(job));
+            running.add(job.getId());
+            return null;
+        }).when(jobRepository).saveRunning(any(TranscriptionJob.class));
+        lenient().when(jobRepository.finishIfRunning(any(TranscriptionJob.class))).thenAnswer(invocation -> {
+            TranscriptionJob job = invocation.getArgument(0);
+            if (!running.remove(job.getId())) {
+                return false;
+            }
+            store.put(job.getId(), copyOf(job));
+            return true;
+        });
+        lenient().when(jobRepository.findRunningJobIds()).thenAnswer(invocation -> Set.copyOf(running));
+        lenient().when(jobRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(store.get(invocation.<String>getArgument(0))).map(this::copyOf));
+    }
+
+    @Test
+    void testSubmit_savesRunningJobAndSchedulesFallbackPoll() throws Exception {
+        // Given
+        mockUpload();
+        when(xfyunAsrClient.isCallbackEnabled()).thenReturn(true);
+        when(xfyunAsrClient.awaitTaskResult(eq("task-1"), anyLong(), eq(true))).thenReturn(new CompletableFuture<>());
+
+        // When
+        TranscriptionJob job = transcriptionJobService.submit(multipartFile, "user-1");
+
+        // Then
+        assertEquals(TranscriptionJob.Status.RUNNING, job.getStatus());
+        assertEquals("task-1", job.getTaskId());
+        assertEquals(TranscriptionJob.Status.RUNNING, store.get(job.getId()).getStatus());
+        verify(xfyunAsrClient).submitTask(any(InputStream.class), eq("audio.wav"), eq((long) mockAudioData.length));
+        verify(jobRepository).saveTaskMapping("task-1", job.getId());
+        // 监听容器不随应用启动，首次提交时启动
+        verify(listenerContainer).start();
+    }
+
+    @Test
+    void testSubmit_emptyFile() throws Exception {
+        // Given
+        when(multipartFile.isEmpty()).thenReturn(true);
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> transcriptionJobService.submit(multipartFile, "user-1"));
+        assertEquals(ResponseCode.INVALID_PARAM, exception.getResponseCode());
+        verify(xfyunAsrClient, never()).submitTask(any(InputStream.class), anyString(), anyLong());
+        verify(listenerContainer, never()).start();
+    }
+
+    @Test
+    void testPollCompletes_jobSucceededAndPublished() throws Exception {
+        // Given
+        mockUpload();
+        CompletableFuture<String> poll = new CompletableFuture<>();
+        when(xfyunAsrClient.awaitTaskResult(eq("task-1"), anyLong(), anyBoolean())).thenReturn(poll);
+        TranscriptionJob job = transcriptionJobService.submit(multipartFile, "user-1");
+
+        // When
+        poll.complete("今天去东京塔玩");
+
+        // Then
+        TranscriptionJob finished = store.get(job.getId());
+        assertEquals(TranscriptionJob.Status.SUCCEEDED, finished.getStatus());
+        assertEquals("今天去东京塔玩", finished.getTranscript());
+        assertFalse(running.contains(job.getId()));
+        verify(jobRepository).publishFinished(job.getId());
+    }
+
+    @Test
+    void testFinish_alreadyFinishedElsewhereIsNotOverwritten() throws Exception {
+        // Given - 其他节点（或回调）已原子地结束任务，本节点读到的状态仍为 RUNNING
+        mockUpload();
+        CompletableFuture<String> poll = new CompletableFuture<>();
+        when(xfyunAsrClient.awaitTaskResult(eq("task-1"), anyLong(), anyBoolean())).thenReturn(poll);
+        TranscriptionJob job = transcriptionJobService.submit(multipartFile, "user-1");
+        running.remove(job.getId());
+
+        // When
+        poll.complete("本节点的结果");
+
+        // Then
+        assertEquals(TranscriptionJob.Status.RUNNING, store.get(job.getId()).getStatus());
+        verify(jobRepository, never()).publishFinished(anyString());
+    }
+
+    @Test
+    void testRun_resumesRunningJobsAndDropsExpired() {
+        // Given - 重启前提交的任务仍在转写中，另一个任务状态已过期
+        store.put("job-1", runningJob("job-1", "user-1"));
+        running.add("job-1");
+        running.add("job-expired");
+        CompletableFuture<String> poll = new CompletableFuture<>();
+        when(xfyunAsrClient.awaitTaskResult("task-1", 0, false)).thenReturn(poll);
+
+        // When
+        transcriptionJobService.run(null);
+        poll.complete("今天去东京塔玩");
+
+        // Then
+        verify(jobRepository).removeRunning("job-expired");
+        assertEquals(TranscriptionJob.Status.SUCCEEDED, store.get("job-1").getStatus());
+        verify(jobRepository).publishFinished("job-1");
+    }
+
+    @Test
+    void testRun_redisUnavailableDoesNotFailStartup() {
+        // Given
+        when(jobRepository.findRunningJobIds()).thenThrow(new IllegalStateException("Unable to connect to Redis"));
+
+        // When & Then
+        assertDoesNotThrow(() -> transcriptionJobService.run(null));
+        verify(xfyunAsrClient, never()).awaitTaskResult(anyString(), anyLong(), anyBoolean());
+    }
+
+    @Test
+    void testPollReturnsEmpty_jobFailed() throws Exception {
+        // Given
+        mockUpload();
+        CompletableFuture<String> poll = new CompletableFuture<>();
+        when(xfyunAsrClient.awaitTaskResult(eq("task-1"), anyLong(), anyBoolean())).thenReturn(poll);
+        TranscriptionJob job = transcriptionJobService.submit(multipartFile, "user-1");
+
+        // When
+        poll.complete("");
+
+        // Then
+        TranscriptionJob finished = store.get(job.getId());
+        assertEquals(TranscriptionJob.Status.FAILED, finished.getStatus());
+        assertEquals("语音识别失败，未能识别出文本", finished.getErrorMessage());
+    }
+
+    @Test
+    void testHandleCallback_finishesJobAndCancelsPoll() throws Exception {
+        // Given
+        mockUpload();
+        CompletableFuture<String> poll = new CompletableFuture<>();
+        when(xfyunAsrClient.awaitTaskResult(eq("task-1"), anyLong(), anyBoolean())).thenReturn(poll);
+        TranscriptionJob job = transcriptionJobService.submit(multipartFile, "user-1");
+        when(jobRepository.findJobIdByTaskId("task-1")).thenReturn(Optional.of(job.getId()));
+        when(xfyunAsrClient.fetchTaskResult("task-1")).thenReturn(Optional.of("明天去Tokyo Tower"));
+
+        // When
+        transcriptionJobService.handleCallback("task-1");
+
+        // Then
+        assertEquals(TranscriptionJob.Status.SUCCEEDED, store.get(job.getId()).getStatus());
+        assertEquals("明天去Tokyo Tower", store.get(job.getId()).getTranscript());
+        assertTrue(poll.isCancelled());
+        verify(jobRepository, times(1)).publishFinished(job.getId());
+    }
+
+    @Test
+    void testHandleCallback_unknownTask() {
+        // Given
+        when(jobRepository.findJobIdByTaskId("task-unknown")).thenReturn(Optional.empty());
+
+        // When
+        transcriptionJobService.handleCallback("task-unknown");
+
+        // Then
+        verify(xfyunAsrClient, never()).fetchTaskResult(anyString());
+        verify(jobRepository, never()).publishFinished(anyString());
+    }
+
+    @Test
+    void testAwaitJob_completesOnFinishedNotification() {
+        // Given - 任务由其他节点完成
+        TranscriptionJob runningJob = runningJob("job-1", "user-1");
+        store.put(runningJob.getId(), runningJob);
+        CompletableFuture<String> adoptedPoll = new CompletableFuture<>();
+        when(xfyunAsrClient.awaitTaskResult("task-1", 0, false)).thenReturn(adoptedPoll);
+        CompletableFuture<TranscriptionJob> waiter = transcriptionJobService.awaitJob("job-1", "user-1");
+        assertFalse(waiter.isDone());
+
+        TranscriptionJob finished = copyOf(runningJob);
+        finished.setStatus(TranscriptionJob.Status.SUCCEEDED);
+        finished.setTranscript("今天去东京塔玩");
+        store.put(finished.getId(), finished);
+
+        // When
+        finishedListener.onMessage(new DefaultMessage(
+                TranscriptionJobRepository.FINISHED_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "job-1".getBytes(StandardCharsets.UTF_8)), null);
+
+        // Then
+        assertTrue(waiter.isDone());
+        assertEquals("今天去东京塔玩", waiter.join().getTranscript());
+        // 本节点没有轮询时接管，结束通知到达后取消
+        assertTrue(adoptedPoll.isCancelled());
+    }
+
+    @Test
+    void testGetJob_otherUser() {
+        // Given
+        store.put("job-1", runningJob("job-1", "user-1"));
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> transcriptionJobService.getJob("job-1", "user-2"));
+        assertEquals(ResponseCode.PERMISSION_DENIED, exception.getResponseCode());
+    }
+
+    @Test
+    void testGetJob_notFound() {
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> transcriptionJobService.getJob("job-missing", "user-1"));
+        assertEquals(ResponseCode.NOT_FOUND, exception.getResponseCode());
+    }
+
+    private void mockUpload() throws Exception {
+        when(multipartFile.isEmpty()).thenReturn(false);
+        when(multipartFile.getOriginalFilename()).thenReturn("test.wav");
+        when(multipartFile.getSize()).thenReturn((long) mockAudioData.length);
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(mockAudioData));
+        when(xfyunAsrClient.submitTask(any(InputStream.class), anyString(), anyLong())).thenReturn("task-1");
+    }
+
+    private TranscriptionJob runningJob(String jobId, String userId) {
+        return TranscriptionJob.builder()
+                .id(jobId)
+                .userId(userId)
+                .taskId("task-1")
+                .status(TranscriptionJob.Status.RUNNING)
+                .createdAt(Instant.now())
+                .updatedAt(Instant.now())
+                .build();
+    }
+
+    private TranscriptionJob copyOf(TranscriptionJob job) {
+        return new TranscriptionJob(job.getId(), job.getUserId(), job.getTaskId(), job.getStatus(),
+                job.getTranscript(), job.getErrorMessage(), job.getCreatedAt(), job.getUpdatedAt());
+    }
+}
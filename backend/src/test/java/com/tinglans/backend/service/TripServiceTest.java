@@ -1,22 +1,34 @@
 package com.tinglans.backend.service;
 
 import com.tinglans.backend.common.BusinessException;
+import com.tinglans.backend.common.ResponseCode;
 import com.tinglans.backend.domain.Activity;
 import com.tinglans.backend.domain.Day;
 import com.tinglans.backend.domain.Trip;
+import com.tinglans.backend.dto.PageResult;
+import com.tinglans.backend.dto.TripHeader;
+import com.tinglans.backend.dto.TripSummary;
+import com.tinglans.backend.job.ExpenseCascadeDeleteJob;
+import com.tinglans.backend.repository.TripIndexRepository;
 import com.tinglans.backend.repository.TripRepository;
 import com.tinglans.backend.thirdparty.llm.QwenClient;
+import com.tinglans.backend.util.RedisCallbackExecutor;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -31,12 +43,21 @@ class TripServiceTest {
     @Mock
     private TripRepository tripRepository;
 
+    @Mock
+    private TripIndexRepository tripIndexRepository;
+
     @Mock
     private UserService userService;
 
     @Mock
     private QwenClient qwenClient;
 
+    @Mock
+    private ExpenseCascadeDeleteJob expenseCascadeDeleteJob;
+
+    @Spy
+    private RedisCallbackExecutor redisCallbackExecutor = new RedisCallbackExecutor(1);
+
     @InjectMocks
     private TripService tripService;
 
@@ -61,6 +82,11 @@ class TripServiceTest {
                 .build();
     }
 
+    @AfterEach
+    void tearDown() {
+        redisCallbackExecutor.shutdown();
+    }
+
     @Test
     void testCreateTripFromText_withoutUserPreferences() throws ExecutionException, InterruptedException {
         // Given
@@ -205,6 +231,178 @@ class TripServiceTest {
         verify(tripRepository, times(1)).getFromCache(testTripId);
         verify(tripRepository, times(1)).getFromFirestore(testTripId);
         verify(tripRepository, never()).saveToCache(any(Trip.class));
+        verify(tripRepository, times(1)).markMissing(testTripId);  // 验证写入不存在标记
+    }
+
+    @Test
+    void testGetTripById_markedMissing() throws ExecutionException, InterruptedException {
+        // Given
+        when(tripRepository.getFromCache(testTripId)).thenReturn(Optional.empty());
+        when(tripRepository.isMarkedMissing(testTripId)).thenReturn(true);
+
+        // When
+        Optional<Trip> result = tripService.getTripById(testTripId);
+
+        // Then
+        assertFalse(result.isPresent());
+        verify(tripRepository, never()).getFromFirestore(anyString());
+    }
+
+    @Test
+    void testGetTripByIdAsync_fromFirestore() throws ExecutionException, InterruptedException {
+        // Given
+        when(tripRepository.getFromCache(testTripId)).thenReturn(Optional.empty());
+        when(tripRepository.getFromFirestoreAsync(testTripId))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(testTrip)));
+
+        // When
+        Trip result = tripService.validateAndGetTripAsync(testTripId).get();
+
+        // Then
+        assertEquals(testTripId, result.getId());
+        verify(tripRepository, never()).getFromFirestore(anyString());
+        verify(tripRepository, times(1)).saveToCache(testTrip);
+    }
+
+    @Test
+    void testGetTripByIdAsync_cacheWriteRunsOffFirestoreCallbackThread() throws Exception {
+        // Given - Firestore 结果在 gRPC 回调线程上完成
+        CompletableFuture<Optional<Trip>> firestoreResult = new CompletableFuture<>();
+        when(tripRepository.getFromCache(testTripId)).thenReturn(Optional.empty());
+        when(tripRepository.getFromFirestoreAsync(testTripId)).thenReturn(firestoreResult);
+        List<String> cacheWriteThreads = new ArrayList<>();
+        doAnswer(invocation -> cacheWriteThreads.add(Thread.currentThread().getName()))
+                .when(tripRepository).saveToCache(testTrip);
+
+        // When
+        CompletableFuture<Optional<Trip>> result = tripService.getTripByIdAsync(testTripId);
+        Thread grpcThread = new Thread(() -> firestoreResult.complete(Optional.of(testTrip)), "grpc-default-executor-0");
+        grpcThread.start();
+        grpcThread.join();
+
+        // Then
+        assertTrue(result.get(5, TimeUnit.SECONDS).isPresent());
+        assertEquals(1, cacheWriteThreads.size());
+        assertTrue(cacheWriteThreads.get(0).startsWith("redis-callback-"));
+    }
+
+    @Test
+    void testValidateAndGetTripAsync_notFound() {
+        // Given
+        when(tripRepository.getFromCache(testTripId)).thenReturn(Optional.empty());
+        when(tripRepository.getFromFirestoreAsync(testTripId))
+                .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        // When & Then
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> {
+            tripService.validateAndGetTripAsync(testTripId).get();
+        });
+        assertInstanceOf(BusinessException.class, exception.getCause());
+        verify(tripRepository, times(1)).markMissing(testTripId);
+    }
+
+    @Test
+    void testGetTripHeaderAsync_fromCache() throws ExecutionException, InterruptedException {
+        // Given
+        testTrip.setDays(List.of(
+                Day.builder().dayIndex(1).date(LocalDate.of(2024, 11, 1))
+                        .activities(List.of(Activity.builder().id("act-1").build(), Activity.builder().id("act-2").build()))
+                        .build(),
+                Day.builder().dayIndex(2).date(LocalDate.of(2024, 11, 2)).build()));
+        when(tripRepository.getFromCache(testTripId)).thenReturn(Optional.of(testTrip));
+
+        // When
+        TripHeader header = tripService.getTripHeaderAsync(testTripId).get();
+
+        // Then
+        assertEquals(testTripId, header.getId());
+        assertEquals(2, header.getDays().size());
+        assertEquals(2, header.getDays().get(0).getActivityCount());
+        assertEquals(0, header.getDays().get(1).getActivityCount());
+        verify(tripRepository, never()).getHeaderFromFirestoreAsync(anyString());
+    }
+
+    @Test
+    void testGetTripHeaderAsync_notFound() {
+        // Given
+        when(tripRepository.getFromCache(testTripId)).thenReturn(Optional.empty());
+        when(tripRepository.getHeaderFromFirestoreAsync(testTripId))
+                .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        // When & Then
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> tripService.getTripHeaderAsync(testTripId).get());
+        assertInstanceOf(BusinessException.class, exception.getCause());
+        verify(tripRepository, times(1)).markMissing(testTripId);
+    }
+
+    @Test
+    void testGetTripDayAsync_fromFirestore() throws ExecutionException, InterruptedException {
+        // Given
+        Day day = Day.builder().dayIndex(2).activities(List.of()).build();
+        when(tripRepository.getFromCache(testTripId)).thenReturn(Optional.empty());
+        when(tripRepository.getDayFromFirestoreAsync(testTripId, 2))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(Optional.of(day))));
+
+        // When
+        Day result = tripService.getTripDayAsync(testTripId, 2).get();
+
+        // Then
+        assertSame(day, result);
+        verify(tripRepository, never()).getFromFirestoreAsync(anyString());
+    }
+
+    @Test
+    void testGetTripDayAsync_unknownTripMarksMissing() {
+        // Given - 行程不存在
+        when(tripRepository.getFromCache(testTripId)).thenReturn(Optional.empty());
+        when(tripRepository.isMarkedMissing(testTripId)).thenReturn(false);
+        when(tripRepository.getDayFromFirestoreAsync(testTripId, 2))
+                .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        // When & Then
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> tripService.getTripDayAsync(testTripId, 2).get());
+        BusinessException cause = assertInstanceOf(BusinessException.class, exception.getCause());
+        assertEquals(ResponseCode.TRIP_NOT_FOUND, cause.getResponseCode());
+        verify(tripRepository, times(1)).markMissing(testTripId);
+    }
+
+    @Test
+    void testGetTripDayAsync_dayNotInStoredTrip() {
+        // Given - 行程存在但没有该天
+        when(tripRepository.getFromCache(testTripId)).thenReturn(Optional.empty());
+        when(tripRepository.getDayFromFirestoreAsync(testTripId, 5))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(Optional.empty())));
+
+        // When & Then
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> tripService.getTripDayAsync(testTripId, 5).get());
+        BusinessException cause = assertInstanceOf(BusinessException.class, exception.getCause());
+        assertEquals(ResponseCode.NOT_FOUND, cause.getResponseCode());
+        verify(tripRepository, never()).markMissing(anyString());
+    }
+
+    @Test
+    void testGetTripDayAsync_dayNotInCachedTrip() {
+        // Given
+        testTrip.setDays(List.of(Day.builder().dayIndex(1).build()));
+        when(tripRepository.getFromCache(testTripId)).thenReturn(Optional.of(testTrip));
+
+        // When & Then
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> tripService.getTripDayAsync(testTripId, 3).get());
+        assertInstanceOf(BusinessException.class, exception.getCause());
+        verify(tripRepository, never()).getDayFromFirestoreAsync(anyString(), anyInt());
+    }
+
+    @Test
+    void testGetTripDayAsync_invalidDayIndex() {
+        // When & Then
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> tripService.getTripDayAsync(testTripId, 0).get());
+        assertInstanceOf(BusinessException.class, exception.getCause());
+        verifyNoInteractions(tripRepository);
     }
 
     @Test
@@ -225,6 +423,7 @@ class TripServiceTest {
         verify(tripRepository, times(1)).getFromCache(testTripId);
         verify(tripRepository, times(1)).saveToFirestore(testTrip);
         verify(tripRepository, times(1)).saveToCache(testTrip);
+        verify(tripIndexRepository, times(1)).addIfIndexed(any(TripSummary.class));
     }
 
     @Test
@@ -324,6 +523,128 @@ class TripServiceTest {
         });
     }
 
+    @Test
+    void testGetConfirmedTripSummaries_fromIndex() throws ExecutionException, InterruptedException {
+        // Given
+        PageResult<TripSummary> page = PageResult.<TripSummary>builder()
+                .items(List.of(TripSummary.builder().id("trip-1").build()))
+                .nextPageToken("next-token")
+                .build();
+        when(tripIndexRepository.findPage(eq(testUserId), anyInt(), any())).thenReturn(Optional.of(page));
+
+        // When
+        PageResult<TripSummary> firstPage = tripService.getConfirmedTripSummaries(testUserId, null, null);
+        tripService.getConfirmedTripSummaries(testUserId, 1000, "next-token");
+
+        // Then
+        assertEquals("next-token", firstPage.getNextPageToken());
+        assertEquals(1, firstPage.getItems().size());
+        verify(tripIndexRepository, times(1)).findPage(testUserId, 20, null);
+        verify(tripIndexRepository, times(1)).findPage(testUserId, 50, "next-token");
+        verify(tripRepository, never()).findTripSummariesByUserId(anyString(), anyInt(), any());
+    }
+
+    @Test
+    void testGetConfirmedTripSummaries_rebuildIndexWhenMissing() throws ExecutionException, InterruptedException {
+        // Given
+        List<TripSummary> summaries = List.of(
+                TripSummary.builder().id("trip-1").createdAt(Instant.now()).build(),
+                TripSummary.builder().id("trip-2").createdAt(Instant.now()).build()
+        );
+        PageResult<TripSummary> page = PageResult.<TripSummary>builder().items(summaries).build();
+        when(tripIndexRepository.findPage(testUserId, 20, null))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(page));
+        when(tripRepository.findTripSummariesByUserId(testUserId, 500, null)).thenReturn(page);
+
+        // When
+        PageResult<TripSummary> result = tripService.getConfirmedTripSummaries(testUserId, null, null);
+
+        // Then - 加载前标记重建开始，加载期间确认的行程在重建时合并
+        assertEquals(2, result.getItems().size());
+        InOrder inOrder = inOrder(tripIndexRepository, tripRepository);
+        inOrder.verify(tripIndexRepository).beginRebuild(testUserId);
+        inOrder.verify(tripRepository).findTripSummariesByUserId(testUserId, 500, null);
+        inOrder.verify(tripIndexRepository).rebuild(testUserId, summaries);
+    }
+
+    @Test
+    void testDeleteTrip_removesFromIndex() throws ExecutionException, InterruptedException {
+        // Given
+        when(tripRepository.getFromFirestore(testTripId)).thenReturn(Optional.of(testTrip));
+
+        // When
+        tripService.deleteTrip(testTripId, testUserId);
+
+        // Then
+        verify(tripRepository, times(1)).deleteFromFirestore(testTripId);
+        verify(tripIndexRepository, times(1)).remove(testUserId, testTripId);
+    }
+
+    @Test
+    void testDeleteTrip_cascadesExpenseDeletion() throws ExecutionException, InterruptedException {
+        // Given
+        when(tripRepository.getFromFirestore(testTripId)).thenReturn(Optional.of(testTrip));
+
+        // When
+        tripService.deleteTrip(testTripId, testUserId);
+
+        // Then
+        InOrder inOrder = inOrder(expenseCascadeDeleteJob, tripRepository);
+        inOrder.verify(expenseCascadeDeleteJob).markPending(testTripId, testUserId);
+        inOrder.verify(tripRepository).deleteFromFirestore(testTripId);
+        inOrder.verify(expenseCascadeDeleteJob).submit(testTripId);
+    }
+
+    @Test
+    void testDeleteTrip_notOwnerSkipsCascade() throws ExecutionException, InterruptedException {
+        // Given
+        when(tripRepository.getFromFirestore(testTripId)).thenReturn(Optional.of(testTrip));
+
+        // When & Then
+        assertThrows(BusinessException.class, () -> tripService.deleteTrip(testTripId, "other-user"));
+        verifyNoInteractions(expenseCascadeDeleteJob);
+    }
+
+    @Test
+    void testAddParticipant_success() throws ExecutionException, InterruptedException {
+        // Given
+        String participantId = "user-456";
+        when(tripRepository.getFromFirestore(testTripId)).thenReturn(Optional.of(testTrip));
+
+        // When
+        Trip result = tripService.addParticipant(testTripId, testUserId, participantId);
+
+        // Then
+        assertEquals(List.of(participantId), result.getParticipantIds());
+        verify(userService, times(1)).validateAndGetUser(participantId);
+        verify(tripRepository, times(1)).addParticipant(testTripId, participantId);
+    }
+
+    @Test
+    void testAddParticipant_notOwner() throws ExecutionException, InterruptedException {
+        // Given
+        when(tripRepository.getFromFirestore(testTripId)).thenReturn(Optional.of(testTrip));
+
+        // When & Then
+        assertThrows(BusinessException.class, () -> {
+            tripService.addParticipant(testTripId, "user-999", "user-456");
+        });
+
+        verify(tripRepository, never()).addParticipant(anyString(), anyString());
+    }
+
+    @Test
+    void testValidateTripAccess_ownerAndParticipant() {
+        // Given
+        testTrip.setParticipantIds(List.of("user-456"));
+
+        // When & Then
+        assertDoesNotThrow(() -> tripService.validateTripAccess(testTrip, testUserId));
+        assertDoesNotThrow(() -> tripService.validateTripAccess(testTrip, "user-456"));
+        assertThrows(BusinessException.class, () -> tripService.validateTripAccess(testTrip, "user-999"));
+    }
+
     @Test
     void testParseLlmResponse_withMissingOptionalFields() throws ExecutionException, InterruptedException {
         // Given - JSON中缺少某些可选字段
@@ -2,19 +2,26 @@ package com.tinglans.backend.service;
 
 import com.tinglans.backend.common.BusinessException;
 import com.tinglans.backend.domain.User;
+import com.tinglans.backend.repository.LastLoginWriteBuffer;
+import com.tinglans.backend.repository.UserCache;
 import com.tinglans.backend.repository.UserRepository;
 import com.tinglans.backend.util.JwtUtil;
+import com.tinglans.backend.util.RedisCallbackExecutor;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -32,6 +39,15 @@ class UserServiceTest {
     @Mock
     private JwtUtil jwtUtil;
 
+    @Mock
+    private LastLoginWriteBuffer lastLoginWriteBuffer;
+
+    @Mock
+    private UserCache userCache;
+
+    @Spy
+    private RedisCallbackExecutor redisCallbackExecutor = new RedisCallbackExecutor(1);
+
     @InjectMocks
     private UserService userService;
 
@@ -51,6 +67,11 @@ class UserServiceTest {
                 .build();
     }
 
+    @AfterEach
+    void tearDown() {
+        redisCallbackExecutor.shutdown();
+    }
+
     // ==================== 注册测试 ====================
 
     @Test
@@ -59,8 +80,7 @@ class UserServiceTest {
         String username = "newuser";
         String password = "password123";
 
-        when(userRepository.existsByUsername(username)).thenReturn(false);
-        doNothing().when(userRepository).save(any(User.class));
+        when(userRepository.createIfUsernameAbsent(any(User.class))).thenReturn(true);
 
         // When
         String userId = userService.register(username, password);
@@ -69,8 +89,8 @@ class UserServiceTest {
         assertNotNull(userId);
         assertTrue(userId.startsWith("user-"));
         
-        verify(userRepository, times(1)).existsByUsername(username);
-        verify(userRepository, times(1)).save(any(User.class));
+        verify(userRepository, times(1)).createIfUsernameAbsent(argThat(user ->
+                username.equals(user.getUsername()) && user.getPasswordHash() != null));
     }
 
     @Test
@@ -79,7 +99,7 @@ class UserServiceTest {
         String username = "existinguser";
         String password = "password123";
 
-        when(userRepository.existsByUsername(username)).thenReturn(true);
+        when(userRepository.createIfUsernameAbsent(any(User.class))).thenReturn(false);
 
         // When & Then
         BusinessException exception = assertThrows(BusinessException.class, () -> {
@@ -87,7 +107,7 @@ class UserServiceTest {
         });
         assertTrue(exception.getMessage().contains("用户名已存在"));
 
-        verify(userRepository, times(1)).existsByUsername(username);
+        verify(userRepository, times(1)).createIfUsernameAbsent(any(User.class));
         verify(userRepository, never()).save(any(User.class));
     }
 
@@ -133,7 +153,6 @@ class UserServiceTest {
                 .build();
 
         when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
-        doNothing().when(userRepository).updateLastLoginAt(testUserId);
         when(jwtUtil.generateToken(testUserId)).thenReturn(token);
 
         // When
@@ -142,7 +161,8 @@ class UserServiceTest {
         // Then
         assertEquals(token, result);
         verify(userRepository, times(1)).findByUsername(username);
-        verify(userRepository, times(1)).updateLastLoginAt(testUserId);
+        verify(lastLoginWriteBuffer, times(1)).record(eq(testUserId), any(Instant.class));
+        verify(userRepository, never()).updateLastLoginAt(anyString());
         verify(jwtUtil, times(1)).generateToken(testUserId);
     }
 
@@ -220,6 +240,59 @@ class UserServiceTest {
         verify(userRepository, times(1)).findById(testUserId);
     }
 
+    @Test
+    void testGetUserById_fromCache() throws ExecutionException, InterruptedException {
+        // Given
+        when(userCache.get(testUserId)).thenReturn(Optional.of(testUser));
+
+        // When
+        Optional<User> result = userService.getUserById(testUserId);
+
+        // Then
+        assertTrue(result.isPresent());
+        assertEquals(testUserId, result.get().getId());
+        verify(userRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void testGetUserById_cachesWithoutPasswordHash() throws ExecutionException, InterruptedException {
+        // Given
+        testUser.setPasswordHash("hashed-password");
+        when(userRepository.findById(testUserId)).thenReturn(Optional.of(testUser));
+
+        // When
+        Optional<User> result = userService.getUserById(testUserId);
+
+        // Then
+        assertTrue(result.isPresent());
+        assertNull(result.get().getPasswordHash());
+        verify(userCache, times(1)).put(argThat(user ->
+                testUserId.equals(user.getId()) && user.getPasswordHash() == null
+                        && user.getPreferences().equals(testUser.getPreferences())));
+    }
+
+    @Test
+    void testGetUserByIdAsync_cacheWriteRunsOffFirestoreCallbackThread() throws Exception {
+        // Given - Firestore 结果在 gRPC 回调线程上完成
+        CompletableFuture<Optional<User>> firestoreResult = new CompletableFuture<>();
+        when(userCache.get(testUserId)).thenReturn(Optional.empty());
+        when(userRepository.findByIdAsync(testUserId)).thenReturn(firestoreResult);
+        List<String> cacheWriteThreads = new ArrayList<>();
+        doAnswer(invocation -> cacheWriteThreads.add(Thread.currentThread().getName()))
+                .when(userCache).put(any(User.class));
+
+        // When
+        CompletableFuture<Optional<User>> result = userService.getUserByIdAsync(testUserId);
+        Thread grpcThread = new Thread(() -> firestoreResult.complete(Optional.of(testUser)), "grpc-default-executor-0");
+        grpcThread.start();
+        grpcThread.join();
+
+        // Then
+        assertTrue(result.get(5, TimeUnit.SECONDS).isPresent());
+        assertEquals(1, cacheWriteThreads.size());
+        assertTrue(cacheWriteThreads.get(0).startsWith("redis-callback-"));
+    }
+
     @Test
     void testGetUserById_repositoryThrowsException() throws ExecutionException, InterruptedException {
         // Given
@@ -0,0 +1,170 @@
+package com.tinglans.backend.service;
+
+import com.tinglans.backend.common.BusinessException;
+import com.tinglans.backend.common.ResponseCode;
+import com.tinglans.backend.domain.Expense;
+import com.tinglans.backend.domain.Trip;
+import com.tinglans.backend.dto.VoicePipelineEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * VoicePipelineService 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class VoicePipelineServiceTest {
+
+    @Mock
+    private SpeechService speechService;
+
+    @Mock
+    private TripService tripService;
+
+    @Mock
+    private ExpenseService expenseService;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private MultipartFile audioFile;
+
+    private VoicePipelineService voicePipelineService;
+
+    private final List<VoicePipelineEvent> events = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        voicePipelineService = new VoicePipelineService(speechService, tripService, expenseService, userService, 600, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        voicePipelineService.shutdown();
+    }
+
+    @Test
+    void testCreateTripFromVoice_preferencesLookupOverlapsTranscription() throws Exception {
+        // Given - 识别与偏好查询都未完成
+        CompletableFuture<String> transcript = new CompletableFuture<>();
+        CompletableFuture<List<String>> preferences = new CompletableFuture<>();
+        when(userService.getPreferencesListAsync("user-1")).thenReturn(preferences);
+        when(speechService.transcribeVoiceAsync(audioFile)).thenReturn(transcript);
+        Trip trip = Trip.builder().id("trip-1").build();
+        when(tripService.createTripFromText("五一去杭州玩三天", "user-1", List.of("美食"))).thenReturn(trip);
+
+        // When
+        CompletableFuture<Trip> result = voicePipelineService.createTripFromVoice(audioFile, "user-1", events::add);
+
+        // Then - 上传返回时偏好查询已发起
+        verify(userService).getPreferencesListAsync("user-1");
+        assertTrue(events.isEmpty());
+
+        // 识别完成即推送文本，不等待偏好查询
+        transcript.complete("五一去杭州玩三天");
+        assertEquals(1, events.size());
+        assertEquals(VoicePipelineEvent.STAGE_TRANSCRIPT, events.get(0).getStage());
+        assertEquals("五一去杭州玩三天", events.get(0).getText());
+        verify(tripService, never()).createTripFromText(anyString(), anyString(), anyList());
+
+        // 偏好就绪后生成行程
+        preferences.complete(List.of("美食"));
+        assertSame(trip, result.get(5, TimeUnit.SECONDS));
+        assertStages(VoicePipelineEvent.STAGE_TRANSCRIPT, VoicePipelineEvent.STAGE_GENERATING, VoicePipelineEvent.STAGE_DONE);
+        assertSame(trip, events.get(2).getData());
+        verify(userService, never()).getPreferencesList(anyString());
+    }
+
+    @Test
+    void testCreateTripFromVoice_transcriptionFailureEmitsSingleError() throws Exception {
+        // Given
+        when(userService.getPreferencesListAsync("user-1")).thenReturn(CompletableFuture.completedFuture(List.of()));
+        when(speechService.transcribeVoiceAsync(audioFile)).thenReturn(CompletableFuture.failedFuture(
+                new BusinessException(ResponseCode.VOICE_RECOGNITION_FAILED, "语音识别失败，未能识别出文本")));
+
+        // When
+        CompletableFuture<Trip> result = voicePipelineService.createTripFromVoice(audioFile, "user-1", events::add);
+
+        // Then
+        assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertStages(VoicePipelineEvent.STAGE_ERROR);
+        assertEquals("语音识别失败，未能识别出文本", events.get(0).getMessage());
+        verify(tripService, never()).createTripFromText(anyString(), anyString(), anyList());
+    }
+
+    @Test
+    void testCreateExpenseFromVoice_success() throws Exception {
+        // Given
+        Trip trip = Trip.builder().id("trip-1").userId("user-1").build();
+        when(tripService.validateAndGetTrip("trip-1")).thenReturn(trip);
+        when(speechService.transcribeVoiceAsync(audioFile)).thenReturn(CompletableFuture.completedFuture("午饭花了50"));
+        Expense expense = Expense.builder().id("expense-1").tripId("trip-1").amountCents(5000L).build();
+        when(expenseService.createExpenseFromText("trip-1", "午饭花了50")).thenReturn(expense);
+
+        // When
+        Expense result = voicePipelineService.createExpenseFromVoice("trip-1", audioFile, "user-1", events::add)
+                .get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertSame(expense, result);
+        verify(tripService).validateTripAccess(trip, "user-1");
+        assertStages(VoicePipelineEvent.STAGE_TRANSCRIPT, VoicePipelineEvent.STAGE_GENERATING, VoicePipelineEvent.STAGE_DONE);
+        assertSame(expense, events.get(2).getData());
+    }
+
+    @Test
+    void testCreateExpenseFromVoice_accessDeniedSkipsTranscription() throws Exception {
+        // Given - 非行程成员
+        Trip trip = Trip.builder().id("trip-1").userId("owner").build();
+        when(tripService.validateAndGetTrip("trip-1")).thenReturn(trip);
+        doThrow(new BusinessException(ResponseCode.PERMISSION_DENIED, "无权访问该行程"))
+                .when(tripService).validateTripAccess(trip, "user-1");
+
+        // When
+        BusinessException exception = assertThrows(BusinessException.class, () ->
+                voicePipelineService.createExpenseFromVoice("trip-1", audioFile, "user-1", events::add));
+
+        // Then - 不上传、不转写，也不推送任何事件
+        assertEquals(ResponseCode.PERMISSION_DENIED, exception.getResponseCode());
+        assertTrue(events.isEmpty());
+        verify(speechService, never()).transcribeVoiceAsync(any(MultipartFile.class));
+        verify(expenseService, never()).createExpenseFromText(anyString(), anyString());
+    }
+
+    @Test
+    void testCreateTripFromVoice_cancelledBeforeGenerationSkipsLlm() throws Exception {
+        // Given - 识别尚未完成
+        CompletableFuture<String> transcript = new CompletableFuture<>();
+        when(userService.getPreferencesListAsync("user-1")).thenReturn(CompletableFuture.completedFuture(List.of()));
+        when(speechService.transcribeVoiceAsync(audioFile)).thenReturn(transcript);
+
+        // When - SSE 连接断开后识别才完成
+        CompletableFuture<Trip> result = voicePipelineService.createTripFromVoice(audioFile, "user-1", events::add);
+        assertTrue(result.cancel(true));
+        transcript.complete("五一去杭州玩三天");
+
+        // Then - 不再推送事件，也不调用大模型
+        assertTrue(result.isCancelled());
+        assertTrue(events.isEmpty());
+        verify(tripService, after(200).never()).createTripFromText(anyString(), anyString(), anyList());
+    }
+
+    private void assertStages(String... stages) {
+        assertEquals(List.of(stages), events.stream().map(VoicePipelineEvent::getStage).toList());
+    }
+}
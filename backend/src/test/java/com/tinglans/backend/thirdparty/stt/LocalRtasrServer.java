@@ -0,0 +1,139 @@
+package com.tinglans.backend.thirdparty.stt;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.websocket.*;
+import jakarta.websocket.server.ServerContainer;
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.tomcat.websocket.server.WsSci;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 本地实时语音转写服务（模拟讯飞 RTASR 协议，离线测试用）
+ * 每收到 0.25 秒音频推送一次中间结果，收到结束标记后推送最终结果并关闭连接
+ */
+public class LocalRtasrServer {
+
+    static final String PATH = "/v1/ws";
+
+    /**
+     * 0.25 秒 16kHz 16bit 单声道音频
+     */
+    private static final int PARTIAL_EVERY_BYTES = 8000;
+
+    private final List<Integer> frameSizes = new CopyOnWriteArrayList<>();
+    private final List<Map<String, List<String>>> handshakeParams = new CopyOnWriteArrayList<>();
+    private final String finalText;
+
+    private Tomcat tomcat;
+
+    public LocalRtasrServer(String finalText) {
+        this.finalText = finalText;
+    }
+
+    public void start() throws IOException, LifecycleException {
+        tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createTempDirectory("rtasr-tomcat").toString());
+        tomcat.setPort(0);
+
+        Context context = tomcat.addContext("", null);
+        Tomcat.addServlet(context, "default", new HttpServlet() {
+        });
+        context.addServletMappingDecoded("/", "default");
+        context.addServletContainerInitializer(new WsSci(), null);
+        context.addServletContainerInitializer((classes, servletContext) -> {
+            ServerContainer serverContainer = (ServerContainer) servletContext.getAttribute(ServerContainer.class.getName());
+            try {
+                serverContainer.addEndpoint(ServerEndpointConfig.Builder.create(RtasrEndpoint.class, PATH)
+                        .configurator(new ServerEndpointConfig.Configurator() {
+                            @Override
+                            @SuppressWarnings("unchecked")
+                            public <T> T getEndpointInstance(Class<T> endpointClass) {
+                                return (T) new RtasrEndpoint();
+                            }
+                        })
+                        .build());
+            } catch (DeploymentException e) {
+                throw new IllegalStateException(e);
+            }
+        }, null);
+
+        tomcat.getConnector();
+        tomcat.start();
+    }
+
+    public void stop() throws LifecycleException {
+        if (tomcat == null) {
+            return;
+        }
+        tomcat.stop();
+        tomcat.destroy();
+        tomcat = null;
+    }
+
+    public String getUrl() {
+        return "ws://localhost:" + tomcat.getConnector().getLocalPort() + PATH;
+    }
+
+    public List<Integer> getFrameSizes() {
+        return frameSizes;
+    }
+
+    public List<Map<String, List<String>>> getHandshakeParams() {
+        return handshakeParams;
+    }
+
+    private class RtasrEndpoint extends Endpoint {
+
+        private long receivedBytes;
+        private int partialCount;
+
+        @Override
+        public void onOpen(Session session, EndpointConfig config) {
+            handshakeParams.add(session.getRequestParameterMap());
+            send(session, "{\"action\":\"started\",\"code\":\"0\",\"data\":\"\",\"desc\":\"success\",\"sid\":\"local\"}");
+
+            session.addMessageHandler(ByteBuffer.class, buffer -> {
+                frameSizes.add(buffer.remaining());
+                receivedBytes += buffer.remaining();
+                while (receivedBytes >= (long) (partialCount + 1) * PARTIAL_EVERY_BYTES) {
+                    partialCount++;
+                    send(session, result("听到" + partialCount, "1"));
+                }
+            });
+            session.addMessageHandler(String.class, text -> {
+                if (text.contains("\"end\"")) {
+                    send(session, result(finalText, "0"));
+                    try {
+                        session.close();
+                    } catch (IOException ignored) {
+                        // 测试服务忽略关闭异常
+                    }
+                }
+            });
+        }
+
+        private String result(String text, String type) {
+            String data = "{\"cn\":{\"st\":{\"bg\":\"0\",\"ed\":\"0\",\"type\":\"" + type + "\",\"rt\":[{\"ws\":["
+                    + "{\"cw\":[{\"w\":\"" + text + "\",\"wp\":\"n\"}],\"wb\":0,\"we\":0}]}]}},\"seg_id\":" + partialCount + "}";
+            return "{\"action\":\"result\",\"code\":\"0\",\"data\":\"" + data.replace("\"", "\\\"")
+                    + "\",\"desc\":\"success\",\"sid\":\"local\"}";
+        }
+
+        private synchronized void send(Session session, String message) {
+            try {
+                session.getBasicRemote().sendText(message);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.tinglans.backend.thirdparty.stt;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.tinglans.backend.common.BusinessException;
+import com.tinglans.backend.common.ResponseCode;
+import com.tinglans.backend.config.XfyunConfig;
+import com.tinglans.backend.thirdparty.stt.util.WavHeader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * XfyunAsrClient 任务轮询测试
+ * 使用本地 HttpServer 模拟讯飞上传与转写接口
+ */
+class XfyunAsrClientPollingTest {
+
+    private static final String RESULT_JSON = "{\"code\":0,\"data\":{\"task_id\":\"task-1\",\"task_status\":\"4\","
+            + "\"result\":{\"lattice\":[{\"json_1best\":{\"st\":{\"rt\":[{\"ws\":["
+            + "{\"cw\":[{\"w\":\"去\"}]},{\"cw\":[{\"w\":\"东京塔\"}]}]}]}}}]}}}";
+
+    private final AtomicInteger queryCount = new AtomicInteger();
+    private final AtomicInteger uploadCount = new AtomicInteger();
+    private volatile byte[] uploadedBody;
+    private volatile int pendingQueries;
+
+    private HttpServer server;
+    private XfyunAsrClient client;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/file/upload", exchange -> {
+            uploadCount.incrementAndGet();
+            uploadedBody = exchange.getRequestBody().readAllBytes();
+            respond(exchange, "{\"code\":0,\"data\":{\"url\":\"http://localhost/audio.wav\"}}");
+        });
+        server.createContext("/v2/ost/pro_create", exchange ->
+                respond(exchange, "{\"code\":0,\"data\":{\"task_id\":\"task-1\"}}"));
+        server.createContext("/v2/ost/query", exchange -> respond(exchange,
+                queryCount.incrementAndGet() <= pendingQueries
+                        ? "{\"code\":0,\"data\":{\"task_id\":\"task-1\",\"task_status\":\"2\"}}"
+                        : RESULT_JSON));
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        if (client != null) {
+            client.shutdown();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    void testTranscribeAsync_completesAfterPendingPolls() throws Exception {
+        // Given
+        pendingQueries = 2;
+        client = new XfyunAsrClient(config(50, 100_000));
+        byte[] audio = new byte[32_000];
+
+        // When
+        CompletableFuture<String> result = client.transcribeAsync(new ByteArrayInputStream(audio), "audio.wav", audio.length);
+
+        // Then - 上传与创建任务后立即返回，结果由调度线程轮询得到
+        assertFalse(result.isDone());
+        assertEquals("去东京塔", result.get(5, TimeUnit.SECONDS));
+        assertEquals(3, queryCount.get());
+    }
+
+    @Test
+    void testTranscribeAsync_timeout() throws Exception {
+        // Given - 任务一直处于处理中
+        pendingQueries = Integer.MAX_VALUE;
+        client = new XfyunAsrClient(config(20, 200));
+        byte[] audio = new byte[32_000];
+
+        // When
+        CompletableFuture<String> result = client.transcribeAsync(new ByteArrayInputStream(audio), "audio.wav", audio.length);
+
+        // Then
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertEquals("转写任务超时，任务ID: task-1", exception.getCause().getMessage());
+        assertTrue(queryCount.get() >= 2);
+    }
+
+    @Test
+    void testTranscribeAsync_uploadsTrimmedWav() throws Exception {
+        // Given - 1 秒静音 + 录音 + 1 秒静音
+        client = new XfyunAsrClient(config(50, 100_000));
+        byte[] wav = Files.readAllBytes(Path.of("src/test/resources/test-audio.wav"));
+        byte[] speech = Arrays.copyOfRange(wav, WavHeader.CANONICAL_SIZE, wav.length);
+        byte[] pcm = new byte[speech.length + 2 * 32000];
+        System.arraycopy(speech, 0, pcm, 32000, speech.length);
+        byte[] audio = canonicalWav(pcm);
+
+        // When
+        String text = client.transcribeAsync(new ByteArrayInputStream(audio), "audio.wav", audio.length)
+                .get(5, TimeUnit.SECONDS);
+
+        // Then - 上传的 WAV 文件头长度与裁剪后的 PCM 一致
+        assertEquals("去东京塔", text);
+        int riff = indexOf(uploadedBody, "RIFF".getBytes(StandardCharsets.US_ASCII));
+        assertTrue(riff >= 0);
+        long dataLength = ByteBuffer.wrap(uploadedBody, riff + 40, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        assertTrue(dataLength > 0 && dataLength < pcm.length, "裁剪后长度: " + dataLength);
+        assertTrue(riff + WavHeader.CANONICAL_SIZE + dataLength <= uploadedBody.length);
+    }
+
+    @Test
+    void testSubmitTask_silentAudioRejectedBeforeUpload() {
+        // Given - 2 秒全静音
+        client = new XfyunAsrClient(config(50, 100_000));
+        byte[] audio = canonicalWav(new byte[2 * 32000]);
+
+        // When
+        BusinessException exception = assertThrows(BusinessException.class, () ->
+                client.submitTask(new ByteArrayInputStream(audio), "audio.wav", audio.length));
+
+        // Then - 不上传只有文件头的 WAV，也不创建任务
+        assertEquals(ResponseCode.VOICE_RECOGNITION_FAILED, exception.getResponseCode());
+        assertEquals(0, uploadCount.get());
+    }
+
+    private static byte[] canonicalWav(byte[] pcm) {
+        byte[] header = WavHeader.canonical(1, 16000, 16, pcm.length);
+        byte[] wav = Arrays.copyOf(header, header.length + pcm.length);
+        System.arraycopy(pcm, 0, wav, header.length, pcm.length);
+        return wav;
+    }
+
+    private static int indexOf(byte[] data, byte[] target) {
+        for (int i = 0; i + target.length <= data.length; i++) {
+            if (Arrays.equals(data, i, i + target.length, target, 0, target.length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private XfyunConfig config(int pollInitialDelay, long pollTimeout) {
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        XfyunConfig config = new XfyunConfig();
+        config.setAppId("app");
+        config.setApiKey("key");
+        config.setApiSecret("secret");
+        config.setUploadBaseUrl(baseUrl);
+        config.setTaskBaseUrl(baseUrl);
+        config.setPollInitialDelay(pollInitialDelay);
+        config.setPollTimeout(pollTimeout);
+        return config;
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
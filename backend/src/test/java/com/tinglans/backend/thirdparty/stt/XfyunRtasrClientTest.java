@@ -0,0 +1,110 @@
+package com.tinglans.backend.thirdparty.stt;
+
+import com.tinglans.backend.config.XfyunConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * XfyunRtasrClient 测试
+ * 使用 LocalRtasrServer 模拟讯飞实时语音转写服务，离线运行
+ */
+class XfyunRtasrClientTest {
+
+    private LocalRtasrServer server;
+    private XfyunRtasrClient client;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = new LocalRtasrServer("今天去东京塔玩");
+        server.start();
+
+        XfyunConfig config = new XfyunConfig();
+        config.setAppId("app");
+        config.setRtasrApiKey("key");
+        config.setRtasrUrl(server.getUrl());
+        client = new XfyunRtasrClient(config);
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    void testStreaming_partialAndFinalResults() throws Exception {
+        // Given
+        List<String> partials = new CopyOnWriteArrayList<>();
+        CompletableFuture<String> finalText = new CompletableFuture<>();
+        StreamingAsrClient.Session session = client.open(new StreamingAsrClient.Listener() {
+            @Override
+            public void onResult(String text, boolean sentenceFinal) {
+                if (sentenceFinal) {
+                    finalText.complete(text);
+                } else {
+                    partials.add(text);
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                finalText.complete(null);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                finalText.completeExceptionally(error);
+            }
+        });
+
+        // When - 发送 0.5 秒音频（大于单帧大小的块按 1280 字节分帧）
+        session.sendAudio(new byte[8000]);
+        session.sendAudio(new byte[8000]);
+        session.finish();
+
+        // Then
+        assertEquals("今天去东京塔玩", finalText.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("听到1", "听到2"), partials);
+        assertTrue(server.getFrameSizes().stream().allMatch(size -> size <= 1280));
+        assertEquals(16000, server.getFrameSizes().stream().mapToInt(Integer::intValue).sum());
+        assertEquals("app", server.getHandshakeParams().get(0).get("appid").get(0));
+        assertNotNull(server.getHandshakeParams().get(0).get("signa"));
+    }
+
+    @Test
+    void testStreaming_connectionFailure() throws Exception {
+        // Given - 服务已停止
+        server.stop();
+        CompletableFuture<Throwable> error = new CompletableFuture<>();
+        StreamingAsrClient.Session session = client.open(new StreamingAsrClient.Listener() {
+            @Override
+            public void onResult(String text, boolean sentenceFinal) {
+            }
+
+            @Override
+            public void onComplete() {
+                error.complete(null);
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                error.complete(e);
+            }
+        });
+
+        // When
+        session.sendAudio(new byte[1280]);
+
+        // Then
+        Throwable failure = error.get(5, TimeUnit.SECONDS);
+        assertNotNull(failure);
+        assertTrue(failure.getMessage().startsWith("实时语音转写连接失败"));
+    }
+}
@@ -0,0 +1,137 @@
+package com.tinglans.backend.thirdparty.stt;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.tinglans.backend.config.XfyunConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分块并发上传基准测试
+ * 使用本地 HttpServer 模拟讯飞上传与转写接口（每个分块请求按固定延迟 + 单连接带宽限速），
+ * 比较 test-audio-large.wav 在不同并发数下的上传耗时。需要时去掉 @Disabled 手动运行
+ */
+@Slf4j
+@Disabled("基准测试，按需手动运行")
+class XfyunUploadBenchmarkTest {
+
+    private static final int CHUNK_SIZE = 256 * 1024;
+    private static final long ROUND_TRIP_MILLIS = 30;
+    private static final long BYTES_PER_SECOND_PER_CONNECTION = 8L * 1024 * 1024;
+    private static final int ITERATIONS = 5;
+
+    private final File audioFile = new File("src/test/resources/test-audio-large.wav");
+    private final AtomicInteger uploadedParts = new AtomicInteger();
+    private final AtomicLong uploadedBytes = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        serverExecutor = Executors.newFixedThreadPool(16);
+        server.setExecutor(serverExecutor);
+        server.createContext("/file/mpupload/init", exchange ->
+                respond(exchange, "{\"code\":0,\"data\":{\"upload_id\":\"upload-1\"}}"));
+        server.createContext("/file/mpupload/upload", this::handlePart);
+        server.createContext("/file/mpupload/complete", exchange ->
+                respond(exchange, "{\"code\":0,\"data\":{\"url\":\"http://localhost/audio.wav\"}}"));
+        server.createContext("/v2/ost/pro_create", exchange ->
+                respond(exchange, "{\"code\":0,\"data\":{\"task_id\":\"task-1\"}}"));
+        server.createContext("/v2/ost/query", exchange ->
+                respond(exchange, "{\"code\":0,\"data\":{\"task_id\":\"task-1\",\"task_status\":\"4\"}}"));
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void benchmarkParallelChunkUpload() throws Exception {
+        assertTrue(audioFile.exists(), "测试音频文件不存在");
+        long expectedParts = (audioFile.length() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        for (int parallelism : new int[]{1, 2, 4, 8}) {
+            XfyunAsrClient client = new XfyunAsrClient(config(parallelism));
+            try {
+                // 预热
+                client.transcribe(audioFile);
+
+                uploadedParts.set(0);
+                uploadedBytes.set(0);
+                long start = System.nanoTime();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    client.transcribe(audioFile);
+                }
+                double avgMillis = (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+
+                assertEquals(expectedParts * ITERATIONS, uploadedParts.get());
+                log.info("分块并发上传: parallelism={}, parts={}, avg={} ms, bytes/iteration={}",
+                        parallelism, expectedParts, String.format("%.1f", avgMillis), uploadedBytes.get() / ITERATIONS);
+            } finally {
+                client.shutdown();
+            }
+        }
+    }
+
+    private XfyunConfig config(int parallelism) {
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        XfyunConfig config = new XfyunConfig();
+        config.setAppId("app");
+        config.setApiKey("key");
+        config.setApiSecret("secret");
+        config.setUploadBaseUrl(baseUrl);
+        config.setTaskBaseUrl(baseUrl);
+        config.setSmallFileThreshold((long) CHUNK_SIZE);
+        config.setChunkSize(CHUNK_SIZE);
+        config.setUploadParallelism(parallelism);
+        config.setPollInitialDelay(1);
+        // 测量原始文件的分块上传，不做归一化与静音裁剪
+        config.setNormalizeAudio(false);
+        return config;
+    }
+
+    /**
+     * 模拟分块上传：读取请求体，并按往返延迟 + 单连接带宽计算耗时
+     */
+    private void handlePart(HttpExchange exchange) throws IOException {
+        long bytes = exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+        uploadedParts.incrementAndGet();
+        uploadedBytes.addAndGet(bytes);
+        try {
+            Thread.sleep(ROUND_TRIP_MILLIS + bytes * 1000 / BYTES_PER_SECOND_PER_CONNECTION);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        respond(exchange, "{\"code\":0}");
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
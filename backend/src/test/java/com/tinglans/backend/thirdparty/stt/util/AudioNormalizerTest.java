@@ -0,0 +1,213 @@
+package com.tinglans.backend.thirdparty.stt.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AudioNormalizer 单元测试
+ */
+class AudioNormalizerTest {
+
+    @Test
+    void testNormalize_downmixesAndDownsamplesStereo48k() throws IOException {
+        // Given - 1 秒 48kHz 立体声 440Hz 正弦波
+        byte[] wav = wav(WavHeader.FORMAT_PCM, 2, 48000, 16, sine(48000, 440, 2), new byte[0]);
+
+        // When
+        AudioNormalizer.NormalizedAudio audio = AudioNormalizer.normalize(new ByteArrayInputStream(wav), "a.wav", wav.length);
+        byte[] output = audio.stream().readAllBytes();
+
+        // Then - 大小约为原来的 1/6，文件头描述 16kHz 单声道 16bit
+        assertTrue(audio.converted());
+        assertEquals(16000, audio.sampleRate());
+        assertEquals(WavHeader.CANONICAL_SIZE + 16000 * 2, audio.size());
+        assertEquals(audio.size(), output.length);
+        WavHeader header = WavHeader.read(new ByteArrayInputStream(output), 1024);
+        assertTrue(header.isMonoPcm16(16000));
+        assertEquals(16000 * 2, header.getDataLength());
+
+        // 频率保持不变：1 秒 440Hz 约 880 次过零
+        short[] samples = samples(output);
+        int crossings = zeroCrossings(samples);
+        assertTrue(Math.abs(crossings - 880) <= 4, "过零次数: " + crossings);
+        assertTrue(peak(samples) > 0.4 * Short.MAX_VALUE);
+    }
+
+    @Test
+    void testNormalize_floatWavWithExtraChunks() throws IOException {
+        // Given - 44.1kHz 立体声 32bit 浮点，fmt 与 data 之间有 LIST 块
+        byte[] list = chunk("LIST", "INFOISFT".getBytes(StandardCharsets.US_ASCII));
+        byte[] wav = wav(WavHeader.FORMAT_IEEE_FLOAT, 2, 44100, 32, sineFloat(44100, 300, 2), list);
+
+        // When
+        AudioNormalizer.NormalizedAudio audio = AudioNormalizer.normalize(new ByteArrayInputStream(wav), "a.wav", wav.length);
+        byte[] output = audio.stream().readAllBytes();
+
+        // Then
+        assertTrue(audio.converted());
+        assertEquals(WavHeader.CANONICAL_SIZE + 16000 * 2, output.length);
+        int crossings = zeroCrossings(samples(output));
+        assertTrue(Math.abs(crossings - 600) <= 4, "过零次数: " + crossings);
+    }
+
+    @Test
+    void testNormalize_upsamples8kByInterpolation() throws IOException {
+        // Given - 8kHz 单声道，两个采样
+        ByteBuffer data = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        data.putShort((short) 0).putShort((short) 10000);
+        byte[] wav = wav(WavHeader.FORMAT_PCM, 1, 8000, 16, data.array(), new byte[0]);
+
+        // When
+        AudioNormalizer.NormalizedAudio audio = AudioNormalizer.normalize(new ByteArrayInputStream(wav), "a.wav", wav.length);
+        short[] samples = samples(audio.stream().readAllBytes());
+
+        // Then - 采样数翻倍，中间点插值
+        assertArrayEquals(new short[]{0, 5000, 10000, 10000}, samples);
+    }
+
+    @Test
+    void testNormalize_bundledAudioAlreadyNormalized() throws IOException {
+        // Given
+        Path path = Path.of("src/test/resources/test-audio.wav");
+        byte[] original = Files.readAllBytes(path);
+
+        // When
+        AudioNormalizer.NormalizedAudio audio;
+        byte[] output;
+        try (InputStream in = Files.newInputStream(path)) {
+            audio = AudioNormalizer.normalize(in, "test-audio.wav", original.length);
+            output = audio.stream().readAllBytes();
+        }
+
+        // Then - 已是 16kHz 单声道，原样上传
+        assertFalse(audio.converted());
+        assertEquals(16000, audio.sampleRate());
+        assertArrayEquals(original, output);
+    }
+
+    @Test
+    void testNormalize_unknownDataLengthUsesFileSize() throws IOException {
+        // Given - data 块长度未回填（0）
+        byte[] wav = wav(WavHeader.FORMAT_PCM, 2, 32000, 16, sine(32000, 440, 2), new byte[0]);
+        ByteBuffer.wrap(wav).order(ByteOrder.LITTLE_ENDIAN).putInt(40, 0);
+
+        // When
+        AudioNormalizer.NormalizedAudio audio = AudioNormalizer.normalize(new ByteArrayInputStream(wav), "a.wav", wav.length);
+
+        // Then
+        assertEquals(WavHeader.CANONICAL_SIZE + 16000 * 2, audio.size());
+        assertEquals(audio.size(), audio.stream().readAllBytes().length);
+    }
+
+    @Test
+    void testNormalize_passthroughForMp3AndInvalidWav() throws IOException {
+        // Given
+        byte[] mp3 = "ID3-not-really-mp3".getBytes(StandardCharsets.US_ASCII);
+        byte[] invalid = "not a riff file at all".getBytes(StandardCharsets.US_ASCII);
+
+        // When
+        AudioNormalizer.NormalizedAudio mp3Audio = AudioNormalizer.normalize(new ByteArrayInputStream(mp3), "a.mp3", mp3.length);
+        AudioNormalizer.NormalizedAudio invalidAudio = AudioNormalizer.normalize(new ByteArrayInputStream(invalid), "a.wav", invalid.length);
+
+        // Then - 原样返回，已读取的文件头回退
+        assertFalse(mp3Audio.converted());
+        assertArrayEquals(mp3, mp3Audio.stream().readAllBytes());
+        assertFalse(invalidAudio.converted());
+        assertArrayEquals(invalid, invalidAudio.stream().readAllBytes());
+    }
+
+    @Test
+    void testGetFormat_reflectsSampleRate() {
+        assertEquals("audio/L16;rate=16000", FileUtil.getFormat(16000));
+        assertEquals("audio/L16;rate=8000", FileUtil.getFormat(8000));
+    }
+
+    // ========== 测试音频 ==========
+
+    private static byte[] wav(int format, int channels, int sampleRate, int bits, byte[] data, byte[] extraChunks) {
+        ByteBuffer fmt = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        fmt.putShort((short) format).putShort((short) channels).putInt(sampleRate)
+                .putInt(sampleRate * channels * bits / 8).putShort((short) (channels * bits / 8)).putShort((short) bits);
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes("WAVE".getBytes(StandardCharsets.US_ASCII));
+        body.writeBytes(chunk("fmt ", fmt.array()));
+        body.writeBytes(extraChunks);
+        body.writeBytes(chunk("data", data));
+
+        ByteBuffer riff = ByteBuffer.allocate(8 + body.size()).order(ByteOrder.LITTLE_ENDIAN);
+        riff.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(body.size()).put(body.toByteArray());
+        return riff.array();
+    }
+
+    private static byte[] chunk(String id, byte[] data) {
+        ByteBuffer chunk = ByteBuffer.allocate(8 + data.length + (data.length & 1)).order(ByteOrder.LITTLE_ENDIAN);
+        chunk.put(id.getBytes(StandardCharsets.US_ASCII)).putInt(data.length).put(data);
+        return chunk.array();
+    }
+
+    /**
+     * 1 秒 16bit 正弦波，各声道相同
+     */
+    private static byte[] sine(int sampleRate, double frequency, int channels) {
+        ByteBuffer data = ByteBuffer.allocate(sampleRate * channels * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < sampleRate; i++) {
+            short value = (short) (Math.sin(2 * Math.PI * frequency * (i + 0.5) / sampleRate) * 0.5 * Short.MAX_VALUE);
+            for (int channel = 0; channel < channels; channel++) {
+                data.putShort(value);
+            }
+        }
+        return data.array();
+    }
+
+    /**
+     * 1 秒 32bit 浮点正弦波，各声道相同
+     */
+    private static byte[] sineFloat(int sampleRate, double frequency, int channels) {
+        ByteBuffer data = ByteBuffer.allocate(sampleRate * channels * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < sampleRate; i++) {
+            float value = (float) (Math.sin(2 * Math.PI * frequency * (i + 0.5) / sampleRate) * 0.5);
+            for (int channel = 0; channel < channels; channel++) {
+                data.putFloat(value);
+            }
+        }
+        return data.array();
+    }
+
+    private static short[] samples(byte[] wav) {
+        ByteBuffer buffer = ByteBuffer.wrap(wav, WavHeader.CANONICAL_SIZE, wav.length - WavHeader.CANONICAL_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        short[] samples = new short[buffer.remaining() / 2];
+        buffer.asShortBuffer().get(samples);
+        return samples;
+    }
+
+    private static int zeroCrossings(short[] samples) {
+        int crossings = 0;
+        for (int i = 1; i < samples.length; i++) {
+            if ((samples[i - 1] < 0) != (samples[i] < 0)) {
+                crossings++;
+            }
+        }
+        return crossings;
+    }
+
+    private static int peak(short[] samples) {
+        int peak = 0;
+        for (short sample : samples) {
+            peak = Math.max(peak, Math.abs(sample));
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,72 @@
+package com.tinglans.backend.thirdparty.stt.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MultipartStreamBody 单元测试
+ */
+class MultipartStreamBodyTest {
+
+    @Test
+    void testWriteTo_lengthMatchesContentLength() throws IOException {
+        // Given
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("request_id", "req-1");
+        fields.put("app_id", "app");
+        byte[] audio = new byte[200_000];
+        MultipartStreamBody body = new MultipartStreamBody(
+                fields, "data", "audio.wav", new ByteArrayInputStream(audio), audio.length);
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        String text = out.toString(StandardCharsets.ISO_8859_1);
+        String boundary = body.getContentType().getParameter("boundary");
+
+        // Then
+        assertEquals(body.getContentLength(), out.size());
+        assertTrue(text.contains("name=\"request_id\"\r\nContent-Type: text/plain;charset=UTF-8\r\n\r\nreq-1\r\n"));
+        assertTrue(text.contains("name=\"data\"; filename=\"audio.wav\""));
+        assertTrue(text.endsWith("\r\n--" + boundary + "--\r\n"));
+    }
+
+    @Test
+    void testWriteTo_readsOnlyItsSliceOfTheStream() throws IOException {
+        // Given - 同一个流依次构造两个分块
+        byte[] audio = "0123456789".getBytes(StandardCharsets.US_ASCII);
+        InputStream in = new ByteArrayInputStream(audio);
+        MultipartStreamBody first = new MultipartStreamBody(Map.of(), "data", "a.wav", in, 6);
+        MultipartStreamBody second = new MultipartStreamBody(Map.of(), "data", "a.wav", in, 4);
+
+        // When
+        ByteArrayOutputStream firstOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream secondOut = new ByteArrayOutputStream();
+        first.writeTo(firstOut);
+        second.writeTo(secondOut);
+
+        // Then
+        assertTrue(firstOut.toString(StandardCharsets.US_ASCII).contains("\r\n\r\n012345\r\n--"));
+        assertTrue(secondOut.toString(StandardCharsets.US_ASCII).contains("\r\n\r\n6789\r\n--"));
+    }
+
+    @Test
+    void testWriteTo_streamShorterThanDeclared() {
+        // Given
+        MultipartStreamBody body = new MultipartStreamBody(
+                Map.of(), "data", "a.wav", new ByteArrayInputStream(new byte[10]), 20);
+
+        // When & Then
+        assertThrows(EOFException.class, () -> body.writeTo(new ByteArrayOutputStream()));
+    }
+}
@@ -0,0 +1,56 @@
+package com.tinglans.backend.thirdparty.stt.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PollBackoff 单元测试
+ */
+class PollBackoffTest {
+
+    @Test
+    void testNextDelay_doublesUntilDurationBasedCap() {
+        // Given - 30 秒音频，上限为时长的 1/10
+        PollBackoff backoff = new PollBackoff(500, 5000, 30_000);
+
+        // When & Then
+        assertEquals(3000, backoff.getMaxDelay());
+        assertEquals(500, backoff.nextDelay());
+        assertEquals(1000, backoff.nextDelay());
+        assertEquals(2000, backoff.nextDelay());
+        assertEquals(3000, backoff.nextDelay());
+        assertEquals(3000, backoff.nextDelay());
+    }
+
+    @Test
+    void testNextDelay_longAudioCappedByMaxInterval() {
+        // Given - 10 分钟音频
+        PollBackoff backoff = new PollBackoff(500, 5000, 600_000);
+
+        // When & Then
+        assertEquals(5000, backoff.getMaxDelay());
+        for (int i = 0; i < 10; i++) {
+            backoff.nextDelay();
+        }
+        assertEquals(5000, backoff.nextDelay());
+    }
+
+    @Test
+    void testNextDelay_shortAudioPollsAtInitialDelay() {
+        // Given - 2 秒音频，时长 1/10 小于初始延迟
+        PollBackoff backoff = new PollBackoff(500, 5000, 2_000);
+
+        // When & Then
+        assertEquals(500, backoff.getMaxDelay());
+        assertEquals(500, backoff.nextDelay());
+        assertEquals(500, backoff.nextDelay());
+    }
+
+    @Test
+    void testEstimateDurationMillis() {
+        // 16kHz 16bit 单声道：32000 字节/秒；mp3 按 128kbps
+        assertEquals(10_000, FileUtil.estimateDurationMillis("audio.wav", 320_000));
+        assertEquals(10_000, FileUtil.estimateDurationMillis("audio.mp3", 160_000));
+    }
+}
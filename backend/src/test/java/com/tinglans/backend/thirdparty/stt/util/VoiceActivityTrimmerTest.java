@@ -0,0 +1,114 @@
+package com.tinglans.backend.thirdparty.stt.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * VoiceActivityTrimmer 单元测试
+ */
+class VoiceActivityTrimmerTest {
+
+    private static final int BYTES_PER_SECOND = 16000 * 2;
+
+    private VoiceActivityTrimmer trimmer;
+    private byte[] speech;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        trimmer = new VoiceActivityTrimmer(-40, 0.3, 200, 600);
+        byte[] wav = Files.readAllBytes(Path.of("src/test/resources/test-audio.wav"));
+        speech = Arrays.copyOfRange(wav, WavHeader.CANONICAL_SIZE, wav.length);
+    }
+
+    @Test
+    void testTrim_bundledAudioKeepsSpeech() throws IOException {
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        VoiceActivityTrimmer.TrimResult result = trimmer.trim(new ByteArrayInputStream(speech), speech.length, out);
+
+        // Then - 5 秒录音几乎全是语音，只去掉首尾少量静音
+        assertTrue(result.hasSpeech());
+        assertEquals(5000, result.originalMillis());
+        assertTrue(result.keptMillis() >= 4500, "保留时长: " + result.keptMillis());
+        assertEquals(result.outputBytes(), out.size());
+    }
+
+    @Test
+    void testTrim_removesLeadingTrailingSilenceAndCompressesPauses() throws IOException {
+        // Given - 2 秒静音 + 录音 + 3 秒停顿 + 录音 + 2 秒静音（静音含 -60dBFS 底噪）
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        input.writeBytes(noise(2 * BYTES_PER_SECOND, 0.001, 1));
+        input.writeBytes(speech);
+        input.writeBytes(noise(3 * BYTES_PER_SECOND, 0.001, 2));
+        input.writeBytes(speech);
+        input.writeBytes(noise(2 * BYTES_PER_SECOND, 0.001, 3));
+        byte[] audio = input.toByteArray();
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        VoiceActivityTrimmer.TrimResult result = trimmer.trim(new ByteArrayInputStream(audio), audio.length, out);
+
+        // Then - 静音与停顿共 7 秒，首尾各保留 200ms，停顿压缩为 600ms
+        assertEquals(17000, result.originalMillis());
+        assertTrue(result.trimmedMillis() >= 6000, "裁剪时长: " + result.trimmedMillis());
+        assertTrue(result.keptMillis() <= 2 * 5000 + 600 + 2 * 200, "保留时长: " + result.keptMillis());
+        assertTrue(result.speechSegments() >= 2);
+        assertEquals(result.outputBytes(), out.size());
+    }
+
+    @Test
+    void testTrim_silenceOnlyProducesNoOutput() throws IOException {
+        // Given
+        byte[] silence = noise(3 * BYTES_PER_SECOND, 0.001, 4);
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        VoiceActivityTrimmer.TrimResult result = trimmer.trim(new ByteArrayInputStream(silence), silence.length, out);
+
+        // Then
+        assertFalse(result.hasSpeech());
+        assertEquals(0, out.size());
+        assertEquals(3000, result.trimmedMillis());
+    }
+
+    @Test
+    void testIsSpeech_lowEnergyFramesUseZeroCrossingRate() {
+        // Given - 约 -47dBFS 的白噪声（清辅音，过零率高）与同能量的 100Hz 正弦波（过零率低）
+        byte[] fricative = noise(640, 0.0075, 5);
+        byte[] hum = new byte[640];
+        ByteBuffer buffer = ByteBuffer.wrap(hum).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < 320; i++) {
+            buffer.putShort((short) (Math.sin(2 * Math.PI * 100 * i / 16000) * 0.0075 * Math.sqrt(2) * Short.MAX_VALUE));
+        }
+
+        // Then
+        assertTrue(trimmer.isSpeech(fricative));
+        assertFalse(trimmer.isSpeech(hum));
+        assertFalse(trimmer.isSpeech(new byte[640]));
+    }
+
+    /**
+     * 均匀分布白噪声（rms 为均方根幅度，相对满幅）
+     */
+    private static byte[] noise(int bytes, double rms, long seed) {
+        Random random = new Random(seed);
+        ByteBuffer buffer = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        double amplitude = rms * Math.sqrt(3) * Short.MAX_VALUE;
+        while (buffer.remaining() >= 2) {
+            buffer.putShort((short) ((random.nextDouble() * 2 - 1) * amplitude));
+        }
+        return buffer.array();
+    }
+}
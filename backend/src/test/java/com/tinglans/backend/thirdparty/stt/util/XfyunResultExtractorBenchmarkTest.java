@@ -0,0 +1,142 @@
+package com.tinglans.backend.thirdparty.stt.util;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.alibaba.fastjson.annotation.JSONField;
+import com.tinglans.backend.thirdparty.stt.dto.XfyunRtasrResponse;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 转写结果解析基准测试
+ * 将 xfyun-query-response.json 中的句子重复扩充为约 2 小时录音的查询响应（lattice 与 lattice2 各 3000 句），
+ * 比较 fastjson 绑定完整对象树后遍历与流式提取的耗时和分配字节数。需要时去掉 @Disabled 手动运行
+ */
+@Slf4j
+@Disabled("基准测试，按需手动运行")
+class XfyunResultExtractorBenchmarkTest {
+
+    private static final int REPEAT = 1000;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+
+    @Test
+    void benchmarkExtractText() throws IOException {
+        byte[] body = largeResponse();
+        log.info("查询响应大小: {} bytes", body.length);
+
+        String expected = bindAndWalk(body);
+        assertEquals(expected, XfyunResultExtractor.extract(new ByteArrayInputStream(body)).text());
+
+        for (int i = 0; i < WARMUP; i++) {
+            bindAndWalk(body);
+            XfyunResultExtractor.extract(new ByteArrayInputStream(body));
+        }
+
+        measure("fastjson 对象树", () -> bindAndWalk(body));
+        measure("流式提取", () -> XfyunResultExtractor.extract(new ByteArrayInputStream(body)).text());
+    }
+
+    private void measure(String name, Extraction extraction) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        int length = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            length += extraction.run().length();
+        }
+        double avgMillis = (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+        long allocatedPerIteration = (threads.getThreadAllocatedBytes(threadId) - allocatedBefore) / ITERATIONS;
+
+        assertTrue(length > 0);
+        log.info("{}: avg={} ms, allocated/iteration={} KB", name, String.format("%.2f", avgMillis), allocatedPerIteration / 1024);
+    }
+
+    /**
+     * 原有做法：绑定完整的查询结果对象后逐层遍历
+     */
+    private static String bindAndWalk(byte[] body) {
+        Query query = JSON.parseObject(new String(body, StandardCharsets.UTF_8), Query.class);
+        StringBuilder text = new StringBuilder();
+        for (Lattice lattice : query.getData().getResult().getLattice()) {
+            for (XfyunRtasrResponse.Rt rt : lattice.getJson1best().getSt().getRt()) {
+                for (XfyunRtasrResponse.Ws ws : rt.getWs()) {
+                    if (ws.getCw() != null && !ws.getCw().isEmpty()) {
+                        text.append(ws.getCw().get(0).getW());
+                    }
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    private static byte[] largeResponse() throws IOException {
+        JSONObject fixture = JSON.parseObject(Files.readString(Path.of("src/test/resources/xfyun-query-response.json")));
+        JSONObject result = fixture.getJSONObject("data").getJSONObject("result");
+        JSONArray sentences = result.getJSONArray("lattice");
+
+        JSONArray lattice = new JSONArray();
+        for (int i = 0; i < REPEAT; i++) {
+            lattice.addAll(sentences);
+        }
+        result.put("lattice", lattice);
+        result.put("lattice2", lattice);
+        // 重复的句子对象需展开写出，不能输出为 $ref 引用
+        return JSON.toJSONString(fixture, SerializerFeature.DisableCircularReferenceDetect).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @FunctionalInterface
+    private interface Extraction {
+        String run() throws IOException;
+    }
+
+    // ========== 原有做法绑定的查询响应结构 ==========
+
+    @Data
+    public static class Query {
+        private QueryData data;
+    }
+
+    @Data
+    public static class QueryData {
+        private Result result;
+    }
+
+    @Data
+    public static class Result {
+        private List<Lattice> lattice;
+        private List<Lattice> lattice2;
+    }
+
+    @Data
+    public static class Lattice {
+        @JSONField(name = "json_1best")
+        private Json1Best json1best;
+    }
+
+    @Data
+    public static class Json1Best {
+        private St st;
+    }
+
+    @Data
+    public static class St {
+        private List<XfyunRtasrResponse.Rt> rt;
+    }
+}
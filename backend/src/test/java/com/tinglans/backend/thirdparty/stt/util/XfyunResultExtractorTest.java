@@ -0,0 +1,101 @@
+package com.tinglans.backend.thirdparty.stt.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * XfyunResultExtractor 单元测试
+ */
+class XfyunResultExtractorTest {
+
+    @Test
+    void testExtract_recordedResponse() throws IOException {
+        // Given - 已完成任务的查询响应（lattice 与 lattice2 内容相同，只应读取 lattice）
+        byte[] body = Files.readAllBytes(Path.of("src/test/resources/xfyun-query-response.json"));
+
+        // When
+        XfyunResultExtractor.QueryResult result = XfyunResultExtractor.extract(new ByteArrayInputStream(body));
+
+        // Then - 每个词只取第一个候选
+        assertEquals(0, result.code());
+        assertEquals("success", result.message());
+        assertEquals("4", result.taskStatus());
+        assertTrue(result.isFinished());
+        assertEquals("我想去北京玩三天，预算五千块。喜欢美食和动漫。", result.text());
+    }
+
+    @Test
+    void testExtract_pendingTask() throws IOException {
+        // Given
+        String body = "{\"code\":0,\"data\":{\"task_id\":\"t-1\",\"task_status\":\"2\",\"result\":null},\"message\":\"success\"}";
+
+        // When
+        XfyunResultExtractor.QueryResult result = XfyunResultExtractor.extract(body);
+
+        // Then
+        assertFalse(result.isFinished());
+        assertEquals("2", result.taskStatus());
+        assertEquals("", result.text());
+    }
+
+    @Test
+    void testExtract_errorResponse() throws IOException {
+        // Given
+        String body = "{\"code\":10106,\"message\":\"invalid parameter\",\"sid\":\"s-1\"}";
+
+        // When
+        XfyunResultExtractor.QueryResult result = XfyunResultExtractor.extract(body);
+
+        // Then
+        assertEquals(10106, result.code());
+        assertEquals("invalid parameter", result.message());
+        assertNull(result.taskStatus());
+    }
+
+    @Test
+    void testExtract_toleratesNestedStringAndUnexpectedShapes() throws IOException {
+        // Given - json_1best 以字符串嵌套、cw 为空、未知字段含嵌套对象、数值型任务状态
+        String body = """
+                {"data":{"task_status":3,"extra":{"a":[1,{"b":2}]},"result":{"lattice":[
+                  {"json_1best":"{\\"st\\":{\\"rt\\":[{\\"ws\\":[{\\"cw\\":[{\\"w\\":\\"你好\\"}]}]}]}}"},
+                  {"json_1best":{"st":{"rt":[{"ws":[{"cw":[]},{"wb":1,"cw":[{"wp":"n","w":"世界"},{"w":"视界"}]}]}]}}},
+                  {"json_1best":null},
+                  "unexpected"
+                ]}},"code":0}
+                """;
+
+        // When
+        XfyunResultExtractor.QueryResult result = XfyunResultExtractor.extract(body);
+
+        // Then
+        assertEquals(0, result.code());
+        assertEquals("3", result.taskStatus());
+        assertEquals("你好世界", result.text());
+    }
+
+    @Test
+    void testExtract_doesNotCloseStream() throws IOException {
+        // Given
+        boolean[] closed = {false};
+        InputStream body = new ByteArrayInputStream("{\"code\":0}".getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+
+        // When
+        XfyunResultExtractor.extract(body);
+
+        // Then
+        assertFalse(closed[0]);
+    }
+}
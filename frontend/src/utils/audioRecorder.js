@@ -1,9 +1,11 @@
 /**
  * 音频录制工具类
  * 使用 Web Audio API 录制音频并转换为 WAV 格式
+ * 可通过 options.onChunk 实时获取每段 16kHz 16bit 单声道 PCM 数据（用于流式识别）
  */
 class AudioRecorder {
-  constructor() {
+  constructor(options = {}) {
+    this.onChunk = options.onChunk || null
     this.audioContext = null
     this.mediaStream = null
     this.scriptProcessor = null
@@ -48,6 +50,9 @@ class AudioRecorder {
         // 降采样到 16kHz
         const downsampled = this.downsample(inputData, this.audioContext.sampleRate, this.sampleRate)
         this.audioData.push(downsampled)
+        if (this.onChunk) {
+          this.onChunk(this.floatTo16BitPCM(downsampled).buffer)
+        }
       }
       
       // 连接节点
@@ -0,0 +1,116 @@
+/**
+ * 实时语音转写工具类
+ * 通过 WebSocket 将 16kHz 16bit 单声道 PCM 发送到后端，并实时接收识别结果
+ * 协议：二进制消息为音频数据，文本消息 "end" 表示音频发送完毕；
+ * 服务端推送 {"type": "partial" | "final" | "error", "text", "message"}
+ */
+class SpeechStream {
+  constructor(socket, onPartial) {
+    this.socket = socket
+    this.onPartial = onPartial
+    this.finalText = null
+    this.error = null
+    this.closed = false
+    this.waiters = []
+
+    socket.onmessage = (event) => {
+      let message
+      try {
+        message = JSON.parse(event.data)
+      } catch (e) {
+        return
+      }
+      if (message.type === 'partial') {
+        if (this.onPartial) {
+          this.onPartial(message.text || '')
+        }
+      } else if (message.type === 'final') {
+        this.finalText = message.text || ''
+      } else if (message.type === 'error') {
+        this.error = new Error(message.message || '实时语音识别失败')
+      }
+    }
+
+    socket.onclose = () => {
+      this.closed = true
+      this.waiters.forEach(waiter => waiter())
+      this.waiters = []
+    }
+  }
+
+  /**
+   * 建立连接，超时或失败时 reject
+   */
+  static connect({ onPartial, timeout = 3000 } = {}) {
+    return new Promise((resolve, reject) => {
+      if (!window.WebSocket) {
+        reject(new Error('浏览器不支持 WebSocket'))
+        return
+      }
+
+      const protocol = window.location.protocol === 'https:' ? 'wss' : 'ws'
+      const token = encodeURIComponent(localStorage.getItem('token') || '')
+      const socket = new WebSocket(`${protocol}://${window.location.host}/api/speech/stream?token=${token}`)
+      socket.binaryType = 'arraybuffer'
+
+      const timer = setTimeout(() => {
+        socket.close()
+        reject(new Error('实时语音识别连接超时'))
+      }, timeout)
+
+      socket.onopen = () => {
+        clearTimeout(timer)
+        resolve(new SpeechStream(socket, onPartial))
+      }
+      socket.onerror = () => {
+        clearTimeout(timer)
+        reject(new Error('实时语音识别连接失败'))
+      }
+    })
+  }
+
+  /**
+   * 发送一段 PCM 音频
+   */
+  send(buffer) {
+    if (this.socket.readyState === WebSocket.OPEN) {
+      this.socket.send(buffer)
+    }
+  }
+
+  /**
+   * 通知音频结束，等待最终识别结果
+   */
+  finish() {
+    if (this.socket.readyState === WebSocket.OPEN) {
+      this.socket.send('end')
+    }
+    return new Promise((resolve, reject) => {
+      const settle = () => {
+        if (this.error) {
+          reject(this.error)
+        } else if (this.finalText !== null) {
+          resolve(this.finalText)
+        } else {
+          reject(new Error('实时语音识别连接已断开'))
+        }
+      }
+      if (this.closed) {
+        settle()
+      } else {
+        this.waiters.push(settle)
+      }
+    })
+  }
+
+  /**
+   * 关闭连接
+   */
+  close() {
+    if (!this.closed) {
+      this.socket.close()
+    }
+  }
+}
+
+export default SpeechStream